@@ -0,0 +1,61 @@
+package com.github.gv2011.asn1.bench;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler enabled, so that every result is accompanied
+ * by its normalized allocation rate (gc.alloc.rate.norm, bytes per operation).
+ * <p>
+ * Takes the usual JMH command line options, e.g. a benchmark regex or "-rf json -rff result.json".
+ */
+public final class BenchmarkMain
+{
+    private BenchmarkMain(){}
+
+    public static void main(final String[] args) throws Exception
+    {
+        final CommandLineOptions cmd = new CommandLineOptions(args);
+        final ChainedOptionsBuilder options = new OptionsBuilder()
+            .parent(cmd)
+            .addProfiler(GCProfiler.class);
+        if (!cmd.getResultFormat().hasValue())
+        {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,140 @@
+package com.github.gv2011.asn1.bench;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.gv2011.asn1.util.Strings;
+import com.github.gv2011.asn1.util.encoders.Base64;
+import com.github.gv2011.asn1.util.encoders.Hex;
+import com.github.gv2011.util.bytes.Bytes;
+
+/**
+ * Base64 and Hex coding of a certificate, with java.util.Base64 as reference, and UTF-8
+ * coding of typical name attributes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark
+{
+    private Bytes data;
+    private byte[] array;
+    private String base64;
+    private String hex;
+    private ByteBuffer encoded;
+    private ByteBuffer decoded;
+    private Bytes asciiName;
+    private Bytes latinName;
+
+    @Setup
+    public void setup()
+    {
+        data = Samples.get(Samples.CERTIFICATE);
+        array = data.toByteArray();
+        base64 = Base64.toBase64String(data);
+        hex = Strings.fromByteArray(Hex.encode(data));
+        encoded = ByteBuffer.wrap(Strings.toByteArray(base64).toByteArray());
+        decoded = ByteBuffer.allocate(array.length);
+        // views into a larger buffer, as the parser produces them
+        asciiName = Strings.toUTF8ByteArray("#Example Certification Authority Ltd").subList(1);
+        latinName = Strings.toUTF8ByteArray("#Z\u00fcrcher Kantonalbank Zertifizierungsstelle").subList(1);
+    }
+
+    @Benchmark
+    public Bytes base64Encode()
+    {
+        return Base64.encode(data);
+    }
+
+    @Benchmark
+    public Bytes base64Decode()
+    {
+        return Base64.decode(base64);
+    }
+
+    @Benchmark
+    public int base64DecodeBuffer()
+    {
+        decoded.clear();
+        return Base64.decode(encoded.duplicate(), decoded);
+    }
+
+    @Benchmark
+    public byte[] jdkBase64Decode()
+    {
+        return java.util.Base64.getDecoder().decode(base64);
+    }
+
+    @Benchmark
+    public Bytes hexEncode()
+    {
+        return Hex.encode(data);
+    }
+
+    @Benchmark
+    public Bytes hexDecode()
+    {
+        return Hex.decode(hex);
+    }
+
+    @Benchmark
+    public String utf8DecodeAscii()
+    {
+        return Strings.fromUTF8ByteArray(asciiName);
+    }
+
+    @Benchmark
+    public String utf8DecodeLatin()
+    {
+        return Strings.fromUTF8ByteArray(latinName);
+    }
+
+    @Benchmark
+    public Bytes utf8Encode()
+    {
+        return Strings.toUTF8ByteArray("Z\u00fcrcher Kantonalbank Zertifizierungsstelle");
+    }
+}
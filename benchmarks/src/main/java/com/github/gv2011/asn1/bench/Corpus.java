@@ -0,0 +1,301 @@
+package com.github.gv2011.asn1.bench;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import static com.github.gv2011.util.bytes.ByteUtils.newBytes;
+import static com.github.gv2011.util.ex.Exceptions.call;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.SecureRandom;
+import java.security.Signature;
+import java.util.Date;
+
+import com.github.gv2011.asn1.ASN1Boolean;
+import com.github.gv2011.asn1.ASN1Encodable;
+import com.github.gv2011.asn1.ASN1EncodableVector;
+import com.github.gv2011.asn1.ASN1Enumerated;
+import com.github.gv2011.asn1.ASN1Integer;
+import com.github.gv2011.asn1.ASN1ObjectIdentifier;
+import com.github.gv2011.asn1.ASN1Primitive;
+import com.github.gv2011.asn1.ASN1UTCTime;
+import com.github.gv2011.asn1.DERBitString;
+import com.github.gv2011.asn1.DERNull;
+import com.github.gv2011.asn1.DEROctetString;
+import com.github.gv2011.asn1.DERPrintableString;
+import com.github.gv2011.asn1.DERSequence;
+import com.github.gv2011.asn1.DERSet;
+import com.github.gv2011.asn1.DERTaggedObject;
+import com.github.gv2011.asn1.DERUTF8String;
+import com.github.gv2011.util.bytes.Bytes;
+
+/**
+ * Generates a corpus of realistic DER structures (X.509 certificates, CRLs and CMS SignedData)
+ * for the benchmarks. Keys are generated from a fixed seed, so the sizes and shapes of the
+ * generated structures are stable from run to run.
+ */
+public final class Corpus
+{
+    private static final ASN1ObjectIdentifier SHA256_WITH_RSA = new ASN1ObjectIdentifier("1.2.840.113549.1.1.11");
+    private static final ASN1ObjectIdentifier SHA256 = new ASN1ObjectIdentifier("2.16.840.1.101.3.4.2.1");
+    private static final ASN1ObjectIdentifier RSA = new ASN1ObjectIdentifier("1.2.840.113549.1.1.1");
+    private static final ASN1ObjectIdentifier DATA = new ASN1ObjectIdentifier("1.2.840.113549.1.7.1");
+    private static final ASN1ObjectIdentifier SIGNED_DATA = new ASN1ObjectIdentifier("1.2.840.113549.1.7.2");
+    private static final ASN1ObjectIdentifier CONTENT_TYPE = new ASN1ObjectIdentifier("1.2.840.113549.1.9.3");
+    private static final ASN1ObjectIdentifier MESSAGE_DIGEST = new ASN1ObjectIdentifier("1.2.840.113549.1.9.4");
+    private static final ASN1ObjectIdentifier SIGNING_TIME = new ASN1ObjectIdentifier("1.2.840.113549.1.9.5");
+
+    private static final ASN1ObjectIdentifier COUNTRY = new ASN1ObjectIdentifier("2.5.4.6");
+    private static final ASN1ObjectIdentifier ORGANIZATION = new ASN1ObjectIdentifier("2.5.4.10");
+    private static final ASN1ObjectIdentifier ORGANIZATIONAL_UNIT = new ASN1ObjectIdentifier("2.5.4.11");
+    private static final ASN1ObjectIdentifier COMMON_NAME = new ASN1ObjectIdentifier("2.5.4.3");
+
+    private static final ASN1ObjectIdentifier SUBJECT_KEY_ID = new ASN1ObjectIdentifier("2.5.29.14");
+    private static final ASN1ObjectIdentifier KEY_USAGE = new ASN1ObjectIdentifier("2.5.29.15");
+    private static final ASN1ObjectIdentifier SUBJECT_ALT_NAME = new ASN1ObjectIdentifier("2.5.29.17");
+    private static final ASN1ObjectIdentifier BASIC_CONSTRAINTS = new ASN1ObjectIdentifier("2.5.29.19");
+    private static final ASN1ObjectIdentifier CRL_NUMBER = new ASN1ObjectIdentifier("2.5.29.20");
+    private static final ASN1ObjectIdentifier REASON_CODE = new ASN1ObjectIdentifier("2.5.29.21");
+    private static final ASN1ObjectIdentifier AUTHORITY_KEY_ID = new ASN1ObjectIdentifier("2.5.29.35");
+
+    private static final long NOW = 1_700_000_000_000L;
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    private final SecureRandom random;
+    private final KeyPair caKey;
+    private final KeyPair eeKey;
+
+    public Corpus()
+    {
+        random = call(()->SecureRandom.getInstance("SHA1PRNG"));
+        random.setSeed(2011L);
+        caKey = generateKeyPair();
+        eeKey = generateKeyPair();
+    }
+
+    private KeyPair generateKeyPair()
+    {
+        final KeyPairGenerator generator = call(()->KeyPairGenerator.getInstance("RSA"));
+        generator.initialize(2048, random);
+        return generator.generateKeyPair();
+    }
+
+    /**
+     * An end entity certificate with the usual extensions and the given number of subject alternative names.
+     */
+    public Bytes certificate(final int altNames)
+    {
+        return certificateObject(altNames).getDerEncoded();
+    }
+
+    ASN1Primitive certificateObject(final int altNames)
+    {
+        final ASN1EncodableVector names = new ASN1EncodableVector();
+        for (int i = 0; i < altNames; i++)
+        {
+            names.add(new DERTaggedObject(false, 2, new DERUTF8String("host" + i + ".services.example.com")));
+        }
+
+        final ASN1EncodableVector extensions = new ASN1EncodableVector();
+        extensions.add(extension(BASIC_CONSTRAINTS, true, new DERSequence()));
+        extensions.add(extension(KEY_USAGE, true, new DERBitString(newBytes((byte)0xa0), 5)));
+        extensions.add(extension(SUBJECT_KEY_ID, false, new DEROctetString(randomBytes(20))));
+        extensions.add(extension(AUTHORITY_KEY_ID, false,
+            new DERSequence(new DERTaggedObject(false, 0, new DEROctetString(randomBytes(20))))));
+        extensions.add(extension(SUBJECT_ALT_NAME, false, new DERSequence(names)));
+
+        final ASN1Encodable[] tbs = new ASN1Encodable[]{
+            new DERTaggedObject(true, 0, new ASN1Integer(2)),
+            new ASN1Integer(new BigInteger(128, random)),
+            algorithm(SHA256_WITH_RSA),
+            name("Example Issuing CA"),
+            new DERSequence(new ASN1Encodable[]{
+                new ASN1UTCTime(new Date(NOW)),
+                new ASN1UTCTime(new Date(NOW + 365 * DAY))
+            }),
+            name("www.services.example.com"),
+            ASN1Primitive.fromBytes(newBytes(eeKey.getPublic().getEncoded())),
+            new DERTaggedObject(true, 3, new DERSequence(extensions))
+        };
+        return signed(new DERSequence(tbs));
+    }
+
+    /**
+     * A CRL listing the given number of revoked certificates, each with a reason code entry extension.
+     */
+    public Bytes crl(final int revoked)
+    {
+        final ASN1Encodable[] entries = new ASN1Encodable[revoked];
+        for (int i = 0; i < revoked; i++)
+        {
+            entries[i] = new DERSequence(new ASN1Encodable[]{
+                new ASN1Integer(new BigInteger(64 + (i % 64), random)),
+                new ASN1UTCTime(new Date(NOW - (i % 1000) * DAY)),
+                new DERSequence(extension(REASON_CODE, false, new ASN1Enumerated(i % 6)))
+            });
+        }
+
+        final ASN1Encodable[] tbs = new ASN1Encodable[]{
+            new ASN1Integer(1),
+            algorithm(SHA256_WITH_RSA),
+            name("Example Issuing CA"),
+            new ASN1UTCTime(new Date(NOW)),
+            new ASN1UTCTime(new Date(NOW + 7 * DAY)),
+            new DERSequence(entries),
+            new DERTaggedObject(true, 0, new DERSequence(extension(CRL_NUMBER, false, new ASN1Integer(4711))))
+        };
+        return signed(new DERSequence(tbs)).getDerEncoded();
+    }
+
+    /**
+     * A CMS SignedData message encapsulating the given number of content bytes and carrying
+     * the signer certificate and the given number of further chain certificates.
+     */
+    public Bytes cms(final int contentSize, final int chainCertificates)
+    {
+        final Bytes content = randomBytes(contentSize);
+
+        final ASN1EncodableVector certificates = new ASN1EncodableVector();
+        certificates.add(certificateObject(4));
+        for (int i = 0; i < chainCertificates; i++)
+        {
+            certificates.add(certificateObject(1));
+        }
+
+        final DERSet signedAttributes = new DERSet(new ASN1Encodable[]{
+            attribute(CONTENT_TYPE, DATA),
+            attribute(SIGNING_TIME, new ASN1UTCTime(new Date(NOW))),
+            attribute(MESSAGE_DIGEST, new DEROctetString(
+                newBytes(call(()->MessageDigest.getInstance("SHA-256")).digest(content.toByteArray()))))
+        });
+
+        final ASN1Encodable signerInfo = new DERSequence(new ASN1Encodable[]{
+            new ASN1Integer(1),
+            new DERSequence(new ASN1Encodable[]{name("Example Issuing CA"), new ASN1Integer(new BigInteger(128, random))}),
+            algorithm(SHA256),
+            new DERTaggedObject(false, 0, signedAttributes),
+            algorithm(RSA),
+            new DEROctetString(sign(caKey.getPrivate(), signedAttributes.getDerEncoded()))
+        });
+
+        final ASN1Encodable signedData = new DERSequence(new ASN1Encodable[]{
+            new ASN1Integer(1),
+            new DERSet(algorithm(SHA256)),
+            new DERSequence(new ASN1Encodable[]{DATA, new DERTaggedObject(true, 0, new DEROctetString(content))}),
+            new DERTaggedObject(false, 0, new DERSet(certificates)),
+            new DERSet(signerInfo)
+        });
+
+        return new DERSequence(new ASN1Encodable[]{SIGNED_DATA, new DERTaggedObject(true, 0, signedData)}).getDerEncoded();
+    }
+
+    /**
+     * Random OCTET STRING, INTEGER and UTF8String members for SET OF sorting.
+     */
+    public ASN1Encodable[] setMembers(final int count)
+    {
+        final ASN1Encodable[] members = new ASN1Encodable[count];
+        for (int i = 0; i < count; i++)
+        {
+            switch (i % 3)
+            {
+                case 0:
+                    members[i] = new DEROctetString(randomBytes(8 + random.nextInt(56)));
+                    break;
+                case 1:
+                    members[i] = new ASN1Integer(new BigInteger(32 + random.nextInt(96), random));
+                    break;
+                default:
+                    members[i] = new DERUTF8String("member-" + random.nextInt());
+            }
+        }
+        return members;
+    }
+
+    private DERSequence signed(final DERSequence tbs)
+    {
+        return new DERSequence(new ASN1Encodable[]{
+            tbs,
+            algorithm(SHA256_WITH_RSA),
+            new DERBitString(sign(caKey.getPrivate(), tbs.getDerEncoded()))
+        });
+    }
+
+    private Bytes sign(final PrivateKey key, final Bytes data)
+    {
+        final Signature signature = call(()->Signature.getInstance("SHA256withRSA"));
+        call(()->signature.initSign(key));
+        call(()->signature.update(data.toByteArray()));
+        return newBytes(call(()->signature.sign()));
+    }
+
+    private Bytes randomBytes(final int size)
+    {
+        final byte[] bytes = new byte[size];
+        random.nextBytes(bytes);
+        return newBytes(bytes);
+    }
+
+    private static ASN1Encodable algorithm(final ASN1ObjectIdentifier oid)
+    {
+        return new DERSequence(new ASN1Encodable[]{oid, DERNull.INSTANCE});
+    }
+
+    private static ASN1Encodable attribute(final ASN1ObjectIdentifier type, final ASN1Encodable value)
+    {
+        return new DERSequence(new ASN1Encodable[]{type, new DERSet(value)});
+    }
+
+    private static ASN1Encodable extension(
+        final ASN1ObjectIdentifier oid, final boolean critical, final ASN1Encodable value)
+    {
+        return critical
+            ? new DERSequence(new ASN1Encodable[]{oid, ASN1Boolean.TRUE, new DEROctetString(value)})
+            : new DERSequence(new ASN1Encodable[]{oid, new DEROctetString(value)});
+    }
+
+    private static ASN1Encodable name(final String commonName)
+    {
+        return new DERSequence(new ASN1Encodable[]{
+            rdn(COUNTRY, new DERPrintableString("CH")),
+            rdn(ORGANIZATION, new DERUTF8String("Example Organisation")),
+            rdn(ORGANIZATIONAL_UNIT, new DERUTF8String("Certificate Services")),
+            rdn(COMMON_NAME, new DERUTF8String(commonName))
+        });
+    }
+
+    private static ASN1Encodable rdn(final ASN1ObjectIdentifier type, final ASN1Encodable value)
+    {
+        return new DERSet(new DERSequence(new ASN1Encodable[]{type, value}));
+    }
+}
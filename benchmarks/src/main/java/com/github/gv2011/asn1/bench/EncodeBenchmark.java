@@ -0,0 +1,96 @@
+package com.github.gv2011.asn1.bench;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.gv2011.asn1.ASN1EncodingCache;
+import com.github.gv2011.asn1.ASN1Primitive;
+import com.github.gv2011.util.bytes.Bytes;
+
+/**
+ * Encoding of object trees, both as parsed from DER and as built up by an application, and
+ * of trees parsed with the {@link ASN1EncodingCache} enabled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodeBenchmark
+{
+    @Param({Samples.CERTIFICATE, Samples.CRL, Samples.CMS})
+    public String sample;
+
+    private ASN1Primitive parsed;
+    private ASN1Primitive cached;
+
+    @Setup
+    public void setup()
+    {
+        final Bytes encoded = Samples.get(sample);
+        parsed = ASN1Primitive.fromBytes(encoded);
+
+        ASN1EncodingCache.enable(1 << 20);
+        cached = ASN1Primitive.fromBytes(encoded);
+        ASN1EncodingCache.disable();
+    }
+
+    @Benchmark
+    public Bytes getEncoded()
+    {
+        return parsed.getEncoded();
+    }
+
+    @Benchmark
+    public Bytes getDerEncoded()
+    {
+        return parsed.getDerEncoded();
+    }
+
+    @Benchmark
+    public Bytes cachedGetDerEncoded()
+    {
+        return cached.getDerEncoded();
+    }
+}
@@ -0,0 +1,195 @@
+package com.github.gv2011.asn1.bench;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.gv2011.asn1.ASN1ApplicationSpecificParser;
+import com.github.gv2011.asn1.ASN1BufferParser;
+import com.github.gv2011.asn1.ASN1Encodable;
+import com.github.gv2011.asn1.ASN1InputStream;
+import com.github.gv2011.asn1.ASN1OctetStringParser;
+import com.github.gv2011.asn1.ASN1ParallelParser;
+import com.github.gv2011.asn1.ASN1Primitive;
+import com.github.gv2011.asn1.ASN1PullParser;
+import com.github.gv2011.asn1.ASN1SequenceParser;
+import com.github.gv2011.asn1.ASN1SetParser;
+import com.github.gv2011.asn1.ASN1StreamParser;
+import com.github.gv2011.asn1.InMemoryRepresentable;
+import com.github.gv2011.asn1.util.io.ByteBufferBytes;
+import com.github.gv2011.util.bytes.Bytes;
+
+/**
+ * Parsing of complete DER structures into object trees and with the streaming parser.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark
+{
+    @Param({Samples.CERTIFICATE, Samples.CRL, Samples.CMS})
+    public String sample;
+
+    private Bytes encoded;
+    private ByteBuffer buffer;
+    private ASN1PullParser pullParser;
+    private ASN1ParallelParser parallelParser;
+    private Bytes view;
+
+    @Setup
+    public void setup()
+    {
+        encoded = Samples.get(sample);
+        buffer = ByteBuffer.wrap(encoded.toByteArray());
+        pullParser = new ASN1PullParser(buffer);
+        parallelParser = new ASN1ParallelParser(ForkJoinPool.commonPool(), 16 * 1024);
+        view = ByteBufferBytes.wrap(buffer);
+    }
+
+    @Benchmark
+    public ASN1Primitive inputStreamReadObject() throws IOException
+    {
+        try(final ASN1InputStream in = new ASN1InputStream(encoded))
+        {
+            return in.readObject();
+        }
+    }
+
+    @Benchmark
+    public ASN1Primitive bufferParserReadObject()
+    {
+        return new ASN1BufferParser(buffer).readObject();
+    }
+
+    @Benchmark
+    public ASN1Primitive parallelParse()
+    {
+        return parallelParser.parse(view);
+    }
+
+    @Benchmark
+    public long pullParser()
+    {
+        final ASN1PullParser parser = pullParser.reset(buffer);
+        long sum = 0;
+        int event;
+        while ((event = parser.next()) != ASN1PullParser.END_DOCUMENT)
+        {
+            sum += event + parser.getLength();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public ASN1Primitive primitiveFromBytes()
+    {
+        return ASN1Primitive.fromBytes(encoded);
+    }
+
+    @Benchmark
+    public void streamParser(final Blackhole bh) throws IOException
+    {
+        final ASN1StreamParser parser = new ASN1StreamParser(encoded);
+        ASN1Encodable obj;
+        while ((obj = parser.readObject()) != null)
+        {
+            walk(obj, bh);
+        }
+    }
+
+    private static void walk(final ASN1Encodable obj, final Blackhole bh) throws IOException
+    {
+        if (obj instanceof ASN1SequenceParser)
+        {
+            final ASN1SequenceParser parser = (ASN1SequenceParser)obj;
+            ASN1Encodable child;
+            while ((child = parser.readObject()) != null)
+            {
+                walk(child, bh);
+            }
+        }
+        else if (obj instanceof ASN1SetParser)
+        {
+            final ASN1SetParser parser = (ASN1SetParser)obj;
+            ASN1Encodable child;
+            while ((child = parser.readObject()) != null)
+            {
+                walk(child, bh);
+            }
+        }
+        else if (obj instanceof ASN1ApplicationSpecificParser)
+        {
+            final ASN1ApplicationSpecificParser parser = (ASN1ApplicationSpecificParser)obj;
+            ASN1Encodable child;
+            while ((child = parser.readObject()) != null)
+            {
+                walk(child, bh);
+            }
+        }
+        else if (obj instanceof ASN1OctetStringParser)
+        {
+            final byte[] buf = new byte[1024];
+            final InputStream content = ((ASN1OctetStringParser)obj).getOctetStream();
+            int read;
+            while ((read = content.read(buf)) >= 0)
+            {
+                bh.consume(read);
+            }
+        }
+        else if (obj instanceof InMemoryRepresentable)
+        {
+            bh.consume(((InMemoryRepresentable)obj).getLoadedObject());
+        }
+        else
+        {
+            bh.consume(obj);
+        }
+    }
+}
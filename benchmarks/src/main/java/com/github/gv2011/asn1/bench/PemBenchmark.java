@@ -0,0 +1,113 @@
+package com.github.gv2011.asn1.bench;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.gv2011.asn1.util.io.pem.PemObject;
+import com.github.gv2011.asn1.util.io.pem.PemReader;
+import com.github.gv2011.asn1.util.io.pem.PemScanner;
+import com.github.gv2011.asn1.util.io.pem.PemWriter;
+
+/**
+ * Reading a bundle of 1000 PEM certificates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PemBenchmark
+{
+    private byte[] bundle;
+
+    @Setup
+    public void setup()
+        throws IOException
+    {
+        final PemObject cert = new PemObject("CERTIFICATE", Samples.get(Samples.CERTIFICATE));
+        final StringWriter out = new StringWriter();
+        final PemWriter writer = new PemWriter(out);
+        for (int i = 0; i != 1000; i++)
+        {
+            writer.writeObject(cert);
+        }
+        writer.flush();
+        bundle = out.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Benchmark
+    public int reader()
+    {
+        final PemReader reader = new PemReader(
+            new InputStreamReader(new ByteArrayInputStream(bundle), StandardCharsets.US_ASCII));
+        int size = 0;
+        for (PemObject obj = reader.readPemObject(); obj != null; obj = reader.readPemObject())
+        {
+            size += obj.getContent().size();
+        }
+        return size;
+    }
+
+    @Benchmark
+    public int scanner()
+    {
+        final PemScanner scanner = new PemScanner(new ByteArrayInputStream(bundle));
+        int size = 0;
+        while (scanner.next())
+        {
+            size += scanner.getContent().remaining();
+        }
+        return size;
+    }
+
+    @Benchmark
+    public long scannerObjects()
+    {
+        return new PemScanner(new ByteArrayInputStream(bundle)).objects(false).count();
+    }
+}
@@ -0,0 +1,89 @@
+package com.github.gv2011.asn1.bench;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import static com.github.gv2011.util.bytes.ByteUtils.newBytes;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.github.gv2011.util.bytes.Bytes;
+
+/**
+ * The named samples the benchmarks run against. They are generated once per JVM.
+ */
+final class Samples
+{
+    static final String CERTIFICATE = "certificate";
+    static final String CRL = "crl";
+    static final String CMS = "cms";
+
+    private static final Map<String, Bytes> SAMPLES = new ConcurrentHashMap<>();
+
+    private static Corpus corpus;
+
+    private Samples(){}
+
+    /**
+     * The encoding of the named sample. It is always copied to the heap: large encodings built by
+     * a BytesBuilder are backed by a temporary file, which is not what a parser sees in production.
+     */
+    static Bytes get(final String name)
+    {
+        return SAMPLES.computeIfAbsent(name, n->newBytes(generate(n).toByteArray()));
+    }
+
+    static synchronized Corpus corpus()
+    {
+        if (corpus == null)
+        {
+            corpus = new Corpus();
+        }
+        return corpus;
+    }
+
+    private static Bytes generate(final String name)
+    {
+        switch (name)
+        {
+            case CERTIFICATE:
+                // a typical TLS server certificate, about 1.5 KB
+                return corpus().certificate(8);
+            case CRL:
+                // a medium size CRL, about 100 KB
+                return corpus().crl(2000);
+            case CMS:
+                // SignedData with 16 KB content and a three certificate chain, about 22 KB
+                return corpus().cms(16 * 1024, 2);
+            default:
+                throw new IllegalArgumentException("unknown sample " + name);
+        }
+    }
+}
@@ -26,9 +26,7 @@ package com.github.gv2011.asn1;
  * DEALINGS IN THE SOFTWARE.
  * #L%
  */
-import static com.github.gv2011.util.bytes.ByteUtils.newBytes;
-
-
+import com.github.gv2011.asn1.util.io.ByteBufferBytes;
 import com.github.gv2011.util.bytes.Bytes;
 
 /**
@@ -133,10 +131,9 @@ public abstract class ASN1ApplicationSpecific
      * @return  the resulting object
      * @throws IOException if reconstruction fails.
      */
-    @SuppressWarnings("resource")
     public ASN1Primitive getObject()
     {
-        return new ASN1InputStream(getContents()).readObject();
+        return new ASN1BufferParser(getContents()).readObject();
     }
 
     /**
@@ -146,7 +143,6 @@ public abstract class ASN1ApplicationSpecific
      * @return  the resulting object
      * @throws IOException if reconstruction fails.
      */
-    @SuppressWarnings("resource")
     public ASN1Primitive getObject(final int derTagNo)
     {
         if (derTagNo >= 0x1f)
@@ -162,7 +158,7 @@ public abstract class ASN1ApplicationSpecific
             tmp[0] |= BERTags.CONSTRUCTED;
         }
 
-        return new ASN1InputStream(newBytes(tmp)).readObject();
+        return new ASN1BufferParser(ByteBufferBytes.wrap(tmp)).readObject();
     }
 
     @Override
@@ -31,7 +31,6 @@ package com.github.gv2011.asn1;
 
 import static com.github.gv2011.util.bytes.ByteUtils.emptyBytes;
 import static com.github.gv2011.util.bytes.ByteUtils.newBytes;
-import static com.github.gv2011.util.ex.Exceptions.call;
 
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
@@ -274,7 +273,7 @@ public abstract class ASN1BitString
             throw new IllegalArgumentException("truncated BIT STRING detected");
         }
 
-        final int padBits = call(()->stream.read());
+        final int padBits = StreamUtil.read(stream);
         final byte[] data = new byte[length - 1];
 
         if (data.length != 0)
@@ -296,6 +295,28 @@ public abstract class ASN1BitString
         return new DERBitString(newBytes(data), padBits);
     }
 
+    static ASN1BitString fromOctetString(final Bytes contents)
+    {
+        if (contents.size() < 1)
+        {
+            throw new IllegalArgumentException("truncated BIT STRING detected");
+        }
+
+        final int padBits = contents.getByte(0) & 0xff;
+        final Bytes data = contents.subList(1, contents.size());
+
+        if (data.size() != 0 && padBits > 0 && padBits < 8)
+        {
+            final byte last = data.getByte(data.size() - 1);
+            if (last != (byte)(last & (0xff << padBits)))
+            {
+                return new DLBitString(data, padBits);
+            }
+        }
+
+        return new DERBitString(data, padBits);
+    }
+
     public ASN1Primitive getLoadedObject()
     {
         return toASN1Primitive();
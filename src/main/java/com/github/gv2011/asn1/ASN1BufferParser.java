@@ -0,0 +1,499 @@
+package com.github.gv2011.asn1;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import java.nio.ByteBuffer;
+
+import com.github.gv2011.asn1.util.io.ByteBufferBytes;
+import com.github.gv2011.util.bytes.Bytes;
+
+/**
+ * A general purpose ASN.1 decoder for encodings that are already in memory. Unlike
+ * {@link ASN1InputStream} no intermediate streams are created: the parser walks the
+ * input by offset and the contents octets of primitive objects (OCTET STRING, INTEGER,
+ * the string types, ...) are zero-copy sub-views of the input. The parser returns the
+ * same object structure as ASN1InputStream and returns null after the last object.
+ * <p>
+ * As the results share the input, the input must not be modified while they are in use.
+ * </p>
+ */
+public class ASN1BufferParser
+    implements BERTags, ASN1Parser
+{
+    private final ByteBufferBytes input;
+    private final int end;
+    private final boolean lazyEvaluate;
+
+    private int pos;
+
+    /**
+     * Create a parser for the input bytes.
+     *
+     * @param input the ASN.1 encoded data.
+     */
+    public ASN1BufferParser(
+        final Bytes input)
+    {
+        this(input, false);
+    }
+
+    /**
+     * Create a parser for the input bytes. Input that is not already a {@link ByteBufferBytes}
+     * is copied once into a single array.
+     *
+     * @param input the ASN.1 encoded data.
+     * @param lazyEvaluate true if parsing inside constructed objects can be delayed.
+     */
+    public ASN1BufferParser(
+        final Bytes   input,
+        final boolean lazyEvaluate)
+    {
+        this(input instanceof ByteBufferBytes
+            ? (ByteBufferBytes)input
+            : ByteBufferBytes.wrap(input.toByteArray()), lazyEvaluate);
+    }
+
+    /**
+     * Create a parser for the remaining content of the buffer. The buffer's position is not changed.
+     *
+     * @param input buffer containing ASN.1 encoded data.
+     */
+    public ASN1BufferParser(
+        final ByteBuffer input)
+    {
+        this(ByteBufferBytes.wrap(input), false);
+    }
+
+    /**
+     * Create a parser for the remaining content of the buffer. The buffer's position is not changed.
+     *
+     * @param input buffer containing ASN.1 encoded data.
+     * @param lazyEvaluate true if parsing inside constructed objects can be delayed.
+     */
+    public ASN1BufferParser(
+        final ByteBuffer input,
+        final boolean    lazyEvaluate)
+    {
+        this(ByteBufferBytes.wrap(input), lazyEvaluate);
+    }
+
+    private ASN1BufferParser(
+        final ByteBufferBytes input,
+        final boolean         lazyEvaluate)
+    {
+        this.input = input;
+        this.end = input.size();
+        this.lazyEvaluate = lazyEvaluate;
+    }
+
+    /**
+     * Parse a single object that must span all of data.
+     *
+     * @param data the encoding.
+     * @return the object, null if data is empty.
+     */
+    public static ASN1Primitive parse(final Bytes data)
+    {
+        final ASN1BufferParser parser = new ASN1BufferParser(data);
+        final ASN1Primitive o = parser.readObject();
+        if (parser.getRemaining() != 0)
+        {
+            throw new ASN1Exception("Extra data detected in stream");
+        }
+        return o;
+    }
+
+    /**
+     * Return the number of input bytes not yet parsed.
+     *
+     * @return the remaining byte count.
+     */
+    public int getRemaining()
+    {
+        return end - pos;
+    }
+
+    @Override
+    public ASN1Primitive readObject()
+    {
+        if (pos >= end)
+        {
+            return null;
+        }
+        return readObject(end, false, lazyEvaluate);
+    }
+
+    /**
+     * Read the object starting at pos. The loaded flag selects the object types
+     * {@link ASN1StreamParser} produces, which ASN1InputStream uses inside tagged and
+     * indefinite-length objects.
+     */
+    private ASN1Primitive readObject(final int limit, final boolean loaded, final boolean lazy)
+    {
+        final int start = pos;
+        final int tag = read(limit);
+        if (tag == 0)
+        {
+            throw new ASN1ParsingException("unexpected end-of-contents marker");
+        }
+
+        final int tagNo = readTagNumber(tag, limit);
+        final boolean isConstructed = (tag & CONSTRUCTED) != 0;
+        final int length = readLength(limit);
+
+        if (length < 0) // indefinite-length method
+        {
+            if (!isConstructed)
+            {
+                throw new ASN1ParsingException("indefinite-length primitive encoding encountered");
+            }
+            return buildIndefinite(tag, tagNo, limit, loaded);
+        }
+
+        final int contentEnd = pos + length;
+        try
+        {
+            final ASN1Primitive obj = buildDefinite(tag, tagNo, isConstructed, contentEnd, loaded, lazy);
+            if (isConstructed && ASN1EncodingCache.isEnabled())
+            {
+                // primitives may be shared, constructed objects are always new
+                ASN1EncodingCache.putInput(obj, input.subList(start, contentEnd));
+            }
+            return obj;
+        }
+        catch (final IllegalArgumentException e)
+        {
+            throw new ASN1ParsingException("corrupted stream detected", e);
+        }
+        finally
+        {
+            pos = contentEnd;
+        }
+    }
+
+    private ASN1Primitive buildDefinite(
+        final int     tag,
+        final int     tagNo,
+        final boolean isConstructed,
+        final int     contentEnd,
+        final boolean loaded,
+        final boolean lazy)
+    {
+        if ((tag & APPLICATION) != 0)
+        {
+            return new DERApplicationSpecific(isConstructed, tagNo, contents(contentEnd));
+        }
+
+        if ((tag & TAGGED) != 0)
+        {
+            if (!isConstructed)
+            {
+                // Note: !CONSTRUCTED => IMPLICIT
+                return new DERTaggedObject(false, tagNo, new DEROctetString(contents(contentEnd)));
+            }
+            final ASN1EncodableVector v = readDefiniteVector(contentEnd, true);
+            return v.size() == 1
+                ?   new DERTaggedObject(true, tagNo, v.get(0))
+                :   new DERTaggedObject(false, tagNo, DERFactory.createSequence(v));
+        }
+
+        if (isConstructed)
+        {
+            // TODO There are other tags that may be constructed (e.g. BIT_STRING)
+            switch (tagNo)
+            {
+                case OCTET_STRING:
+                    //
+                    // yes, people actually do this...
+                    //
+                    if (loaded)
+                    {
+                        return new BEROctetString(concatenateOctets(readDefiniteVector(contentEnd, true)));
+                    }
+                    final ASN1EncodableVector v = readDefiniteVector(contentEnd, false);
+                    final ASN1OctetString[] strings = new ASN1OctetString[v.size()];
+
+                    for (int i = 0; i != strings.length; i++)
+                    {
+                        strings[i] = (ASN1OctetString)v.get(i);
+                    }
+
+                    return new BEROctetString(strings);
+                case SEQUENCE:
+                    if (loaded)
+                    {
+                        return new DERSequence(readDefiniteVector(contentEnd, true));
+                    }
+                    if (lazy)
+                    {
+                        return new LazyEncodedSequence(contents(contentEnd));
+                    }
+                    return DERFactory.createSequence(readDefiniteVector(contentEnd, false));
+                case SET:
+                    if (loaded)
+                    {
+                        return new DERSet(readDefiniteVector(contentEnd, true), false);
+                    }
+                    return DERFactory.createSet(readDefiniteVector(contentEnd, false));
+                case EXTERNAL:
+                    return createExternal(readDefiniteVector(contentEnd, loaded), loaded);
+                default:
+                    throw new ASN1ParsingException("unknown tag " + tagNo + " encountered");
+            }
+        }
+
+        switch (tagNo)
+        {
+            case BOOLEAN:
+            case ENUMERATED:
+            case OBJECT_IDENTIFIER:
+                // these may be cached or pooled, so they must not hold on to the input
+                return ASN1InputStream.createPrimitiveDERObject(
+                    tagNo, ByteBufferBytes.wrap(contents(contentEnd).toByteArray()));
+            default:
+                return ASN1InputStream.createPrimitiveDERObject(tagNo, contents(contentEnd));
+        }
+    }
+
+    private ASN1Primitive buildIndefinite(
+        final int     tag,
+        final int     tagNo,
+        final int     limit,
+        final boolean loaded)
+    {
+        final ASN1EncodableVector v = readIndefiniteVector(limit);
+
+        if ((tag & APPLICATION) != 0)
+        {
+            return new BERApplicationSpecific(tagNo, v);
+        }
+
+        if ((tag & TAGGED) != 0)
+        {
+            return v.size() == 1
+                ?   new BERTaggedObject(true, tagNo, v.get(0))
+                :   new BERTaggedObject(false, tagNo, BERFactory.createSequence(v));
+        }
+
+        // TODO There are other tags that may be constructed (e.g. BIT_STRING)
+        switch (tagNo)
+        {
+            case OCTET_STRING:
+                return new BEROctetString(concatenateOctets(v));
+            case SEQUENCE:
+                return new BERSequence(v);
+            case SET:
+                return new BERSet(v);
+            case EXTERNAL:
+                return createExternal(v, true);
+            default:
+                if (loaded)
+                {
+                    throw new ASN1Exception("unknown BER object encountered: 0x" + Integer.toHexString(tagNo));
+                }
+                throw new ASN1ParsingException("unknown BER object encountered");
+        }
+    }
+
+    private static ASN1Primitive createExternal(final ASN1EncodableVector v, final boolean loaded)
+    {
+        if (!loaded)
+        {
+            return new DERExternal(v);
+        }
+        try
+        {
+            return new DERExternal(v);
+        }
+        catch (final IllegalArgumentException e)
+        {
+            throw new ASN1Exception(e.getMessage(), e);
+        }
+    }
+
+    private ASN1EncodableVector readDefiniteVector(final int contentEnd, final boolean loaded)
+    {
+        final ASN1EncodableVector v = new ASN1EncodableVector();
+        while (pos < contentEnd)
+        {
+            v.add(readObject(contentEnd, loaded, false));
+        }
+        return v;
+    }
+
+    private ASN1EncodableVector readIndefiniteVector(final int limit)
+    {
+        final ASN1EncodableVector v = new ASN1EncodableVector();
+        while (true)
+        {
+            if (pos + 1 >= limit)
+            {
+                throw new ASN1ParsingException("EOF found before end-of-contents marker");
+            }
+            if (input.getByte(pos) == 0 && input.getByte(pos + 1) == 0)
+            {
+                pos += 2;
+                return v;
+            }
+            v.add(readObject(limit, true, false));
+        }
+    }
+
+    /**
+     * The concatenated contents of the segments of a constructed OCTET STRING. A single
+     * segment is returned without copying.
+     */
+    private static Bytes concatenateOctets(final ASN1EncodableVector v)
+    {
+        if (v.size() == 1)
+        {
+            return ((ASN1OctetString)v.get(0)).getOctets();
+        }
+
+        int length = 0;
+        for (int i = 0; i != v.size(); i++)
+        {
+            length += ((ASN1OctetString)v.get(i)).getOctets().size();
+        }
+
+        final byte[] octets = new byte[length];
+        int off = 0;
+        for (int i = 0; i != v.size(); i++)
+        {
+            final Bytes segment = ((ASN1OctetString)v.get(i)).getOctets();
+            off += segment.write(octets, off, segment.size());
+        }
+        return ByteBufferBytes.wrap(octets);
+    }
+
+    private Bytes contents(final int contentEnd)
+    {
+        return input.subList(pos, contentEnd);
+    }
+
+    private int read(final int limit)
+    {
+        return pos < limit ? input.getByte(pos++) & 0xff : -1;
+    }
+
+    private int readTagNumber(final int tag, final int limit)
+    {
+        int tagNo = tag & 0x1f;
+
+        //
+        // with tagged object tag number is bottom 5 bits, or stored at the start of the content
+        //
+        if (tagNo == 0x1f)
+        {
+            tagNo = 0;
+
+            int b = read(limit);
+
+            // X.690-0207 8.1.2.4.2
+            // "c) bits 7 to 1 of the first subsequent octet shall not all be zero."
+            if ((b & 0x7f) == 0) // Note: -1 will pass
+            {
+                throw new ASN1ParsingException("corrupted stream - invalid high tag number found");
+            }
+
+            while ((b >= 0) && ((b & 0x80) != 0))
+            {
+                tagNo |= (b & 0x7f);
+                tagNo <<= 7;
+                b = read(limit);
+            }
+
+            if (b < 0)
+            {
+                throw new ASN1ParsingException("EOF found inside tag value.");
+            }
+
+            tagNo |= (b & 0x7f);
+        }
+
+        return tagNo;
+    }
+
+    private int readLength(final int limit)
+    {
+        int length = read(limit);
+        if (length < 0)
+        {
+            throw new ASN1ParsingException("EOF found when length expected");
+        }
+
+        if (length == 0x80)
+        {
+            return -1;      // indefinite-length encoding
+        }
+
+        if (length > 127)
+        {
+            final int size = length & 0x7f;
+
+            // Note: The invalid long form "0xff" (see X.690 8.1.3.5c) will be caught here
+            if (size > 4)
+            {
+                throw new ASN1ParsingException("DER length more than 4 bytes: " + size);
+            }
+
+            length = 0;
+            for (int i = 0; i < size; i++)
+            {
+                final int next = read(limit);
+
+                if (next < 0)
+                {
+                    throw new ASN1ParsingException("EOF found reading length");
+                }
+
+                length = (length << 8) + next;
+            }
+
+            if (length < 0)
+            {
+                throw new ASN1ParsingException("corrupted stream - negative length found");
+            }
+
+            if (length >= end)   // after all we must have read at least 1 byte
+            {
+                throw new ASN1ParsingException("corrupted stream - out of bounds length found");
+            }
+        }
+
+        if (length > limit - pos)
+        {
+            throw new ASN1ParsingException(
+                "DEF length " + length + " object truncated by " + (length - (limit - pos)));
+        }
+
+        return length;
+    }
+}
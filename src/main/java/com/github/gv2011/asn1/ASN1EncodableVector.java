@@ -29,22 +29,46 @@ package com.github.gv2011.asn1;
  */
 
 
-import java.util.Enumeration;
-import java.util.Vector;
-
 /**
  * Mutable class for building ASN.1 constructed objects.
+ * <p>
+ * The elements are kept in an array. If the number of elements is known in advance, create
+ * the vector with that capacity: the constructed object then takes over the array without
+ * copying it.
  */
-@SuppressWarnings("rawtypes")
 public class ASN1EncodableVector
 {
-    private final Vector v = new Vector();
+    static final ASN1Encodable[] EMPTY_ELEMENTS = new ASN1Encodable[0];
+
+    private static final int DEFAULT_CAPACITY = 10;
+
+    private ASN1Encodable[] elements;
+    private int elementCount;
+
+    // true if the array has been handed out by takeElements() and must not be changed
+    private boolean copyOnWrite;
 
     /**
      * Base constructor.
      */
     public ASN1EncodableVector()
     {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create a vector with room for initialCapacity elements.
+     *
+     * @param initialCapacity the expected number of elements.
+     */
+    public ASN1EncodableVector(final int initialCapacity)
+    {
+        if (initialCapacity < 0)
+        {
+            throw new IllegalArgumentException("'initialCapacity' must not be negative");
+        }
+
+        elements = initialCapacity == 0 ? EMPTY_ELEMENTS : new ASN1Encodable[initialCapacity];
     }
 
     /**
@@ -52,10 +76,14 @@ public class ASN1EncodableVector
      *
      * @param obj the encodable to add.
      */
-    @SuppressWarnings("unchecked")
     public void add(final ASN1Encodable obj)
     {
-        v.addElement(obj);
+        if (elementCount == elements.length || copyOnWrite)
+        {
+            reallocate(elementCount + 1);
+        }
+
+        elements[elementCount++] = obj;
     }
 
     /**
@@ -63,13 +91,22 @@ public class ASN1EncodableVector
      *
      * @param other the vector to add.
      */
-    @SuppressWarnings("unchecked")
     public void addAll(final ASN1EncodableVector other)
     {
-        for (final Enumeration en = other.v.elements(); en.hasMoreElements();)
+        final int otherCount = other.size();
+        if (otherCount < 1)
+        {
+            return;
+        }
+
+        final int minCapacity = elementCount + otherCount;
+        if (minCapacity > elements.length || copyOnWrite)
         {
-            v.addElement(en.nextElement());
+            reallocate(minCapacity);
         }
+
+        System.arraycopy(other.elements, 0, elements, elementCount, otherCount);
+        elementCount = minCapacity;
     }
 
     /**
@@ -80,7 +117,12 @@ public class ASN1EncodableVector
      */
     public ASN1Encodable get(final int i)
     {
-        return (ASN1Encodable)v.elementAt(i);
+        if (i >= elementCount)
+        {
+            throw new ArrayIndexOutOfBoundsException(i + " >= " + elementCount);
+        }
+
+        return elements[i];
     }
 
     /**
@@ -90,6 +132,52 @@ public class ASN1EncodableVector
      */
     public int size()
     {
-        return v.size();
+        return elementCount;
+    }
+
+    /**
+     * Return an exactly sized copy of the elements.
+     */
+    ASN1Encodable[] copyElements()
+    {
+        if (elementCount == 0)
+        {
+            return EMPTY_ELEMENTS;
+        }
+
+        final ASN1Encodable[] copy = new ASN1Encodable[elementCount];
+        System.arraycopy(elements, 0, copy, 0, elementCount);
+        return copy;
+    }
+
+    /**
+     * Return the elements as exactly sized array, which the caller must not modify. If the
+     * vector is full, its own array is returned and later changes to the vector copy it first.
+     */
+    ASN1Encodable[] takeElements()
+    {
+        if (elementCount == 0)
+        {
+            return EMPTY_ELEMENTS;
+        }
+
+        if (elements.length == elementCount)
+        {
+            copyOnWrite = true;
+            return elements;
+        }
+
+        return copyElements();
+    }
+
+    private void reallocate(final int minCapacity)
+    {
+        final int newCapacity = Math.max(elements.length, minCapacity + (minCapacity >> 1));
+
+        final ASN1Encodable[] copy = new ASN1Encodable[newCapacity];
+        System.arraycopy(elements, 0, copy, 0, elementCount);
+
+        elements = copy;
+        copyOnWrite = false;
     }
 }
@@ -0,0 +1,424 @@
+package com.github.gv2011.asn1;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.gv2011.util.bytes.Bytes;
+
+/**
+ * Opt-in cache for the DER encodings of ASN.1 objects, bounded by the total size of the
+ * encodings it holds.
+ * <p>
+ * While the cache is enabled {@link ASN1Object#getDerEncoded()} keeps every encoding it
+ * computes with the object, and encoding a structure reuses the cached encodings of its
+ * members. When the limit is exceeded the oldest encodings are dropped first.
+ * </p>
+ * <p>
+ * Constructed objects read by {@link ASN1BufferParser} while the cache is enabled also
+ * remember the input they were parsed from. The first time an encoding is asked for, the
+ * input is checked once for being exactly what the DER encoder would write; if it is, the
+ * input itself is returned from then on by both getEncoded() and getDerEncoded(). These
+ * encodings are views of the parsed data and are not counted against the limit.
+ * </p>
+ * <p>
+ * All ASN1Primitive classes of this package are immutable, so a cached encoding never
+ * goes stale.
+ * </p>
+ */
+public final class ASN1EncodingCache
+{
+    private static final AtomicLong size = new AtomicLong();
+    private static final ConcurrentLinkedQueue<Entry> entries = new ConcurrentLinkedQueue<>();
+
+    private static volatile long maxSize;
+
+    private ASN1EncodingCache()
+    {
+    }
+
+    /**
+     * An encoding counted against the limit, in the order it was added.
+     */
+    private static final class Entry
+        extends WeakReference<ASN1Primitive>
+    {
+        private final Bytes encoding;
+
+        Entry(final ASN1Primitive obj, final Bytes encoding)
+        {
+            super(obj);
+            this.encoding = encoding;
+        }
+    }
+
+    /**
+     * The input an object was parsed from, checked is true once it is known to be DER.
+     */
+    private static final class Input
+    {
+        private final Bytes bytes;
+        private final boolean checked;
+
+        Input(final Bytes bytes, final boolean checked)
+        {
+            this.bytes = bytes;
+            this.checked = checked;
+        }
+    }
+
+    /**
+     * Enable the cache, or change its limit if it is enabled already.
+     *
+     * @param maxBytes the maximum total size of the cached encodings.
+     * @throws IllegalArgumentException if maxBytes is not positive.
+     */
+    public static void enable(final long maxBytes)
+    {
+        if (maxBytes <= 0)
+        {
+            throw new IllegalArgumentException("cache size must be positive");
+        }
+        maxSize = maxBytes;
+        evict(maxBytes);
+    }
+
+    /**
+     * Disable the cache and drop all encodings counted against the limit. Objects keep
+     * their input encodings, as these take no extra memory.
+     */
+    public static void disable()
+    {
+        maxSize = 0;
+        evict(0);
+    }
+
+    public static boolean isEnabled()
+    {
+        return maxSize != 0;
+    }
+
+    /**
+     * @return the limit, 0 if the cache is disabled.
+     */
+    public static long getMaxSize()
+    {
+        return maxSize;
+    }
+
+    /**
+     * @return the total size of the encodings currently counted against the limit.
+     */
+    public static long getSize()
+    {
+        return size.get();
+    }
+
+    /**
+     * Return the cached DER encoding of obj, or null if there is none.
+     */
+    static Bytes derEncoding(final ASN1Primitive obj)
+    {
+        final Object encoding = obj.cachedEncoding;
+        if (encoding == null)
+        {
+            return null;
+        }
+        if (encoding instanceof Bytes)
+        {
+            return (Bytes)encoding;
+        }
+        return check(obj, (Input)encoding);
+    }
+
+    /**
+     * Return the input obj was parsed from if that is in DER already, or null. Unlike a
+     * computed DER encoding, this is the default encoding of obj as well.
+     */
+    static Bytes inputEncoding(final ASN1Primitive obj)
+    {
+        final Object encoding = obj.cachedEncoding;
+
+        return encoding instanceof Input ? check(obj, (Input)encoding) : null;
+    }
+
+    /**
+     * Cache the DER encoding of obj if the cache is enabled and the encoding fits.
+     */
+    static void put(final ASN1Primitive obj, final Bytes encoding)
+    {
+        final long max = maxSize;
+        final int length = encoding.size();
+        if (length > max)
+        {
+            return;
+        }
+
+        obj.cachedEncoding = encoding;
+        entries.add(new Entry(obj, encoding));
+        if (size.addAndGet(length) > max)
+        {
+            evict(max);
+        }
+    }
+
+    /**
+     * Remember the complete encoding obj was parsed from, to be checked on first use.
+     */
+    static void putInput(final ASN1Primitive obj, final Bytes input)
+    {
+        obj.cachedEncoding = new Input(input, false);
+    }
+
+    private static void evict(final long max)
+    {
+        Entry entry;
+        while (size.get() > max && (entry = entries.poll()) != null)
+        {
+            final ASN1Primitive obj = entry.get();
+            if (obj != null && obj.cachedEncoding == entry.encoding)
+            {
+                obj.cachedEncoding = null;
+            }
+            size.addAndGet(-entry.encoding.size());
+        }
+    }
+
+    private static Bytes check(final ASN1Primitive obj, final Input input)
+    {
+        if (input.checked)
+        {
+            return input.bytes;
+        }
+
+        final Bytes bytes = input.bytes;
+        if (scan(bytes, 0, bytes.size()) == bytes.size())
+        {
+            // checking twice in a race does no harm
+            obj.cachedEncoding = new Input(bytes, true);
+            return bytes;
+        }
+
+        obj.cachedEncoding = null;
+        return null;
+    }
+
+    /**
+     * Scan the element starting at off for being exactly what the DER encoder of this
+     * package writes for the object the parser creates from it.
+     *
+     * @return the end of the element, or -1 if it is not in that form.
+     */
+    private static int scan(final Bytes in, int off, final int limit)
+    {
+        if (off >= limit)
+        {
+            return -1;
+        }
+        final int tag = in.getByte(off++) & 0xff;
+        int tagNo = tag & 0x1f;
+
+        if (tagNo == 0x1f)
+        {
+            // high tag number form, only used from 31 on and without leading zeros
+            if (off >= limit || (in.getByte(off) & 0xff) == 0x80)
+            {
+                return -1;
+            }
+            tagNo = 0;
+            int b;
+            do
+            {
+                if (off >= limit || tagNo > (Integer.MAX_VALUE >>> 7))
+                {
+                    return -1;
+                }
+                b = in.getByte(off++) & 0xff;
+                tagNo = (tagNo << 7) | (b & 0x7f);
+            }
+            while ((b & 0x80) != 0);
+
+            if (tagNo < 31)
+            {
+                return -1;
+            }
+        }
+
+        if (off >= limit)
+        {
+            return -1;
+        }
+        int length = in.getByte(off++) & 0xff;
+        if (length > 0x7f)
+        {
+            // long form, minimal and definite
+            final int count = length & 0x7f;
+            if (count == 0 || count > 4 || limit - off < count || in.getByte(off) == 0)
+            {
+                return -1;
+            }
+            length = 0;
+            for (int i = 0; i != count; i++)
+            {
+                length = (length << 8) | (in.getByte(off++) & 0xff);
+            }
+            if (length < 0x80)
+            {
+                return -1;
+            }
+        }
+        if (length < 0 || length > limit - off)
+        {
+            return -1;
+        }
+
+        final int end = off + length;
+        final int tagClass = tag & (BERTags.APPLICATION | BERTags.TAGGED);
+        if (tagClass == (BERTags.APPLICATION | BERTags.TAGGED))
+        {
+            // PRIVATE objects are read as APPLICATION specific ones
+            return -1;
+        }
+        final boolean universal = tagClass == 0;
+
+        if ((tag & BERTags.CONSTRUCTED) != 0)
+        {
+            // constructed strings and EXTERNAL are not written back as they were read
+            if (universal && tagNo != BERTags.SEQUENCE && tagNo != BERTags.SET)
+            {
+                return -1;
+            }
+            final boolean sorted = universal && tagNo == BERTags.SET;
+            int previous = -1;
+            while (off < end)
+            {
+                final int next = scan(in, off, end);
+                if (next < 0 || (sorted && previous >= 0 && compare(in, previous, off, next) > 0))
+                {
+                    return -1;
+                }
+                previous = off;
+                off = next;
+            }
+            return end;
+        }
+
+        return !universal || isDERContents(in, tagNo, off, length) ? end : -1;
+    }
+
+    private static boolean isDERContents(final Bytes in, final int tagNo, final int off, final int length)
+    {
+        switch (tagNo)
+        {
+            case BERTags.BOOLEAN:
+                return length == 1 && (in.getByte(off) == 0 || in.getByte(off) == (byte)0xff);
+            case BERTags.INTEGER:
+            case BERTags.ENUMERATED:
+                if (length > 1)
+                {
+                    // no redundant leading octets
+                    final int first = in.getByte(off);
+                    final int second = in.getByte(off + 1);
+                    return !(first == 0 && second >= 0) && !(first == -1 && second < 0);
+                }
+                return length == 1;
+            case BERTags.NULL:
+                return length == 0;
+            case BERTags.BIT_STRING:
+                if (length == 0)
+                {
+                    return false;
+                }
+                final int padBits = in.getByte(off);
+                if (length == 1)
+                {
+                    return padBits == 0;
+                }
+                // the unused bits are zero
+                return padBits >= 0 && padBits <= 7 && (in.getByte(off + length - 1) & ((1 << padBits) - 1)) == 0;
+            case BERTags.OBJECT_IDENTIFIER:
+                if (length == 0 || in.getByte(off + length - 1) < 0)
+                {
+                    return false;
+                }
+                // every subidentifier without leading zero groups
+                boolean start = true;
+                for (int i = off; i != off + length; i++)
+                {
+                    final int b = in.getByte(i) & 0xff;
+                    if (start && b == 0x80)
+                    {
+                        return false;
+                    }
+                    start = b < 0x80;
+                }
+                return true;
+            case BERTags.BMP_STRING:
+                return (length & 1) == 0;
+            case BERTags.GENERALIZED_TIME:
+            case BERTags.GENERAL_STRING:
+            case BERTags.IA5_STRING:
+            case BERTags.NUMERIC_STRING:
+            case BERTags.OCTET_STRING:
+            case BERTags.PRINTABLE_STRING:
+            case BERTags.T61_STRING:
+            case BERTags.UNIVERSAL_STRING:
+            case BERTags.UTC_TIME:
+            case BERTags.UTF8_STRING:
+            case BERTags.VISIBLE_STRING:
+            case BERTags.GRAPHIC_STRING:
+            case BERTags.VIDEOTEX_STRING:
+                return true;
+            default:
+                // not read by the parsers, see ASN1InputStream.createPrimitiveDERObject()
+                return false;
+        }
+    }
+
+    /**
+     * Unsigned lexicographic order of the elements [a, b) and [b, c), as used by {@link ASN1Set}.
+     */
+    private static int compare(final Bytes in, final int a, final int b, final int c)
+    {
+        final int lengthA = b - a;
+        final int lengthB = c - b;
+        for (int i = 0, n = Math.min(lengthA, lengthB); i != n; i++)
+        {
+            final int diff = (in.getByte(a + i) & 0xff) - (in.getByte(b + i) & 0xff);
+            if (diff != 0)
+            {
+                return diff;
+            }
+        }
+        return lengthA - lengthB;
+    }
+}
@@ -30,10 +30,12 @@ package com.github.gv2011.asn1;
 
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
 import java.util.Date;
 import java.util.Locale;
-import java.util.SimpleTimeZone;
 import java.util.TimeZone;
 
 import com.github.gv2011.asn1.util.Strings;
@@ -48,6 +50,9 @@ import com.github.gv2011.util.bytes.Bytes;
 public class ASN1GeneralizedTime
     extends ASN1Primitive
 {
+    private static final Instant MIN = Instant.parse("0000-01-01T00:00:00Z");
+    private static final Instant MAX = Instant.parse("+10000-01-01T00:00:00Z");
+
     private final Bytes time;
 
     /**
@@ -137,11 +142,7 @@ public class ASN1GeneralizedTime
     public ASN1GeneralizedTime(
         final Date time)
     {
-        final SimpleDateFormat dateF = new SimpleDateFormat("yyyyMMddHHmmss'Z'");
-
-        dateF.setTimeZone(new SimpleTimeZone(0, "Z"));
-
-        this.time = Strings.toByteArray(dateF.format(time));
+        this.time = TimeCodec.format(time.toInstant().truncatedTo(ChronoUnit.SECONDS), false);
     }
 
     /**
@@ -149,17 +150,31 @@ public class ASN1GeneralizedTime
      * doesn't use a Gregorian calender so that the GeneralizedTime produced is compatible with other ASN.1 implementations.
      *
      * @param time a date object representing the time of interest.
-     * @param locale an appropriate Locale for producing an ASN.1 GeneralizedTime value.
+     * @param locale an appropriate Locale for producing an ASN.1 GeneralizedTime value, no longer
+     * used as the time is always written with Gregorian calendar and ASCII digits.
      */
     public ASN1GeneralizedTime(
         final Date time,
         final Locale locale)
     {
-        final SimpleDateFormat dateF = new SimpleDateFormat("yyyyMMddHHmmss'Z'", locale);
-
-        dateF.setTimeZone(new SimpleTimeZone(0, "Z"));
+        this(time);
+    }
 
-        this.time = Strings.toByteArray(dateF.format(time));
+    /**
+     * Constructor from an instant, in the form YYYYMMDDHHMMSS[.f]Z. The fractional seconds are
+     * kept with trailing zeroes removed and are left out if zero.
+     *
+     * @param time the instant of interest, in the years 0 to 9999.
+     * @throws IllegalArgumentException if the year cannot be written with four digits.
+     */
+    public ASN1GeneralizedTime(
+        final Instant time)
+    {
+        if (time.isBefore(MIN) || !time.isBefore(MAX))
+        {
+            throw new IllegalArgumentException("year out of range for GeneralizedTime: " + time);
+        }
+        this.time = TimeCodec.format(time, false);
     }
 
     ASN1GeneralizedTime(
@@ -235,26 +250,23 @@ public class ASN1GeneralizedTime
     {
         String sign = "+";
         final TimeZone timeZone = TimeZone.getDefault();
-        int offset = timeZone.getRawOffset();
-        if (offset < 0)
-        {
-            sign = "-";
-            offset = -offset;
-        }
-        int hours = offset / (60 * 60 * 1000);
-        final int minutes = (offset - (hours * 60 * 60 * 1000)) / (60 * 1000);
-
+        int offset;
         try
         {
-            if (timeZone.useDaylightTime() && timeZone.inDaylightTime(getDate()))
-            {
-                hours += sign.equals("+") ? 1 : -1;
-            }
+            offset = timeZone.getOffset(TimeCodec.epochMilli(time, TimeCodec.FOUR_DIGIT_YEAR)) / 1000;
         }
         catch (final ParseException e)
         {
             // we'll do our best and ignore daylight savings
+            offset = timeZone.getRawOffset() / 1000;
+        }
+        if (offset < 0)
+        {
+            sign = "-";
+            offset = -offset;
         }
+        final int hours = offset / (60 * 60);
+        final int minutes = (offset - (hours * 60 * 60)) / 60;
 
         return "GMT" + sign + convert(hours) + ":" + convert(minutes);
     }
@@ -269,101 +281,76 @@ public class ASN1GeneralizedTime
         return Integer.toString(time);
     }
 
+    /**
+     * return the time as a date. Fractional seconds beyond milliseconds are truncated, a time
+     * without zone is read as UTC.
+     *
+     * @return the resulting date.
+     * @throws ParseException if the time string has an illegal format.
+     */
     public Date getDate()
         throws ParseException
     {
-        SimpleDateFormat dateF;
-        final String stime = Strings.fromByteArray(time);
-        String d = stime;
+        return new Date(TimeCodec.epochMilli(time, TimeCodec.FOUR_DIGIT_YEAR));
+    }
 
-        if (stime.endsWith("Z"))
+    /**
+     * return the time as an instant, including all fractional seconds up to nanoseconds.
+     *
+     * @return the resulting instant.
+     * @throws ASN1ParsingException if the time string has an illegal format.
+     */
+    public Instant toInstant()
+    {
+        try
         {
-            if (hasFractionalSeconds())
-            {
-                dateF = new SimpleDateFormat("yyyyMMddHHmmss.SSS'Z'");
-            }
-            else
-            {
-                dateF = new SimpleDateFormat("yyyyMMddHHmmss'Z'");
-            }
-
-            dateF.setTimeZone(new SimpleTimeZone(0, "Z"));
+            return Instant.ofEpochSecond(
+                TimeCodec.epochSecond(time, TimeCodec.FOUR_DIGIT_YEAR),
+                TimeCodec.nano(time, TimeCodec.FOUR_DIGIT_YEAR));
         }
-        else if (stime.indexOf('-') > 0 || stime.indexOf('+') > 0)
+        catch (final ParseException e)
         {
-            d = getTime();
-            if (hasFractionalSeconds())
-            {
-                dateF = new SimpleDateFormat("yyyyMMddHHmmss.SSSz");
-            }
-            else
-            {
-                dateF = new SimpleDateFormat("yyyyMMddHHmmssz");
-            }
-
-            dateF.setTimeZone(new SimpleTimeZone(0, "Z"));
+            throw new ASN1ParsingException("invalid GeneralizedTime: " + e.getMessage(), e);
         }
-        else
-        {
-            if (hasFractionalSeconds())
-            {
-                dateF = new SimpleDateFormat("yyyyMMddHHmmss.SSS");
-            }
-            else
-            {
-                dateF = new SimpleDateFormat("yyyyMMddHHmmss");
-            }
+    }
 
-            dateF.setTimeZone(new SimpleTimeZone(0, TimeZone.getDefault().getID()));
+    /**
+     * return the time with the offset it was encoded with. A time without zone is read as UTC,
+     * as with {@link #getDate()}.
+     *
+     * @return the resulting date-time.
+     * @throws ASN1ParsingException if the time string has an illegal format.
+     */
+    public OffsetDateTime toOffsetDateTime()
+    {
+        try
+        {
+            return OffsetDateTime.ofInstant(
+                toInstant(),
+                ZoneOffset.ofTotalSeconds(TimeCodec.offsetSeconds(time, TimeCodec.FOUR_DIGIT_YEAR)));
         }
-
-        if (hasFractionalSeconds())
+        catch (final ParseException e)
         {
-            // java misinterprets extra digits as being milliseconds...
-            String frac = d.substring(14);
-            int index;
-            for (index = 1; index < frac.length(); index++)
-            {
-                final char ch = frac.charAt(index);
-                if (!('0' <= ch && ch <= '9'))
-                {
-                    break;
-                }
-            }
-
-            if (index - 1 > 3)
-            {
-                frac = frac.substring(0, 4) + frac.substring(index);
-                d = d.substring(0, 14) + frac;
-            }
-            else if (index - 1 == 1)
-            {
-                frac = frac.substring(0, index) + "00" + frac.substring(index);
-                d = d.substring(0, 14) + frac;
-            }
-            else if (index - 1 == 2)
-            {
-                frac = frac.substring(0, index) + "0" + frac.substring(index);
-                d = d.substring(0, 14) + frac;
-            }
+            throw new ASN1ParsingException("invalid GeneralizedTime: " + e.getMessage(), e);
         }
-
-        return dateF.parse(d);
     }
 
-    private boolean hasFractionalSeconds()
+    /**
+     * return the time as milliseconds since the epoch, further fractional seconds are truncated.
+     *
+     * @return the milliseconds since 1970-01-01T00:00:00Z.
+     * @throws ASN1ParsingException if the time string has an illegal format.
+     */
+    public long toEpochMilli()
     {
-        for (int i = 0; i != time.size(); i++)
+        try
         {
-            if (time.getByte(i) == '.')
-            {
-                if (i == 14)
-                {
-                    return true;
-                }
-            }
+            return TimeCodec.epochMilli(time, TimeCodec.FOUR_DIGIT_YEAR);
+        }
+        catch (final ParseException e)
+        {
+            throw new ASN1ParsingException("invalid GeneralizedTime: " + e.getMessage(), e);
         }
-        return false;
     }
 
     @Override
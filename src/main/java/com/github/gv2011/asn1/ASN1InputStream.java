@@ -30,15 +30,13 @@ package com.github.gv2011.asn1;
 
 
 import static com.github.gv2011.util.Verify.verifyEqual;
-import static com.github.gv2011.util.bytes.ByteUtils.newBytes;
-import static com.github.gv2011.util.ex.Exceptions.call;
 
 import java.io.FilterInputStream;
 import java.io.InputStream;
 
+import com.github.gv2011.asn1.util.io.BufferPool;
 import com.github.gv2011.asn1.util.io.Streams;
 import com.github.gv2011.util.bytes.Bytes;
-import com.github.gv2011.util.ex.ThrowingSupplier;
 
 /**
  * a general purpose ASN.1 decoder - note: this class differs from the
@@ -53,13 +51,10 @@ public class ASN1InputStream
     private final int limit;
     private final boolean lazyEvaluate;
 
-    private final byte[][] tmpBuffers;
-
     public static ASN1Primitive parse(final Bytes asn1) {
-      @SuppressWarnings("resource")
-      final ASN1InputStream asn1InputStream = new ASN1InputStream(asn1);
-      final ASN1Primitive result = asn1InputStream.readObject();
-      verifyEqual(asn1InputStream.readObject(), null);
+      final ASN1BufferParser parser = new ASN1BufferParser(asn1);
+      final ASN1Primitive result = parser.readObject();
+      verifyEqual(parser.readObject(), null);
       return result;
     }
 
@@ -138,7 +133,6 @@ public class ASN1InputStream
         super(input);
         this.limit = limit;
         this.lazyEvaluate = lazyEvaluate;
-        tmpBuffers = new byte[11][];
     }
 
     int getLimit()
@@ -146,6 +140,11 @@ public class ASN1InputStream
         return limit;
     }
 
+    InputStream getInput()
+    {
+        return in;
+    }
+
     protected int readLength(){
         return readLength(this, limit);
     }
@@ -223,7 +222,7 @@ public class ASN1InputStream
             }
         }
 
-        return createPrimitiveDERObject(tagNo, defIn, tmpBuffers);
+        return createPrimitiveDERObject(tagNo, defIn);
     }
 
     ASN1EncodableVector buildEncodableVector(){
@@ -246,7 +245,7 @@ public class ASN1InputStream
 
     @Override
     public ASN1Primitive readObject(){
-        final int tag = call(()->read());
+        final int tag = StreamUtil.read(this);
         if (tag <= 0)
         {
             if (tag == 0)
@@ -327,7 +326,7 @@ public class ASN1InputStream
         {
             tagNo = 0;
 
-            int b = call((ThrowingSupplier<Integer>)()->s.read());
+            int b = StreamUtil.read(s);
 
             // X.690-0207 8.1.2.4.2
             // "c) bits 7 to 1 of the first subsequent octet shall not all be zero."
@@ -340,7 +339,7 @@ public class ASN1InputStream
             {
                 tagNo |= (b & 0x7f);
                 tagNo <<= 7;
-                b = call(()->s.read());
+                b = StreamUtil.read(s);
             }
 
             if (b < 0)
@@ -355,7 +354,7 @@ public class ASN1InputStream
     }
 
     static int readLength(final InputStream s, final int limit){
-        int length = call(()->s.read());
+        int length = StreamUtil.read(s);
         if (length < 0)
         {
             throw new ASN1ParsingException("EOF found when length expected");
@@ -379,7 +378,7 @@ public class ASN1InputStream
             length = 0;
             for (int i = 0; i < size; i++)
             {
-                final int next = call(()->s.read());
+                final int next = StreamUtil.read(s);
 
                 if (next < 0)
                 {
@@ -403,24 +402,22 @@ public class ASN1InputStream
         return length;
     }
 
-    private static Bytes getBuffer(final DefiniteLengthInputStream defIn, final byte[][] tmpBuffers){
+    private static ASN1ObjectIdentifier getObjectIdentifier(final DefiniteLengthInputStream defIn){
+        // a cached identifier is found without copying the contents
         final int len = defIn.getRemaining();
-        if (defIn.getRemaining() < tmpBuffers.length)
+        final BufferPool pool = BufferPool.get();
+        final byte[] buf = pool.acquire(len);
+        try
         {
-            byte[] buf = tmpBuffers[len];
-
-            if (buf == null)
+            if (Streams.readFully(defIn, buf, 0, len) != len)
             {
-                buf = tmpBuffers[len] = new byte[len];
+                throw new ASN1ParsingException("corrupted stream - object identifier truncated");
             }
-
-            Streams.readFully(defIn, buf);
-
-            return newBytes(buf);
+            return ASN1ObjectIdentifier.fromOctetString(buf, 0, len);
         }
-        else
+        finally
         {
-            return defIn.toByteArray();
+            pool.release(buf);
         }
     }
 
@@ -430,12 +427,12 @@ public class ASN1InputStream
         int totalRead = 0;
         while (totalRead < len)
         {
-            final int ch1 = call(()->defIn.read());
+            final int ch1 = defIn.readByte();
             if (ch1 < 0)
             {
                 break;
             }
-            final int ch2 = call(()->defIn.read());
+            final int ch2 = defIn.readByte();
             if (ch2 < 0)
             {
                 break;
@@ -446,52 +443,81 @@ public class ASN1InputStream
         return buf;
     }
 
+    private static char[] getBMPCharBuffer(final Bytes contents){
+        final char[] buf = new char[contents.size() / 2];
+        for (int i = 0; i != buf.length; i++)
+        {
+            buf[i] = (char)((contents.getByte(2 * i) << 8) | (contents.getByte(2 * i + 1) & 0xff));
+        }
+
+        return buf;
+    }
+
     static ASN1Primitive createPrimitiveDERObject(
         final int     tagNo,
-        final DefiniteLengthInputStream defIn,
-        final byte[][] tmpBuffers){
+        final DefiniteLengthInputStream defIn){
         switch (tagNo)
         {
             case BIT_STRING:
                 return ASN1BitString.fromInputStream(defIn.getRemaining(), defIn);
             case BMP_STRING:
                 return new DERBMPString(getBMPCharBuffer(defIn));
+            case OBJECT_IDENTIFIER:
+                return getObjectIdentifier(defIn);
+            default:
+                return createPrimitiveDERObject(tagNo, defIn.toByteArray());
+        }
+    }
+
+    /**
+     * Create a primitive object from its complete contents octets. The contents are retained
+     * by the result as they are, so a sub-view of a larger buffer stays a sub-view.
+     */
+    static ASN1Primitive createPrimitiveDERObject(
+        final int   tagNo,
+        final Bytes contents){
+        switch (tagNo)
+        {
+            case BIT_STRING:
+                return ASN1BitString.fromOctetString(contents);
+            case BMP_STRING:
+                return new DERBMPString(getBMPCharBuffer(contents));
             case BOOLEAN:
-                return ASN1Boolean.fromOctetString(getBuffer(defIn, tmpBuffers));
+                return ASN1Boolean.fromOctetString(contents);
             case ENUMERATED:
-                return ASN1Enumerated.fromOctetString(getBuffer(defIn, tmpBuffers));
+                return ASN1Enumerated.fromOctetString(contents);
             case GENERALIZED_TIME:
-                return new ASN1GeneralizedTime(defIn.toByteArray());
+                return new ASN1GeneralizedTime(contents);
             case GENERAL_STRING:
-                return new DERGeneralString(defIn.toByteArray());
+                return new DERGeneralString(contents);
             case IA5_STRING:
-                return new DERIA5String(defIn.toByteArray());
+                return new DERIA5String(contents);
             case INTEGER:
-                return new ASN1Integer(defIn.toByteArray());
+                return ASN1Integer.fromOctetString(contents);
             case NULL:
                 return DERNull.INSTANCE;   // actual content is ignored (enforce 0 length?)
             case NUMERIC_STRING:
-                return new DERNumericString(defIn.toByteArray());
+                return new DERNumericString(contents);
             case OBJECT_IDENTIFIER:
-                return ASN1ObjectIdentifier.fromOctetString(getBuffer(defIn, tmpBuffers));
+                return ASN1ObjectIdentifier.fromOctetString(contents);
             case OCTET_STRING:
-                return new DEROctetString(defIn.toByteArray());
+                return new DEROctetString(contents);
             case PRINTABLE_STRING:
-                return new DERPrintableString(defIn.toByteArray());
+                return new DERPrintableString(contents);
             case T61_STRING:
-                return new DERT61String(defIn.toByteArray());
+                return new DERT61String(contents);
             case UNIVERSAL_STRING:
-                return new DERUniversalString(defIn.toByteArray());
+                return new DERUniversalString(contents);
             case UTC_TIME:
-                return new ASN1UTCTime(defIn.toByteArray());
+                return new ASN1UTCTime(contents);
             case UTF8_STRING:
-                return new DERUTF8String(defIn.toByteArray());
+                return new DERUTF8String(contents);
             case VISIBLE_STRING:
-                return new DERVisibleString(defIn.toByteArray());
+                return new DERVisibleString(contents);
             case GRAPHIC_STRING:
-                return new DERGraphicString(defIn.toByteArray());
+                return new DERGraphicString(contents);
             case VIDEOTEX_STRING:
-                return new DERVideotexString(defIn.toByteArray());
+                return new DERVideotexString(contents);
             default:
                 throw new ASN1ParsingException("unknown tag " + tagNo + " encountered");
         }
@@ -33,6 +33,7 @@ import static com.github.gv2011.util.bytes.ByteUtils.fromBigInteger;
 
 import java.math.BigInteger;
 
+import com.github.gv2011.util.ann.Nullable;
 import com.github.gv2011.util.bytes.Bytes;
 
 /**
@@ -41,7 +42,16 @@ import com.github.gv2011.util.bytes.Bytes;
 public class ASN1Integer
     extends ASN1Primitive
 {
-    private final Bytes bytes;
+    private static final BigInteger TWO_64 = BigInteger.ONE.shiftLeft(64);
+
+    // instances for the single octet values -128..127, indexed by the octet
+    private static final ASN1Integer[] cache = new ASN1Integer[256];
+
+    // the contents octets if there are more than 8 of them, otherwise null
+    private final @Nullable Bytes bytes;
+    // the value if there are at most 8 contents octets
+    private final long value;
+    private final int length;
 
     /**
      * return an integer from the passed in object
@@ -99,21 +109,101 @@ public class ASN1Integer
         }
     }
 
+    /**
+     * Return an INTEGER with the given value. Values from -128 to 127 are shared instances.
+     *
+     * @param value the value.
+     * @return an ASN1Integer instance.
+     */
+    public static ASN1Integer valueOf(final long value)
+    {
+        if (value >= -128 && value <= 127)
+        {
+            return cached((int)value & 0xff);
+        }
+        return new ASN1Integer(value);
+    }
+
+    private static ASN1Integer cached(final int octet)
+    {
+        ASN1Integer possibleMatch = cache[octet];
+
+        if (possibleMatch == null)
+        {
+            possibleMatch = cache[octet] = new ASN1Integer((byte)octet, 1);
+        }
+
+        return possibleMatch;
+    }
+
+    static ASN1Integer fromOctetString(final Bytes enc)
+    {
+        if (enc.size() == 1)
+        {
+            return cached(enc.getByte(0) & 0xff);
+        }
+        return new ASN1Integer(enc);
+    }
+
     public ASN1Integer(final long value){
-      this(BigInteger.valueOf(value));
+      this(value, minimalLength(value));
     }
 
     public ASN1Integer(final BigInteger value){
-      this(fromBigInteger(value));
+      if (value.bitLength() < 64)
+      {
+          this.value = value.longValue();
+          this.length = minimalLength(this.value);
+          this.bytes = null;
+      }
+      else
+      {
+          this.bytes = fromBigInteger(value);
+          this.value = 0;
+          this.length = bytes.size();
+      }
     }
 
     public ASN1Integer(final Bytes bytes){
-      this.bytes = bytes;
+      this.length = bytes.size();
+      if (length >= 1 && length <= 8)
+      {
+          long v = bytes.getByte(0);
+          for (int i = 1; i != length; i++)
+          {
+              v = (v << 8) | (bytes.getByte(i) & 0xff);
+          }
+          this.value = v;
+          this.bytes = null;
+      }
+      else
+      {
+          this.value = 0;
+          this.bytes = bytes;
+      }
+    }
+
+    private ASN1Integer(final long value, final int length){
+      this.value = value;
+      this.length = length;
+      this.bytes = null;
+    }
+
+    private static int minimalLength(final long value)
+    {
+        // sign bit plus significant bits, in octets
+        final int bits = 65 - Long.numberOfLeadingZeros(value < 0 ? ~value : value);
+        return (bits + 7) / 8;
+    }
+
+    private byte getOctet(final int i)
+    {
+        return bytes != null ? bytes.getByte(i) : (byte)(value >> (8 * (length - 1 - i)));
     }
 
     public BigInteger getValue()
     {
-        return new BigInteger(bytes.toByteArray());
+        return bytes != null ? new BigInteger(bytes.toByteArray()) : BigInteger.valueOf(value);
     }
 
     /**
@@ -123,7 +213,44 @@ public class ASN1Integer
      */
     public BigInteger getPositiveValue()
     {
-        return new BigInteger(1, bytes.toByteArray());
+        if (bytes != null)
+        {
+            return new BigInteger(1, bytes.toByteArray());
+        }
+        if (value >= 0)
+        {
+            return BigInteger.valueOf(value);
+        }
+        return length < 8
+            ? BigInteger.valueOf(value & ((1L << (8 * length)) - 1))
+            : BigInteger.valueOf(value).add(TWO_64);
+    }
+
+    /**
+     * @return the value as a long.
+     * @throws ArithmeticException if the value does not fit in a long.
+     */
+    public long longValueExact()
+    {
+        if (bytes != null)
+        {
+            return getValue().longValueExact();
+        }
+        return value;
+    }
+
+    /**
+     * @return the value as an int.
+     * @throws ArithmeticException if the value does not fit in an int.
+     */
+    public int intValueExact()
+    {
+        final long result = longValueExact();
+        if (result != (int)result)
+        {
+            throw new ArithmeticException("ASN.1 Integer out of int range");
+        }
+        return (int)result;
     }
 
     @Override
@@ -135,14 +262,26 @@ public class ASN1Integer
     @Override
     int encodedLength()
     {
-        return 1 + StreamUtil.calculateBodyLength(bytes.size()) + bytes.size();
+        return 1 + StreamUtil.calculateBodyLength(length) + length;
     }
 
     @Override
     void encode(
         final ASN1OutputStream out)
     {
-        out.writeEncoded(BERTags.INTEGER, bytes);
+        if (bytes != null)
+        {
+            out.writeEncoded(BERTags.INTEGER, bytes);
+        }
+        else
+        {
+            out.write(BERTags.INTEGER);
+            out.writeLength(length);
+            for (int i = 0; i != length; i++)
+            {
+                out.write(getOctet(i));
+            }
+        }
     }
 
     @Override
@@ -150,9 +289,9 @@ public class ASN1Integer
     {
         int value = 0;
 
-        for (int i = 0; i != bytes.size(); i++)
+        for (int i = 0; i != length; i++)
         {
-            value ^= (bytes.getByte(i) & 0xff) << (i % 4);
+            value ^= (getOctet(i) & 0xff) << (i % 4);
         }
 
         return value;
@@ -169,13 +308,18 @@ public class ASN1Integer
 
         final ASN1Integer other = (ASN1Integer)o;
 
-        return bytes.equals(other.bytes);
+        if (length != other.length)
+        {
+            return false;
+        }
+
+        return bytes != null ? bytes.equals(other.bytes) : value == other.value;
     }
 
     @Override
     public String toString()
     {
-        return getValue().toString();
+        return bytes != null ? getValue().toString() : Long.toString(value);
     }
 
 }
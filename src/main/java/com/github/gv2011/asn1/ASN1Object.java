@@ -29,13 +29,12 @@ package com.github.gv2011.asn1;
  */
 
 
-import static com.github.gv2011.util.bytes.ByteUtils.newBytesBuilder;
-
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import com.github.gv2011.asn1.util.Encodable;
+import com.github.gv2011.asn1.util.io.ByteBufferBytes;
 import com.github.gv2011.util.bytes.Bytes;
-import com.github.gv2011.util.bytes.BytesBuilder;
 
 /**
  * Base class for defining an ASN.1 object.
@@ -52,12 +51,17 @@ public abstract class ASN1Object
     @Override
     public Bytes getEncoded()
     {
-        final BytesBuilder bOut = newBytesBuilder();
-        final ASN1OutputStream      aOut = new ASN1OutputStream(bOut);
+        final Bytes input = ASN1EncodingCache.inputEncoding(toASN1Primitive());
+        if (input != null)
+        {
+            return input;
+        }
+
+        final ASN1OutputStream aOut = new ASN1OutputStream(ASN1OutputStream.BER);
 
         aOut.writeObject(this);
 
-        return bOut.build();
+        return aOut.toBytes();
     }
 
     /**
@@ -73,22 +77,40 @@ public abstract class ASN1Object
         if (encoding.equals(ASN1Encoding.DER)) return getDerEncoded();
         else if (encoding.equals(ASN1Encoding.DL))
         {
-            final BytesBuilder   bOut = newBytesBuilder();
-            final DLOutputStream dOut = new DLOutputStream(bOut);
+            final ASN1OutputStream dOut = new ASN1OutputStream(ASN1OutputStream.DL);
 
             dOut.writeObject(this);
 
-            return bOut.build();
+            return dOut.toBytes();
         }
 
         return this.getEncoded();
     }
 
+    /**
+     * Return the DER encoding of this object. With the {@link ASN1EncodingCache} enabled, the
+     * encoding is kept with the object and returned again by later calls.
+     */
     public final Bytes getDerEncoded(){
-      final BytesBuilder bOut = newBytesBuilder();
-      final DEROutputStream dOut = new DEROutputStream(bOut);
-      dOut.writeObject(this);
-      return bOut.build();
+      final ASN1Primitive primitive = toASN1Primitive();
+      Bytes encoded = ASN1EncodingCache.derEncoding(primitive);
+      if (encoded == null){
+        encoded = ByteBufferBytes.wrap(DEREncoder.encode(primitive));
+        ASN1EncodingCache.put(primitive, encoded);
+      }
+      return encoded;
+    }
+
+    /**
+     * Write the DER encoding of this object into buffer, starting at its position.
+     *
+     * @param buffer the buffer to write to, its position is advanced by the encoded length.
+     * @return the number of bytes written.
+     * @throws java.nio.BufferOverflowException if the encoding does not fit into the remaining
+     * space, nothing is written in that case.
+     */
+    public final int getDerEncoded(final ByteBuffer buffer){
+      return DEREncoder.encode(toASN1Primitive(), buffer);
     }
 
     @Override
@@ -33,9 +33,10 @@ import static com.github.gv2011.util.bytes.ByteUtils.newBytesBuilder;
 
 
 import java.math.BigInteger;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
 
+import com.github.gv2011.asn1.util.io.ByteBufferBytes;
 import com.github.gv2011.util.ann.Nullable;
 import com.github.gv2011.util.bytes.Bytes;
 import com.github.gv2011.util.bytes.BytesBuilder;
@@ -48,7 +49,7 @@ public class ASN1ObjectIdentifier
 {
     private final String identifier;
 
-    private @Nullable Bytes body;
+    private volatile @Nullable Bytes body;
 
     /**
      * return an OID from the passed in object
@@ -109,7 +110,7 @@ public class ASN1ObjectIdentifier
     ASN1ObjectIdentifier(
         final Bytes bytes)
     {
-        final StringBuffer objId = new StringBuffer();
+        final StringBuilder objId = new StringBuilder(bytes.size() * 3);
         long value = 0;
         BigInteger bigValue = null;
         boolean first = true;
@@ -319,18 +320,64 @@ public class ASN1ObjectIdentifier
         }
     }
 
-    private synchronized Bytes getBody()
+    private Bytes getBody()
     {
-        if (body == null)
+        Bytes result = body;
+        if (result == null)
         {
+            // computing it twice in a race does no harm
             final BytesBuilder bOut = newBytesBuilder();
 
             doOutput(bOut);
 
-            body = bOut.build();
+            body = result = bOut.build();
         }
 
-        return body;
+        return result;
+    }
+
+    int contentsHash()
+    {
+        return OIDCache.hash(getBody());
+    }
+
+    boolean contentsEqual(final byte[] b, final int off, final int len)
+    {
+        final Bytes enc = getBody();
+        if (enc.size() != len)
+        {
+            return false;
+        }
+        for (int i = 0; i != len; i++)
+        {
+            if (enc.getByte(i) != b[off + i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean contentsEqual(final Bytes contents)
+    {
+        final Bytes enc = getBody();
+        if (enc.size() != contents.size())
+        {
+            return false;
+        }
+        for (int i = 0; i != enc.size(); i++)
+        {
+            if (enc.getByte(i) != contents.getByte(i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean contentsEqual(final ASN1ObjectIdentifier other)
+    {
+        return other == this || contentsEqual(other.getBody());
     }
 
     @Override
@@ -447,28 +494,21 @@ public class ASN1ObjectIdentifier
      * </p>
      * @return a reference to the identifier in the pool.
      */
-    @SuppressWarnings("unchecked")
     public ASN1ObjectIdentifier intern()
     {
-        synchronized (pool)
-        {
-            final OidHandle hdl = new OidHandle(getBody());
-            final ASN1ObjectIdentifier oid = (ASN1ObjectIdentifier)pool.get(hdl);
-
-            if (oid != null)
-            {
-                return oid;
-            }
-            else
-            {
-                pool.put(hdl, this);
-                return this;
-            }
-        }
+        final ASN1ObjectIdentifier oid = pool.putIfAbsent(new OidHandle(getBody()), this);
+        final ASN1ObjectIdentifier interned = oid != null ? oid : this;
+        cache.put(interned);
+        return interned;
     }
 
-    @SuppressWarnings("rawtypes")
-    private static final Map pool = new HashMap();
+    private static final ConcurrentHashMap<OidHandle, ASN1ObjectIdentifier> pool = new ConcurrentHashMap<>();
+
+    /**
+     * Decoded identifiers, so that parsing returns the same instance for the same encoding
+     * and equality checks are mostly reference comparisons.
+     */
+    private static final OIDCache cache = new OIDCache(1024);
 
     private static class OidHandle
     {
@@ -501,17 +541,39 @@ public class ASN1ObjectIdentifier
 
     static ASN1ObjectIdentifier fromOctetString(final Bytes enc)
     {
-        final OidHandle hdl = new OidHandle(enc);
+        final ASN1ObjectIdentifier cached = cache.get(enc);
+        if (cached != null)
+        {
+            return cached;
+        }
+
+        // enc may be a view of a larger buffer, the cache keeps a copy
+        return canonical(ByteBufferBytes.wrap(enc.toByteArray()));
+    }
 
-        synchronized (pool)
+    /**
+     * Variant for contents in a temporary buffer, which are only copied if the identifier
+     * is not in the cache yet.
+     */
+    static ASN1ObjectIdentifier fromOctetString(final byte[] b, final int off, final int len)
+    {
+        final ASN1ObjectIdentifier cached = cache.get(b, off, len);
+        if (cached != null)
         {
-            final ASN1ObjectIdentifier oid = (ASN1ObjectIdentifier)pool.get(hdl);
-            if (oid != null)
-            {
-                return oid;
-            }
+            return cached;
         }
 
-        return new ASN1ObjectIdentifier(enc);
+        return canonical(ByteBufferBytes.wrap(Arrays.copyOfRange(b, off, off + len)));
+    }
+
+    private static ASN1ObjectIdentifier canonical(final Bytes enc)
+    {
+        ASN1ObjectIdentifier oid = pool.isEmpty() ? null : pool.get(new OidHandle(enc));
+        if (oid == null)
+        {
+            oid = new ASN1ObjectIdentifier(enc);
+        }
+        cache.put(oid);
+        return oid;
     }
 }
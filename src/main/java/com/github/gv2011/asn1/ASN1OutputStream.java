@@ -29,61 +29,192 @@ package com.github.gv2011.asn1;
  */
 
 
-import static com.github.gv2011.util.bytes.ByteUtils.newBytes;
-import static com.github.gv2011.util.ex.Exceptions.call;
+import static com.github.gv2011.util.ex.Exceptions.wrap;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Arrays;
 
+import com.github.gv2011.asn1.util.io.BufferPool;
+import com.github.gv2011.asn1.util.io.ByteBufferBytes;
 import com.github.gv2011.util.bytes.Bytes;
 
 /**
  * Stream that produces output based on the default encoding for the passed in objects.
+ * <p>
+ * The encoding is collected in an internal array, which grows up to {@link #MAX_BUFFER_SIZE}
+ * and is handed to the underlying stream in bulk, at the latest when the outermost
+ * {@link #writeObject(ASN1Encodable)} returns. The array is taken from the {@link BufferPool}
+ * for each outermost object and handed back afterwards. Nested objects are written to the
+ * same array; DER and DL subtrees and implicitly tagged objects only switch a flag.
+ * </p>
  */
 public class ASN1OutputStream
 {
+    /** Encoding forms, ordered by strictness: a subtree is written in the stricter form. */
+    static final int BER = 0;
+    static final int DL = 1;
+    static final int DER = 2;
+
+    private static final int INITIAL_BUFFER_SIZE = 128;
+    private static final int MAX_BUFFER_SIZE = 8192;
+    private static final int SMALL_CONTENT = 16;
+    private static final byte[] EMPTY = new byte[0];
+
+    /** Number of length octets in the long form, by number of leading zero bits. */
+    private static final byte[] LENGTH_OCTETS = new byte[33];
+    /** Number of 7 bit groups of a high tag number, by number of leading zero bits. */
+    private static final byte[] TAG_GROUPS = new byte[33];
+
+    static
+    {
+        for (int nlz = 0; nlz <= 32; nlz++)
+        {
+            final int bits = Math.max(32 - nlz, 1);
+            LENGTH_OCTETS[nlz] = (byte)((bits + 7) / 8);
+            TAG_GROUPS[nlz] = (byte)((bits + 6) / 7);
+        }
+    }
+
     private final OutputStream os;
+    /** Without a target stream, the whole encoding is kept for {@link #toBytes()}. */
+    private final boolean collect;
+    /** Appends to the array, room has been made before. */
+    private final OutputStream sink = new OutputStream()
+    {
+        @Override
+        public void write(final int b)
+        {
+            buf[pos++] = (byte)b;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len)
+        {
+            System.arraycopy(b, off, buf, pos, len);
+            pos += len;
+        }
+    };
+    private int form;
+    private int nesting;
+
+    byte[] buf;
+    int pos;
+    /** The next octet written is dropped - the identifier of an implicitly tagged object. */
+    boolean skip;
 
     public ASN1OutputStream(
         final OutputStream    os)
+    {
+        this(os, BER);
+    }
+
+    ASN1OutputStream(final OutputStream os, final int form)
     {
         this.os = os;
+        this.form = form;
+        this.collect = false;
+        this.buf = EMPTY;
+    }
+
+    /**
+     * Create a stream collecting the encoding for {@link #toBytes()}.
+     */
+    ASN1OutputStream(final int form)
+    {
+        this.os = null;
+        this.form = form;
+        this.collect = true;
+        this.buf = EMPTY;
     }
 
     void writeLength(
         final int length)
     {
-        if (length > 127)
+        if (length < 0x80)
         {
-            int size = 1;
-            int val = length;
-
-            while ((val >>>= 8) != 0)
+            write(length);
+        }
+        else
+        {
+            final int size = LENGTH_OCTETS[Integer.numberOfLeadingZeros(length)];
+            if (buf.length - pos <= size)
             {
-                size++;
+                makeRoom(size + 1);
             }
 
-            write((byte)(size | 0x80));
-
+            put(0x80 | size);
             for (int i = (size - 1) * 8; i >= 0; i -= 8)
             {
-                write((byte)(length >> i));
+                buf[pos++] = (byte)(length >> i);
             }
         }
-        else
+    }
+
+    void write(final int b)
+    {
+        if (pos == buf.length)
         {
-            write((byte)length);
+            makeRoom(1);
         }
+        put(b);
     }
 
-    void write(final int b)
+    /**
+     * Store b, room for it has been made.
+     */
+    private void put(final int b)
     {
-        call(()->os.write(b));
+        if (skip)
+        {
+            skip = false;
+        }
+        else
+        {
+            buf[pos++] = (byte)b;
+        }
     }
 
     void write(final Bytes bytes)
     {
-      bytes.write(os);
+        final int size = bytes.size();
+        if (size == 0)
+        {
+            return;
+        }
+        if (skip)
+        {
+            skip = false;
+            write(bytes.subList(1));
+            return;
+        }
+
+        if (size <= SMALL_CONTENT)
+        {
+            if (buf.length - pos < size)
+            {
+                makeRoom(size);
+            }
+            for (int i = 0; i != size; i++)
+            {
+                buf[pos++] = bytes.getByte(i);
+            }
+        }
+        else if (os == null || buf.length - pos >= size || size <= MAX_BUFFER_SIZE / 2)
+        {
+            if (buf.length - pos < size)
+            {
+                makeRoom(size);
+            }
+            // array backed Bytes hand over their array in a single call
+            bytes.write(sink);
+        }
+        else
+        {
+            // too large to be worth copying
+            flushBuffer();
+            bytes.write(os);
+        }
     }
 
     void writeEncoded(
@@ -95,36 +226,26 @@ public class ASN1OutputStream
         write(bytes);
     }
 
-    void writeTag(final int flags, int tagNo)
+    void writeTag(final int flags, final int tagNo)
     {
         if (tagNo < 31)
         {
             write(flags | tagNo);
+            return;
         }
-        else
-        {
-            write(flags | 0x1f);
-            if (tagNo < 128)
-            {
-                write(tagNo);
-            }
-            else
-            {
-                final byte[] stack = new byte[5];
-                int pos = stack.length;
-
-                stack[--pos] = (byte)(tagNo & 0x7F);
 
-                do
-                {
-                    tagNo >>= 7;
-                    stack[--pos] = (byte)(tagNo & 0x7F | 0x80);
-                }
-                while (tagNo > 127);
+        final int groups = TAG_GROUPS[Integer.numberOfLeadingZeros(tagNo)];
+        if (buf.length - pos < groups + 1)
+        {
+            makeRoom(groups + 1);
+        }
 
-                write(newBytes(stack, pos, stack.length));
-            }
+        put(flags | 0x1f);
+        for (int i = (groups - 1) * 7; i > 0; i -= 7)
+        {
+            buf[pos++] = (byte)((tagNo >>> i) & 0x7f | 0x80);
         }
+        buf[pos++] = (byte)(tagNo & 0x7f);
     }
 
     void writeEncoded(final int flags, final int tagNo, final Bytes bytes)
@@ -137,8 +258,8 @@ public class ASN1OutputStream
     protected void writeNull()
         throws IOException
     {
-        os.write(BERTags.NULL);
-        os.write(0x00);
+        // as an outermost object it has to reach the underlying stream
+        writePrimitive(DERNull.INSTANCE);
     }
 
     public void writeObject(
@@ -146,7 +267,9 @@ public class ASN1OutputStream
     {
         if (obj != null)
         {
-            obj.toASN1Primitive().encode(this);
+            final ASN1Primitive primitive = obj.toASN1Primitive();
+
+            writePrimitive(form == DER ? primitive.toDERObject() : form == DL ? primitive.toDLObject() : primitive);
         }
         else
         {
@@ -154,11 +277,44 @@ public class ASN1OutputStream
         }
     }
 
+    /**
+     * Write obj as it is, without conversion to the form of this stream. If an outermost object
+     * fails, the part of it written so far is dropped, so the stream can still be used.
+     */
+    void writePrimitive(final ASN1Primitive obj)
+    {
+        final int start = pos;
+        nesting++;
+        try
+        {
+            obj.encode(this);
+        }
+        catch (final RuntimeException | Error e)
+        {
+            if (nesting == 1)
+            {
+                // a target stream is flushed after each outermost object
+                pos = os != null ? 0 : start;
+                skip = false;
+            }
+            throw e;
+        }
+        finally
+        {
+            if (--nesting == 0 && os != null)
+            {
+                flushBuffer();
+                releaseBuffer();
+            }
+        }
+    }
+
     void writeImplicitObject(final ASN1Primitive obj)
     {
         if (obj != null)
         {
-            obj.encode(new ImplicitOutputStream(os));
+            skip = true;
+            obj.encode(this);
         }
         else
         {
@@ -166,49 +322,116 @@ public class ASN1OutputStream
         }
     }
 
+    /**
+     * Write obj and everything nested in it in DER.
+     */
+    void writeDERObject(final ASN1Encodable obj)
+    {
+        writeObject(obj, DER);
+    }
+
+    /**
+     * Write obj and everything nested in it in DL, or DER if this stream writes DER.
+     */
+    void writeDLObject(final ASN1Encodable obj)
+    {
+        writeObject(obj, DL);
+    }
+
+    private void writeObject(final ASN1Encodable obj, final int subForm)
+    {
+        final int outer = form;
+        if (subForm > outer)
+        {
+            form = subForm;
+        }
+        try
+        {
+            writeObject(obj);
+        }
+        finally
+        {
+            form = outer;
+        }
+    }
+
     public void close()
         throws IOException
     {
+        flushBuffer();
+        releaseBuffer();
         os.close();
     }
 
     public void flush()
         throws IOException
     {
+        flushBuffer();
         os.flush();
     }
 
-    ASN1OutputStream getDERSubStream()
+    /**
+     * Return the encoding collected by a stream created without a target stream, and hand
+     * back its array.
+     */
+    Bytes toBytes()
     {
-        return new DEROutputStream(os);
+        final Bytes result = ByteBufferBytes.wrap(Arrays.copyOf(buf, pos));
+        releaseBuffer();
+        pos = 0;
+        return result;
     }
 
-    ASN1OutputStream getDLSubStream()
+    /**
+     * Make room for at least n more octets, by emptying the array or else replacing it with a
+     * larger one.
+     */
+    private void makeRoom(final int n)
     {
-        return new DLOutputStream(os);
+        if (os == null && !collect)
+        {
+            throw new IllegalStateException("encoding exceeds the target array");
+        }
+        if (os != null && pos + n > MAX_BUFFER_SIZE)
+        {
+            flushBuffer();
+            if (buf.length >= n)
+            {
+                return;
+            }
+        }
+
+        final int limit = os == null ? Integer.MAX_VALUE : MAX_BUFFER_SIZE;
+        final byte[] larger = BufferPool.get().acquire(
+            Math.max(pos + n, Math.min(limit, Math.max(INITIAL_BUFFER_SIZE, buf.length * 2))));
+
+        System.arraycopy(buf, 0, larger, 0, pos);
+        releaseBuffer();
+        buf = larger;
     }
 
-    private class ImplicitOutputStream
-        extends ASN1OutputStream
+    private void releaseBuffer()
     {
-        private boolean first = true;
-
-        public ImplicitOutputStream(final OutputStream os)
+        if (buf.length != 0)
         {
-            super(os);
+            BufferPool.get().release(buf);
+            buf = EMPTY;
         }
+    }
 
-        @Override
-        public void write(final int b)
+    private void flushBuffer()
+    {
+        if (pos != 0 && os != null)
         {
-            if (first)
+            try
             {
-                first = false;
+                os.write(buf, 0, pos);
             }
-            else
+            catch (final IOException e)
             {
-                super.write(b);
+                throw wrap(e);
             }
+            pos = 0;
         }
     }
 }
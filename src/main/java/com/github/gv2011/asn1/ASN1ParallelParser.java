@@ -0,0 +1,290 @@
+package com.github.gv2011.asn1;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import com.github.gv2011.asn1.util.io.ByteBufferBytes;
+import com.github.gv2011.asn1.util.io.MappedFileBytes;
+import com.github.gv2011.util.bytes.Bytes;
+
+/**
+ * A parser for large in-memory encodings that decodes the members of big definite-length
+ * SEQUENCE and SET bodies in parallel. The member boundaries are found with a scan of the
+ * member headers (see {@link ASN1PullParser}), then ranges of members are decoded as
+ * fork/join tasks. Constructed members above the threshold are split again, so the
+ * revoked certificates of a CRL are decoded in parallel although they are nested inside
+ * the TBSCertList.
+ * <p>
+ * The result is the same as that of {@link ASN1BufferParser}, bodies smaller than the
+ * threshold and everything inside tagged or indefinite-length objects is decoded by it.
+ */
+public final class ASN1ParallelParser
+    implements BERTags
+{
+    /**
+     * The default threshold: bodies of at least 64 KB are split.
+     */
+    public static final int DEFAULT_THRESHOLD = 64 * 1024;
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    /**
+     * Create a parser using the common pool and the default threshold.
+     */
+    public ASN1ParallelParser()
+    {
+        this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Create a parser.
+     *
+     * @param pool the pool the decoding tasks run on.
+     * @param threshold the minimum length of a SEQUENCE or SET body to split, and the
+     * approximate number of bytes decoded by one task.
+     */
+    public ASN1ParallelParser(final ForkJoinPool pool, final int threshold)
+    {
+        if (threshold < 1)
+        {
+            throw new IllegalArgumentException("threshold must be positive");
+        }
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Parse a single object that must span all of encoding.
+     *
+     * @param encoding the encoding.
+     * @return the object, null if encoding is empty.
+     * @throws ASN1Exception if the encoding contains extra data.
+     * @throws ASN1ParsingException if the encoding is malformed.
+     */
+    public ASN1Primitive parse(final Bytes encoding)
+    {
+        final Bytes input = view(encoding);
+        if (input.longSize() == 0)
+        {
+            return null;
+        }
+        final ASN1PullParser parser = new ASN1PullParser(input);
+        parser.next();
+        final Bytes element = parser.getEncoded();
+        if (element.longSize() != input.longSize())
+        {
+            throw new ASN1Exception("Extra data detected in stream");
+        }
+        if (element.longSize() < threshold)
+        {
+            return decode(element);
+        }
+        return pool.invoke(new ParseTask(element));
+    }
+
+    /**
+     * Return the members of the constructed element selected by path, in order. The members
+     * are decoded as the stream is consumed; a parallel stream decodes them concurrently, in
+     * the fork/join pool the terminal operation runs in.
+     *
+     * @param encoding the encoding.
+     * @param path the path of a constructed element.
+     * @return the members, an empty stream if path does not select a constructed element.
+     */
+    public Stream<ASN1Primitive> members(final Bytes encoding, final ASN1Path path)
+    {
+        final Bytes input = view(encoding);
+        final ASN1PullParser parser = new ASN1PullParser(input);
+        if (!path.find(parser) || parser.getEvent() != ASN1PullParser.START_CONSTRUCTED)
+        {
+            return Stream.empty();
+        }
+        final long[] offsets = scanMembers(parser);
+        return IntStream.range(0, offsets.length - 1)
+            .mapToObj(i->decode(input.subList(offsets[i], offsets[i + 1])));
+    }
+
+    private static Bytes view(final Bytes encoding)
+    {
+        // sub lists of these are views, a copy of other input is made only once
+        if (encoding instanceof ByteBufferBytes || encoding instanceof MappedFileBytes)
+        {
+            return encoding;
+        }
+        return ByteBufferBytes.wrap(encoding.toByteArray());
+    }
+
+    private static ASN1Primitive decode(final Bytes element)
+    {
+        return new ASN1BufferParser(element).readObject();
+    }
+
+    /**
+     * Return the offsets of the members of the current constructed element, followed by the
+     * end offset of the last member. The parser is left at the end of the element.
+     */
+    private static long[] scanMembers(final ASN1PullParser parser)
+    {
+        long[] offsets = new long[64];
+        int count = 0;
+        for (;;)
+        {
+            final int event = parser.next();
+            if (count == offsets.length)
+            {
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            if (event == ASN1PullParser.START_CONSTRUCTED || event == ASN1PullParser.PRIMITIVE)
+            {
+                offsets[count++] = parser.getOffset();
+                parser.skip();
+            }
+            else if (event == ASN1PullParser.EOC)
+            {
+                offsets[count++] = parser.getContentOffset() - 2;
+                parser.next();
+                return Arrays.copyOf(offsets, count);
+            }
+            else
+            {
+                offsets[count++] = parser.getContentOffset() + parser.getLength();
+                return Arrays.copyOf(offsets, count);
+            }
+        }
+    }
+
+    private final class ParseTask
+        extends RecursiveTask<ASN1Primitive>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final Bytes element;
+
+        ParseTask(final Bytes element)
+        {
+            this.element = element;
+        }
+
+        @Override
+        protected ASN1Primitive compute()
+        {
+            if (element.longSize() < threshold)
+            {
+                return decode(element);
+            }
+            final ASN1PullParser parser = new ASN1PullParser(element);
+            parser.next();
+            final int tag = parser.getTag();
+            final int tagNo = parser.getTagNo();
+            if (tag != CONSTRUCTED || parser.getLength() < 0 || (tagNo != SEQUENCE && tagNo != SET))
+            {
+                return decode(element);
+            }
+
+            final long[] offsets = scanMembers(parser);
+            final ASN1Primitive[] members = new ASN1Primitive[offsets.length - 1];
+            new MembersTask(element, offsets, members, 0, members.length).compute();
+
+            final ASN1EncodableVector v = new ASN1EncodableVector(members.length);
+            for (final ASN1Primitive member : members)
+            {
+                v.add(member);
+            }
+            return tagNo == SEQUENCE ? DERFactory.createSequence(v) : DERFactory.createSet(v);
+        }
+    }
+
+    private final class MembersTask
+        extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final Bytes element;
+        private final long[] offsets;
+        private final ASN1Primitive[] members;
+        private final int from;
+        private final int to;
+
+        MembersTask(
+            final Bytes element, final long[] offsets, final ASN1Primitive[] members, final int from, final int to)
+        {
+            this.element = element;
+            this.offsets = offsets;
+            this.members = members;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (to - from > 1 && offsets[to] - offsets[from] > threshold)
+            {
+                final int mid = (from + to) >>> 1;
+                invokeAll(
+                    new MembersTask(element, offsets, members, from, mid),
+                    new MembersTask(element, offsets, members, mid, to));
+            }
+            else
+            {
+                int i = from;
+                while (i != to)
+                {
+                    if (offsets[i + 1] - offsets[i] >= threshold)
+                    {
+                        members[i] = new ParseTask(element.subList(offsets[i], offsets[i + 1])).compute();
+                        i++;
+                    }
+                    else
+                    {
+                        // a run of small members is decoded by a single parser
+                        int end = i + 1;
+                        while (end != to && offsets[end + 1] - offsets[end] < threshold)
+                        {
+                            end++;
+                        }
+                        final ASN1BufferParser parser = new ASN1BufferParser(element.subList(offsets[i], offsets[end]));
+                        while (i != end)
+                        {
+                            members[i++] = parser.readObject();
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package com.github.gv2011.asn1;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import java.util.Arrays;
+
+import com.github.gv2011.util.bytes.Bytes;
+
+/**
+ * A compiled path selecting a single element of an encoding. The path is evaluated with an
+ * {@link ASN1PullParser}: elements not on the path are skipped using their length octets,
+ * so the cost depends on the number of headers walked, not on the size of the encoding.
+ * <p>
+ * Two notations are supported:
+ * <ul>
+ * <li>An index path like {@code [0][0][5]}: starting from the top level object, each
+ * {@code [i]} selects the child with index i (counting from 0).</li>
+ * <li>A tag path like {@code SEQUENCE/[0]/INTEGER}: each segment selects the first element
+ * with the given tag on its level, the first segment applies to the top level objects.
+ * A segment is either a universal type name as in {@link BERTags} (e.g. {@code OCTET_STRING}),
+ * a tag in ASN.1 notation ({@code [3]}, {@code [APPLICATION 3]}, {@code [PRIVATE 3]},
+ * {@code [UNIVERSAL 3]}), {@code #i} for the child with index i, or {@code *} for any element.
+ * A name or tag can be followed by {@code #i} to select the (i+1)th element with that tag.
+ * A tag path consisting of a single tag is written with a leading slash, e.g. {@code /[0]}.</li>
+ * </ul>
+ * The constructed bit is not considered when matching tags, so {@code [0]} selects both
+ * explicitly and implicitly tagged objects. Instances are immutable and thread safe.
+ */
+public final class ASN1Path
+{
+    private static final int ANY = -1;
+
+    private final String path;
+
+    // per step: the class bits of the tag or ANY, the tag number and the occurrence to select
+    private final int[] classes;
+    private final int[] tagNos;
+    private final int[] occurrences;
+
+    private ASN1Path(final String path, final int[] classes, final int[] tagNos, final int[] occurrences)
+    {
+        this.path = path;
+        this.classes = classes;
+        this.tagNos = tagNos;
+        this.occurrences = occurrences;
+    }
+
+    /**
+     * Compile a path.
+     *
+     * @param path the path in one of the notations described above.
+     * @return the compiled path.
+     * @throws IllegalArgumentException if the path is malformed.
+     */
+    public static ASN1Path compile(final String path)
+    {
+        final String trimmed = path.trim();
+        if (trimmed.isEmpty())
+        {
+            throw new IllegalArgumentException("empty path");
+        }
+        if (trimmed.indexOf('/') < 0 && trimmed.charAt(0) == '[' && isIndexPath(trimmed))
+        {
+            return compileIndexPath(path, trimmed);
+        }
+        return compileTagPath(path, trimmed.charAt(0) == '/' ? trimmed.substring(1) : trimmed);
+    }
+
+    private static boolean isIndexPath(final String path)
+    {
+        for (int i = 0; i != path.length(); i++)
+        {
+            final char c = path.charAt(i);
+            if (c != '[' && c != ']' && (c < '0' || c > '9'))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ASN1Path compileIndexPath(final String path, final String steps)
+    {
+        final String[] indices = steps.substring(1, steps.length() - 1).split("\\]\\[", -1);
+        final int size = indices.length + 1;
+        final int[] classes = new int[size];
+        final int[] tagNos = new int[size];
+        final int[] occurrences = new int[size];
+
+        // the top level object itself
+        classes[0] = ANY;
+        for (int i = 1; i != size; i++)
+        {
+            classes[i] = ANY;
+            occurrences[i] = parseNumber(path, indices[i - 1]);
+        }
+        return new ASN1Path(path, classes, tagNos, occurrences);
+    }
+
+    private static ASN1Path compileTagPath(final String path, final String steps)
+    {
+        final String[] segments = steps.split("/", -1);
+        final int[] classes = new int[segments.length];
+        final int[] tagNos = new int[segments.length];
+        final int[] occurrences = new int[segments.length];
+
+        for (int i = 0; i != segments.length; i++)
+        {
+            String segment = segments[i].trim();
+            final int hash = segment.lastIndexOf('#');
+            if (hash >= 0)
+            {
+                occurrences[i] = parseNumber(path, segment.substring(hash + 1));
+                segment = segment.substring(0, hash).trim();
+                if (segment.isEmpty())
+                {
+                    segment = "*";
+                }
+            }
+
+            if (segment.equals("*"))
+            {
+                classes[i] = ANY;
+            }
+            else if (segment.startsWith("[") && segment.endsWith("]"))
+            {
+                final String tag = segment.substring(1, segment.length() - 1).trim();
+                final int space = tag.lastIndexOf(' ');
+                if (space < 0)
+                {
+                    classes[i] = BERTags.TAGGED;
+                }
+                else
+                {
+                    classes[i] = parseClass(path, tag.substring(0, space).trim());
+                }
+                tagNos[i] = parseNumber(path, tag.substring(space + 1));
+            }
+            else
+            {
+                classes[i] = 0;
+                tagNos[i] = universalTagNo(path, segment);
+            }
+        }
+        return new ASN1Path(path, classes, tagNos, occurrences);
+    }
+
+    private static int parseClass(final String path, final String name)
+    {
+        switch (name)
+        {
+        case "UNIVERSAL":
+            return 0;
+        case "APPLICATION":
+            return BERTags.APPLICATION;
+        case "PRIVATE":
+            return BERTags.APPLICATION | BERTags.TAGGED;
+        case "CONTEXT":
+            return BERTags.TAGGED;
+        default:
+            throw new IllegalArgumentException("unknown tag class " + name + " in path " + path);
+        }
+    }
+
+    private static int universalTagNo(final String path, final String name)
+    {
+        switch (name)
+        {
+        case "BOOLEAN":
+            return BERTags.BOOLEAN;
+        case "INTEGER":
+            return BERTags.INTEGER;
+        case "BIT_STRING":
+            return BERTags.BIT_STRING;
+        case "OCTET_STRING":
+            return BERTags.OCTET_STRING;
+        case "NULL":
+            return BERTags.NULL;
+        case "OBJECT_IDENTIFIER":
+            return BERTags.OBJECT_IDENTIFIER;
+        case "EXTERNAL":
+            return BERTags.EXTERNAL;
+        case "ENUMERATED":
+            return BERTags.ENUMERATED;
+        case "SEQUENCE":
+        case "SEQUENCE_OF":
+            return BERTags.SEQUENCE;
+        case "SET":
+        case "SET_OF":
+            return BERTags.SET;
+        case "NUMERIC_STRING":
+            return BERTags.NUMERIC_STRING;
+        case "PRINTABLE_STRING":
+            return BERTags.PRINTABLE_STRING;
+        case "T61_STRING":
+            return BERTags.T61_STRING;
+        case "VIDEOTEX_STRING":
+            return BERTags.VIDEOTEX_STRING;
+        case "IA5_STRING":
+            return BERTags.IA5_STRING;
+        case "UTC_TIME":
+            return BERTags.UTC_TIME;
+        case "GENERALIZED_TIME":
+            return BERTags.GENERALIZED_TIME;
+        case "GRAPHIC_STRING":
+            return BERTags.GRAPHIC_STRING;
+        case "VISIBLE_STRING":
+            return BERTags.VISIBLE_STRING;
+        case "GENERAL_STRING":
+            return BERTags.GENERAL_STRING;
+        case "UNIVERSAL_STRING":
+            return BERTags.UNIVERSAL_STRING;
+        case "BMP_STRING":
+            return BERTags.BMP_STRING;
+        case "UTF8_STRING":
+            return BERTags.UTF8_STRING;
+        default:
+            throw new IllegalArgumentException("unknown type " + name + " in path " + path);
+        }
+    }
+
+    private static int parseNumber(final String path, final String number)
+    {
+        try
+        {
+            final int value = Integer.parseInt(number.trim());
+            if (value >= 0)
+            {
+                return value;
+            }
+        }
+        catch (final NumberFormatException e)
+        {
+            // reported below
+        }
+        throw new IllegalArgumentException("invalid number " + number + " in path " + path);
+    }
+
+    /**
+     * Move the parser to the element selected by this path. The parser must be positioned
+     * before the top level object(s), usually it has just been created or reset. If the
+     * element is found, the current event of the parser is its {@link ASN1PullParser#START_CONSTRUCTED}
+     * or {@link ASN1PullParser#PRIMITIVE} event and the getters describe it.
+     *
+     * @param parser the parser to search with.
+     * @return true if the element was found.
+     * @throws ASN1ParsingException if the walked part of the encoding is malformed.
+     */
+    public boolean find(final ASN1PullParser parser)
+    {
+        for (int step = 0; step != classes.length; step++)
+        {
+            if (step > 0 && parser.getEvent() != ASN1PullParser.START_CONSTRUCTED)
+            {
+                return false;
+            }
+            if (!findChild(parser, step))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean findChild(final ASN1PullParser parser, final int step)
+    {
+        int matches = 0;
+        for (;;)
+        {
+            final int event = parser.next();
+            if (event == ASN1PullParser.EOC)
+            {
+                continue;
+            }
+            if (event == ASN1PullParser.END_CONSTRUCTED || event == ASN1PullParser.END_DOCUMENT)
+            {
+                return false;
+            }
+            if (matches(parser, step) && matches++ == occurrences[step])
+            {
+                return true;
+            }
+            parser.skip();
+        }
+    }
+
+    private boolean matches(final ASN1PullParser parser, final int step)
+    {
+        final int tagClass = classes[step];
+        if (tagClass == ANY)
+        {
+            return true;
+        }
+        return (parser.getTag() & (BERTags.APPLICATION | BERTags.TAGGED)) == tagClass
+            && parser.getTagNo() == tagNos[step];
+    }
+
+    /**
+     * Return the complete encoding of the selected element.
+     *
+     * @param encoding the encoding to search.
+     * @return a view of the encoding of the selected element, null if there is none.
+     */
+    public Bytes extract(final Bytes encoding)
+    {
+        final ASN1PullParser parser = new ASN1PullParser(encoding);
+        return find(parser) ? parser.getEncoded() : null;
+    }
+
+    /**
+     * Return the selected element as object.
+     *
+     * @param encoding the encoding to search.
+     * @return the selected element, null if there is none.
+     */
+    public ASN1Primitive select(final Bytes encoding)
+    {
+        final Bytes element = extract(encoding);
+        return element == null ? null : ASN1Primitive.fromBytes(element);
+    }
+
+    @Override
+    public boolean equals(final Object o)
+    {
+        if (!(o instanceof ASN1Path))
+        {
+            return false;
+        }
+        final ASN1Path other = (ASN1Path)o;
+        return Arrays.equals(classes, other.classes)
+            && Arrays.equals(tagNos, other.tagNos)
+            && Arrays.equals(occurrences, other.occurrences);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Arrays.hashCode(classes) ^ Arrays.hashCode(tagNos) ^ Arrays.hashCode(occurrences);
+    }
+
+    @Override
+    public String toString()
+    {
+        return path;
+    }
+}
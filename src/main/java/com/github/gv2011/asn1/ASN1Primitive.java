@@ -29,8 +29,6 @@ package com.github.gv2011.asn1;
  */
 
 
-import static com.github.gv2011.util.ex.Exceptions.call;
-
 import java.io.IOException;
 
 import com.github.gv2011.util.bytes.Bytes;
@@ -43,6 +41,11 @@ public abstract class ASN1Primitive extends ASN1Object {
 
   ASN1Primitive() {}
 
+  /**
+   * The cached encoding, a Bytes or an input record - see {@link ASN1EncodingCache}.
+   */
+  volatile Object cachedEncoding;
+
   /**
    * Create a base ASN.1 object from a byte stream.
    *
@@ -54,16 +57,8 @@ public abstract class ASN1Primitive extends ASN1Object {
    *              did not exhaust the available data.
    */
   public static ASN1Primitive fromBytes(final Bytes data){
-
-    @SuppressWarnings("resource")
-    final ASN1InputStream aIn = new ASN1InputStream(data);
-
     try {
-      final ASN1Primitive o = aIn.readObject();
-
-      if (call(aIn::available) != 0) { throw new ASN1Exception("Extra data detected in stream"); }
-
-      return o;
+      return ASN1BufferParser.parse(data);
     } catch (final ClassCastException e) {
       throw new ASN1Exception("cannot recognise object in stream");
     }
@@ -0,0 +1,719 @@
+package com.github.gv2011.asn1;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+import com.github.gv2011.asn1.util.io.ByteBufferBytes;
+import com.github.gv2011.util.bytes.Bytes;
+
+/**
+ * A pull parser for BER/DER encodings that reports the structure as a series of events
+ * instead of building objects:
+ * <ul>
+ * <li>{@link #START_CONSTRUCTED} - the header of a constructed object was read,</li>
+ * <li>{@link #PRIMITIVE} - the header of a primitive object was read, its contents follow,</li>
+ * <li>{@link #EOC} - an end-of-contents marker of an indefinite-length object was read,</li>
+ * <li>{@link #END_CONSTRUCTED} - the contents of a constructed object are complete,</li>
+ * <li>{@link #END_DOCUMENT} - the input is exhausted.</li>
+ * </ul>
+ * The tag, offsets and length of the current object are available through the getters.
+ * Offsets are relative to the start of the input. A parser can be reused for any number
+ * of inputs with the reset methods; parsing itself does not create objects.
+ * <p>
+ * Offsets and lengths are 64 bit, so files larger than 2 GB can be processed by mapping them
+ * with {@link com.github.gv2011.asn1.util.io.MappedFileBytes}. {@link #getContent()},
+ * {@link #getEncoded()} and {@link #readObject()} then return views of the mapped file.
+ * <p>
+ * Typical use:
+ * <pre>
+ * ASN1PullParser parser = new ASN1PullParser(encoding);
+ * int event;
+ * while ((event = parser.next()) != ASN1PullParser.END_DOCUMENT)
+ * {
+ *     ...
+ * }
+ * </pre>
+ */
+public final class ASN1PullParser
+    implements BERTags
+{
+    public static final int START_CONSTRUCTED = 1;
+    public static final int PRIMITIVE = 2;
+    public static final int END_CONSTRUCTED = 3;
+    public static final int EOC = 4;
+    public static final int END_DOCUMENT = 5;
+
+    private final ByteSource.BytesSource bytesSource = new ByteSource.BytesSource();
+    private final ByteSource.BufferSource bufferSource = new ByteSource.BufferSource();
+    private ByteSource.StreamSource streamSource;
+
+    private ByteSource source;
+
+    private int event;
+    private int tag;
+    private int tagNo;
+    private long offset;
+    private long contentOffset;
+    private long length;
+
+    // the open constructed objects
+    private int depth;
+    // depth at which the OCTET STRING read by readOctets/transferOctets ends, -1 if none
+    private int octetsLevel = -1;
+    private int[] tags = new int[16];
+    private int[] tagNos = new int[16];
+    private long[] offsets = new long[16];
+    private long[] contentOffsets = new long[16];
+    private long[] ends = new long[16];
+    private long[] limits = new long[16];
+
+    /**
+     * Create a parser for the encoding(s) in input.
+     *
+     * @param input the encoded data.
+     */
+    public ASN1PullParser(final Bytes input)
+    {
+        reset(input);
+    }
+
+    /**
+     * Create a parser for the encoding(s) in the remaining content of input.
+     * The buffer's position is not changed.
+     *
+     * @param input the encoded data.
+     */
+    public ASN1PullParser(final ByteBuffer input)
+    {
+        reset(input);
+    }
+
+    /**
+     * Create a parser for the encoding(s) read from input.
+     *
+     * @param input the encoded data.
+     */
+    public ASN1PullParser(final InputStream input)
+    {
+        reset(input);
+    }
+
+    /**
+     * Continue with new input, forgetting the state of the previous one.
+     *
+     * @param input the encoded data.
+     * @return this parser.
+     */
+    public ASN1PullParser reset(final Bytes input)
+    {
+        if (input instanceof ByteBufferBytes)
+        {
+            return reset(((ByteBufferBytes)input).toByteBuffer());
+        }
+        return start(bytesSource.reset(input));
+    }
+
+    /**
+     * Continue with new input, forgetting the state of the previous one.
+     * The buffer's position is not changed.
+     *
+     * @param input the encoded data.
+     * @return this parser.
+     */
+    public ASN1PullParser reset(final ByteBuffer input)
+    {
+        return start(bufferSource.reset(input));
+    }
+
+    /**
+     * Continue with new input, forgetting the state of the previous one.
+     *
+     * @param input the encoded data.
+     * @return this parser.
+     */
+    public ASN1PullParser reset(final InputStream input)
+    {
+        if (streamSource == null)
+        {
+            streamSource = new ByteSource.StreamSource();
+        }
+        return start(streamSource.reset(input));
+    }
+
+    private ASN1PullParser start(final ByteSource source)
+    {
+        this.source = source;
+        event = 0;
+        depth = 0;
+        octetsLevel = -1;
+        return this;
+    }
+
+    /**
+     * Advance to the next event. Any unread contents of a primitive object are skipped.
+     *
+     * @return the event type.
+     * @throws ASN1ParsingException if the encoding is malformed or truncated.
+     */
+    public int next()
+    {
+        octetsLevel = -1;
+        return advance();
+    }
+
+    private int advance()
+    {
+        if (event == PRIMITIVE)
+        {
+            source.skip(contentOffset + length - source.position());
+        }
+        else if (event == EOC)
+        {
+            return endConstructed();
+        }
+        else if (event == END_DOCUMENT)
+        {
+            return END_DOCUMENT;
+        }
+
+        final long position = source.position();
+        final long limit = depth == 0 ? source.size() : limits[depth - 1];
+
+        if (depth > 0 && position == ends[depth - 1])
+        {
+            return endConstructed();
+        }
+
+        if (limit >= 0 && position >= limit)
+        {
+            if (depth == 0)
+            {
+                return event = END_DOCUMENT;
+            }
+            throw new ASN1ParsingException("EOF found before end-of-contents marker");
+        }
+
+        offset = position;
+        final int b = source.read();
+
+        if (b < 0)
+        {
+            if (depth == 0)
+            {
+                return event = END_DOCUMENT;
+            }
+            throw new ASN1ParsingException("EOF found inside constructed object");
+        }
+
+        if (b == 0)
+        {
+            if (depth == 0 || ends[depth - 1] >= 0)
+            {
+                throw new ASN1ParsingException("unexpected end-of-contents marker");
+            }
+            if (source.read() != 0)
+            {
+                throw new ASN1ParsingException("malformed end-of-contents marker");
+            }
+            tag = 0;
+            tagNo = 0;
+            contentOffset = source.position();
+            length = 0;
+            return event = EOC;
+        }
+
+        tag = b & 0xe0;
+        tagNo = readTagNumber(b);
+        length = readLength();
+        contentOffset = source.position();
+
+        if (length >= 0 && limit >= 0 && length > limit - contentOffset)
+        {
+            throw new ASN1ParsingException(
+                "DEF length " + length + " object truncated by " + (length - (limit - contentOffset)));
+        }
+
+        if ((b & CONSTRUCTED) != 0)
+        {
+            push(length < 0 ? limit : contentOffset + length);
+            return event = START_CONSTRUCTED;
+        }
+
+        if (length < 0)
+        {
+            throw new ASN1ParsingException("indefinite-length primitive encoding encountered");
+        }
+
+        return event = PRIMITIVE;
+    }
+
+    /**
+     * Skip the rest of the current object. After a {@link #START_CONSTRUCTED} event the
+     * parser moves to the end of the object, without reporting the events inside, and the
+     * current event becomes its {@link #END_CONSTRUCTED}. After a {@link #PRIMITIVE} event
+     * the contents are skipped.
+     */
+    public void skip()
+    {
+        if (event == PRIMITIVE)
+        {
+            source.skip(contentOffset + length - source.position());
+        }
+        else if (event == START_CONSTRUCTED)
+        {
+            if (length >= 0)
+            {
+                source.skip(contentOffset + length - source.position());
+                endConstructed();
+            }
+            else
+            {
+                final int level = depth;
+                while (depth >= level)
+                {
+                    if (next() == START_CONSTRUCTED && length >= 0)
+                    {
+                        skip();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the current event type, 0 before the first call to {@link #next()}.
+     */
+    public int getEvent()
+    {
+        return event;
+    }
+
+    /**
+     * Return the class and form bits of the identifier octet of the current object, that is
+     * the combination of {@link BERTags#APPLICATION}, {@link BERTags#TAGGED} (context specific),
+     * PRIVATE (both) and {@link BERTags#CONSTRUCTED}.
+     *
+     * @return the identifier bits, 0 for a universal primitive object and for EOC.
+     */
+    public int getTag()
+    {
+        return tag;
+    }
+
+    /**
+     * @return the tag number of the current object.
+     */
+    public int getTagNo()
+    {
+        return tagNo;
+    }
+
+    /**
+     * @return true if the current object is universal, with the given tag number.
+     */
+    public boolean isUniversal(final int universalTagNo)
+    {
+        return (tag & (APPLICATION | TAGGED)) == 0 && tagNo == universalTagNo;
+    }
+
+    /**
+     * @return true if the current object is context specific tagged with the given tag number.
+     */
+    public boolean isTagged(final int taggedTagNo)
+    {
+        return (tag & (APPLICATION | TAGGED)) == TAGGED && tagNo == taggedTagNo;
+    }
+
+    /**
+     * @return the offset of the first identifier octet of the current object.
+     */
+    public long getOffset()
+    {
+        return offset;
+    }
+
+    /**
+     * @return the offset of the first contents octet of the current object.
+     */
+    public long getContentOffset()
+    {
+        return contentOffset;
+    }
+
+    /**
+     * @return the length of the contents of the current object, -1 for indefinite length.
+     */
+    public long getLength()
+    {
+        return length;
+    }
+
+    /**
+     * @return the number of constructed objects enclosing the current position.
+     */
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    /**
+     * Read contents of the current primitive object.
+     *
+     * @param b the buffer to read into.
+     * @param off the offset in b.
+     * @param len the maximum number of bytes to read.
+     * @return the number of bytes read, -1 at the end of the contents.
+     */
+    public int readContent(final byte[] b, final int off, final int len)
+    {
+        checkPrimitive();
+        final long remaining = contentOffset + length - source.position();
+        if (remaining == 0)
+        {
+            return -1;
+        }
+        final int read = source.read(b, off, (int)Math.min(len, remaining));
+        if (read < 0)
+        {
+            throw new ASN1ParsingException("EOF encountered in middle of object");
+        }
+        return read;
+    }
+
+    /**
+     * Return the complete contents of the current primitive object. For in-memory input
+     * this is a view of the input, for stream input the contents are read and must not
+     * have been read before with {@link #readContent(byte[], int, int)}.
+     *
+     * @return the contents octets.
+     * @throws ASN1ParsingException if the input ends before the contents, or the contents are
+     *         too large for an array - read them with {@link #readContent(byte[], int, int)} then.
+     */
+    public Bytes getContent()
+    {
+        checkPrimitive();
+        if (source.isRandomAccess())
+        {
+            return source.slice(contentOffset, length);
+        }
+        if (source.position() != contentOffset)
+        {
+            throw new IllegalStateException("contents already read");
+        }
+        if (length > Integer.MAX_VALUE)
+        {
+            throw new ASN1ParsingException("contents of " + length + " octets too large for getContent()");
+        }
+        final byte[] content = new byte[(int)length];
+        int off = 0;
+        while (off != content.length)
+        {
+            final int read = source.read(content, off, content.length - off);
+            if (read < 0)
+            {
+                throw new ASN1ParsingException("EOF encountered in middle of object");
+            }
+            off += read;
+        }
+        return ByteBufferBytes.wrap(content);
+    }
+
+    /**
+     * Return the complete encoding, identifier and length octets included, of the current
+     * object. After a {@link #START_CONSTRUCTED} event the parser moves to the end of the
+     * object as with {@link #skip()}. Only supported for in-memory input.
+     *
+     * @return a view of the encoding of the current object.
+     * @throws IllegalStateException if the input is a stream; the parser is not moved then.
+     */
+    public Bytes getEncoded()
+    {
+        if (!source.isRandomAccess())
+        {
+            throw new IllegalStateException("getEncoded() and readObject() need in-memory input");
+        }
+        if (event == START_CONSTRUCTED)
+        {
+            skip();
+            return source.slice(offset, source.position() - offset);
+        }
+        checkPrimitive();
+        return source.slice(offset, contentOffset + length - offset);
+    }
+
+    /**
+     * Return the current object as parsed by {@link ASN1Primitive#fromBytes(Bytes)}. After a
+     * {@link #START_CONSTRUCTED} event the parser moves to the end of the object as with
+     * {@link #skip()}. Only supported for in-memory input; primitive contents of the result
+     * are views of the input.
+     *
+     * @return the current object.
+     * @throws IllegalStateException if the input is a stream; the parser is not moved then.
+     */
+    public ASN1Primitive readObject()
+    {
+        return ASN1Primitive.fromBytes(getEncoded());
+    }
+
+    /**
+     * Read the contents of the current OCTET STRING into dst. Constructed encodings, nested
+     * and of indefinite length included, are read segment by segment, so dst receives the
+     * concatenated contents. The call can be repeated until -1 is returned; the parser is
+     * then at the end of the OCTET STRING. The outer tag is not checked, so implicitly tagged
+     * strings can be read as well.
+     *
+     * @param dst the buffer to read into, up to its remaining space.
+     * @return the number of bytes read, -1 at the end of the contents.
+     * @throws ASN1ParsingException if a segment is not an OCTET STRING.
+     */
+    public int readOctets(final ByteBuffer dst)
+    {
+        startOctets();
+        int count = 0;
+        while (dst.hasRemaining() && nextSegment())
+        {
+            final long remaining = contentOffset + length - source.position();
+            final int read = source.read(dst, (int)Math.min(dst.remaining(), remaining));
+            if (read < 0)
+            {
+                throw new ASN1ParsingException("EOF encountered in middle of object");
+            }
+            count += read;
+        }
+        return count == 0 && dst.hasRemaining() ? -1 : count;
+    }
+
+    /**
+     * Write the (remaining) contents of the current OCTET STRING to target, as
+     * {@link #readOctets(ByteBuffer)} does, in large blocks.
+     *
+     * @param target the channel to write to.
+     * @return the number of bytes written.
+     * @throws ASN1ParsingException if a segment is not an OCTET STRING.
+     */
+    public long transferOctets(final WritableByteChannel target)
+    {
+        startOctets();
+        long count = 0;
+        while (nextSegment())
+        {
+            final long remaining = contentOffset + length - source.position();
+            source.transferTo(remaining, target);
+            count += remaining;
+        }
+        return count;
+    }
+
+    private void startOctets()
+    {
+        if (octetsLevel < 0)
+        {
+            if (event == PRIMITIVE)
+            {
+                octetsLevel = depth;
+            }
+            else if (event == START_CONSTRUCTED)
+            {
+                octetsLevel = depth - 1;
+            }
+            else
+            {
+                throw new IllegalStateException("no OCTET STRING");
+            }
+        }
+    }
+
+    /**
+     * Move to the next primitive segment with unread contents.
+     *
+     * @return false at the end of the OCTET STRING.
+     */
+    private boolean nextSegment()
+    {
+        while (true)
+        {
+            if (event == PRIMITIVE)
+            {
+                if (source.position() != contentOffset + length)
+                {
+                    return true;
+                }
+                if (depth == octetsLevel)
+                {
+                    return false;
+                }
+            }
+            else if (event == END_CONSTRUCTED && depth == octetsLevel)
+            {
+                return false;
+            }
+
+            final int next = advance();
+            if (next == PRIMITIVE || next == START_CONSTRUCTED)
+            {
+                if (!isUniversal(OCTET_STRING))
+                {
+                    throw new ASN1ParsingException("unknown object encountered in constructed OCTET STRING: " + tagNo);
+                }
+            }
+            else if (next == END_DOCUMENT)
+            {
+                throw new ASN1ParsingException("EOF found inside constructed object");
+            }
+        }
+    }
+
+    private void checkPrimitive()
+    {
+        if (event != PRIMITIVE)
+        {
+            throw new IllegalStateException("no primitive object");
+        }
+    }
+
+    private void push(final long end)
+    {
+        if (depth == ends.length)
+        {
+            final int size = depth * 2;
+            tags = Arrays.copyOf(tags, size);
+            tagNos = Arrays.copyOf(tagNos, size);
+            offsets = Arrays.copyOf(offsets, size);
+            contentOffsets = Arrays.copyOf(contentOffsets, size);
+            ends = Arrays.copyOf(ends, size);
+            limits = Arrays.copyOf(limits, size);
+        }
+        tags[depth] = tag;
+        tagNos[depth] = tagNo;
+        offsets[depth] = offset;
+        contentOffsets[depth] = contentOffset;
+        ends[depth] = length < 0 ? -1 : end;
+        limits[depth] = end;
+        depth++;
+    }
+
+    private int endConstructed()
+    {
+        depth--;
+        tag = tags[depth];
+        tagNo = tagNos[depth];
+        offset = offsets[depth];
+        contentOffset = contentOffsets[depth];
+        length = ends[depth] < 0 ? -1 : ends[depth] - contentOffset;
+        return event = END_CONSTRUCTED;
+    }
+
+    private int readTagNumber(final int tag)
+    {
+        int tagNo = tag & 0x1f;
+
+        //
+        // with tagged object tag number is bottom 5 bits, or stored at the start of the content
+        //
+        if (tagNo == 0x1f)
+        {
+            tagNo = 0;
+
+            int b = source.read();
+
+            // X.690-0207 8.1.2.4.2
+            // "c) bits 7 to 1 of the first subsequent octet shall not all be zero."
+            if ((b & 0x7f) == 0) // Note: -1 will pass
+            {
+                throw new ASN1ParsingException("corrupted stream - invalid high tag number found");
+            }
+
+            while ((b >= 0) && ((b & 0x80) != 0))
+            {
+                tagNo |= (b & 0x7f);
+                tagNo <<= 7;
+                b = source.read();
+            }
+
+            if (b < 0)
+            {
+                throw new ASN1ParsingException("EOF found inside tag value.");
+            }
+
+            tagNo |= (b & 0x7f);
+        }
+
+        return tagNo;
+    }
+
+    private long readLength()
+    {
+        long length = source.read();
+        if (length < 0)
+        {
+            throw new ASN1ParsingException("EOF found when length expected");
+        }
+
+        if (length == 0x80)
+        {
+            return -1;      // indefinite-length encoding
+        }
+
+        if (length > 127)
+        {
+            final int size = (int)length & 0x7f;
+
+            // Note: The invalid long form "0xff" (see X.690 8.1.3.5c) will be caught here
+            if (size > 8)
+            {
+                throw new ASN1ParsingException("DER length more than 8 bytes: " + size);
+            }
+
+            length = 0;
+            for (int i = 0; i < size; i++)
+            {
+                final int next = source.read();
+
+                if (next < 0)
+                {
+                    throw new ASN1ParsingException("EOF found reading length");
+                }
+
+                length = (length << 8) + next;
+            }
+
+            if (length < 0)
+            {
+                throw new ASN1ParsingException("corrupted stream - negative length found");
+            }
+        }
+
+        return length;
+    }
+}
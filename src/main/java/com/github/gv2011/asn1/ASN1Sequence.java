@@ -30,11 +30,11 @@ package com.github.gv2011.asn1;
 
 
 
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.Iterator;
-import java.util.Vector;
+import java.util.NoSuchElementException;
 
-import com.github.gv2011.asn1.util.Arrays;
 import com.github.gv2011.util.bytes.Bytes;
 
 /**
@@ -88,7 +88,8 @@ public abstract class ASN1Sequence
     extends ASN1Primitive
     implements Iterable<ASN1Encodable>
 {
-    protected Vector<ASN1Encodable> seq = new Vector<>();
+    // exactly sized and never modified, so it can be shared between sequences
+    private final ASN1Encodable[] elements;
 
     /**
      * Return an ASN1Sequence from the given object.
@@ -190,6 +191,7 @@ public abstract class ASN1Sequence
      */
     protected ASN1Sequence()
     {
+        elements = ASN1EncodableVector.EMPTY_ELEMENTS;
     }
 
     /**
@@ -199,7 +201,7 @@ public abstract class ASN1Sequence
     protected ASN1Sequence(
         final ASN1Encodable obj)
     {
-        seq.addElement(obj);
+        elements = new ASN1Encodable[] {obj};
     }
 
     /**
@@ -209,10 +211,7 @@ public abstract class ASN1Sequence
     protected ASN1Sequence(
         final ASN1EncodableVector v)
     {
-        for (int i = 0; i != v.size(); i++)
-        {
-            seq.addElement(v.get(i));
-        }
+        elements = v.takeElements();
     }
 
     /*
@@ -221,17 +220,24 @@ public abstract class ASN1Sequence
     protected ASN1Sequence(
         final ASN1Encodable[]   array)
     {
-        for (int i = 0; i != array.length; i++)
-        {
-            seq.addElement(array[i]);
-        }
+        this(array, true);
+    }
+
+    /*
+     * Create a sequence sharing elements, which must not be modified afterwards, if clone is false.
+     */
+    ASN1Sequence(
+        final ASN1Encodable[]   elements,
+        final boolean           clone)
+    {
+        this.elements = clone ? elements.clone() : elements;
     }
 
     public ASN1Encodable[] toArray()
     {
         final ASN1Encodable[] values = new ASN1Encodable[size()];
 
-        for (int i = 0; i != size(); i++)
+        for (int i = 0; i != values.length; i++)
         {
             values[i] = getObjectAt(i);
         }
@@ -241,7 +247,26 @@ public abstract class ASN1Sequence
 
     public Enumeration<ASN1Encodable> getObjects()
     {
-        return seq.elements();
+        return new Enumeration<ASN1Encodable>()
+        {
+            private int index;
+
+            @Override
+            public boolean hasMoreElements()
+            {
+                return index < size();
+            }
+
+            @Override
+            public ASN1Encodable nextElement()
+            {
+                if (index >= size())
+                {
+                    throw new NoSuchElementException();
+                }
+                return getObjectAt(index++);
+            }
+        };
     }
 
     public ASN1SequenceParser parser()
@@ -298,7 +323,7 @@ public abstract class ASN1Sequence
     public ASN1Encodable getObjectAt(
         final int index)
     {
-        return seq.elementAt(index);
+        return elements[index];
     }
 
     /**
@@ -308,28 +333,25 @@ public abstract class ASN1Sequence
      */
     public int size()
     {
-        return seq.size();
+        return elements.length;
     }
 
     @Override
     public int hashCode()
     {
-        @SuppressWarnings("rawtypes")
-        final Enumeration             e = getObjects();
-        int                     hashCode = size();
+        final int               size = size();
+        int                     hashCode = size;
 
-        while (e.hasMoreElements())
+        for (int i = 0; i != size; i++)
         {
-            final Object o = getNext(e);
             hashCode *= 17;
 
-            hashCode ^= o.hashCode();
+            hashCode ^= getObjectAt(i).hashCode();
         }
 
         return hashCode;
     }
 
-    @SuppressWarnings("rawtypes")
     @Override
     boolean asn1Equals(
         final ASN1Primitive o)
@@ -346,16 +368,10 @@ public abstract class ASN1Sequence
             return false;
         }
 
-        final Enumeration s1 = getObjects();
-        final Enumeration s2 = other.getObjects();
-
-        while (s1.hasMoreElements())
+        for (int i = 0, size = size(); i != size; i++)
         {
-            final ASN1Encodable obj1 = getNext(s1);
-            final ASN1Encodable obj2 = getNext(s2);
-
-            final ASN1Primitive o1 = obj1.toASN1Primitive();
-            final ASN1Primitive o2 = obj2.toASN1Primitive();
+            final ASN1Primitive o1 = getObjectAt(i).toASN1Primitive();
+            final ASN1Primitive o2 = other.getObjectAt(i).toASN1Primitive();
 
             if (o1 == o2 || o1.equals(o2))
             {
@@ -368,14 +384,6 @@ public abstract class ASN1Sequence
         return true;
     }
 
-    @SuppressWarnings("rawtypes")
-    private ASN1Encodable getNext(final Enumeration e)
-    {
-        final ASN1Encodable encObj = (ASN1Encodable)e.nextElement();
-
-        return encObj;
-    }
-
     /**
      * Change current SEQUENCE object to be encoded as {@link DERSequence}.
      * This is part of Distinguished Encoding Rules form serialization.
@@ -383,11 +391,7 @@ public abstract class ASN1Sequence
     @Override
     ASN1Primitive toDERObject()
     {
-        final ASN1Sequence derSeq = new DERSequence();
-
-        derSeq.seq = seq;
-
-        return derSeq;
+        return new DERSequence(elements, false);
     }
 
     /**
@@ -397,11 +401,7 @@ public abstract class ASN1Sequence
     @Override
     ASN1Primitive toDLObject()
     {
-        final ASN1Sequence dlSeq = new DLSequence();
-
-        dlSeq.seq = seq;
-
-        return dlSeq;
+        return new DLSequence(elements, false);
     }
 
     @Override
@@ -416,12 +416,31 @@ public abstract class ASN1Sequence
     @Override
     public String toString()
     {
-        return seq.toString();
+        return Arrays.toString(toArray());
     }
 
     @Override
     public Iterator<ASN1Encodable> iterator()
     {
-        return new Arrays.Iterator<>(toArray());
+        return new Iterator<ASN1Encodable>()
+        {
+            private int index;
+
+            @Override
+            public boolean hasNext()
+            {
+                return index < size();
+            }
+
+            @Override
+            public ASN1Encodable next()
+            {
+                if (index >= size())
+                {
+                    throw new NoSuchElementException("Out of elements: " + index);
+                }
+                return getObjectAt(index++);
+            }
+        };
     }
 }
@@ -32,7 +32,7 @@ package com.github.gv2011.asn1;
 
 import java.util.Enumeration;
 import java.util.Iterator;
-import java.util.Vector;
+import java.util.NoSuchElementException;
 
 import com.github.gv2011.asn1.util.Arrays;
 import com.github.gv2011.util.bytes.Bytes;
@@ -128,7 +128,8 @@ public abstract class ASN1Set
     extends ASN1Primitive
     implements Iterable<ASN1Encodable>
 {
-    private Vector<Object> set = new Vector<>();
+    // exactly sized; only reordered by sort() while the set is constructed
+    private final ASN1Encodable[] elements;
     private boolean isSorted = false;
 
     /**
@@ -246,6 +247,7 @@ public abstract class ASN1Set
 
     protected ASN1Set()
     {
+        elements = ASN1EncodableVector.EMPTY_ELEMENTS;
     }
 
     /**
@@ -255,7 +257,7 @@ public abstract class ASN1Set
     protected ASN1Set(
         final ASN1Encodable obj)
     {
-        set.addElement(obj);
+        elements = new ASN1Encodable[] {obj};
     }
 
     /**
@@ -267,10 +269,8 @@ public abstract class ASN1Set
         final ASN1EncodableVector v,
         final boolean                  doSort)
     {
-        for (int i = 0; i != v.size(); i++)
-        {
-            set.addElement(v.get(i));
-        }
+        // sorting reorders the array, so it cannot be shared with the vector then
+        elements = doSort ? v.copyElements() : v.takeElements();
 
         if (doSort)
         {
@@ -285,10 +285,7 @@ public abstract class ASN1Set
         final ASN1Encodable[]   array,
         final boolean doSort)
     {
-        for (int i = 0; i != array.length; i++)
-        {
-            set.addElement(array[i]);
-        }
+        elements = array.clone();
 
         if (doSort)
         {
@@ -296,9 +293,39 @@ public abstract class ASN1Set
         }
     }
 
+    /*
+     * Create a set sharing elements, which must not be modified afterwards.
+     */
+    ASN1Set(
+        final boolean           isSorted,
+        final ASN1Encodable[]   elements)
+    {
+        this.elements = elements;
+        this.isSorted = isSorted;
+    }
+
     public Enumeration<Object> getObjects()
     {
-        return set.elements();
+        return new Enumeration<Object>()
+        {
+            private int index;
+
+            @Override
+            public boolean hasMoreElements()
+            {
+                return index < size();
+            }
+
+            @Override
+            public Object nextElement()
+            {
+                if (index >= size())
+                {
+                    throw new NoSuchElementException();
+                }
+                return getObjectAt(index++);
+            }
+        };
     }
 
     /**
@@ -310,7 +337,7 @@ public abstract class ASN1Set
     public ASN1Encodable getObjectAt(
         final int index)
     {
-        return (ASN1Encodable)set.elementAt(index);
+        return elements[index];
     }
 
     /**
@@ -320,14 +347,14 @@ public abstract class ASN1Set
      */
     public int size()
     {
-        return set.size();
+        return elements.length;
     }
 
     public ASN1Encodable[] toArray()
     {
         final ASN1Encodable[] values = new ASN1Encodable[size()];
 
-        for (int i = 0; i != size(); i++)
+        for (int i = 0; i != values.length; i++)
         {
             values[i] = getObjectAt(i);
         }
@@ -383,15 +410,14 @@ public abstract class ASN1Set
     @Override
     public int hashCode()
     {
-        final Enumeration<Object>             e = getObjects();
-        int                     hashCode = size();
+        final int               size = size();
+        int                     hashCode = size;
 
-        while (e.hasMoreElements())
+        for (int i = 0; i != size; i++)
         {
-            final Object o = getNext(e);
             hashCode *= 17;
 
-            hashCode ^= o.hashCode();
+            hashCode ^= getNext(i).hashCode();
         }
 
         return hashCode;
@@ -406,28 +432,11 @@ public abstract class ASN1Set
     {
         if (isSorted)
         {
-            final ASN1Set derSet = new DERSet();
-
-            derSet.set = set;
-
-            return derSet;
+            return new DERSet(true, elements);
         }
         else
         {
-            final Vector<Object> v = new Vector<>();
-
-            for (int i = 0; i != set.size(); i++)
-            {
-                v.addElement(set.elementAt(i));
-            }
-
-            final ASN1Set derSet = new DERSet();
-
-            derSet.set = v;
-
-            derSet.sort();
-
-            return derSet;
+            return new DERSet(elements);
         }
     }
 
@@ -438,11 +447,7 @@ public abstract class ASN1Set
     @Override
     ASN1Primitive toDLObject()
     {
-        final ASN1Set derSet = new DLSet();
-
-        derSet.set = set;
-
-        return derSet;
+        return new DLSet(isSorted, elements);
     }
 
     @Override
@@ -461,16 +466,10 @@ public abstract class ASN1Set
             return false;
         }
 
-        final Enumeration<Object> s1 = getObjects();
-        final Enumeration<Object> s2 = other.getObjects();
-
-        while (s1.hasMoreElements())
+        for (int i = 0, size = size(); i != size; i++)
         {
-            final ASN1Encodable obj1 = getNext(s1);
-            final ASN1Encodable obj2 = getNext(s2);
-
-            final ASN1Primitive o1 = obj1.toASN1Primitive();
-            final ASN1Primitive o2 = obj2.toASN1Primitive();
+            final ASN1Primitive o1 = getNext(i).toASN1Primitive();
+            final ASN1Primitive o2 = other.getNext(i).toASN1Primitive();
 
             if (o1 == o2 || o1.equals(o2))
             {
@@ -483,9 +482,9 @@ public abstract class ASN1Set
         return true;
     }
 
-    private ASN1Encodable getNext(final Enumeration<Object> e)
+    private ASN1Encodable getNext(final int index)
     {
-        final ASN1Encodable encObj = (ASN1Encodable)e.nextElement();
+        final ASN1Encodable encObj = getObjectAt(index);
 
         // unfortunately null was allowed as a substitute for DER null
         if (encObj == null)
@@ -496,28 +495,10 @@ public abstract class ASN1Set
         return encObj;
     }
 
-    /**
-     * return true if a <= b (arrays are assumed padded with zeros).
-     */
-    private boolean lessThanOrEqual(
-         final Bytes a,
-         final Bytes b)
-    {
-        final int len = Math.min(a.size(), b.size());
-        for (int i = 0; i != len; ++i)
-        {
-            if (a.getByte(i) != b.getByte(i))
-            {
-                return (a.getByte(i) & 0xff) < (b.getByte(i) & 0xff);
-            }
-        }
-        return len == a.size();
-    }
-
-    private Bytes getDEREncoded(
+    private byte[] getDEREncoded(
         final ASN1Encodable obj)
     {
-            return obj.toASN1Primitive().getEncoded(ASN1Encoding.DER);
+            return obj.toASN1Primitive().getEncoded(ASN1Encoding.DER).toByteArray();
     }
 
     protected void sort()
@@ -525,44 +506,46 @@ public abstract class ASN1Set
         if (!isSorted)
         {
             isSorted = true;
-            if (set.size() > 1)
+            if (elements.length > 1)
             {
-                boolean    swapped = true;
-                int        lastSwap = set.size() - 1;
+                // encode every element once, then sort on the encodings. The sort is stable
+                // and takes linear time if the elements are already ordered.
+                final SortEntry[] entries = new SortEntry[elements.length];
 
-                while (swapped)
+                for (int i = 0; i != entries.length; i++)
                 {
-                    int    index = 0;
-                    int    swapIndex = 0;
-                    Bytes a = getDEREncoded((ASN1Encodable)set.elementAt(0));
-
-                    swapped = false;
-
-                    while (index != lastSwap)
-                    {
-                        final Bytes b = getDEREncoded((ASN1Encodable)set.elementAt(index + 1));
+                    entries[i] = new SortEntry(elements[i], getDEREncoded(elements[i]));
+                }
 
-                        if (lessThanOrEqual(a, b))
-                        {
-                            a = b;
-                        }
-                        else
-                        {
-                            final Object  o = set.elementAt(index);
+                java.util.Arrays.sort(entries);
 
-                            set.setElementAt(set.elementAt(index + 1), index);
-                            set.setElementAt(o, index + 1);
+                for (int i = 0; i != entries.length; i++)
+                {
+                    elements[i] = entries[i].obj;
+                }
+            }
+        }
+    }
 
-                            swapped = true;
-                            swapIndex = index;
-                        }
+    private static final class SortEntry
+        implements Comparable<SortEntry>
+    {
+        private final ASN1Encodable obj;
+        private final byte[] encoding;
 
-                        index++;
-                    }
+        private SortEntry(final ASN1Encodable obj, final byte[] encoding)
+        {
+            this.obj = obj;
+            this.encoding = encoding;
+        }
 
-                    lastSwap = swapIndex;
-                }
-            }
+        /**
+         * Unsigned lexicographic order, a prefix sorts first (as if padded with zeros).
+         */
+        @Override
+        public int compareTo(final SortEntry other)
+        {
+            return java.util.Arrays.compareUnsigned(encoding, other.encoding);
         }
     }
 
@@ -578,12 +561,12 @@ public abstract class ASN1Set
     @Override
     public String toString()
     {
-        return set.toString();
+        return java.util.Arrays.toString(elements);
     }
 
     @Override
     public Iterator<ASN1Encodable> iterator()
     {
-        return new Arrays.Iterator<>(toArray());
+        return new Arrays.Iterator<>(elements);
     }
 }
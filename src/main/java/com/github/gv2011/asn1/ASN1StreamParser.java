@@ -29,8 +29,6 @@ package com.github.gv2011.asn1;
  */
 
 
-import static com.github.gv2011.util.ex.Exceptions.call;
-
 import java.io.InputStream;
 
 import com.github.gv2011.util.bytes.Bytes;
@@ -43,7 +41,6 @@ import com.github.gv2011.util.bytes.Bytes;
 public class ASN1StreamParser implements ASN1Parser{
     private final InputStream _in;
     private final int         _limit;
-    private final byte[][] tmpBuffers;
 
     public ASN1StreamParser(
         final InputStream in)
@@ -57,8 +54,6 @@ public class ASN1StreamParser implements ASN1Parser{
     {
         _in = in;
         _limit = limit;
-
-        tmpBuffers = new byte[11][];
     }
 
     public ASN1StreamParser(
@@ -153,7 +148,7 @@ public class ASN1StreamParser implements ASN1Parser{
     @Override
     @SuppressWarnings("resource")
     public ASN1Encodable readObject(){
-        final int tag = call(()->_in.read());
+        final int tag = StreamUtil.read(_in);
         if (tag == -1)
         {
             return null;
@@ -242,7 +237,7 @@ public class ASN1StreamParser implements ASN1Parser{
 
             try
             {
-                return ASN1InputStream.createPrimitiveDERObject(tagNo, defIn, tmpBuffers);
+                return ASN1InputStream.createPrimitiveDERObject(tagNo, defIn);
             }
             catch (final IllegalArgumentException e)
             {
@@ -30,9 +30,12 @@ package com.github.gv2011.asn1;
 
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.Year;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
 import java.util.Date;
-import java.util.SimpleTimeZone;
 
 import com.github.gv2011.asn1.util.Strings;
 import com.github.gv2011.util.bytes.Bytes;
@@ -140,21 +143,36 @@ public class ASN1UTCTime extends ASN1PrimitiveBytes{
     }
 
     public ASN1UTCTime(final Date time){
-      this(Strings.toByteArray(format(time)));
+      this(TimeCodec.format(time.toInstant().truncatedTo(ChronoUnit.SECONDS), true));
     }
 
-    private static final String format(final Date time){
-      final SimpleDateFormat dateF = new SimpleDateFormat("yyMMddHHmmss'Z'");
-      dateF.setTimeZone(new SimpleTimeZone(0,"Z"));
-      return dateF.format(time);
+    /**
+     * Constructor from an instant, in the form YYMMDDHHMMSSZ. Fractional seconds are truncated.
+     *
+     * @param time the instant of interest.
+     * @exception IllegalArgumentException if the time is not in the range of 1950 to 2049.
+     */
+    public ASN1UTCTime(final Instant time){
+      this(TimeCodec.format(checkRange(time).truncatedTo(ChronoUnit.SECONDS), true));
+    }
+
+    private static Instant checkRange(final Instant time){
+      if(time.isBefore(MIN) || !time.isBefore(MAX)){
+        throw new IllegalArgumentException("time out of range for UTCTime: " + time);
+      }
+      return time;
     }
 
+    private static final Instant MIN = Instant.parse("1950-01-01T00:00:00Z");
+    private static final Instant MAX = Instant.parse("2050-01-01T00:00:00Z");
+
     ASN1UTCTime(final Bytes time){
       super(time);
     }
 
     /**
-     * return the time as a date based on whatever a 2 digit year will return. For
+     * return the time as a date based on whatever a 2 digit year will return, that is
+     * within 80 years before and 20 years after the current year. For
      * standardised processing use getAdjustedDate().
      *
      * @return the resulting date
@@ -162,9 +180,7 @@ public class ASN1UTCTime extends ASN1PrimitiveBytes{
      */
     public Date getDate()throws ParseException
     {
-        final SimpleDateFormat dateF = new SimpleDateFormat("yyMMddHHmmssz");
-
-        return dateF.parse(getTime());
+        return new Date(TimeCodec.epochSecond(string, Year.now().getValue() - 80) * 1000);
     }
 
     /**
@@ -177,11 +193,61 @@ public class ASN1UTCTime extends ASN1PrimitiveBytes{
     public Date getAdjustedDate()
         throws ParseException
     {
-        final SimpleDateFormat dateF = new SimpleDateFormat("yyyyMMddHHmmssz");
+        return new Date(TimeCodec.epochSecond(string, TimeCodec.RFC5280_YEAR_START) * 1000);
+    }
+
+    /**
+     * return the time as an instant in the range of 1950 - 2049.
+     *
+     * @return the resulting instant.
+     * @exception ASN1ParsingException if the time string has an illegal format.
+     */
+    public Instant toInstant()
+    {
+        return Instant.ofEpochSecond(epochSecond());
+    }
+
+    /**
+     * return the time in the range of 1950 - 2049, with the offset it was encoded with.
+     *
+     * @return the resulting date-time.
+     * @exception ASN1ParsingException if the time string has an illegal format.
+     */
+    public OffsetDateTime toOffsetDateTime()
+    {
+        try
+        {
+            return OffsetDateTime.ofInstant(
+                toInstant(),
+                ZoneOffset.ofTotalSeconds(TimeCodec.offsetSeconds(string, TimeCodec.RFC5280_YEAR_START)));
+        }
+        catch (final ParseException e)
+        {
+            throw new ASN1ParsingException("invalid UTCTime: " + e.getMessage(), e);
+        }
+    }
 
-        dateF.setTimeZone(new SimpleTimeZone(0, "Z"));
+    /**
+     * return the time in the range of 1950 - 2049 as milliseconds since the epoch.
+     *
+     * @return the milliseconds since 1970-01-01T00:00:00Z.
+     * @exception ASN1ParsingException if the time string has an illegal format.
+     */
+    public long toEpochMilli()
+    {
+        return epochSecond() * 1000;
+    }
 
-        return dateF.parse(getAdjustedTime());
+    private long epochSecond()
+    {
+        try
+        {
+            return TimeCodec.epochSecond(string, TimeCodec.RFC5280_YEAR_START);
+        }
+        catch (final ParseException e)
+        {
+            throw new ASN1ParsingException("invalid UTCTime: " + e.getMessage(), e);
+        }
     }
 
     /**
@@ -0,0 +1,190 @@
+package com.github.gv2011.asn1;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * The block buffer shared by all {@link LimitedInputStream}s of one top-level object. Nested
+ * streams read from here directly instead of through their parents, so the cost of a read does
+ * not depend on the nesting depth; the limits of the enclosing objects are kept as absolute
+ * positions.
+ * <p>
+ * The buffer never reads ahead beyond the bound passed by the caller, the end of the enclosing
+ * definite-length object. Without such a bound only the bytes needed are read, so the underlying
+ * stream is positioned exactly after the top-level object when parsing is finished.
+ */
+final class BERInputBuffer
+{
+    static final long UNBOUNDED = Long.MAX_VALUE;
+
+    private static final int BLOCK_SIZE = 8192;
+    private static final int MIN_SIZE = 64;
+
+    private final InputStream in;
+
+    private byte[] buf = new byte[0];
+    private int pos;
+    private int end;
+    private long consumed;
+
+    BERInputBuffer(final InputStream in)
+    {
+        this.in = in;
+    }
+
+    /**
+     * @return the number of bytes read from this buffer so far.
+     */
+    long position()
+    {
+        return consumed - (end - pos);
+    }
+
+    int read(final long bound)
+        throws IOException
+    {
+        if (pos == end && fill(1, bound) == 0)
+        {
+            return -1;
+        }
+        return buf[pos++] & 0xff;
+    }
+
+    int read(final byte[] b, final int off, final int len, final long bound)
+        throws IOException
+    {
+        if (len == 0)
+        {
+            return 0;
+        }
+        int available = end - pos;
+        if (available == 0)
+        {
+            if (len >= BLOCK_SIZE)
+            {
+                // large reads bypass the buffer
+                final int count = in.read(b, off, len);
+                if (count > 0)
+                {
+                    consumed += count;
+                }
+                return count;
+            }
+            available = fill(1, bound);
+            if (available == 0)
+            {
+                return -1;
+            }
+        }
+        final int count = Math.min(len, available);
+        System.arraycopy(buf, pos, b, off, count);
+        pos += count;
+        return count;
+    }
+
+    /**
+     * Read up to len bytes, stopping before the first end-of-contents marker. The caller must
+     * have checked that the next two bytes are not an end-of-contents marker, so at least one
+     * byte is read.
+     */
+    int readToEndOfContents(final byte[] b, final int off, final int len, final long bound)
+        throws IOException
+    {
+        if (fill(2, bound) == 0)
+        {
+            return -1;
+        }
+        final int limit = pos + Math.min(len, end - pos);
+        int i = pos + 1;
+        // a zero at the end of the buffer may start a marker, it is left for the next call
+        while (i < limit && (buf[i] != 0 || (i + 1 < end && buf[i + 1] != 0)))
+        {
+            i++;
+        }
+        final int count = i - pos;
+        System.arraycopy(buf, pos, b, off, count);
+        pos = i;
+        return count;
+    }
+
+    /**
+     * @return true if the next two bytes are an end-of-contents marker, which is then consumed.
+     */
+    boolean skipEndOfContents(final long bound)
+        throws IOException
+    {
+        if (fill(2, bound) >= 2 && buf[pos] == 0 && buf[pos + 1] == 0)
+        {
+            pos += 2;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of bytes available, at least n unless the input ends before.
+     */
+    int fill(final int n, final long bound)
+        throws IOException
+    {
+        final int available = end - pos;
+        if (available >= n)
+        {
+            return available;
+        }
+        if (pos > 0)
+        {
+            System.arraycopy(buf, pos, buf, 0, available);
+            pos = 0;
+            end = available;
+        }
+        final int want = bound == UNBOUNDED
+            ? n
+            : (int)Math.max(n, Math.min(BLOCK_SIZE, bound - consumed + available));
+        if (want > buf.length)
+        {
+            buf = Arrays.copyOf(buf, Math.max(want, Math.min(BLOCK_SIZE, Math.max(MIN_SIZE, buf.length * 2))));
+        }
+        while (end < n)
+        {
+            final int count = in.read(buf, end, want - end);
+            if (count < 0)
+            {
+                break;
+            }
+            end += count;
+            consumed += count;
+        }
+        return end;
+    }
+}
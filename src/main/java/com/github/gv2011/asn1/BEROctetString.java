@@ -29,11 +29,9 @@ package com.github.gv2011.asn1;
  */
 
 
-import static com.github.gv2011.util.bytes.ByteUtils.newBytes;
 import static com.github.gv2011.util.bytes.ByteUtils.newBytesBuilder;
 
 import java.util.Enumeration;
-import java.util.Vector;
 
 import com.github.gv2011.util.bytes.Bytes;
 import com.github.gv2011.util.bytes.BytesBuilder;
@@ -91,10 +89,7 @@ public class BEROctetString extends ASN1OctetString {
      */
     public Enumeration<ASN1OctetString> getObjects()
     {
-        if (octs == null)
-        {
-            return generateOcts().elements();
-        }
+        final ASN1OctetString[] octs = this.octs != null ? this.octs : generateOcts();
 
         return new Enumeration<ASN1OctetString>()
         {
@@ -114,30 +109,18 @@ public class BEROctetString extends ASN1OctetString {
         };
     }
 
-    private Vector<ASN1OctetString> generateOcts()
+    private ASN1OctetString[] generateOcts()
     {
-        final Vector<ASN1OctetString> vec = new Vector<>();
-        for (int i = 0; i < string.size(); i += MAX_LENGTH)
+        final int size = string.size();
+        final ASN1OctetString[] octs = new ASN1OctetString[(size + MAX_LENGTH - 1) / MAX_LENGTH];
+        for (int i = 0; i != octs.length; i++)
         {
-            int end;
+            final int start = i * MAX_LENGTH;
 
-            if (i + MAX_LENGTH > string.size())
-            {
-                end = string.size();
-            }
-            else
-            {
-                end = i + MAX_LENGTH;
-            }
-
-            final byte[] nStr = new byte[end - i];
-
-            System.arraycopy(string, i, nStr, 0, nStr.length);
-
-            vec.addElement(new DEROctetString(newBytes(nStr)));
-         }
+            octs[i] = new DEROctetString(string.subList(start, Math.min(start + MAX_LENGTH, size)));
+        }
 
-         return vec;
+        return octs;
     }
 
     @Override
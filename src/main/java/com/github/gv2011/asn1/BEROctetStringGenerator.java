@@ -29,14 +29,23 @@ package com.github.gv2011.asn1;
  */
 
 
-import static com.github.gv2011.util.bytes.ByteUtils.newBytes;
-
 import java.io.IOException;
 import java.io.OutputStream;
 
+/**
+ * A generator for indefinite-length constructed OCTET STRINGs. The content written to the
+ * stream returned by {@link #getOctetOutputStream()} is split into primitive OCTET STRING
+ * segments of a fixed size, which are written straight to the underlying stream, so content
+ * of any size is encoded with a single buffer.
+ */
 public class BEROctetStringGenerator
     extends BERGenerator
 {
+    /**
+     * The segment size required by CER.
+     */
+    public static final int CER_CHUNK_SIZE = 1000;
+
     public BEROctetStringGenerator(final OutputStream out)
         throws IOException
     {
@@ -56,23 +65,48 @@ public class BEROctetStringGenerator
         writeBERHeader(BERTags.CONSTRUCTED | BERTags.OCTET_STRING);
     }
 
+    /**
+     * Return a stream for the content, which writes segments of {@link #CER_CHUNK_SIZE} bytes.
+     * Closing the stream completes the OCTET STRING; the underlying stream is not closed.
+     *
+     * @return a stream for the content octets.
+     */
     public OutputStream getOctetOutputStream()
     {
-        return getOctetOutputStream();
+        return getOctetOutputStream(new byte[CER_CHUNK_SIZE]); // limit for CER encoding.
+    }
+
+    /**
+     * Return a stream for the content, which writes segments of the size of buf.
+     * Closing the stream completes the OCTET STRING; the underlying stream is not closed.
+     *
+     * @param buf the buffer to collect a segment in, its length is the segment size.
+     * @return a stream for the content octets.
+     */
+    public OutputStream getOctetOutputStream(
+        final byte[] buf)
+    {
+        if (buf.length == 0)
+        {
+            throw new IllegalArgumentException("buffer must not be empty");
+        }
+
+        return new BufferedBEROctetStream(buf);
     }
 
-    @SuppressWarnings("unused") //TODO delete
     private class BufferedBEROctetStream
         extends OutputStream
     {
-        private final byte[] _buf = new byte[1000];// limit for CER encoding.
+        private final byte[] _buf;
+        private final byte[] _header = new byte[6];
         private int    _off;
-        private final DEROutputStream _derOut;
+        private boolean _closed;
 
-        BufferedBEROctetStream()
+        BufferedBEROctetStream(
+            final byte[] buf)
         {
+            _buf = buf;
             _off = 0;
-            _derOut = new DEROutputStream(_out);
         }
 
         @Override
@@ -84,7 +118,7 @@ public class BEROctetStringGenerator
 
             if (_off == _buf.length)
             {
-                DEROctetString.encode(_derOut, newBytes(_buf));
+                writeSegment(_buf, 0, _off);
                 _off = 0;
             }
         }
@@ -92,6 +126,17 @@ public class BEROctetStringGenerator
         @Override
         public void write(final byte[] b, int off, int len) throws IOException
         {
+            if (_off == 0)
+            {
+                // whole segments are written without copying them
+                while (len >= _buf.length)
+                {
+                    writeSegment(b, off, _buf.length);
+                    off += _buf.length;
+                    len -= _buf.length;
+                }
+            }
+
             while (len > 0)
             {
                 final int numToCopy = Math.min(len, _buf.length - _off);
@@ -103,7 +148,7 @@ public class BEROctetStringGenerator
                     break;
                 }
 
-                DEROctetString.encode(_derOut, newBytes(_buf));
+                writeSegment(_buf, 0, _off);
                 _off = 0;
 
                 off += numToCopy;
@@ -111,19 +156,54 @@ public class BEROctetStringGenerator
             }
         }
 
+        private void writeSegment(final byte[] b, final int off, final int len)
+            throws IOException
+        {
+            int pos = 0;
+            _header[pos++] = BERTags.OCTET_STRING;
+            if (len > 127)
+            {
+                int size = 1;
+                int val = len;
+
+                while ((val >>>= 8) != 0)
+                {
+                    size++;
+                }
+
+                _header[pos++] = (byte)(size | 0x80);
+
+                for (int i = (size - 1) * 8; i >= 0; i -= 8)
+                {
+                    _header[pos++] = (byte)(len >> i);
+                }
+            }
+            else
+            {
+                _header[pos++] = (byte)len;
+            }
+
+            _out.write(_header, 0, pos);
+            _out.write(b, off, len);
+        }
+
         @Override
         public void close()
             throws IOException
         {
-            if (_off != 0)
+            if (_closed)
             {
-                final byte[] bytes = new byte[_off];
-                System.arraycopy(_buf, 0, bytes, 0, _off);
+                return;
+            }
+            _closed = true;
 
-                DEROctetString.encode(_derOut, newBytes(bytes));
+            if (_off != 0)
+            {
+                writeSegment(_buf, 0, _off);
+                _off = 0;
             }
 
-             writeBEREnd();
+            writeBEREnd();
         }
     }
 }
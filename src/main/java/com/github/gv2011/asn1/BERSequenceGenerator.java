@@ -84,7 +84,7 @@ public class BERSequenceGenerator
         ASN1Encodable object)
         throws IOException
     {
-        object.toASN1Primitive().encode(new BEROutputStream(_out));
+        new BEROutputStream(_out).writePrimitive(object.toASN1Primitive());
     }
 
     /**
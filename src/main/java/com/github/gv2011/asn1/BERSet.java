@@ -29,8 +29,6 @@ package com.github.gv2011.asn1;
  */
 
 
-import java.util.Enumeration;
-
 /**
  * Carrier class for an indefinite-length SET.
  */
@@ -79,9 +77,9 @@ public class BERSet
     int encodedLength()
     {
         int length = 0;
-        for (final Enumeration<?> e = getObjects(); e.hasMoreElements();)
+        for (int i = 0, size = size(); i != size; i++)
         {
-            length += ((ASN1Encodable)e.nextElement()).toASN1Primitive().encodedLength();
+            length += getObjectAt(i).toASN1Primitive().encodedLength();
         }
 
         return 2 + length + 2;
@@ -94,10 +92,9 @@ public class BERSet
         out.write(BERTags.SET | BERTags.CONSTRUCTED);
         out.write(0x80);
 
-        final Enumeration<?> e = getObjects();
-        while (e.hasMoreElements())
+        for (int i = 0, size = size(); i != size; i++)
         {
-            out.writeObject((ASN1Encodable)e.nextElement());
+            out.writeObject(getObjectAt(i));
         }
 
         out.write(0x00);
@@ -0,0 +1,468 @@
+package com.github.gv2011.asn1;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import static com.github.gv2011.util.ex.Exceptions.call;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+import com.github.gv2011.asn1.util.io.ByteBufferBytes;
+import com.github.gv2011.util.bytes.Bytes;
+
+/**
+ * Sequential byte input with absolute (long) positions, used by the cursor style parsers.
+ * Implementations are reusable: {@link #reset} points them at new input without allocating.
+ */
+abstract class ByteSource
+{
+    private static final int TRANSFER_SIZE = 64 * 1024;
+
+    private ByteBuffer transferBuffer;
+
+    /**
+     * @return the next byte (0 - 255), or -1 at the end of input.
+     */
+    abstract int read();
+
+    /**
+     * @return the number of bytes read, or -1 at the end of input.
+     */
+    abstract int read(byte[] b, int off, int len);
+
+    /**
+     * @return the number of bytes read so far.
+     */
+    abstract long position();
+
+    /**
+     * Skip n bytes.
+     *
+     * @throws ASN1ParsingException if the input ends before.
+     */
+    abstract void skip(long n);
+
+    /**
+     * @return the total input size, or -1 if not known in advance.
+     */
+    abstract long size();
+
+    /**
+     * @return true if {@link #slice} is supported.
+     */
+    abstract boolean isRandomAccess();
+
+    /**
+     * Return a view of already available input, independent of the current position.
+     */
+    abstract Bytes slice(long offset, long length);
+
+    /**
+     * Read up to len bytes into dst.
+     *
+     * @return the number of bytes read, or -1 at the end of input.
+     */
+    int read(final ByteBuffer dst, final int len)
+    {
+        if (dst.hasArray())
+        {
+            final int count = read(dst.array(), dst.arrayOffset() + dst.position(), len);
+            if (count > 0)
+            {
+                dst.position(dst.position() + count);
+            }
+            return count;
+        }
+
+        int count = 0;
+        while (count < len)
+        {
+            final int b = read();
+            if (b < 0)
+            {
+                return count == 0 ? -1 : count;
+            }
+            dst.put((byte)b);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Write the next n bytes to target, in blocks of a reused buffer.
+     *
+     * @throws ASN1ParsingException if the input ends before.
+     */
+    void transferTo(long n, final WritableByteChannel target)
+    {
+        if (transferBuffer == null)
+        {
+            transferBuffer = ByteBuffer.allocate(TRANSFER_SIZE);
+        }
+        final ByteBuffer chunk = transferBuffer;
+        while (n > 0)
+        {
+            chunk.clear();
+            final int count = read(chunk, (int)Math.min(n, chunk.capacity()));
+            if (count < 0)
+            {
+                throw new ASN1ParsingException("EOF encountered in middle of object");
+            }
+            chunk.flip();
+            writeFully(chunk, target);
+            n -= count;
+        }
+    }
+
+    static void writeFully(final ByteBuffer src, final WritableByteChannel target)
+    {
+        while (src.hasRemaining())
+        {
+            call(()->target.write(src));
+        }
+    }
+
+    /**
+     * Input from a Bytes instance, read with get(long), so inputs larger than 2 GB are supported.
+     */
+    static final class BytesSource
+        extends ByteSource
+    {
+        // from this size on a view is created for a bulk copy
+        private static final int BULK_SIZE = 256;
+
+        private Bytes bytes;
+        private long size;
+        private long pos;
+
+        BytesSource reset(final Bytes bytes)
+        {
+            this.bytes = bytes;
+            this.size = bytes.longSize();
+            this.pos = 0;
+            return this;
+        }
+
+        @Override
+        int read()
+        {
+            return pos < size ? bytes.get(pos++) & 0xff : -1;
+        }
+
+        @Override
+        int read(final byte[] b, final int off, final int len)
+        {
+            if (pos >= size)
+            {
+                return -1;
+            }
+            final int count = (int)Math.min(len, size - pos);
+            if (count >= BULK_SIZE)
+            {
+                bytes.subList(pos, pos + count).write(b, off, count);
+                pos += count;
+                return count;
+            }
+            for (int i = 0; i != count; i++)
+            {
+                b[off + i] = bytes.get(pos++);
+            }
+            return count;
+        }
+
+        @Override
+        long position()
+        {
+            return pos;
+        }
+
+        @Override
+        void skip(final long n)
+        {
+            if (n > size - pos)
+            {
+                throw new ASN1ParsingException("EOF encountered in middle of object");
+            }
+            pos += n;
+        }
+
+        @Override
+        long size()
+        {
+            return size;
+        }
+
+        @Override
+        boolean isRandomAccess()
+        {
+            return true;
+        }
+
+        @Override
+        Bytes slice(final long offset, final long length)
+        {
+            return bytes.subList(offset, offset + length);
+        }
+    }
+
+    /**
+     * Input from the remaining content of a ByteBuffer, read with absolute gets.
+     */
+    static final class BufferSource
+        extends ByteSource
+    {
+        private ByteBuffer buf;
+        private ByteBuffer view;
+        private int start;
+        private int end;
+        private int pos;
+
+        BufferSource reset(final ByteBuffer buf)
+        {
+            this.buf = buf;
+            this.view = buf.duplicate();
+            this.start = buf.position();
+            this.end = buf.limit();
+            this.pos = start;
+            return this;
+        }
+
+        private ByteBuffer view(final int len)
+        {
+            view.limit(pos + len);
+            view.position(pos);
+            pos += len;
+            return view;
+        }
+
+        @Override
+        int read(final ByteBuffer dst, final int len)
+        {
+            if (pos >= end)
+            {
+                return -1;
+            }
+            final int count = Math.min(len, end - pos);
+            dst.put(view(count));
+            return count;
+        }
+
+        @Override
+        void transferTo(final long n, final WritableByteChannel target)
+        {
+            if (n > end - pos)
+            {
+                throw new ASN1ParsingException("EOF encountered in middle of object");
+            }
+            writeFully(view((int)n), target);
+        }
+
+        @Override
+        int read()
+        {
+            return pos < end ? buf.get(pos++) & 0xff : -1;
+        }
+
+        @Override
+        int read(final byte[] b, final int off, final int len)
+        {
+            if (pos >= end)
+            {
+                return -1;
+            }
+            final int count = Math.min(len, end - pos);
+            if (buf.hasArray())
+            {
+                System.arraycopy(buf.array(), buf.arrayOffset() + pos, b, off, count);
+                pos += count;
+            }
+            else
+            {
+                for (int i = 0; i != count; i++)
+                {
+                    b[off + i] = buf.get(pos++);
+                }
+            }
+            return count;
+        }
+
+        @Override
+        long position()
+        {
+            return pos - start;
+        }
+
+        @Override
+        void skip(final long n)
+        {
+            if (n > end - pos)
+            {
+                throw new ASN1ParsingException("EOF encountered in middle of object");
+            }
+            pos += (int)n;
+        }
+
+        @Override
+        long size()
+        {
+            return end - start;
+        }
+
+        @Override
+        boolean isRandomAccess()
+        {
+            return true;
+        }
+
+        @Override
+        Bytes slice(final long offset, final long length)
+        {
+            final ByteBuffer dup = buf.duplicate();
+            dup.limit(start + (int)(offset + length));
+            dup.position(start + (int)offset);
+            return ByteBufferBytes.wrap(dup);
+        }
+    }
+
+    /**
+     * Input from an InputStream, read through an internal buffer.
+     */
+    static final class StreamSource
+        extends ByteSource
+    {
+        private final byte[] buf = new byte[8192];
+        private InputStream in;
+        private int bufPos;
+        private int bufEnd;
+        private long consumed;
+
+        StreamSource reset(final InputStream in)
+        {
+            this.in = in;
+            this.bufPos = 0;
+            this.bufEnd = 0;
+            this.consumed = 0;
+            return this;
+        }
+
+        private boolean fill()
+        {
+            consumed += bufEnd;
+            bufPos = 0;
+            bufEnd = 0;
+            final int count = call(()->in.read(buf, 0, buf.length));
+            if (count <= 0)
+            {
+                return false;
+            }
+            bufEnd = count;
+            return true;
+        }
+
+        @Override
+        int read()
+        {
+            if (bufPos == bufEnd && !fill())
+            {
+                return -1;
+            }
+            return buf[bufPos++] & 0xff;
+        }
+
+        @Override
+        int read(final byte[] b, final int off, final int len)
+        {
+            if (bufPos == bufEnd)
+            {
+                if (len >= buf.length)
+                {
+                    // large reads bypass the buffer
+                    consumed += bufEnd;
+                    bufPos = 0;
+                    bufEnd = 0;
+                    final int count = call(()->in.read(b, off, len));
+                    if (count > 0)
+                    {
+                        consumed += count;
+                    }
+                    return count;
+                }
+                if (!fill())
+                {
+                    return -1;
+                }
+            }
+            final int count = Math.min(len, bufEnd - bufPos);
+            System.arraycopy(buf, bufPos, b, off, count);
+            bufPos += count;
+            return count;
+        }
+
+        @Override
+        long position()
+        {
+            return consumed + bufPos;
+        }
+
+        @Override
+        void skip(long n)
+        {
+            while (n > 0)
+            {
+                if (bufPos == bufEnd && !fill())
+                {
+                    throw new ASN1ParsingException("EOF encountered in middle of object");
+                }
+                final int count = (int)Math.min(n, bufEnd - bufPos);
+                bufPos += count;
+                n -= count;
+            }
+        }
+
+        @Override
+        long size()
+        {
+            return -1;
+        }
+
+        @Override
+        boolean isRandomAccess()
+        {
+            return false;
+        }
+
+        @Override
+        Bytes slice(final long offset, final long length)
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
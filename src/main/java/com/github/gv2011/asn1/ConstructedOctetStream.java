@@ -29,8 +29,6 @@ package com.github.gv2011.asn1;
  */
 
 
-import static com.github.gv2011.util.ex.Exceptions.call;
-
 import java.io.InputStream;
 
 class ConstructedOctetStream
@@ -72,8 +70,7 @@ class ConstructedOctetStream
 
         for (;;)
         {
-            final int tr = totalRead;
-            final int numRead = call(()->_currentStream.read(b, off + tr, len - tr));
+            final int numRead = StreamUtil.read(_currentStream, b, off + totalRead, len - totalRead);
 
             if (numRead >= 0)
             {
@@ -122,7 +119,7 @@ class ConstructedOctetStream
 
         for (;;)
         {
-            final int b = call(()->_currentStream.read());
+            final int b = StreamUtil.read(_currentStream);
 
             if (b >= 0)
             {
@@ -0,0 +1,281 @@
+package com.github.gv2011.asn1;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import com.github.gv2011.util.bytes.Bytes;
+
+/**
+ * Two pass DER encoder. The first pass converts the tree to DER form once and records
+ * every node in pre-order together with its length, computed bottom-up. The second pass
+ * is a flat loop over the recorded nodes that writes headers and leaf contents straight
+ * into an array of the exact size.
+ * <p>
+ * SEQUENCE, SET and tagged objects are handled here; all other objects are leaves that
+ * write themselves through the {@link ASN1OutputStream} methods, into the target array. Objects
+ * with an encoding in the {@link ASN1EncodingCache} are copied from there instead.
+ * </p>
+ */
+final class DEREncoder
+    extends DEROutputStream
+{
+    private static final int LEAF = 0;
+    private static final int SEQUENCE = 1;
+    private static final int SET = 2;
+    private static final int EXPLICIT = 3;
+    private static final int IMPLICIT = 4;
+    private static final int CACHED = 5;
+    private static final int KIND_MASK = 0x07;
+
+    /** The identifier of this node replaces the first octet written. */
+    private static final int SKIP_FIRST = 0x08;
+    /** Implicitly tagged node wrapping a constructed encoding. */
+    private static final int CONSTRUCTED_CONTENT = 0x10;
+
+    private ASN1Primitive[] nodes = new ASN1Primitive[16];
+    private int[] info = new int[16];
+    private int[] lengths = new int[16];
+    /** The encodings of CACHED nodes, allocated on first use. */
+    private Bytes[] encodings;
+    private int count;
+
+    private DEREncoder()
+    {
+        super(null);
+    }
+
+    /**
+     * Return the DER encoding of obj.
+     */
+    static byte[] encode(final ASN1Primitive obj)
+    {
+        final DEREncoder encoder = new DEREncoder();
+        final int length = encoder.measure(obj, 0);
+        final byte[] result = new byte[length];
+
+        encoder.write(result, 0);
+
+        return result;
+    }
+
+    /**
+     * Write the DER encoding of obj into target at its position, which is advanced.
+     *
+     * @return the number of bytes written.
+     * @throws BufferOverflowException if target has not enough space remaining, target is unchanged then.
+     */
+    static int encode(final ASN1Primitive obj, final ByteBuffer target)
+    {
+        final DEREncoder encoder = new DEREncoder();
+        final int length = encoder.measure(obj, 0);
+
+        if (target.remaining() < length)
+        {
+            throw new BufferOverflowException();
+        }
+
+        if (target.hasArray())
+        {
+            encoder.write(target.array(), target.arrayOffset() + target.position());
+            target.position(target.position() + length);
+        }
+        else
+        {
+            final byte[] tmp = new byte[length];
+            encoder.write(tmp, 0);
+            target.put(tmp);
+        }
+
+        return length;
+    }
+
+    /**
+     * First pass: record obj in DER form and its subtree.
+     *
+     * @return the total encoded length of obj.
+     */
+    private int measure(final ASN1Primitive primitive, final int flags)
+    {
+        // looked up before the conversion, which may create a copy
+        final Bytes cached = ASN1EncodingCache.derEncoding(primitive);
+        if (cached != null)
+        {
+            final int index = add(primitive);
+            if (encodings == null)
+            {
+                encodings = new Bytes[nodes.length];
+            }
+            encodings[index] = cached;
+            info[index] = CACHED | flags;
+            return cached.size();
+        }
+
+        final ASN1Primitive obj = toDER(primitive);
+        final int index = add(obj);
+
+        if (obj instanceof DERSequence)
+        {
+            final ASN1Sequence seq = (ASN1Sequence)obj;
+            int length = 0;
+            for (int i = 0, size = seq.size(); i != size; i++)
+            {
+                length += measure(seq.getObjectAt(i).toASN1Primitive(), 0);
+            }
+            return record(index, SEQUENCE | flags, length, 1);
+        }
+
+        if (obj instanceof DERSet)
+        {
+            final ASN1Set set = (ASN1Set)obj;
+            int length = 0;
+            for (int i = 0, size = set.size(); i != size; i++)
+            {
+                length += measure(set.getObjectAt(i).toASN1Primitive(), 0);
+            }
+            return record(index, SET | flags, length, 1);
+        }
+
+        if (obj instanceof DERTaggedObject && !((DERTaggedObject)obj).empty)
+        {
+            final DERTaggedObject tagged = (DERTaggedObject)obj;
+            final ASN1Primitive inner = tagged.obj.toASN1Primitive();
+            final int tagLength = StreamUtil.calculateTagLength(tagged.tagNo);
+
+            if (tagged.explicit)
+            {
+                return record(index, EXPLICIT | flags, measure(inner, 0), tagLength);
+            }
+
+            // the inner encoding follows without its first octet - see ASN1OutputStream.writeImplicitObject()
+            final int length = tagLength + measure(inner, SKIP_FIRST) - 1;
+            info[index] = IMPLICIT | (isConstructed(index + 1) ? CONSTRUCTED_CONTENT : 0) | flags;
+            return length;
+        }
+
+        info[index] = LEAF | flags;
+        return obj.encodedLength();
+    }
+
+    private static ASN1Primitive toDER(final ASN1Primitive primitive)
+    {
+        // DERSequence.toDERObject() only creates an equivalent copy
+        return primitive instanceof DERSequence ? primitive : primitive.toDERObject();
+    }
+
+    /**
+     * Whether the recorded node at index has a constructed encoding.
+     */
+    private boolean isConstructed(final int index)
+    {
+        switch (info[index] & KIND_MASK)
+        {
+            case LEAF:
+                return nodes[index].isConstructed();
+            case CACHED:
+                return (encodings[index].getByte(0) & BERTags.CONSTRUCTED) != 0;
+            case IMPLICIT:
+                return (info[index] & CONSTRUCTED_CONTENT) != 0;
+            default:
+                return true;
+        }
+    }
+
+    private int record(final int index, final int nodeInfo, final int contentLength, final int tagLength)
+    {
+        info[index] = nodeInfo;
+        lengths[index] = contentLength;
+
+        return tagLength + StreamUtil.calculateBodyLength(contentLength) + contentLength;
+    }
+
+    private int add(final ASN1Primitive obj)
+    {
+        if (count == nodes.length)
+        {
+            nodes = Arrays.copyOf(nodes, count * 2);
+            info = Arrays.copyOf(info, count * 2);
+            lengths = Arrays.copyOf(lengths, count * 2);
+            if (encodings != null)
+            {
+                encodings = Arrays.copyOf(encodings, count * 2);
+            }
+        }
+
+        nodes[count] = obj;
+
+        return count++;
+    }
+
+    /**
+     * Second pass: the pre-order node list is exactly the order of the headers and leaves in
+     * the encoding.
+     */
+    private void write(final byte[] target, final int offset)
+    {
+        buf = target;
+        pos = offset;
+
+        for (int i = 0; i != count; i++)
+        {
+            final int nodeInfo = info[i];
+
+            skip = (nodeInfo & SKIP_FIRST) != 0;
+
+            switch (nodeInfo & KIND_MASK)
+            {
+                case SEQUENCE:
+                    write(BERTags.SEQUENCE | BERTags.CONSTRUCTED);
+                    writeLength(lengths[i]);
+                    break;
+                case SET:
+                    write(BERTags.SET | BERTags.CONSTRUCTED);
+                    writeLength(lengths[i]);
+                    break;
+                case EXPLICIT:
+                    writeTag(BERTags.CONSTRUCTED | BERTags.TAGGED, ((ASN1TaggedObject)nodes[i]).tagNo);
+                    writeLength(lengths[i]);
+                    break;
+                case IMPLICIT:
+                    writeTag(
+                        (nodeInfo & CONSTRUCTED_CONTENT) != 0 ? BERTags.CONSTRUCTED | BERTags.TAGGED : BERTags.TAGGED,
+                        ((ASN1TaggedObject)nodes[i]).tagNo);
+                    break;
+                case CACHED:
+                    write(encodings[i]);
+                    break;
+                default:
+                    nodes[i].encode(this);
+            }
+        }
+    }
+}
@@ -40,32 +40,6 @@ public class DEROutputStream
     public DEROutputStream(
         final OutputStream    os)
     {
-        super(os);
-    }
-
-    @Override
-    public void writeObject(
-        final ASN1Encodable obj)
-    {
-        if (obj != null)
-        {
-            obj.toASN1Primitive().toDERObject().encode(this);
-        }
-        else
-        {
-            throw new RuntimeException("null object detected");
-        }
-    }
-
-    @Override
-    ASN1OutputStream getDERSubStream()
-    {
-        return this;
-    }
-
-    @Override
-    ASN1OutputStream getDLSubStream()
-    {
-        return this;
+        super(os, DER);
     }
 }
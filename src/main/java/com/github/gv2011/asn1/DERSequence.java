@@ -29,8 +29,6 @@ package com.github.gv2011.asn1;
  */
 
 
-import java.util.Enumeration;
-
 public class DERSequence
     extends ASN1Sequence
 {
@@ -73,17 +71,22 @@ public class DERSequence
         super(array);
     }
 
+    DERSequence(
+        final ASN1Encodable[]   elements,
+        final boolean           clone)
+    {
+        super(elements, clone);
+    }
+
     private int getBodyLength()
     {
         if (bodyLength < 0)
         {
             int length = 0;
 
-            for (final Enumeration<?> e = getObjects(); e.hasMoreElements();)
+            for (int i = 0, size = size(); i != size; i++)
             {
-                final Object    obj = e.nextElement();
-
-                length += ((ASN1Encodable)obj).toASN1Primitive().toDERObject().encodedLength();
+                length += getObjectAt(i).toASN1Primitive().toDERObject().encodedLength();
             }
 
             bodyLength = length;
@@ -112,17 +115,14 @@ public class DERSequence
     void encode(
         final ASN1OutputStream out)
     {
-        final ASN1OutputStream        dOut = out.getDERSubStream();
-        final int                     length = getBodyLength();
+        final int length = getBodyLength();
 
         out.write(BERTags.SEQUENCE | BERTags.CONSTRUCTED);
         out.writeLength(length);
 
-        for (final Enumeration<?> e = getObjects(); e.hasMoreElements();)
+        for (int i = 0, size = size(); i != size; i++)
         {
-            final Object    obj = e.nextElement();
-
-            dOut.writeObject((ASN1Encodable)obj);
+            out.writeDERObject(getObjectAt(i));
         }
     }
 }
@@ -82,7 +82,7 @@ public class DERSequenceGenerator
         final ASN1Encodable object)
         throws IOException
     {
-        object.toASN1Primitive().encode(new DEROutputStream(_bOut));
+        new DEROutputStream(_bOut).writePrimitive(object.toASN1Primitive());
     }
 
     /**
@@ -29,8 +29,6 @@ package com.github.gv2011.asn1;
  */
 
 
-import java.util.Enumeration;
-
 /**
  * A DER encoded set object
  */
@@ -83,17 +81,48 @@ public class DERSet
         super(v, doSort);
     }
 
+    /**
+     * create a set from objects that are already in DER order (ascending order of
+     * their DER encodings). No sorting takes place - if the objects are not in order
+     * the set will not be DER encoded.
+     * @param v the vector of objects to make up the set, in DER order.
+     * @return a set holding the objects in the given order.
+     */
+    public static DERSet fromSorted(
+        final ASN1EncodableVector v)
+    {
+        return new DERSet(true, v.copyElements());
+    }
+
+    /**
+     * create a set from objects that are already in DER order (ascending order of
+     * their DER encodings). No sorting takes place - if the objects are not in order
+     * the set will not be DER encoded.
+     * @param a the array of objects to make up the set, in DER order.
+     * @return a set holding the objects in the given order.
+     */
+    public static DERSet fromSorted(
+        final ASN1Encodable[]   a)
+    {
+        return new DERSet(true, a.clone());
+    }
+
+    DERSet(
+        final boolean           isSorted,
+        final ASN1Encodable[]   elements)
+    {
+        super(isSorted, elements);
+    }
+
     private int getBodyLength()
     {
         if (bodyLength < 0)
         {
             int length = 0;
 
-            for (final Enumeration<?> e = getObjects(); e.hasMoreElements();)
+            for (int i = 0, size = size(); i != size; i++)
             {
-                final Object    obj = e.nextElement();
-
-                length += ((ASN1Encodable)obj).toASN1Primitive().toDERObject().encodedLength();
+                length += getObjectAt(i).toASN1Primitive().toDERObject().encodedLength();
             }
 
             bodyLength = length;
@@ -122,17 +151,14 @@ public class DERSet
     void encode(
         final ASN1OutputStream out)
     {
-        final ASN1OutputStream        dOut = out.getDERSubStream();
-        final int                     length = getBodyLength();
+        final int length = getBodyLength();
 
         out.write(BERTags.SET | BERTags.CONSTRUCTED);
         out.writeLength(length);
 
-        for (final Enumeration<?> e = getObjects(); e.hasMoreElements();)
+        for (int i = 0, size = size(); i != size; i++)
         {
-            final Object    obj = e.nextElement();
-
-            dOut.writeObject((ASN1Encodable)obj);
+            out.writeDERObject(getObjectAt(i));
         }
     }
 }
@@ -29,16 +29,22 @@ package com.github.gv2011.asn1;
  */
 
 
+import java.nio.charset.StandardCharsets;
+
 import com.github.gv2011.asn1.util.Strings;
 import com.github.gv2011.util.bytes.Bytes;
 
 /**
- * DER UTF8String object.
+ * DER UTF8String object. The contents are only decoded when the string is first asked for.
  */
 public class DERUTF8String
     extends ASN1PrimitiveBytes
     implements ASN1String
 {
+    /**
+     * The decoded contents, null until first used.
+     */
+    private String value;
 
     /**
      * Return an UTF8 string from the passed in object.
@@ -115,18 +121,47 @@ public class DERUTF8String
     public DERUTF8String(final String string)
     {
         this(Strings.toUTF8ByteArray(string));
+        value = string;
     }
 
+    /**
+     * @throws ASN1ParsingException if the contents are not well-formed UTF-8.
+     */
     @Override
     public String getString()
     {
-        return Strings.fromUTF8ByteArray(string);
+        String result = value;
+        if (result == null)
+        {
+            try
+            {
+                result = Strings.fromUTF8ByteArray(string);
+            }
+            catch (final IllegalArgumentException e)
+            {
+                throw new ASN1ParsingException("invalid UTF8String contents", e);
+            }
+            // decoding twice in a race does no harm
+            value = result;
+        }
+
+        return result;
     }
 
+    /**
+     * As {@link #getString()}, but malformed contents are shown with replacement characters.
+     */
     @Override
     public String toString()
     {
-        return getString();
+        try
+        {
+            return getString();
+        }
+        catch (final ASN1ParsingException e)
+        {
+            return new String(string.toByteArray(), StandardCharsets.UTF_8);
+        }
     }
 
 
@@ -40,20 +40,6 @@ public class DLOutputStream
     public DLOutputStream(
         final OutputStream os)
     {
-        super(os);
-    }
-
-    @Override
-    public void writeObject(
-        final ASN1Encodable obj)
-    {
-        if (obj != null)
-        {
-            obj.toASN1Primitive().toDLObject().encode(this);
-        }
-        else
-        {
-            throw new RuntimeException("null object detected");
-        }
+        super(os, DL);
     }
 }
@@ -29,8 +29,6 @@ package com.github.gv2011.asn1;
  */
 
 
-import java.util.Enumeration;
-
 /**
  * The DLSequence encodes a SEQUENCE using definite length form.
  */
@@ -76,17 +74,22 @@ public class DLSequence
         super(array);
     }
 
+    DLSequence(
+        final ASN1Encodable[]   elements,
+        final boolean           clone)
+    {
+        super(elements, clone);
+    }
+
     private int getBodyLength()
     {
         if (bodyLength < 0)
         {
             int length = 0;
 
-            for (final Enumeration<?> e = getObjects(); e.hasMoreElements();)
+            for (int i = 0, size = size(); i != size; i++)
             {
-                final Object obj = e.nextElement();
-
-                length += ((ASN1Encodable)obj).toASN1Primitive().toDLObject().encodedLength();
+                length += getObjectAt(i).toASN1Primitive().toDLObject().encodedLength();
             }
 
             bodyLength = length;
@@ -115,17 +118,14 @@ public class DLSequence
     void encode(
         final ASN1OutputStream out)
     {
-        final ASN1OutputStream dOut = out.getDLSubStream();
         final int length = getBodyLength();
 
         out.write(BERTags.SEQUENCE | BERTags.CONSTRUCTED);
         out.writeLength(length);
 
-        for (final Enumeration<?> e = getObjects(); e.hasMoreElements();)
+        for (int i = 0, size = size(); i != size; i++)
         {
-            final Object obj = e.nextElement();
-
-            dOut.writeObject((ASN1Encodable)obj);
+            out.writeDLObject(getObjectAt(i));
         }
     }
 }
@@ -29,8 +29,6 @@ package com.github.gv2011.asn1;
  */
 
 
-import java.util.Enumeration;
-
 /**
  * The DLSet encodes ASN.1 SET value without element ordering,
  * and always using definite length form.
@@ -118,17 +116,22 @@ public class DLSet
         super(a, false);
     }
 
+    DLSet(
+        final boolean           isSorted,
+        final ASN1Encodable[]   elements)
+    {
+        super(isSorted, elements);
+    }
+
     private int getBodyLength()
     {
         if (bodyLength < 0)
         {
             int length = 0;
 
-            for (final Enumeration<?> e = getObjects(); e.hasMoreElements();)
+            for (int i = 0, size = size(); i != size; i++)
             {
-                final Object obj = e.nextElement();
-
-                length += ((ASN1Encodable)obj).toASN1Primitive().toDLObject().encodedLength();
+                length += getObjectAt(i).toASN1Primitive().toDLObject().encodedLength();
             }
 
             bodyLength = length;
@@ -157,17 +160,14 @@ public class DLSet
     void encode(
         final ASN1OutputStream out)
     {
-        final ASN1OutputStream dOut = out.getDLSubStream();
         final int length = getBodyLength();
 
         out.write(BERTags.SET | BERTags.CONSTRUCTED);
         out.writeLength(length);
 
-        for (final Enumeration<?> e = getObjects(); e.hasMoreElements();)
+        for (int i = 0, size = size(); i != size; i++)
         {
-            final Object obj = e.nextElement();
-
-            dOut.writeObject((ASN1Encodable)obj);
+            out.writeDLObject(getObjectAt(i));
         }
     }
 }
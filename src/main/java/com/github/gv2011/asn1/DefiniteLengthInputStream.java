@@ -31,12 +31,12 @@ package com.github.gv2011.asn1;
 
 import static com.github.gv2011.util.bytes.ByteUtils.emptyBytes;
 import static com.github.gv2011.util.bytes.ByteUtils.newBytes;
+import static com.github.gv2011.util.ex.Exceptions.wrap;
 
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 
-import com.github.gv2011.asn1.util.io.Streams;
 import com.github.gv2011.util.bytes.Bytes;
 
 class DefiniteLengthInputStream
@@ -45,13 +45,14 @@ class DefiniteLengthInputStream
     private static final Bytes EMPTY_BYTES = emptyBytes();
 
     private final int _originalLength;
-    private int _remaining;
+    // absolute end position of the contents
+    private final long _end;
 
     DefiniteLengthInputStream(
         final InputStream in,
         final int         length)
     {
-        super(in, length);
+        super(in, length, Math.max(length, 0));
 
         if (length < 0)
         {
@@ -59,7 +60,7 @@ class DefiniteLengthInputStream
         }
 
         _originalLength = length;
-        _remaining = length;
+        _end = _root.position() + length;
 
         if (length == 0)
         {
@@ -70,26 +71,37 @@ class DefiniteLengthInputStream
     @Override
     int getRemaining()
     {
-        return _remaining;
+        return (int)Math.max(_end - _root.position(), 0);
+    }
+
+    @Override
+    void childComplete(
+        final boolean eofDetect)
+    {
+        if (_root.position() == _end)
+        {
+            setParentEofDetect(eofDetect);
+        }
     }
 
     @Override
     public int read()
         throws IOException
     {
-        if (_remaining == 0)
+        final long position = _root.position();
+        if (position >= _end)
         {
             return -1;
         }
 
-        final int b = _in.read();
+        final int b = position < _bound ? _root.read(_bound) : -1;
 
         if (b < 0)
         {
-            throw new EOFException("DEF length " + _originalLength + " object truncated by " + _remaining);
+            throw new EOFException("DEF length " + _originalLength + " object truncated by " + (_end - position));
         }
 
-        if (--_remaining == 0)
+        if (position + 1 == _end)
         {
             setParentEofDetect(true);
         }
@@ -101,20 +113,21 @@ class DefiniteLengthInputStream
     public int read(final byte[] buf, final int off, final int len)
         throws IOException
     {
-        if (_remaining == 0)
+        final long position = _root.position();
+        if (position >= _end)
         {
             return -1;
         }
 
-        final int toRead = Math.min(len, _remaining);
-        final int numRead = _in.read(buf, off, toRead);
+        final int toRead = (int)Math.min(len, _bound - position);
+        final int numRead = toRead > 0 ? _root.read(buf, off, toRead, _bound) : -1;
 
         if (numRead < 0)
         {
-            throw new EOFException("DEF length " + _originalLength + " object truncated by " + _remaining);
+            throw new EOFException("DEF length " + _originalLength + " object truncated by " + (_end - position));
         }
 
-        if ((_remaining -= numRead) == 0)
+        if (position + numRead == _end)
         {
             setParentEofDetect(true);
         }
@@ -123,17 +136,43 @@ class DefiniteLengthInputStream
     }
 
     Bytes toByteArray(){
-        if (_remaining == 0)
+        final int remaining = getRemaining();
+        if (remaining == 0)
         {
             return EMPTY_BYTES;
         }
 
-        final byte[] bytes = new byte[_remaining];
-        if ((_remaining -= Streams.readFully(_in, bytes)) != 0)
+        final byte[] bytes = new byte[remaining];
+        final int numRead;
+        try
+        {
+            numRead = readFully(bytes, (int)Math.min(remaining, _bound - _root.position()));
+        }
+        catch (final IOException e)
         {
-            throw new ASN1ParsingException("DEF length " + _originalLength + " object truncated by " + _remaining);
+            throw wrap(e);
+        }
+        if (numRead != remaining)
+        {
+            throw new ASN1ParsingException("DEF length " + _originalLength + " object truncated by " + (remaining - numRead));
         }
         setParentEofDetect(true);
         return newBytes(bytes);
     }
+
+    private int readFully(final byte[] bytes, final int len)
+        throws IOException
+    {
+        int off = 0;
+        while (off < len)
+        {
+            final int numRead = _root.read(bytes, off, len - off, _bound);
+            if (numRead < 0)
+            {
+                break;
+            }
+            off += numRead;
+        }
+        return off;
+    }
 }
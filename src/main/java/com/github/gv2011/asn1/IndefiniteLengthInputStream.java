@@ -29,7 +29,7 @@ package com.github.gv2011.asn1;
  */
 
 
-import static com.github.gv2011.util.ex.Exceptions.call;
+import static com.github.gv2011.util.ex.Exceptions.wrap;
 
 import java.io.EOFException;
 import java.io.IOException;
@@ -38,40 +38,56 @@ import java.io.InputStream;
 class IndefiniteLengthInputStream
     extends LimitedInputStream
 {
-    private int _b1;
-    private int _b2;
     private boolean _eofReached = false;
     private boolean _eofOn00 = true;
 
     IndefiniteLengthInputStream(
         final InputStream in,
         final int         limit) {
-        super(in, limit);
+        super(in, limit, -1);
 
-        call(()->{
-          _b1 = in.read();
-          _b2 = in.read();
-        });
+        try
+        {
+            if (_root.fill(2, _bound) < 2)
+            {
+                // Corrupted stream
+                throw new ASN1Exception();
+            }
 
-        if (_b2 < 0)
+            checkForEof();
+        }
+        catch (final IOException e)
         {
-            // Corrupted stream
-            throw new ASN1Exception();
+            throw wrap(e);
         }
-
-        checkForEof();
     }
 
     void setEofOn00(
         final boolean eofOn00)
     {
         _eofOn00 = eofOn00;
-        checkForEof();
+        try
+        {
+            checkForEof();
+        }
+        catch (final IOException e)
+        {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    void childComplete(
+        final boolean eofDetect)
+    {
+        setEofOn00(eofDetect);
     }
 
     private boolean checkForEof()
+        throws IOException
     {
-        if (!_eofReached && _eofOn00 && (_b1 == 0x00 && _b2 == 0x00))
+        if (!_eofReached && _eofOn00 && _bound - _root.position() >= 2
+            && _root.skipEndOfContents(_bound))
         {
             _eofReached = true;
             setParentEofDetect(true);
@@ -83,38 +99,35 @@ class IndefiniteLengthInputStream
     public int read(final byte[] b, final int off, final int len)
         throws IOException
     {
-        // Only use this optimisation if we aren't checking for 00
-        if (_eofOn00 || len < 3)
+        if (len == 0)
         {
-            return super.read(b, off, len);
+            return 0;
         }
 
-        if (_eofReached)
+        if (checkForEof())
         {
             return -1;
         }
 
-        final int numRead = _in.read(b, off + 2, len - 2);
-
-        if (numRead < 0)
+        final int available = (int)Math.min(len, _bound - _root.position());
+        if (available <= 0)
         {
             // Corrupted stream
             throw new EOFException();
         }
 
-        b[off] = (byte)_b1;
-        b[off + 1] = (byte)_b2;
-
-        _b1 = _in.read();
-        _b2 = _in.read();
+        // while looking for 00 the block is scanned for an end-of-contents marker
+        final int numRead = _eofOn00
+            ?   _root.readToEndOfContents(b, off, available, _bound)
+            :   _root.read(b, off, available, _bound);
 
-        if (_b2 < 0)
+        if (numRead < 0)
         {
             // Corrupted stream
             throw new EOFException();
         }
 
-        return numRead + 2;
+        return numRead;
     }
 
     @Override
@@ -126,7 +139,7 @@ class IndefiniteLengthInputStream
             return -1;
         }
 
-        final int b = _in.read();
+        final int b = _root.position() < _bound ? _root.read(_bound) : -1;
 
         if (b < 0)
         {
@@ -134,11 +147,6 @@ class IndefiniteLengthInputStream
             throw new EOFException();
         }
 
-        final int v = _b1;
-
-        _b1 = _b2;
-        _b2 = b;
-
-        return v;
+        return b;
     }
 }
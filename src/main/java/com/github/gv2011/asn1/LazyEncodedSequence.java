@@ -29,114 +29,167 @@ package com.github.gv2011.asn1;
  */
 
 
+import java.util.Arrays;
 import java.util.Enumeration;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import com.github.gv2011.util.bytes.Bytes;
 
 /**
  * Note: this class is for processing DER/DL encoded sequences only.
+ * <p>
+ * The members are located with a scan of their headers on first access, and each member
+ * is only parsed when it is accessed. Both the member index and the parsed members are
+ * published with compare-and-set, so concurrent readers never block and all of them see
+ * the same member objects. The inherited storage is not used.
  */
 class LazyEncodedSequence
     extends ASN1Sequence
 {
-    private Bytes encoded;
+    private static final AtomicReferenceFieldUpdater<LazyEncodedSequence, Members> MEMBERS =
+        AtomicReferenceFieldUpdater.newUpdater(LazyEncodedSequence.class, Members.class, "members");
+
+    private final Bytes encoded;
+
+    private volatile Members members;
 
     LazyEncodedSequence(
         final Bytes encoded){
         this.encoded = encoded;
     }
 
-    private void parse()
+    /**
+     * The offsets of the members in encoded and the members parsed so far.
+     */
+    private static final class Members
     {
-        final Enumeration<ASN1Encodable> en = new LazyConstructionEnumeration(encoded);
+        private final int[] offsets;
+        private final AtomicReferenceArray<ASN1Encodable> parsed;
 
-        while (en.hasMoreElements())
+        Members(final int[] offsets)
         {
-            seq.addElement(en.nextElement());
+            this.offsets = offsets;
+            this.parsed = new AtomicReferenceArray<>(offsets.length - 1);
         }
-
-        encoded = null;
     }
 
-    @Override
-    public synchronized ASN1Encodable getObjectAt(final int index)
+    private Members members()
     {
-        if (encoded != null)
+        final Members current = members;
+        if (current != null)
         {
-            parse();
+            return current;
         }
+        MEMBERS.compareAndSet(this, null, new Members(scan(encoded)));
+        return members;
+    }
 
-        return super.getObjectAt(index);
+    /**
+     * Return the offsets of the members, followed by the length of the contents.
+     */
+    private static int[] scan(final Bytes encoded)
+    {
+        final ASN1PullParser parser = new ASN1PullParser(encoded);
+        int[] offsets = new int[8];
+        int count = 0;
+        for (;;)
+        {
+            final int event = parser.next();
+            if (count == offsets.length)
+            {
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            if (event == ASN1PullParser.END_DOCUMENT)
+            {
+                offsets[count++] = encoded.size();
+                return Arrays.copyOf(offsets, count);
+            }
+            offsets[count++] = (int)parser.getOffset();
+            parser.skip();
+        }
     }
 
     @Override
-    public synchronized Enumeration<ASN1Encodable> getObjects()
+    public ASN1Encodable getObjectAt(final int index)
     {
-        if (encoded == null)
+        final Members current = members();
+        final ASN1Encodable obj = current.parsed.get(index);
+        if (obj != null)
         {
-            return super.getObjects();
+            return obj;
         }
-
-        return new LazyConstructionEnumeration(encoded);
+        final ASN1Primitive parsed = new ASN1BufferParser(
+            encoded.subList(current.offsets[index], current.offsets[index + 1]), true).readObject();
+        if (current.parsed.compareAndSet(index, null, parsed))
+        {
+            return parsed;
+        }
+        return current.parsed.get(index);
     }
 
     @Override
-    public synchronized int size()
+    public Enumeration<ASN1Encodable> getObjects()
     {
-        if (encoded != null)
+        final int size = size();
+
+        return new Enumeration<ASN1Encodable>()
         {
-            parse();
-        }
+            private int index;
+
+            @Override
+            public boolean hasMoreElements()
+            {
+                return index < size;
+            }
+
+            @Override
+            public ASN1Encodable nextElement()
+            {
+                if (index >= size)
+                {
+                    throw new NoSuchElementException();
+                }
+                return getObjectAt(index++);
+            }
+        };
+    }
 
-        return super.size();
+    @Override
+    public int size()
+    {
+        return members().offsets.length - 1;
     }
 
     @Override
     ASN1Primitive toDERObject()
     {
-        if (encoded != null)
-        {
-            parse();
-        }
-
-        return super.toDERObject();
+        return new DERSequence(toArray(), false);
     }
 
     @Override
     ASN1Primitive toDLObject()
     {
-        if (encoded != null)
-        {
-            parse();
-        }
-
-        return super.toDLObject();
+        return new DLSequence(toArray(), false);
     }
 
     @Override
     int encodedLength()
     {
-        if (encoded != null)
-        {
-            return StreamUtil.typicalLength(encoded);
-        }
-        else
-        {
-            return super.toDLObject().encodedLength();
-        }
+        return StreamUtil.typicalLength(encoded);
     }
 
     @Override
     void encode(
         final ASN1OutputStream out)
     {
-        if (encoded != null)
-        {
-            out.writeEncoded(BERTags.SEQUENCE | BERTags.CONSTRUCTED, encoded);
-        }
-        else
-        {
-            super.toDLObject().encode(out);
-        }
+        out.writeEncoded(BERTags.SEQUENCE | BERTags.CONSTRUCTED, encoded);
+    }
+
+    @Override
+    public String toString()
+    {
+        return Arrays.asList(toArray()).toString();
     }
 }
@@ -29,22 +29,66 @@ package com.github.gv2011.asn1;
  */
 
 
+import static com.github.gv2011.util.ex.Exceptions.wrap;
+
+import java.io.IOException;
 import java.io.InputStream;
 
+/**
+ * Base of the streams for the contents of definite and indefinite length objects. All streams
+ * of one top-level object read from a shared {@link BERInputBuffer}; the parent is only notified
+ * when a child is complete.
+ */
 abstract class LimitedInputStream
         extends InputStream
 {
-    protected final InputStream _in;
+    protected final LimitedInputStream _parent;
+    protected final BERInputBuffer _root;
+    // absolute position the contents must not extend beyond
+    protected final long _bound;
     private int _limit;
 
+    /**
+     * @param in the stream the contents are read from.
+     * @param limit maximum size of an object.
+     * @param length the length of the contents, -1 for indefinite length.
+     */
     LimitedInputStream(
         InputStream in,
-        int         limit)
+        int         limit,
+        long        length)
     {
-        this._in = in;
+        final InputStream source = in instanceof ASN1InputStream ? ((ASN1InputStream)in).getInput() : in;
+        if (source instanceof LimitedInputStream)
+        {
+            this._parent = (LimitedInputStream)source;
+            this._root = _parent._root;
+        }
+        else
+        {
+            this._parent = null;
+            this._root = new BERInputBuffer(in);
+        }
+        final long parentBound = _parent == null ? BERInputBuffer.UNBOUNDED : _parent._bound;
+        this._bound = length < 0 ? parentBound : Math.min(parentBound, _root.position() + length);
         this._limit = limit;
     }
 
+    /**
+     * {@link #read()} without checked exceptions, for the parsing loops.
+     */
+    final int readByte()
+    {
+        try
+        {
+            return read();
+        }
+        catch (final IOException e)
+        {
+            throw wrap(e);
+        }
+    }
+
     int getRemaining()
     {
         // TODO: maybe one day this can become more accurate
@@ -53,9 +97,15 @@ abstract class LimitedInputStream
     
     protected void setParentEofDetect(boolean on)
     {
-        if (_in instanceof IndefiniteLengthInputStream)
+        if (_parent != null)
         {
-            ((IndefiniteLengthInputStream)_in).setEofOn00(on);
+            _parent.childComplete(on);
         }
     }
+
+    /**
+     * Called when a child object is complete. As children do not read through their parent,
+     * this is where a parent learns that its own contents may be complete as well.
+     */
+    abstract void childComplete(boolean eofDetect);
 }
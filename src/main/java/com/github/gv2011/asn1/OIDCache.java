@@ -0,0 +1,127 @@
+package com.github.gv2011.asn1;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.github.gv2011.util.bytes.Bytes;
+
+/**
+ * A size-bounded cache of canonical {@link ASN1ObjectIdentifier} instances, keyed on the
+ * contents octets. The table is two-way set associative: each encoding has two candidate
+ * slots, a new entry replaces the older one when both are taken. Lookups hash and compare
+ * the octets where they are, so a hit does not allocate.
+ */
+final class OIDCache
+{
+    private final AtomicReferenceArray<ASN1ObjectIdentifier> table;
+    private final int mask;
+
+    /**
+     * @param size the number of entries, rounded up to a power of 2.
+     */
+    OIDCache(final int size)
+    {
+        final int capacity = Integer.highestOneBit(Math.max(size, 2) * 2 - 1);
+        table = new AtomicReferenceArray<>(capacity);
+        mask = capacity - 1;
+    }
+
+    static int hash(final byte[] b, final int off, final int len)
+    {
+        int h = 1;
+        for (int i = off; i != off + len; i++)
+        {
+            h = 31 * h + b[i];
+        }
+        return h;
+    }
+
+    static int hash(final Bytes b)
+    {
+        int h = 1;
+        for (int i = 0; i != b.size(); i++)
+        {
+            h = 31 * h + b.getByte(i);
+        }
+        return h;
+    }
+
+    private int slot(final int hash)
+    {
+        return (hash ^ (hash >>> 16)) & mask & ~1;
+    }
+
+    ASN1ObjectIdentifier get(final byte[] b, final int off, final int len)
+    {
+        final int slot = slot(hash(b, off, len));
+        for (int i = slot; i != slot + 2; i++)
+        {
+            final ASN1ObjectIdentifier oid = table.get(i);
+            if (oid != null && oid.contentsEqual(b, off, len))
+            {
+                return oid;
+            }
+        }
+        return null;
+    }
+
+    ASN1ObjectIdentifier get(final Bytes contents)
+    {
+        final int slot = slot(hash(contents));
+        for (int i = slot; i != slot + 2; i++)
+        {
+            final ASN1ObjectIdentifier oid = table.get(i);
+            if (oid != null && oid.contentsEqual(contents))
+            {
+                return oid;
+            }
+        }
+        return null;
+    }
+
+    void put(final ASN1ObjectIdentifier oid)
+    {
+        final int slot = slot(oid.contentsHash());
+        if (table.get(slot) == null || table.get(slot).contentsEqual(oid))
+        {
+            table.set(slot, oid);
+        }
+        else
+        {
+            // the second slot takes the newer entry, the older one moves to the first
+            final ASN1ObjectIdentifier older = table.getAndSet(slot + 1, oid);
+            if (older != null && !older.contentsEqual(oid))
+            {
+                table.set(slot, older);
+            }
+        }
+    }
+}
@@ -29,10 +29,13 @@ package com.github.gv2011.asn1;
  */
 
 
+import static com.github.gv2011.util.ex.Exceptions.wrap;
+
 import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.channels.FileChannel;
 
 import com.github.gv2011.util.bytes.Bytes;
@@ -132,4 +135,58 @@ class StreamUtil
 
         return length;
     }
+
+    /**
+     * Read one byte for the tag/length/contents loops. Nested streams are read directly from
+     * their shared buffer; I/O errors are wrapped here, once, instead of with a lambda per byte.
+     *
+     * @return the byte read, -1 at the end of input.
+     */
+    static int read(final InputStream in)
+    {
+        if (in instanceof LimitedInputStream)
+        {
+            return ((LimitedInputStream)in).readByte();
+        }
+        if (in.getClass() == ASN1InputStream.class)
+        {
+            final InputStream input = ((ASN1InputStream)in).getInput();
+            if (input instanceof LimitedInputStream)
+            {
+                return ((LimitedInputStream)input).readByte();
+            }
+        }
+        try
+        {
+            return in.read();
+        }
+        catch (final IOException e)
+        {
+            throw wrap(e);
+        }
+    }
+
+    static int read(final InputStream in, final byte[] b, final int off, final int len)
+    {
+        try
+        {
+            return in.read(b, off, len);
+        }
+        catch (final IOException e)
+        {
+            throw wrap(e);
+        }
+    }
+
+    static void write(final OutputStream out, final int b)
+    {
+        try
+        {
+            out.write(b);
+        }
+        catch (final IOException e)
+        {
+            throw wrap(e);
+        }
+    }
 }
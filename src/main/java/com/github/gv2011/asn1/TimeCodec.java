@@ -0,0 +1,289 @@
+package com.github.gv2011.asn1;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import static com.github.gv2011.util.bytes.ByteUtils.newBytes;
+
+import java.text.ParseException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import com.github.gv2011.asn1.util.Strings;
+import com.github.gv2011.util.bytes.Bytes;
+
+/**
+ * Conversion between the GeneralizedTime and UTCTime encodings and epoch based time, by
+ * reading and writing the digits directly. There is no formatter state, so everything here
+ * is thread-safe, and parsing a time with a zone does not allocate.
+ * <p>
+ * The year digits are selected with yearStart: {@link #FOUR_DIGIT_YEAR} for GeneralizedTime,
+ * otherwise the first year of the century window a two digit UTCTime year is mapped into.
+ * <p>
+ * As with the lenient SimpleDateFormat used before, fields out of range overflow into the
+ * next larger unit, and a GeneralizedTime without zone is read as UTC.
+ */
+final class TimeCodec
+{
+    static final int FOUR_DIGIT_YEAR = -1;
+
+    /**
+     * Window of RFC 5280: years 50 to 99 are 1950 to 1999, 00 to 49 are 2000 to 2049.
+     */
+    static final int RFC5280_YEAR_START = 1950;
+
+    private static final int[] POWERS = {
+        1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000, 1000000000
+    };
+
+    private TimeCodec()
+    {
+    }
+
+    /**
+     * @return the seconds since the epoch, in UTC.
+     * @throws ParseException if the time has an illegal format.
+     */
+    static long epochSecond(final Bytes time, final int yearStart)
+        throws ParseException
+    {
+        return localSecond(time, yearStart) - offsetSeconds(time, yearStart);
+    }
+
+    /**
+     * @return the fraction of the second in nanoseconds, further digits are truncated.
+     */
+    static int nano(final Bytes time, final int yearStart)
+        throws ParseException
+    {
+        final int start = secondsEnd(time, yearStart);
+        final int end = fractionEnd(time, start);
+        if (end == start)
+        {
+            return 0;
+        }
+        final int count = Math.min(end - start - 1, 9);
+        return digits(time, start + 1, count) * POWERS[9 - count];
+    }
+
+    /**
+     * @return the milliseconds since the epoch, further digits are truncated.
+     */
+    static long epochMilli(final Bytes time, final int yearStart)
+        throws ParseException
+    {
+        return epochSecond(time, yearStart) * 1000 + nano(time, yearStart) / 1000000;
+    }
+
+    private static long localSecond(final Bytes time, final int yearStart)
+        throws ParseException
+    {
+        final int pos;
+        final int year;
+        if (yearStart == FOUR_DIGIT_YEAR)
+        {
+            pos = 4;
+            year = digits(time, 0, 4);
+        }
+        else
+        {
+            pos = 2;
+            year = yearStart + (digits(time, 0, 2) - yearStart % 100 + 100) % 100;
+        }
+        final int month = digits(time, pos, 2);
+        final int day = digits(time, pos + 2, 2);
+        final int hour = digits(time, pos + 4, 2);
+        final int minute = digits(time, pos + 6, 2);
+        final int second = secondsEnd(time, yearStart) == pos + 10 ? digits(time, pos + 8, 2) : 0;
+
+        return epochDay(year + Math.floorDiv(month - 1, 12), Math.floorMod(month - 1, 12) + 1, day) * 86400
+            + hour * 3600 + minute * 60 + second;
+    }
+
+    private static int secondsEnd(final Bytes time, final int yearStart)
+    {
+        if (yearStart == FOUR_DIGIT_YEAR)
+        {
+            return 14;
+        }
+        // seconds are optional in UTCTime
+        return time.size() > 10 && isDigit(time.getByte(10)) ? 12 : 10;
+    }
+
+    private static int fractionEnd(final Bytes time, final int start)
+        throws ParseException
+    {
+        if (start >= time.size() || time.getByte(start) != '.')
+        {
+            return start;
+        }
+        int i = start + 1;
+        while (i < time.size() && isDigit(time.getByte(i)))
+        {
+            i++;
+        }
+        if (i == start + 1)
+        {
+            throw new ParseException("invalid fractional seconds: " + Strings.fromByteArray(time), i);
+        }
+        return i;
+    }
+
+    /**
+     * @return the offset to UTC of the time, in seconds; 0 for a GeneralizedTime without zone.
+     */
+    static int offsetSeconds(final Bytes time, final int yearStart)
+        throws ParseException
+    {
+        final int start = yearStart == FOUR_DIGIT_YEAR
+            ? fractionEnd(time, secondsEnd(time, yearStart))
+            : secondsEnd(time, yearStart);
+        final int size = time.size();
+
+        if (start == size && yearStart == FOUR_DIGIT_YEAR)
+        {
+            return 0;
+        }
+
+        final byte sign = start < size ? time.getByte(start) : 0;
+        if (sign == 'Z' && size == start + 1)
+        {
+            return 0;
+        }
+        if (sign == '+' || sign == '-')
+        {
+            final int minutes;
+            if (size == start + 5)
+            {
+                minutes = digits(time, start + 3, 2);
+            }
+            else if (size == start + 3)
+            {
+                minutes = 0;
+            }
+            else
+            {
+                throw new ParseException("invalid time zone: " + Strings.fromByteArray(time), start);
+            }
+            final int offset = digits(time, start + 1, 2) * 3600 + minutes * 60;
+            if (offset > 18 * 3600)
+            {
+                throw new ParseException("invalid time zone: " + Strings.fromByteArray(time), start);
+            }
+            return sign == '-' ? -offset : offset;
+        }
+        throw new ParseException("invalid time zone: " + Strings.fromByteArray(time), start);
+    }
+
+    private static boolean isDigit(final byte b)
+    {
+        return b >= '0' && b <= '9';
+    }
+
+    private static int digits(final Bytes time, final int off, final int count)
+        throws ParseException
+    {
+        if (off + count > time.size())
+        {
+            throw new ParseException("time too short: " + Strings.fromByteArray(time), time.size());
+        }
+        int value = 0;
+        for (int i = off; i != off + count; i++)
+        {
+            final byte b = time.getByte(i);
+            if (!isDigit(b))
+            {
+                throw new ParseException("invalid digit in time: " + Strings.fromByteArray(time), i);
+            }
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Days since 1970-01-01 of a date of the proleptic Gregorian calendar. Days beyond the
+     * end of the month overflow into the next month, day 0 is the last day of the month before.
+     */
+    private static long epochDay(final int year, final int month, final int day)
+    {
+        final int y = month <= 2 ? year - 1 : year;
+        final int era = (y >= 0 ? y : y - 399) / 400;
+        final int yearOfEra = y - era * 400;
+        final int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+
+    /**
+     * Encode a time in UTC, as YYYYMMDDHHMMSS[.f]Z, or YYMMDDHHMMSSZ for UTCTime. The fraction
+     * of GeneralizedTime is written without trailing zeroes and left out if it is zero.
+     */
+    static Bytes format(final Instant time, final boolean twoDigitYear)
+    {
+        final LocalDateTime t = LocalDateTime.ofEpochSecond(time.getEpochSecond(), 0, ZoneOffset.UTC);
+        int nano = twoDigitYear ? 0 : time.getNano();
+        int fractionDigits = 0;
+        if (nano != 0)
+        {
+            fractionDigits = 9;
+            while (nano % 10 == 0)
+            {
+                nano /= 10;
+                fractionDigits--;
+            }
+        }
+
+        final int yearDigits = twoDigitYear ? 2 : 4;
+        final byte[] b = new byte[yearDigits + 11 + (fractionDigits == 0 ? 0 : fractionDigits + 1)];
+        int pos = put(b, 0, twoDigitYear ? t.getYear() % 100 : t.getYear(), yearDigits);
+        pos = put(b, pos, t.getMonthValue(), 2);
+        pos = put(b, pos, t.getDayOfMonth(), 2);
+        pos = put(b, pos, t.getHour(), 2);
+        pos = put(b, pos, t.getMinute(), 2);
+        pos = put(b, pos, t.getSecond(), 2);
+        if (fractionDigits != 0)
+        {
+            b[pos++] = '.';
+            pos = put(b, pos, nano, fractionDigits);
+        }
+        b[pos] = 'Z';
+        return newBytes(b);
+    }
+
+    private static int put(final byte[] b, final int off, int value, final int count)
+    {
+        for (int i = off + count - 1; i >= off; i--)
+        {
+            b[i] = (byte)('0' + value % 10);
+            value /= 10;
+        }
+        return off + count;
+    }
+}
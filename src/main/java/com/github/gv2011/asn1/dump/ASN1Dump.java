@@ -69,8 +69,8 @@ import com.github.gv2011.util.bytes.Bytes;
 
 public class ASN1Dump
 {
-    private static final String  TAB = "    ";
-    private static final int SAMPLE_SIZE = 32;
+    static final String  TAB = "    ";
+    static final int SAMPLE_SIZE = 32;
 
     /**
      * dump a DER object as a formatted string with indentation
@@ -81,7 +81,7 @@ public class ASN1Dump
         final String      indent,
         final boolean     verbose,
         final ASN1Primitive obj,
-        final StringBuffer    buf)
+        final StringBuilder    buf)
     {
         final String nl = Strings.lineSeparator();
         if (obj instanceof ASN1Sequence)
@@ -252,7 +252,7 @@ public class ASN1Dump
         }
         else if (obj instanceof DERUTF8String)
         {
-            buf.append(indent + "UTF8String(" + ((DERUTF8String)obj).getString() + ") " + nl);
+            buf.append(indent + "UTF8String(" + obj + ") " + nl);
         }
         else if (obj instanceof DERPrintableString)
         {
@@ -328,7 +328,7 @@ public class ASN1Dump
     private static String outputApplicationSpecific(final String type, final String indent, final boolean verbose, final ASN1Primitive obj, final String nl)
     {
         final ASN1ApplicationSpecific app = ASN1ApplicationSpecific.getInstance(obj);
-        final StringBuffer buf = new StringBuffer();
+        final StringBuilder buf = new StringBuilder();
 
         if (app.isConstructed())
         {
@@ -368,7 +368,7 @@ public class ASN1Dump
         final Object   obj,
         final boolean  verbose)
     {
-        final StringBuffer buf = new StringBuffer();
+        final StringBuilder buf = new StringBuilder();
 
         if (obj instanceof ASN1Primitive)
         {
@@ -386,10 +386,10 @@ public class ASN1Dump
         return buf.toString();
     }
 
-    private static String dumpBinaryDataAsString(String indent, final Bytes bytes)
+    static String dumpBinaryDataAsString(String indent, final Bytes bytes)
     {
         final String nl = Strings.lineSeparator();
-        final StringBuffer buf = new StringBuffer();
+        final StringBuilder buf = new StringBuilder();
 
         indent += TAB;
 
@@ -423,7 +423,7 @@ public class ASN1Dump
 
     private static String calculateAscString(final Bytes bytes, final int off, final int len)
     {
-        final StringBuffer buf = new StringBuffer();
+        final StringBuilder buf = new StringBuilder();
 
         for (int i = off; i != off + len; i++)
         {
@@ -0,0 +1,456 @@
+package com.github.gv2011.asn1.dump;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import static com.github.gv2011.util.ex.Exceptions.wrap;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import com.github.gv2011.asn1.ASN1Primitive;
+import com.github.gv2011.asn1.ASN1PullParser;
+import com.github.gv2011.asn1.BERTags;
+import com.github.gv2011.asn1.util.Strings;
+import com.github.gv2011.asn1.util.encoders.Hex;
+import com.github.gv2011.asn1.util.io.ByteBufferBytes;
+import com.github.gv2011.util.bytes.Bytes;
+
+/**
+ * Streaming counterpart of {@link ASN1Dump}. The structure is read with an
+ * {@link ASN1PullParser} and written to an Appendable one object at a time, so the size of
+ * the input is not limited by memory.
+ * <p>
+ * Primitive objects of up to {@link #setMaxContentLength(int) maxContentLength} octets are
+ * shown as ASN1Dump shows them. Of larger ones only the first {@link ASN1Dump#SAMPLE_SIZE}
+ * octets are read, and shown in verbose mode. Objects nested deeper than
+ * {@link #setMaxDepth(int) maxDepth} are skipped. With offsets enabled every object starts
+ * its line with its offset in the input and the length of its contents.
+ * </p>
+ */
+public final class ASN1DumpWriter
+    implements BERTags
+{
+    private static final int OFFSET_WIDTH = 10;
+    private static final int LENGTH_WIDTH = 8;
+
+    private final Appendable out;
+    private final String nl = Strings.lineSeparator();
+    private final StringBuilder line = new StringBuilder();
+    private final StringBuilder leaf = new StringBuilder();
+    private final byte[] sample = new byte[ASN1Dump.SAMPLE_SIZE];
+    private String[] indents = {""};
+
+    private boolean verbose;
+    private boolean offsets;
+    private int maxDepth = Integer.MAX_VALUE;
+    private int maxContentLength = 4096;
+
+    /**
+     * @param out where the dump is written to, a Writer should be buffered.
+     */
+    public ASN1DumpWriter(final Appendable out)
+    {
+        this.out = out;
+    }
+
+    /**
+     * @param verbose if true, dump out the contents of octet and bit strings.
+     * @return this writer.
+     */
+    public ASN1DumpWriter setVerbose(final boolean verbose)
+    {
+        this.verbose = verbose;
+        return this;
+    }
+
+    /**
+     * @param offsets if true, start the line of every object with its offset and contents length.
+     * @return this writer.
+     */
+    public ASN1DumpWriter setOffsets(final boolean offsets)
+    {
+        this.offsets = offsets;
+        return this;
+    }
+
+    /**
+     * @param maxDepth the deepest nesting level shown, 0 for the top level objects only.
+     * @return this writer.
+     */
+    public ASN1DumpWriter setMaxDepth(final int maxDepth)
+    {
+        if (maxDepth < 0)
+        {
+            throw new IllegalArgumentException("negative depth");
+        }
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    /**
+     * @param maxContentLength the length up to which the contents of primitive objects are read.
+     * @return this writer.
+     */
+    public ASN1DumpWriter setMaxContentLength(final int maxContentLength)
+    {
+        this.maxContentLength = maxContentLength;
+        return this;
+    }
+
+    public void dump(final InputStream input)
+    {
+        dump(new ASN1PullParser(input));
+    }
+
+    public void dump(final Bytes input)
+    {
+        dump(new ASN1PullParser(input));
+    }
+
+    /**
+     * Dump the objects reported by parser, up to the end of its input. The output is flushed
+     * at the end if it is Flushable.
+     */
+    public void dump(final ASN1PullParser parser)
+    {
+        int event;
+        while ((event = parser.next()) != ASN1PullParser.END_DOCUMENT)
+        {
+            if (event == ASN1PullParser.START_CONSTRUCTED)
+            {
+                final int level = parser.getDepth() - 1;
+
+                prefix(parser);
+                line.append(indent(level));
+                constructed(parser);
+                if (level >= maxDepth)
+                {
+                    line.append(" ...");
+                    parser.skip();
+                }
+                line.append(nl);
+                write();
+            }
+            else if (event == ASN1PullParser.PRIMITIVE && parser.getDepth() <= maxDepth)
+            {
+                primitive(parser, parser.getDepth());
+                write();
+            }
+        }
+
+        if (out instanceof Flushable)
+        {
+            try
+            {
+                ((Flushable)out).flush();
+            }
+            catch (final IOException e)
+            {
+                throw wrap(e);
+            }
+        }
+    }
+
+    private void constructed(final ASN1PullParser parser)
+    {
+        final boolean ber = parser.getLength() < 0;
+        final int tagNo = parser.getTagNo();
+
+        switch (parser.getTag() & (APPLICATION | TAGGED))
+        {
+            case 0:
+                switch (tagNo)
+                {
+                    case SEQUENCE:
+                        line.append(ber ? "BER Sequence" : "DER Sequence");
+                        break;
+                    case SET:
+                        line.append(ber ? "BER Set" : "DER Set");
+                        break;
+                    case OCTET_STRING:
+                        line.append("BER Constructed Octet String");
+                        break;
+                    case EXTERNAL:
+                        line.append("External");
+                        break;
+                    default:
+                        line.append("Constructed [UNIVERSAL ").append(tagNo).append(']');
+                }
+                break;
+            case APPLICATION:
+                line.append(ber ? "BER" : "DER").append(" ApplicationSpecific[").append(tagNo).append(']');
+                break;
+            default:
+                line.append(ber ? "BER Tagged [" : "Tagged [").append(tagNo).append(']');
+        }
+    }
+
+    private void primitive(final ASN1PullParser parser, final int level)
+    {
+        final long length = parser.getLength();
+        final int tagNo = parser.getTagNo();
+
+        switch (parser.getTag() & (APPLICATION | TAGGED))
+        {
+            case 0:
+                if (length <= maxContentLength && tagNo < 0x1f)
+                {
+                    final Bytes content = parser.getContent();
+                    if (!universal(parser, content, level))
+                    {
+                        // malformed contents, shown as octets
+                        prefix(parser);
+                        line.append(indent(level)).append(typeName(tagNo)).append('[').append(length).append("] ");
+                        octets(content, length, level);
+                    }
+                    return;
+                }
+                prefix(parser);
+                line.append(indent(level)).append(typeName(tagNo)).append('[').append(length).append("] ");
+                octets(parser, level);
+                break;
+            case APPLICATION:
+                prefix(parser);
+                line.append(indent(level)).append("DER ApplicationSpecific[").append(tagNo).append("] (");
+                if (length <= maxContentLength)
+                {
+                    line.append(Hex.encode(parser.getContent()).utf8ToString()).append(')').append(nl);
+                }
+                else
+                {
+                    line.append(Hex.encode(readSample(parser)).utf8ToString()).append("...)").append(nl);
+                }
+                break;
+            default:
+                // as ASN1Dump shows the DERTaggedObject created by the parsers
+                prefix(parser);
+                line.append(indent(level)).append("Tagged [").append(tagNo).append("] IMPLICIT ").append(nl);
+                blankPrefix();
+                line.append(indent(level + 1)).append("DER Octet String[").append(length).append("] ");
+                octets(parser, level + 1);
+        }
+    }
+
+    /**
+     * Show a universal primitive object as ASN1Dump does.
+     *
+     * @return false if the object could not be created from its contents.
+     */
+    private boolean universal(final ASN1PullParser parser, final Bytes content, final int level)
+    {
+        final int length = content.size();
+
+        // the header of the definite length encoding
+        final int lengthOctets = length < 0x80 ? 0 : 4 - Integer.numberOfLeadingZeros(length) / 8;
+        final byte[] encoding = new byte[2 + lengthOctets + length];
+        encoding[0] = (byte)parser.getTagNo();
+        if (lengthOctets == 0)
+        {
+            encoding[1] = (byte)length;
+        }
+        else
+        {
+            encoding[1] = (byte)(0x80 | lengthOctets);
+            for (int i = 0; i != lengthOctets; i++)
+            {
+                encoding[2 + i] = (byte)(length >>> (8 * (lengthOctets - 1 - i)));
+            }
+        }
+        content.write(encoding, 2 + lengthOctets, length);
+
+        leaf.setLength(0);
+        try
+        {
+            ASN1Dump._dumpAsString(indent(level), verbose, ASN1Primitive.fromBytes(ByteBufferBytes.wrap(encoding)), leaf);
+        }
+        catch (final RuntimeException e)
+        {
+            return false;
+        }
+
+        // the first line is the object, further lines are verbose output
+        prefix(parser);
+        int start = 0;
+        int end;
+        while ((end = leaf.indexOf(nl, start)) >= 0)
+        {
+            if (start != 0)
+            {
+                blankPrefix();
+            }
+            end += nl.length();
+            line.append(leaf, start, end);
+            start = end;
+        }
+        if (start != leaf.length())
+        {
+            line.append(leaf, start, leaf.length()).append(nl);
+        }
+
+        return true;
+    }
+
+    /**
+     * Finish the line of a primitive object whose type name and length are written already,
+     * with the contents if verbose.
+     */
+    private void octets(final ASN1PullParser parser, final int level)
+    {
+        if (!verbose)
+        {
+            line.append(nl);
+            return;
+        }
+
+        final long length = parser.getLength();
+        octets(length <= maxContentLength ? parser.getContent() : readSample(parser), length, level);
+    }
+
+    /**
+     * As above, for contents read already, which may be truncated.
+     */
+    private void octets(final Bytes contents, final long length, final int level)
+    {
+        if (!verbose)
+        {
+            line.append(nl);
+            return;
+        }
+
+        appendBlankPrefixed(ASN1Dump.dumpBinaryDataAsString(indent(level), contents));
+        if (contents.size() < length)
+        {
+            blankPrefix();
+            line.append(indent(level + 1)).append("... ").append(length - contents.size()).append(" more bytes").append(nl);
+        }
+    }
+
+    private Bytes readSample(final ASN1PullParser parser)
+    {
+        int count = 0;
+        int n;
+        while (count != sample.length && (n = parser.readContent(sample, count, sample.length - count)) > 0)
+        {
+            count += n;
+        }
+        return ByteBufferBytes.wrap(Arrays.copyOf(sample, count));
+    }
+
+    /**
+     * Append text starting with a line separator, prefixing the lines after it.
+     */
+    private void appendBlankPrefixed(final String text)
+    {
+        int start = 0;
+        int end;
+        while ((end = text.indexOf(nl, start)) >= 0)
+        {
+            end += nl.length();
+            if (start != 0)
+            {
+                blankPrefix();
+            }
+            line.append(text, start, end);
+            start = end;
+        }
+    }
+
+    private static String typeName(final int tagNo)
+    {
+        switch (tagNo)
+        {
+            case OCTET_STRING:
+                return "DER Octet String";
+            case BIT_STRING:
+                return "DER Bit String";
+            case INTEGER:
+                return "Integer";
+            default:
+                return "[UNIVERSAL " + tagNo + "]";
+        }
+    }
+
+    private void prefix(final ASN1PullParser parser)
+    {
+        if (offsets)
+        {
+            pad(Long.toString(parser.getOffset()), OFFSET_WIDTH);
+            line.append(' ');
+            pad(parser.getLength() < 0 ? "inf" : Long.toString(parser.getLength()), LENGTH_WIDTH);
+            line.append(": ");
+        }
+    }
+
+    private void blankPrefix()
+    {
+        if (offsets)
+        {
+            pad("", OFFSET_WIDTH + 1 + LENGTH_WIDTH + 2);
+        }
+    }
+
+    private void pad(final String s, final int width)
+    {
+        for (int i = s.length(); i < width; i++)
+        {
+            line.append(' ');
+        }
+        line.append(s);
+    }
+
+    private String indent(final int level)
+    {
+        if (level >= indents.length)
+        {
+            final int previous = indents.length;
+            indents = Arrays.copyOf(indents, Math.max(level + 1, previous * 2));
+            for (int i = previous; i != indents.length; i++)
+            {
+                indents[i] = indents[i - 1] + ASN1Dump.TAB;
+            }
+        }
+        return indents[level];
+    }
+
+    private void write()
+    {
+        try
+        {
+            out.append(line);
+        }
+        catch (final IOException e)
+        {
+            throw wrap(e);
+        }
+        line.setLength(0);
+    }
+}
@@ -29,23 +29,26 @@ package com.github.gv2011.asn1.dump;
  */
 
 
+import java.io.BufferedWriter;
 import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 
-import com.github.gv2011.asn1.ASN1InputStream;
-
+/**
+ * Dump the file named by the first argument, with offsets and lengths, without loading
+ * it into memory.
+ */
 public class Dump
 {
     public static void main(
         final String args[])
         throws Exception
     {
-        try(final ASN1InputStream bIn = new ASN1InputStream(new FileInputStream(args[0]))){
-          Object          obj = null;
+        try(final InputStream in = new FileInputStream(args[0])){
+          final Writer out = new BufferedWriter(new OutputStreamWriter(System.out));
 
-          while ((obj = bIn.readObject()) != null)
-          {
-              System.out.println(ASN1Dump.dumpAsString(obj));
-          }
+          new ASN1DumpWriter(out).setOffsets(true).dump(in);
         }
     }
 }
@@ -31,6 +31,7 @@ package com.github.gv2011.asn1.util;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -85,9 +86,12 @@ public class CollectionStore<T>
         }
     }
 
+    /**
+     * Iterate over the store, which is never modified, without copying it.
+     */
     @Override
     public Iterator<T> iterator()
     {
-        return getMatches(null).iterator();
+        return Collections.unmodifiableCollection(_local).iterator();
     }
 }
@@ -1,4 +1,4 @@
-package com.github.gv2011.asn1;
+package com.github.gv2011.asn1.util;
 
 /*-
  * #%L
@@ -7,18 +7,18 @@ package com.github.gv2011.asn1;
  * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
  * %%
  * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
- * 
+ *
  * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
- * 
- * Permission is hereby granted, free of charge, to any person obtaining a copy of this software 
- * and associated documentation files (the "Software"), to deal in the Software without restriction, 
- * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
  * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
  * subject to the following conditions:
- * 
+ *
  * The above copyright notice and this permission notice shall be included in all copies or substantial
  * portions of the Software.
- * 
+ *
  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
  * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
  * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
@@ -29,41 +29,24 @@ package com.github.gv2011.asn1;
  */
 
 
-
-import java.util.Enumeration;
-
-import com.github.gv2011.util.bytes.Bytes;
-
-class LazyConstructionEnumeration
-    implements Enumeration<ASN1Encodable>
+/**
+ * A selector that names an index key, so an {@link IndexedStore} can find its candidates with
+ * a hash lookup instead of testing every object. The candidates are still passed to
+ * {@link #match(Object)}, so the key may be less specific than the selector.
+ *
+ * @param <T> the type stored in the store.
+ */
+public interface IndexedSelector<T>
+    extends Selector<T>
 {
-    private final ASN1InputStream aIn;
-    private ASN1Primitive          nextObj;
-
-    public LazyConstructionEnumeration(final Bytes encoded)
-    {
-        aIn = new ASN1InputStream(encoded, true);
-        nextObj = readObject();
-    }
-
-    @Override
-    public boolean hasMoreElements()
-    {
-        return nextObj != null;
-    }
-
-    @Override
-    public ASN1Primitive nextElement()
-    {
-        final ASN1Primitive o = nextObj;
-
-        nextObj = readObject();
-
-        return o;
-    }
-
-    private ASN1Primitive readObject()
-    {
-            return aIn.readObject();
-    }
+    /**
+     * @return the name of the index to look the key up in.
+     */
+    String getIndexName();
+
+    /**
+     * @return the key all matching objects have in the index, null if there is none and every
+     * object has to be tested.
+     */
+    Object getIndexKey();
 }
@@ -0,0 +1,289 @@
+package com.github.gv2011.asn1.util;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A store with hash indexes on keys extracted from its objects, for example the encoded issuer
+ * or subject key identifier of certificates.
+ * <p>
+ * The contents are held in an immutable snapshot. Readers work on the snapshot current when
+ * they start, without locking or copying; {@link #iterator()} and a null selector return a
+ * view of it. Writers build a new snapshot including its indexes and swap it in, so readers
+ * never see a partly updated store.
+ * </p>
+ * <p>
+ * Selectors implementing {@link IndexedSelector} with a key for one of the indexes are only
+ * matched against the objects with that key, all other selectors against every object.
+ * </p>
+ *
+ * @param <T> the object type stored.
+ */
+public class IndexedStore<T>
+    implements Store<T>, Iterable<T>
+{
+    private final Map<String, Function<? super T, ?>> keyExtractors;
+
+    private volatile Snapshot<T> snapshot;
+
+    /**
+     * The contents, with one map from key to objects per index.
+     */
+    private static final class Snapshot<T>
+    {
+        private final List<T> contents;
+        private final Map<String, Map<Object, List<T>>> indexes;
+
+        Snapshot(final List<T> contents, final Map<String, Function<? super T, ?>> keyExtractors)
+        {
+            this.contents = Collections.unmodifiableList(contents);
+            this.indexes = new HashMap<>(keyExtractors.size() * 2);
+
+            for (final Map.Entry<String, Function<? super T, ?>> e : keyExtractors.entrySet())
+            {
+                indexes.put(e.getKey(), index(contents, e.getValue()));
+            }
+        }
+
+        private static <T> Map<Object, List<T>> index(final List<T> contents, final Function<? super T, ?> keyExtractor)
+        {
+            final Map<Object, List<T>> index = new HashMap<>(contents.size() * 4 / 3 + 1);
+
+            for (final T obj : contents)
+            {
+                final Object key = keyExtractor.apply(obj);
+                if (key == null)
+                {
+                    continue;
+                }
+
+                // most keys are unique, those only take a singleton list
+                final List<T> objs = index.get(key);
+                if (objs == null)
+                {
+                    index.put(key, Collections.singletonList(obj));
+                }
+                else if (objs.size() == 1)
+                {
+                    final List<T> list = new ArrayList<>(2);
+                    list.add(objs.get(0));
+                    list.add(obj);
+                    index.put(key, list);
+                }
+                else
+                {
+                    objs.add(obj);
+                }
+            }
+
+            return index;
+        }
+    }
+
+    /**
+     * Create an empty store.
+     *
+     * @param keyExtractors the functions returning the key of an object by index name. A null
+     * key leaves the object out of that index.
+     */
+    public IndexedStore(
+        final Map<String, ? extends Function<? super T, ?>> keyExtractors)
+    {
+        this(Collections.<T>emptyList(), keyExtractors);
+    }
+
+    /**
+     * Create a store with initial contents.
+     *
+     * @param collection initial contents for the store, this is copied.
+     * @param keyExtractors the functions returning the key of an object by index name. A null
+     * key leaves the object out of that index.
+     */
+    public IndexedStore(
+        final Collection<? extends T> collection,
+        final Map<String, ? extends Function<? super T, ?>> keyExtractors)
+    {
+        this.keyExtractors = Collections.unmodifiableMap(new LinkedHashMap<>(keyExtractors));
+        this.snapshot = new Snapshot<>(new ArrayList<>(collection), this.keyExtractors);
+    }
+
+    /**
+     * Replace the contents of the store. Readers see either the old or the new contents.
+     *
+     * @param collection the new contents, this is copied.
+     */
+    public synchronized void replace(final Collection<? extends T> collection)
+    {
+        snapshot = new Snapshot<>(new ArrayList<>(collection), keyExtractors);
+    }
+
+    /**
+     * Add objects to the store. Readers see either none or all of them.
+     *
+     * @param collection the objects to add.
+     */
+    public synchronized void addAll(final Collection<? extends T> collection)
+    {
+        final List<T> contents = new ArrayList<>(snapshot.contents.size() + collection.size());
+        contents.addAll(snapshot.contents);
+        contents.addAll(collection);
+
+        snapshot = new Snapshot<>(contents, keyExtractors);
+    }
+
+    public int size()
+    {
+        return snapshot.contents.size();
+    }
+
+    /**
+     * Return a selector matching the objects with the given key in an index of this store.
+     *
+     * @param indexName the name of the index.
+     * @param key the key to look up.
+     * @return a selector for use with this store.
+     * @throws IllegalArgumentException if there is no index of that name.
+     */
+    public IndexedSelector<T> select(final String indexName, final Object key)
+    {
+        final Function<? super T, ?> keyExtractor = keyExtractors.get(indexName);
+        if (keyExtractor == null)
+        {
+            throw new IllegalArgumentException("unknown index: " + indexName);
+        }
+
+        return new KeySelector<>(indexName, key, keyExtractor);
+    }
+
+    /**
+     * Return the matches in the store for the passed in selector.
+     *
+     * @param selector the selector to match against, null for all objects.
+     * @return a possibly empty collection of matching objects, an unmodifiable view of the
+     * store contents if selector is null.
+     */
+    @Override
+    public Collection<T> getMatches(final Selector<T> selector)
+    {
+        final Snapshot<T> current = snapshot;
+
+        if (selector == null)
+        {
+            return current.contents;
+        }
+
+        List<T> candidates = current.contents;
+        if (selector instanceof IndexedSelector)
+        {
+            final IndexedSelector<T> indexed = (IndexedSelector<T>)selector;
+            final Map<Object, List<T>> index = current.indexes.get(indexed.getIndexName());
+            final Object key = indexed.getIndexKey();
+
+            if (index != null && key != null)
+            {
+                candidates = index.getOrDefault(key, Collections.<T>emptyList());
+            }
+        }
+
+        final List<T> col = new ArrayList<>(Math.min(candidates.size(), 16));
+        for (int i = 0, size = candidates.size(); i != size; i++)
+        {
+            final T obj = candidates.get(i);
+
+            if (selector.match(obj))
+            {
+                col.add(obj);
+            }
+        }
+
+        return col;
+    }
+
+    /**
+     * Iterate over the contents of the store when the iteration starts, without copying them.
+     */
+    @Override
+    public Iterator<T> iterator()
+    {
+        return snapshot.contents.iterator();
+    }
+
+    /**
+     * Selects the objects with a given key.
+     */
+    private static final class KeySelector<T>
+        implements IndexedSelector<T>
+    {
+        private final String indexName;
+        private final Object key;
+        private final Function<? super T, ?> keyExtractor;
+
+        KeySelector(final String indexName, final Object key, final Function<? super T, ?> keyExtractor)
+        {
+            this.indexName = indexName;
+            this.key = key;
+            this.keyExtractor = keyExtractor;
+        }
+
+        @Override
+        public String getIndexName()
+        {
+            return indexName;
+        }
+
+        @Override
+        public Object getIndexKey()
+        {
+            return key;
+        }
+
+        @Override
+        public boolean match(final T obj)
+        {
+            return key != null && key.equals(keyExtractor.apply(obj));
+        }
+
+        @Override
+        public Object clone()
+        {
+            // immutable
+            return this;
+        }
+    }
+}
@@ -30,17 +30,17 @@ package com.github.gv2011.asn1.util;
 
 
 import static com.github.gv2011.util.bytes.ByteUtils.newBytes;
-import static com.github.gv2011.util.bytes.ByteUtils.newBytesBuilder;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.Vector;
 
+import com.github.gv2011.asn1.util.io.ByteBufferBytes;
 import com.github.gv2011.util.bytes.Bytes;
-import com.github.gv2011.util.bytes.BytesBuilder;
 
 /**
  * String utilities.
@@ -70,105 +70,269 @@ public final class Strings
        }
     }
 
+    /**
+     * Decode UTF-8 in a single pass over the bytes. Pure ASCII is copied straight into a
+     * compact string.
+     *
+     * @throws IllegalArgumentException if bytes is not well-formed UTF-8: a truncated or
+     * overlong sequence, an encoded surrogate or a code point above U+10FFFF.
+     */
     public static String fromUTF8ByteArray(final Bytes bytes)
     {
-        int i = 0;
-        int length = 0;
+        final int size = bytes.size();
+        if (size == 0)
+        {
+            return "";
+        }
 
-        while (i < bytes.size())
+        final ArraySource source = new ArraySource(size);
+        bytes.write(source);
+
+        return fromUTF8ByteArray(source.array, source.offset, size);
+    }
+
+    /**
+     * Decode the UTF-8 in buf from off to off + len.
+     *
+     * @throws IllegalArgumentException if the range is not well-formed UTF-8.
+     */
+    public static String fromUTF8ByteArray(final byte[] buf, final int off, final int len)
+    {
+        final int end = off + len;
+
+        int i = off;
+        while (i < end && buf[i] >= 0)
         {
-            length++;
-            if ((bytes.getByte(i) & 0xf0) == 0xf0)
+            i++;
+        }
+        if (i == end)
+        {
+            return new String(buf, off, len, StandardCharsets.ISO_8859_1);
+        }
+
+        // never more chars than bytes
+        final char[] cs = new char[len];
+        int count = 0;
+        for (int j = off; j != i; j++)
+        {
+            cs[count++] = (char)buf[j];
+        }
+
+        while (i < end)
+        {
+            final int b = buf[i];
+
+            if (b >= 0)
             {
-                // surrogate pair
-                length++;
-                i += 4;
+                cs[count++] = (char)b;
+                i++;
             }
-            else if ((bytes.getByte(i) & 0xe0) == 0xe0)
+            else if ((b & 0xe0) == 0xc0)
             {
+                final int ch = ((b & 0x1f) << 6) | continuation(buf, i, 1, end);
+                if (ch < 0x80)
+                {
+                    throw malformed(i - off);
+                }
+                cs[count++] = (char)ch;
+                i += 2;
+            }
+            else if ((b & 0xf0) == 0xe0)
+            {
+                final int ch = ((b & 0x0f) << 12) | (continuation(buf, i, 1, end) << 6) | continuation(buf, i, 2, end);
+                if (ch < 0x800 || (ch >= 0xd800 && ch <= 0xdfff))
+                {
+                    throw malformed(i - off);
+                }
+                cs[count++] = (char)ch;
                 i += 3;
             }
-            else if ((bytes.getByte(i) & 0xc0) == 0xc0)
+            else if ((b & 0xf8) == 0xf0)
             {
-                i += 2;
+                final int codePoint = ((b & 0x07) << 18) | (continuation(buf, i, 1, end) << 12)
+                    | (continuation(buf, i, 2, end) << 6) | continuation(buf, i, 3, end);
+                if (codePoint < 0x10000 || codePoint > 0x10ffff)
+                {
+                    throw malformed(i - off);
+                }
+                cs[count++] = Character.highSurrogate(codePoint);
+                cs[count++] = Character.lowSurrogate(codePoint);
+                i += 4;
             }
             else
             {
-                i += 1;
+                throw malformed(i - off);
             }
         }
 
-        final char[] cs = new char[length];
+        return new String(cs, 0, count);
+    }
+
+    /**
+     * @return the six bits of the continuation byte at start + index.
+     */
+    private static int continuation(final byte[] buf, final int start, final int index, final int end)
+    {
+        final int i = start + index;
+        if (i >= end || (buf[i] & 0xc0) != 0x80)
+        {
+            throw new IllegalArgumentException("invalid UTF-8 sequence at offset " + start);
+        }
+        return buf[i] & 0x3f;
+    }
+
+    private static IllegalArgumentException malformed(final int offset)
+    {
+        return new IllegalArgumentException("invalid UTF-8 sequence at offset " + offset);
+    }
 
-        i = 0;
-        length = 0;
+    /**
+     * Receives the bytes written by {@link Bytes#write(OutputStream)}. Array backed Bytes hand
+     * over their array in a single call, which is used in place; otherwise the bytes are
+     * copied.
+     */
+    private static final class ArraySource
+        extends OutputStream
+    {
+        private final int size;
+        private byte[] array;
+        private int offset;
+        private int count;
 
-        while (i < bytes.size())
+        ArraySource(final int size)
         {
-            char ch;
+            this.size = size;
+        }
 
-            if ((bytes.getByte(i) & 0xf0) == 0xf0)
+        @Override
+        public void write(final int b)
+        {
+            if (count == 0)
             {
-                final int codePoint =
-                  ((bytes.getByte(i) & 0x03) << 18) |
-                  ((bytes.getByte(i + 1) & 0x3F) << 12) |
-                  ((bytes.getByte(i + 2) & 0x3F) << 6) |
-                  (bytes.getByte(i + 3) & 0x3F)
-                ;
-                final int U = codePoint - 0x10000;
-                final char W1 = (char)(0xD800 | (U >> 10));
-                final char W2 = (char)(0xDC00 | (U & 0x3FF));
-                cs[length++] = W1;
-                ch = W2;
-                i += 4;
+                array = new byte[size];
+            }
+            array[count++] = (byte)b;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len)
+        {
+            if (count == 0 && len == size)
+            {
+                array = b;
+                offset = off;
             }
-            else if ((bytes.getByte(i) & 0xe0) == 0xe0)
+            else
             {
-                ch = (char)(((bytes.getByte(i) & 0x0f) << 12)
-                    | ((bytes.getByte(i + 1) & 0x3f) << 6) | (bytes.getByte(i + 2) & 0x3f));
-                i += 3;
+                if (count == 0)
+                {
+                    array = new byte[size];
+                }
+                System.arraycopy(b, off, array, count, len);
             }
-            else if ((bytes.getByte(i) & 0xd0) == 0xd0)
+            count += len;
+        }
+    }
+
+    /**
+     * Encode a string as UTF-8. An ASCII string takes a single pass; otherwise the rest of
+     * the string after the ASCII prefix is measured first, so the result is exactly sized.
+     *
+     * @throws IllegalStateException if the string contains an unpaired surrogate.
+     */
+    public static Bytes toUTF8ByteArray(final String string)
+    {
+        final int length = string.length();
+        byte[] buf = new byte[length];
+
+        int i = 0;
+        char ch;
+        while (i < length && (ch = string.charAt(i)) < 0x80)
+        {
+            buf[i++] = (byte)ch;
+        }
+        if (i == length)
+        {
+            return ByteBufferBytes.wrap(buf);
+        }
+
+        buf = java.util.Arrays.copyOf(buf, i + utf8Length(string, i));
+        int pos = i;
+
+        while (i < length)
+        {
+            ch = string.charAt(i++);
+
+            if (ch < 0x80)
             {
-                ch = (char)(((bytes.getByte(i) & 0x1f) << 6) | (bytes.getByte(i + 1) & 0x3f));
-                i += 2;
+                buf[pos++] = (byte)ch;
             }
-            else if ((bytes.getByte(i) & 0xc0) == 0xc0)
+            else if (ch < 0x800)
             {
-                ch = (char)(((bytes.getByte(i) & 0x1f) << 6) | (bytes.getByte(i + 1) & 0x3f));
-                i += 2;
+                buf[pos++] = (byte)(0xc0 | (ch >> 6));
+                buf[pos++] = (byte)(0x80 | (ch & 0x3f));
+            }
+            else if (Character.isSurrogate(ch))
+            {
+                // checked by utf8Length()
+                final int codePoint = Character.toCodePoint(ch, string.charAt(i++));
+                buf[pos++] = (byte)(0xf0 | (codePoint >> 18));
+                buf[pos++] = (byte)(0x80 | ((codePoint >> 12) & 0x3f));
+                buf[pos++] = (byte)(0x80 | ((codePoint >> 6) & 0x3f));
+                buf[pos++] = (byte)(0x80 | (codePoint & 0x3f));
             }
             else
             {
-                ch = (char)(bytes.getByte(i) & 0xff);
-                i += 1;
+                buf[pos++] = (byte)(0xe0 | (ch >> 12));
+                buf[pos++] = (byte)(0x80 | ((ch >> 6) & 0x3f));
+                buf[pos++] = (byte)(0x80 | (ch & 0x3f));
             }
-
-            cs[length++] = ch;
         }
 
-        return new String(cs);
+        return ByteBufferBytes.wrap(buf);
     }
 
-    public static Bytes toUTF8ByteArray(final String string)
-    {
-        return toUTF8ByteArray(string.toCharArray());
-    }
-
-    public static Bytes toUTF8ByteArray(final char[] string)
+    /**
+     * @return the length of the UTF-8 encoding of string from start on.
+     */
+    private static int utf8Length(final String string, final int start)
     {
-        final BytesBuilder bOut = newBytesBuilder();
+        final int length = string.length();
+        int result = 0;
 
-        try
-        {
-            toUTF8ByteArray(string, bOut);
-        }
-        catch (final IOException e)
+        for (int i = start; i < length; i++)
         {
-            throw new IllegalStateException("cannot encode string to byte array!");
+            final char ch = string.charAt(i);
+
+            if (ch < 0x80)
+            {
+                result++;
+            }
+            else if (ch < 0x800)
+            {
+                result += 2;
+            }
+            else if (Character.isSurrogate(ch))
+            {
+                if (!Character.isHighSurrogate(ch) || i + 1 >= length || !Character.isLowSurrogate(string.charAt(i + 1)))
+                {
+                    throw new IllegalStateException("invalid UTF-16 codepoint");
+                }
+                result += 4;
+                i++;
+            }
+            else
+            {
+                result += 3;
+            }
         }
 
-        return bOut.build();
+        return result;
+    }
+
+    public static Bytes toUTF8ByteArray(final char[] string)
+    {
+        return toUTF8ByteArray(new String(string));
     }
 
     public static void toUTF8ByteArray(final char[] string, final OutputStream sOut)
@@ -29,20 +29,24 @@ package com.github.gv2011.asn1.util.encoders;
  */
 
 
-import static com.github.gv2011.util.bytes.ByteUtils.newBytesBuilder;
+import static com.github.gv2011.util.bytes.ByteUtils.newBytes;
 
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 import com.github.gv2011.asn1.util.Strings;
 import com.github.gv2011.util.bytes.Bytes;
-import com.github.gv2011.util.bytes.BytesBuilder;
 
 /**
  * Utility class for converting Base64 data to bytes and back again.
+ * <p>
+ * Whole array conversions are left to java.util.Base64 where it behaves the same, that is for
+ * encoding and for decoding padded data without whitespace.
  */
 public class Base64
 {
-    private static final Encoder encoder = new Base64Encoder();
+    private static final Base64Encoder encoder = new Base64Encoder();
 
     public static String toBase64String(
         final Bytes data)
@@ -80,19 +84,35 @@ public class Base64
         final int    off,
         final int    length)
     {
-        final int len = (length + 2) / 3 * 4;
-        final BytesBuilder bOut = newBytesBuilder(len);
+        return newBytes(java.util.Base64.getEncoder().encode(data.subList(off, off + length).toByteArray()));
+    }
 
-        try
-        {
-            encoder.encode(data, off, length, bOut);
-        }
-        catch (final Exception e)
-        {
-            throw new EncoderException("exception encoding base64 string: " + e.getMessage(), e);
-        }
+    /**
+     * encode the input data, including the final padding, into out.
+     *
+     * @return the number of bytes produced.
+     */
+    public static int encode(
+        final byte[] in,
+        final int    inOff,
+        final int    length,
+        final byte[] out,
+        final int    outOff)
+    {
+        return encoder.encode(in, inOff, length, out, outOff);
+    }
 
-        return bOut.build();
+    /**
+     * encode the remaining bytes of in, including the final padding, into out.
+     *
+     * @return the number of bytes produced.
+     * @throws java.nio.BufferOverflowException if out has not room for the encoding.
+     */
+    public static int encode(
+        final ByteBuffer in,
+        final ByteBuffer out)
+    {
+        return encoder.encode(in, out);
     }
 
     /**
@@ -129,19 +149,81 @@ public class Base64
     public static Bytes decode(
         final Bytes    data)
     {
-        final int len = data.size() / 4 * 3;
-        final BytesBuilder bOut = newBytesBuilder(len);
+        return decode(data.toByteArray());
+    }
 
+    /**
+     * decode the base 64 encoded input data, whitespace will be ignored.
+     *
+     * @return a byte array representing the decoded data.
+     */
+    public static Bytes decode(
+        final byte[] data)
+    {
         try
         {
-            encoder.decode(data, 0, data.size(), bOut);
+            return decodeArray(data);
         }
         catch (final Exception e)
         {
             throw new DecoderException("unable to decode base64 data: " + e.getMessage(), e);
         }
+    }
+
+    private static Bytes decodeArray(
+        final byte[] in)
+    {
+        if (in.length % 4 == 0 && !hasWhitespace(in))
+        {
+            return newBytes(java.util.Base64.getDecoder().decode(in));
+        }
+
+        final byte[] out = new byte[Base64Encoder.getMaxDecodedLength(in.length)];
+        final int len = encoder.decode(in, 0, in.length, out, 0);
+
+        return newBytes(out, 0, len);
+    }
+
+    private static boolean hasWhitespace(
+        final byte[] in)
+    {
+        for (int i = 0; i != in.length; i++)
+        {
+            if (in[i] <= ' ' && in[i] >= 0)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        return bOut.build();
+    /**
+     * decode the base 64 encoded data in, writing it to out, whitespace characters will be ignored.
+     * out must have room for three bytes per four characters.
+     *
+     * @return the number of bytes produced.
+     */
+    public static int decode(
+        final byte[] in,
+        final int    inOff,
+        final int    length,
+        final byte[] out,
+        final int    outOff)
+    {
+        return encoder.decode(in, inOff, length, out, outOff);
+    }
+
+    /**
+     * decode the remaining base 64 encoded data of in into out, whitespace characters will be ignored.
+     *
+     * @return the number of bytes produced.
+     * @throws java.nio.BufferOverflowException if out has not room for three bytes per four characters.
+     */
+    public static int decode(
+        final ByteBuffer in,
+        final ByteBuffer out)
+    {
+        return encoder.decode(in, out);
     }
 
     /**
@@ -152,19 +234,15 @@ public class Base64
     public static Bytes decode(
         final String    data)
     {
-        final int len = data.length() / 4 * 3;
-        final BytesBuilder bOut = newBytesBuilder(len);
-
         try
         {
-            encoder.decode(data, bOut);
+            // characters beyond Latin-1 become '?', which is invalid as well
+            return decodeArray(data.getBytes(StandardCharsets.ISO_8859_1));
         }
         catch (final Exception e)
         {
             throw new DecoderException("unable to decode base64 string: " + e.getMessage(), e);
         }
-
-        return bOut.build();
     }
 
     /**
@@ -179,4 +257,24 @@ public class Base64
     {
         return encoder.decode(data, out);
     }
+
+    /**
+     * Return a stream that base 64 encodes everything written to it onto out. Closing the
+     * stream writes the final padding and closes out.
+     */
+    public static OutputStream encodingStream(
+        final OutputStream out)
+    {
+        return encoder.encodingStream(out);
+    }
+
+    /**
+     * Return a stream that decodes the base 64 data written to it onto out, whitespace
+     * characters will be ignored.
+     */
+    public static OutputStream decodingStream(
+        final OutputStream out)
+    {
+        return encoder.decodingStream(out);
+    }
 }
@@ -28,18 +28,31 @@ package com.github.gv2011.asn1.util.encoders;
  * #L%
  */
 
-import static com.github.gv2011.util.ex.Exceptions.call;
+import static com.github.gv2011.util.ex.Exceptions.wrap;
 
+import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 
 import com.github.gv2011.util.bytes.Bytes;
 
 /**
  * A streaming Base64 encoder.
+ * <p>
+ * The work is done in bulk on byte array ranges: encoding looks up two output characters per
+ * table access, decoding combines four characters per step and only falls back to single
+ * characters around whitespace and padding. The stream based methods of {@link Encoder}
+ * go through the same code in chunks.
  */
 public class Base64Encoder
     implements Encoder
 {
+    private static final int CHUNK_SIZE = 3 * 1024;
+
+    private static final int WHITESPACE = -2;
+    private static final int PADDING = -3;
+
     protected final byte[] encodingTable =
     {
         (byte)'A', (byte)'B', (byte)'C', (byte)'D', (byte)'E', (byte)'F', (byte)'G',
@@ -63,6 +76,12 @@ public class Base64Encoder
      */
     protected final byte[] decodingTable = new byte[128];
 
+    /*
+     * the two characters for each 12 bit group, and the value or class of each input byte.
+     */
+    private final byte[] pairTable = new byte[2 * 4096];
+    private final int[] sextetTable = new int[256];
+
     protected void initialiseDecodingTable()
     {
         for (int i = 0; i < decodingTable.length; i++)
@@ -74,6 +93,22 @@ public class Base64Encoder
         {
             decodingTable[encodingTable[i]] = (byte)i;
         }
+
+        for (int i = 0; i < 4096; i++)
+        {
+            pairTable[2 * i] = encodingTable[i >>> 6];
+            pairTable[2 * i + 1] = encodingTable[i & 0x3f];
+        }
+
+        for (int i = 0; i < sextetTable.length; i++)
+        {
+            sextetTable[i] = i < decodingTable.length ? decodingTable[i] : -1;
+        }
+        sextetTable['\n'] = WHITESPACE;
+        sextetTable['\r'] = WHITESPACE;
+        sextetTable['\t'] = WHITESPACE;
+        sextetTable[' '] = WHITESPACE;
+        sextetTable[padding & 0xff] = PADDING;
     }
 
     public Base64Encoder()
@@ -82,169 +117,242 @@ public class Base64Encoder
     }
 
     /**
-     * encode the input data producing a base 64 output stream.
+     * Return the number of characters the encoding of length bytes takes.
+     */
+    public static int getEncodedLength(
+        final int length)
+    {
+        return (length + 2) / 3 * 4;
+    }
+
+    /**
+     * Return the maximum number of bytes the decoding of length characters can produce.
+     */
+    public static int getMaxDecodedLength(
+        final int length)
+    {
+        return length / 4 * 3;
+    }
+
+    /**
+     * encode the input data, including the final padding, into out.
      *
      * @return the number of bytes produced.
      */
-    @Override
     public int encode(
-        final Bytes                data,
-        final int                    off,
-        final int                    length,
-        final OutputStream    out)
+        final byte[] in,
+        final int    inOff,
+        final int    length,
+        final byte[] out,
+        final int    outOff)
     {
-        final int modulus = length % 3;
-        final int dataLength = (length - modulus);
+        final int end = inOff + length - length % 3;
+        int o = outOff;
 
-        for (int i = off; i < off + dataLength; i += 3)
+        for (int i = inOff; i < end; i += 3)
         {
-          final int a1, a2, a3;
-          a1 = data.getByte(i) & 0xff;
-          a2 = data.getByte(i + 1) & 0xff;
-          a3 = data.getByte(i + 2) & 0xff;
-
-          call(()->{
-            out.write(encodingTable[(a1 >>> 2) & 0x3f]);
-            out.write(encodingTable[((a1 << 4) | (a2 >>> 4)) & 0x3f]);
-            out.write(encodingTable[((a2 << 2) | (a3 >>> 6)) & 0x3f]);
-            out.write(encodingTable[a3 & 0x3f]);
-          });
+            final int v = ((in[i] & 0xff) << 16) | ((in[i + 1] & 0xff) << 8) | (in[i + 2] & 0xff);
+            final int hi = (v >>> 11) & 0x1ffe;
+            final int lo = (v << 1) & 0x1ffe;
+
+            out[o] = pairTable[hi];
+            out[o + 1] = pairTable[hi + 1];
+            out[o + 2] = pairTable[lo];
+            out[o + 3] = pairTable[lo + 1];
+            o += 4;
         }
 
         /*
          * process the tail end.
          */
-        final int    b1, b2, b3;
-        final int    d1, d2;
-
-        switch (modulus)
+        switch (length % 3)
         {
         case 0:        /* nothing left to do */
             break;
         case 1:
-            d1 = data.getByte(off + dataLength) & 0xff;
-            b1 = (d1 >>> 2) & 0x3f;
-            b2 = (d1 << 4) & 0x3f;
-
-            call(()->{
-              out.write(encodingTable[b1]);
-              out.write(encodingTable[b2]);
-              out.write(padding);
-              out.write(padding);
-            });
+        {
+            final int d1 = in[end] & 0xff;
 
+            out[o++] = encodingTable[d1 >>> 2];
+            out[o++] = encodingTable[(d1 << 4) & 0x3f];
+            out[o++] = padding;
+            out[o++] = padding;
             break;
+        }
         case 2:
-            d1 = data.getByte(off + dataLength) & 0xff;
-            d2 = data.getByte(off + dataLength + 1) & 0xff;
-
-            b1 = (d1 >>> 2) & 0x3f;
-            b2 = ((d1 << 4) | (d2 >>> 4)) & 0x3f;
-            b3 = (d2 << 2) & 0x3f;
-
-            call(()->{
-              out.write(encodingTable[b1]);
-              out.write(encodingTable[b2]);
-              out.write(encodingTable[b3]);
-              out.write(padding);
-            });
+        {
+            final int d1 = in[end] & 0xff;
+            final int d2 = in[end + 1] & 0xff;
 
+            out[o++] = encodingTable[d1 >>> 2];
+            out[o++] = encodingTable[((d1 << 4) | (d2 >>> 4)) & 0x3f];
+            out[o++] = encodingTable[(d2 << 2) & 0x3f];
+            out[o++] = padding;
             break;
         }
+        }
 
-        return (dataLength / 3) * 4 + ((modulus == 0) ? 0 : 4);
-    }
-
-    private boolean ignore(
-        final char    c)
-    {
-        return (c == '\n' || c =='\r' || c == '\t' || c == ' ');
+        return o - outOff;
     }
 
     /**
-     * decode the base 64 encoded byte data writing it to the given output stream,
-     * whitespace characters will be ignored.
+     * encode the remaining bytes of in, including the final padding, into out.
      *
      * @return the number of bytes produced.
+     * @throws BufferOverflowException if out has not room for the encoding.
      */
-    @Override
-    public int decode(
-        final Bytes           data,
-        final int             off,
-        final int             length,
-        final OutputStream    out)
+    public int encode(
+        final ByteBuffer in,
+        final ByteBuffer out)
     {
-        int     outLen = 0;
-
-        int     end = off + length;
+        final int length = in.remaining();
+        final int outLength = getEncodedLength(length);
+        if (out.remaining() < outLength)
+        {
+            throw new BufferOverflowException();
+        }
 
-        while (end > off)
+        if (in.hasArray() && out.hasArray())
+        {
+            encode(in.array(), in.arrayOffset() + in.position(), length,
+                out.array(), out.arrayOffset() + out.position());
+            in.position(in.limit());
+            out.position(out.position() + outLength);
+        }
+        else
         {
-            if (!ignore((char)data.getByte(end - 1)))
+            final byte[] inBuf = new byte[Math.min(length, CHUNK_SIZE)];
+            final byte[] outBuf = new byte[getEncodedLength(inBuf.length)];
+            while (in.hasRemaining())
             {
-                break;
+                final int n = Math.min(in.remaining(), inBuf.length);
+                in.get(inBuf, 0, n);
+                out.put(outBuf, 0, encode(inBuf, 0, n, outBuf, 0));
             }
-
-            end--;
         }
 
-        int  i = off;
-        final int  finish = end - 4;
+        return outLength;
+    }
 
-        i = nextI(data, i, finish);
+    /**
+     * encode the input data producing a base 64 output stream.
+     *
+     * @return the number of bytes produced.
+     */
+    @Override
+    public int encode(
+        final Bytes                data,
+        final int                    off,
+        final int                    length,
+        final OutputStream    out)
+    {
+        final byte[] inBuf = new byte[Math.min(length, CHUNK_SIZE)];
+        final byte[] outBuf = new byte[getEncodedLength(inBuf.length)];
 
-        while (i < finish)
+        for (int i = off; i < off + length; i += inBuf.length)
         {
-          final byte b1, b2, b3, b4;
-
-            b1 = decodingTable[data.getByte(i++)];
+            final int n = data.subList(i, Math.min(i + inBuf.length, off + length)).write(inBuf, 0, inBuf.length);
 
-            i = nextI(data, i, finish);
+            write(out, outBuf, encode(inBuf, 0, n, outBuf, 0));
+        }
 
-            b2 = decodingTable[data.getByte(i++)];
+        return getEncodedLength(length);
+    }
 
-            i = nextI(data, i, finish);
+    /**
+     * decode the base 64 encoded data in, writing it to out, whitespace characters will be ignored.
+     * out must have room for {@link #getMaxDecodedLength(int)} bytes.
+     *
+     * @return the number of bytes produced.
+     */
+    public int decode(
+        final byte[] in,
+        final int    inOff,
+        final int    length,
+        final byte[] out,
+        final int    outOff)
+    {
+        final Decoding state = new Decoding();
+        final int o = state.decode(in, inOff, inOff + length, out, outOff);
 
-            b3 = decodingTable[data.getByte(i++)];
+        state.finish();
 
-            i = nextI(data, i, finish);
+        return o - outOff;
+    }
 
-            b4 = decodingTable[data.getByte(i++)];
+    /**
+     * decode the remaining base 64 encoded data of in into out, whitespace characters will
+     * be ignored.
+     *
+     * @return the number of bytes produced.
+     * @throws BufferOverflowException if out has not room for the maximum decoded length.
+     */
+    public int decode(
+        final ByteBuffer in,
+        final ByteBuffer out)
+    {
+        final int length = in.remaining();
+        if (out.remaining() < getMaxDecodedLength(length))
+        {
+            throw new BufferOverflowException();
+        }
 
-            if ((b1 | b2 | b3 | b4) < 0)
+        if (in.hasArray() && out.hasArray())
+        {
+            final int n = decode(in.array(), in.arrayOffset() + in.position(), length,
+                out.array(), out.arrayOffset() + out.position());
+            in.position(in.limit());
+            out.position(out.position() + n);
+            return n;
+        }
+        else
+        {
+            final Decoding state = new Decoding();
+            final byte[] inBuf = new byte[Math.min(length, CHUNK_SIZE)];
+            final byte[] outBuf = new byte[getMaxDecodedLength(inBuf.length) + 3];
+            int count = 0;
+            while (in.hasRemaining())
             {
-                throw new RuntimeException("invalid characters encountered in base64 data");
+                final int n = Math.min(in.remaining(), inBuf.length);
+                in.get(inBuf, 0, n);
+                final int o = state.decode(inBuf, 0, n, outBuf, 0);
+                out.put(outBuf, 0, o);
+                count += o;
             }
-
-            call(()->{
-              out.write((b1 << 2) | (b2 >> 4));
-              out.write((b2 << 4) | (b3 >> 2));
-              out.write((b3 << 6) | b4);
-            });
-
-            outLen += 3;
-
-            i = nextI(data, i, finish);
+            state.finish();
+            return count;
         }
-
-        outLen += decodeLastBlock(
-          out,
-          (char)data.getByte(end - 4),
-          (char)data.getByte(end - 3),
-          (char)data.getByte(end - 2),
-          (char)data.getByte(end - 1)
-        );
-
-        return outLen;
     }
 
-    private int nextI(final Bytes data, int i, final int finish)
+    /**
+     * decode the base 64 encoded byte data writing it to the given output stream,
+     * whitespace characters will be ignored.
+     *
+     * @return the number of bytes produced.
+     */
+    @Override
+    public int decode(
+        final Bytes           data,
+        final int             off,
+        final int             length,
+        final OutputStream    out)
     {
-        while ((i < finish) && ignore((char)data.getByte(i)))
+        final Decoding state = new Decoding();
+        final byte[] inBuf = new byte[Math.min(length, CHUNK_SIZE)];
+        final byte[] outBuf = new byte[getMaxDecodedLength(inBuf.length) + 3];
+        int count = 0;
+
+        for (int i = off; i < off + length; i += inBuf.length)
         {
-            i++;
+            final int n = data.subList(i, Math.min(i + inBuf.length, off + length)).write(inBuf, 0, inBuf.length);
+            final int o = state.decode(inBuf, 0, n, outBuf, 0);
+
+            write(out, outBuf, o);
+            count += o;
         }
-        return i;
+        state.finish();
+
+        return count;
     }
 
     /**
@@ -258,120 +366,288 @@ public class Base64Encoder
         final String          data,
         final OutputStream    out)
     {
-        int     length = 0;
+        final Decoding state = new Decoding();
+        final int length = data.length();
+        final byte[] inBuf = new byte[Math.min(length, CHUNK_SIZE)];
+        final byte[] outBuf = new byte[getMaxDecodedLength(inBuf.length) + 3];
+        int count = 0;
 
-        int     end = data.length();
-
-        while (end > 0)
+        for (int i = 0; i < length; i += inBuf.length)
         {
-            if (!ignore(data.charAt(end - 1)))
+            final int n = Math.min(inBuf.length, length - i);
+            for (int j = 0; j != n; j++)
             {
-                break;
+                final char c = data.charAt(i + j);
+
+                // characters beyond Latin-1 are invalid, as is 0xff
+                inBuf[j] = c < 0x100 ? (byte)c : (byte)0xff;
             }
+            final int o = state.decode(inBuf, 0, n, outBuf, 0);
 
-            end--;
+            write(out, outBuf, o);
+            count += o;
         }
+        state.finish();
 
-        int  i = 0;
-        final int  finish = end - 4;
-
-        i = nextI(data, i, finish);
-
-        while (i < finish){
-          final byte b1, b2, b3, b4;
-          b1 = decodingTable[data.charAt(i++)];
-          i = nextI(data, i, finish);
-
-          b2 = decodingTable[data.charAt(i++)];
-          i = nextI(data, i, finish);
+        return count;
+    }
 
-          b3 = decodingTable[data.charAt(i++)];
-          i = nextI(data, i, finish);
+    /**
+     * Return a stream that base 64 encodes everything written to it onto out. Closing the
+     * stream writes the final padding and closes out.
+     */
+    public OutputStream encodingStream(
+        final OutputStream out)
+    {
+        return new EncodingStream(out);
+    }
 
-          b4 = decodingTable[data.charAt(i++)];
+    /**
+     * Return a stream that decodes the base 64 data written to it onto out, whitespace
+     * characters will be ignored. Closing the stream checks that the data was complete
+     * and closes out.
+     */
+    public OutputStream decodingStream(
+        final OutputStream out)
+    {
+        return new DecodingStream(out);
+    }
 
-          if ((b1 | b2 | b3 | b4) < 0){
-            throw new RuntimeException("invalid characters encountered in base64 data");
-          }
+    private static void write(final OutputStream out, final byte[] buf, final int len)
+    {
+        try
+        {
+            out.write(buf, 0, len);
+        }
+        catch (final IOException e)
+        {
+            throw wrap(e);
+        }
+    }
 
-          call(()->{
-            out.write((b1 << 2) | (b2 >> 4));
-            out.write((b2 << 4) | (b3 >> 2));
-            out.write((b3 << 6) | b4);
-          });
+    /**
+     * The state of an incremental decoding: the sextets of an incomplete quantum, and the
+     * padding seen so far.
+     */
+    private final class Decoding
+    {
+        private int quantum;
+        private int count;
+        private int pads;
+        private boolean ended;
 
-          length += 3;
+        /**
+         * @return the offset in out after the last byte produced.
+         */
+        int decode(final byte[] in, int i, final int end, final byte[] out, int o)
+        {
+            final int[] table = sextetTable;
 
-          i = nextI(data, i, finish);
+            while (i < end)
+            {
+                if (count == 0 && !ended)
+                {
+                    while (i + 4 <= end)
+                    {
+                        final int v = (table[in[i] & 0xff] << 18)
+                            | (table[in[i + 1] & 0xff] << 12)
+                            | (table[in[i + 2] & 0xff] << 6)
+                            | table[in[i + 3] & 0xff];
+                        if (v < 0)
+                        {
+                            break;
+                        }
+                        out[o] = (byte)(v >> 16);
+                        out[o + 1] = (byte)(v >> 8);
+                        out[o + 2] = (byte)v;
+                        i += 4;
+                        o += 3;
+                    }
+                    if (i == end)
+                    {
+                        break;
+                    }
+                }
+
+                final int c = table[in[i++] & 0xff];
+                if (c >= 0)
+                {
+                    if (ended || pads != 0)
+                    {
+                        throw new DecoderException("invalid characters encountered after base64 padding", null);
+                    }
+                    quantum = (quantum << 6) | c;
+                    if (++count == 4)
+                    {
+                        out[o] = (byte)(quantum >> 16);
+                        out[o + 1] = (byte)(quantum >> 8);
+                        out[o + 2] = (byte)quantum;
+                        o += 3;
+                        quantum = 0;
+                        count = 0;
+                    }
+                }
+                else if (c == PADDING)
+                {
+                    if (ended || count < 2)
+                    {
+                        throw new DecoderException("invalid padding encountered in base64 data", null);
+                    }
+                    if (count + ++pads == 4)
+                    {
+                        quantum <<= 6 * pads;
+                        out[o++] = (byte)(quantum >> 16);
+                        if (count == 3)
+                        {
+                            out[o++] = (byte)(quantum >> 8);
+                        }
+                        ended = true;
+                    }
+                }
+                else if (c != WHITESPACE)
+                {
+                    throw new DecoderException("invalid characters encountered in base64 data", null);
+                }
+            }
+            return o;
         }
 
-        length += decodeLastBlock(out, data.charAt(end - 4), data.charAt(end - 3), data.charAt(end - 2), data.charAt(end - 1));
-
-        return length;
+        void finish()
+        {
+            if (count != 0 && !ended)
+            {
+                throw new DecoderException("incomplete base64 data", null);
+            }
+        }
     }
 
-    private int decodeLastBlock(final OutputStream out, final char c1, final char c2, final char c3, final char c4){
-        final byte    b1, b2, b3, b4;
+    private final class EncodingStream
+        extends OutputStream
+    {
+        private final OutputStream out;
+        private final byte[] inBuf = new byte[CHUNK_SIZE];
+        private final byte[] outBuf = new byte[getEncodedLength(CHUNK_SIZE)];
+        private int inOff;
+        private boolean closed;
 
-        if (c3 == padding)
+        EncodingStream(final OutputStream out)
         {
-            b1 = decodingTable[c1];
-            b2 = decodingTable[c2];
+            this.out = out;
+        }
 
-            if ((b1 | b2) < 0)
+        @Override
+        public void write(final int b)
+            throws IOException
+        {
+            if (inOff == inBuf.length)
             {
-                throw new RuntimeException("invalid characters encountered at end of base64 data");
+                flushBuffer();
             }
+            inBuf[inOff++] = (byte)b;
+        }
 
-            call(()->out.write((b1 << 2) | (b2 >> 4)));
+        @Override
+        public void write(final byte[] b, int off, int len)
+            throws IOException
+        {
+            while (len > 0)
+            {
+                if (inOff == inBuf.length)
+                {
+                    flushBuffer();
+                }
+                final int n = Math.min(len, inBuf.length - inOff);
+                System.arraycopy(b, off, inBuf, inOff, n);
+                inOff += n;
+                off += n;
+                len -= n;
+            }
+        }
 
-            return 1;
+        private void flushBuffer()
+            throws IOException
+        {
+            out.write(outBuf, 0, encode(inBuf, 0, inOff, outBuf, 0));
+            inOff = 0;
         }
-        else if (c4 == padding)
+
+        @Override
+        public void flush()
+            throws IOException
         {
-            b1 = decodingTable[c1];
-            b2 = decodingTable[c2];
-            b3 = decodingTable[c3];
+            // only whole quanta can be written before the end
+            final int whole = inOff - inOff % 3;
+            out.write(outBuf, 0, encode(inBuf, 0, whole, outBuf, 0));
+            System.arraycopy(inBuf, whole, inBuf, 0, inOff - whole);
+            inOff -= whole;
+            out.flush();
+        }
 
-            if ((b1 | b2 | b3) < 0){
-              throw new RuntimeException("invalid characters encountered at end of base64 data");
+        @Override
+        public void close()
+            throws IOException
+        {
+            if (!closed)
+            {
+                closed = true;
+                flushBuffer();
+                out.close();
             }
+        }
+    }
 
-            call(()->{
-              out.write((b1 << 2) | (b2 >> 4));
-              out.write((b2 << 4) | (b3 >> 2));
-            });
+    private final class DecodingStream
+        extends OutputStream
+    {
+        private final OutputStream out;
+        private final Decoding state = new Decoding();
+        private final byte[] single = new byte[1];
+        private final byte[] outBuf = new byte[getMaxDecodedLength(CHUNK_SIZE) + 3];
+        private boolean closed;
 
-            return 2;
+        DecodingStream(final OutputStream out)
+        {
+            this.out = out;
         }
-        else
+
+        @Override
+        public void write(final int b)
+            throws IOException
         {
-            b1 = decodingTable[c1];
-            b2 = decodingTable[c2];
-            b3 = decodingTable[c3];
-            b4 = decodingTable[c4];
+            single[0] = (byte)b;
+            write(single, 0, 1);
+        }
 
-            if ((b1 | b2 | b3 | b4) < 0)
+        @Override
+        public void write(final byte[] b, int off, int len)
+            throws IOException
+        {
+            while (len > 0)
             {
-                throw new RuntimeException("invalid characters encountered at end of base64 data");
+                final int n = Math.min(len, CHUNK_SIZE);
+                out.write(outBuf, 0, state.decode(b, off, off + n, outBuf, 0));
+                off += n;
+                len -= n;
             }
+        }
 
-            call(()->{
-              out.write((b1 << 2) | (b2 >> 4));
-              out.write((b2 << 4) | (b3 >> 2));
-              out.write((b3 << 6) | b4);
-            });
-
-            return 3;
+        @Override
+        public void flush()
+            throws IOException
+        {
+            out.flush();
         }
-    }
 
-    private int nextI(final String data, int i, final int finish)
-    {
-        while ((i < finish) && ignore(data.charAt(i)))
+        @Override
+        public void close()
+            throws IOException
         {
-            i++;
+            if (!closed)
+            {
+                closed = true;
+                state.finish();
+                out.close();
+            }
         }
-        return i;
     }
 }
@@ -29,21 +29,22 @@ package com.github.gv2011.asn1.util.encoders;
  */
 
 
-import static com.github.gv2011.util.bytes.ByteUtils.newBytesBuilder;
+import static com.github.gv2011.util.bytes.ByteUtils.newBytes;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 import com.github.gv2011.asn1.util.Strings;
 import com.github.gv2011.util.bytes.Bytes;
-import com.github.gv2011.util.bytes.BytesBuilder;
 
 /**
  * Utility class for converting hex data to bytes and back again.
  */
 public class Hex
 {
-    private static final Encoder encoder = new HexEncoder();
+    private static final HexEncoder encoder = new HexEncoder();
 
     public static String toHexString(
         final Bytes data)
@@ -81,18 +82,40 @@ public class Hex
         final int       off,
         final int       length)
     {
-        final BytesBuilder    bOut = newBytesBuilder();
+        final byte[] in = data.subList(off, off + length).toByteArray();
+        final byte[] out = new byte[length * 2];
 
-        try
-        {
-            encoder.encode(data, off, length, bOut);
-        }
-        catch (final Exception e)
-        {
-            throw new EncoderException("exception encoding Hex string: " + e.getMessage(), e);
-        }
+        encoder.encode(in, 0, length, out, 0);
+
+        return newBytes(out);
+    }
+
+    /**
+     * encode the input data into out.
+     *
+     * @return the number of bytes produced.
+     */
+    public static int encode(
+        final byte[] in,
+        final int    inOff,
+        final int    length,
+        final byte[] out,
+        final int    outOff)
+    {
+        return encoder.encode(in, inOff, length, out, outOff);
+    }
 
-        return bOut.build();
+    /**
+     * encode the remaining bytes of in into out.
+     *
+     * @return the number of bytes produced.
+     * @throws java.nio.BufferOverflowException if out has not room for the encoding.
+     */
+    public static int encode(
+        final ByteBuffer in,
+        final ByteBuffer out)
+    {
+        return encoder.encode(in, out);
     }
 
     /**
@@ -128,18 +151,49 @@ public class Hex
     public static Bytes decode(
         final Bytes    data)
     {
-        final BytesBuilder    bOut = newBytesBuilder();
+        final int size = data.size();
+        final byte[] out = new byte[size / 2];
+        final int len;
 
         try
         {
-            encoder.decode(data, 0, data.size(), bOut);
+            len = encoder.decode(data.toByteArray(), 0, size, out, 0);
         }
         catch (final Exception e)
         {
             throw new DecoderException("exception decoding Hex data: " + e.getMessage(), e);
         }
 
-        return bOut.build();
+        return newBytes(out, 0, len);
+    }
+
+    /**
+     * decode the Hex encoded data in, writing it to out, whitespace characters will be ignored.
+     * out must have room for half as many bytes as there are characters.
+     *
+     * @return the number of bytes produced.
+     */
+    public static int decode(
+        final byte[] in,
+        final int    inOff,
+        final int    length,
+        final byte[] out,
+        final int    outOff)
+    {
+        return encoder.decode(in, inOff, length, out, outOff);
+    }
+
+    /**
+     * decode the remaining Hex encoded data of in into out, whitespace characters will be ignored.
+     *
+     * @return the number of bytes produced.
+     * @throws java.nio.BufferOverflowException if out has not room for half as many bytes as there are characters.
+     */
+    public static int decode(
+        final ByteBuffer in,
+        final ByteBuffer out)
+    {
+        return encoder.decode(in, out);
     }
 
     /**
@@ -150,18 +204,21 @@ public class Hex
     public static Bytes decode(
         final String    data)
     {
-      final BytesBuilder    bOut = newBytesBuilder();
+        // characters beyond Latin-1 become '?', which is invalid as well
+        final byte[] in = data.getBytes(StandardCharsets.ISO_8859_1);
+        final byte[] out = new byte[in.length / 2];
+        final int len;
 
         try
         {
-            encoder.decode(data, bOut);
+            len = encoder.decode(in, 0, in.length, out, 0);
         }
         catch (final Exception e)
         {
             throw new DecoderException("exception decoding Hex string: " + e.getMessage(), e);
         }
 
-        return bOut.build();
+        return newBytes(out, 0, len);
     }
 
     /**
@@ -176,4 +233,23 @@ public class Hex
     {
         return encoder.decode(data, out);
     }
+
+    /**
+     * Return a stream that Hex encodes everything written to it onto out.
+     */
+    public static OutputStream encodingStream(
+        final OutputStream out)
+    {
+        return encoder.encodingStream(out);
+    }
+
+    /**
+     * Return a stream that decodes the Hex data written to it onto out, whitespace
+     * characters will be ignored.
+     */
+    public static OutputStream decodingStream(
+        final OutputStream out)
+    {
+        return encoder.decodingStream(out);
+    }
 }
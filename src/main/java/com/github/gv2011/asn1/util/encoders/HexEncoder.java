@@ -28,17 +28,28 @@ package com.github.gv2011.asn1.util.encoders;
  * #L%
  */
 
-import static com.github.gv2011.util.ex.Exceptions.call;
+import static com.github.gv2011.util.ex.Exceptions.wrap;
 
+import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 
 import com.github.gv2011.util.bytes.Bytes;
 
 /**
  * A streaming Hex encoder.
+ * <p>
+ * The work is done in bulk on byte array ranges, with one table access for the two
+ * characters of a byte. The stream based methods of {@link Encoder} go through the same
+ * code in chunks.
  */
 public class HexEncoder implements Encoder{
 
+    private static final int CHUNK_SIZE = 4096;
+
+    private static final int WHITESPACE = -2;
+
     protected final byte[] encodingTable =
     {
         (byte)'0', (byte)'1', (byte)'2', (byte)'3', (byte)'4', (byte)'5', (byte)'6', (byte)'7',
@@ -50,6 +61,12 @@ public class HexEncoder implements Encoder{
      */
     protected final byte[] decodingTable = new byte[128];
 
+    /*
+     * the two characters of each byte, and the value or class of each input byte.
+     */
+    private final byte[] pairTable = new byte[2 * 256];
+    private final int[] nibbleTable = new int[256];
+
     protected void initialiseDecodingTable()
     {
         for (int i = 0; i < decodingTable.length; i++)
@@ -68,6 +85,21 @@ public class HexEncoder implements Encoder{
         decodingTable['D'] = decodingTable['d'];
         decodingTable['E'] = decodingTable['e'];
         decodingTable['F'] = decodingTable['f'];
+
+        for (int i = 0; i < 256; i++)
+        {
+            pairTable[2 * i] = encodingTable[i >>> 4];
+            pairTable[2 * i + 1] = encodingTable[i & 0xf];
+        }
+
+        for (int i = 0; i < nibbleTable.length; i++)
+        {
+            nibbleTable[i] = i < decodingTable.length ? decodingTable[i] : -1;
+        }
+        nibbleTable['\n'] = WHITESPACE;
+        nibbleTable['\r'] = WHITESPACE;
+        nibbleTable['\t'] = WHITESPACE;
+        nibbleTable[' '] = WHITESPACE;
     }
 
     public HexEncoder()
@@ -75,6 +107,68 @@ public class HexEncoder implements Encoder{
         initialiseDecodingTable();
     }
 
+    /**
+     * encode the input data into out.
+     *
+     * @return the number of bytes produced.
+     */
+    public int encode(
+        final byte[] in,
+        final int    inOff,
+        final int    length,
+        final byte[] out,
+        final int    outOff)
+    {
+        int o = outOff;
+        for (int i = inOff; i < inOff + length; i++)
+        {
+            final int v = (in[i] & 0xff) << 1;
+            out[o] = pairTable[v];
+            out[o + 1] = pairTable[v + 1];
+            o += 2;
+        }
+
+        return length * 2;
+    }
+
+    /**
+     * encode the remaining bytes of in into out.
+     *
+     * @return the number of bytes produced.
+     * @throws BufferOverflowException if out has not room for the encoding.
+     */
+    public int encode(
+        final ByteBuffer in,
+        final ByteBuffer out)
+    {
+        final int length = in.remaining();
+        if (out.remaining() < length * 2)
+        {
+            throw new BufferOverflowException();
+        }
+
+        if (in.hasArray() && out.hasArray())
+        {
+            encode(in.array(), in.arrayOffset() + in.position(), length,
+                out.array(), out.arrayOffset() + out.position());
+            in.position(in.limit());
+            out.position(out.position() + length * 2);
+        }
+        else
+        {
+            final byte[] inBuf = new byte[Math.min(length, CHUNK_SIZE)];
+            final byte[] outBuf = new byte[inBuf.length * 2];
+            while (in.hasRemaining())
+            {
+                final int n = Math.min(in.remaining(), inBuf.length);
+                in.get(inBuf, 0, n);
+                out.put(outBuf, 0, encode(inBuf, 0, n, outBuf, 0));
+            }
+        }
+
+        return length * 2;
+    }
+
     /**
      * encode the input data producing a Hex output stream.
      *
@@ -87,22 +181,81 @@ public class HexEncoder implements Encoder{
         final int                    length,
         final OutputStream    out)
     {
-        for (int i = off; i < (off + length); i++)
+        final byte[] inBuf = new byte[Math.min(length, CHUNK_SIZE)];
+        final byte[] outBuf = new byte[inBuf.length * 2];
+
+        for (int i = off; i < off + length; i += inBuf.length)
         {
-            final int    v = data.getByte(i) & 0xff;
-            call(()->{
-              out.write(encodingTable[(v >>> 4)]);
-              out.write(encodingTable[v & 0xf]);
-            });
+            final int n = data.subList(i, Math.min(i + inBuf.length, off + length)).write(inBuf, 0, inBuf.length);
+
+            write(out, outBuf, encode(inBuf, 0, n, outBuf, 0));
         }
 
         return length * 2;
     }
 
-    private static boolean ignore(
-        final char    c)
+    /**
+     * decode the Hex encoded data in, writing it to out, whitespace characters will be ignored.
+     * out must have room for half as many bytes as there are characters.
+     *
+     * @return the number of bytes produced.
+     */
+    public int decode(
+        final byte[] in,
+        final int    inOff,
+        final int    length,
+        final byte[] out,
+        final int    outOff)
+    {
+        final Decoding state = new Decoding();
+        final int o = state.decode(in, inOff, inOff + length, out, outOff);
+
+        state.finish();
+
+        return o - outOff;
+    }
+
+    /**
+     * decode the remaining Hex encoded data of in into out, whitespace characters will be ignored.
+     *
+     * @return the number of bytes produced.
+     * @throws BufferOverflowException if out has not room for half as many bytes as there are characters.
+     */
+    public int decode(
+        final ByteBuffer in,
+        final ByteBuffer out)
     {
-        return c == '\n' || c =='\r' || c == '\t' || c == ' ';
+        final int length = in.remaining();
+        if (out.remaining() < length / 2)
+        {
+            throw new BufferOverflowException();
+        }
+
+        if (in.hasArray() && out.hasArray())
+        {
+            final int n = decode(in.array(), in.arrayOffset() + in.position(), length,
+                out.array(), out.arrayOffset() + out.position());
+            in.position(in.limit());
+            out.position(out.position() + n);
+            return n;
+        }
+        else
+        {
+            final Decoding state = new Decoding();
+            final byte[] inBuf = new byte[Math.min(length, CHUNK_SIZE)];
+            final byte[] outBuf = new byte[inBuf.length / 2 + 1];
+            int count = 0;
+            while (in.hasRemaining())
+            {
+                final int n = Math.min(in.remaining(), inBuf.length);
+                in.get(inBuf, 0, n);
+                final int o = state.decode(inBuf, 0, n, outBuf, 0);
+                out.put(outBuf, 0, o);
+                count += o;
+            }
+            state.finish();
+            return count;
+        }
     }
 
     /**
@@ -118,50 +271,22 @@ public class HexEncoder implements Encoder{
         final int             length,
         final OutputStream    out)
     {
-        int     outLen = 0;
-
-        int     end = off + length;
+        final Decoding state = new Decoding();
+        final byte[] inBuf = new byte[Math.min(length, CHUNK_SIZE)];
+        final byte[] outBuf = new byte[inBuf.length / 2 + 1];
+        int count = 0;
 
-        while (end > off)
+        for (int i = off; i < off + length; i += inBuf.length)
         {
-            if (!ignore((char)data.getByte(end - 1)))
-            {
-                break;
-            }
+            final int n = data.subList(i, Math.min(i + inBuf.length, off + length)).write(inBuf, 0, inBuf.length);
+            final int o = state.decode(inBuf, 0, n, outBuf, 0);
 
-            end--;
+            write(out, outBuf, o);
+            count += o;
         }
+        state.finish();
 
-        int i = off;
-        while (i < end)
-        {
-            while (i < end && ignore((char)data.getByte(i)))
-            {
-                i++;
-            }
-
-            final byte    b1, b2;
-
-            b1 = decodingTable[data.getByte(i++)];
-
-            while (i < end && ignore((char)data.getByte(i)))
-            {
-                i++;
-            }
-
-            b2 = decodingTable[data.getByte(i++)];
-
-            if ((b1 | b2) < 0)
-            {
-                throw new RuntimeException("invalid characters encountered in Hex data");
-            }
-
-            call(()->out.write((b1 << 4) | b2));
-
-            outLen++;
-        }
-
-        return outLen;
+        return count;
     }
 
     /**
@@ -175,48 +300,228 @@ public class HexEncoder implements Encoder{
         final String          data,
         final OutputStream    out)
     {
-        int     length = 0;
-
-        int     end = data.length();
+        final Decoding state = new Decoding();
+        final int length = data.length();
+        final byte[] inBuf = new byte[Math.min(length, CHUNK_SIZE)];
+        final byte[] outBuf = new byte[inBuf.length / 2 + 1];
+        int count = 0;
 
-        while (end > 0)
+        for (int i = 0; i < length; i += inBuf.length)
         {
-            if (!ignore(data.charAt(end - 1)))
+            final int n = Math.min(inBuf.length, length - i);
+            for (int j = 0; j != n; j++)
             {
-                break;
+                final char c = data.charAt(i + j);
+
+                // characters beyond Latin-1 are invalid, as is 0xff
+                inBuf[j] = c < 0x100 ? (byte)c : (byte)0xff;
             }
+            final int o = state.decode(inBuf, 0, n, outBuf, 0);
+
+            write(out, outBuf, o);
+            count += o;
+        }
+        state.finish();
+
+        return count;
+    }
+
+    /**
+     * Return a stream that Hex encodes everything written to it onto out.
+     */
+    public OutputStream encodingStream(
+        final OutputStream out)
+    {
+        return new EncodingStream(out);
+    }
+
+    /**
+     * Return a stream that decodes the Hex data written to it onto out, whitespace
+     * characters will be ignored. Closing the stream checks that the data was complete
+     * and closes out.
+     */
+    public OutputStream decodingStream(
+        final OutputStream out)
+    {
+        return new DecodingStream(out);
+    }
 
-            end--;
+    private static void write(final OutputStream out, final byte[] buf, final int len)
+    {
+        try
+        {
+            out.write(buf, 0, len);
         }
+        catch (final IOException e)
+        {
+            throw wrap(e);
+        }
+    }
 
-        int i = 0;
-        while (i < end)
+    /**
+     * The state of an incremental decoding: the high nibble of an incomplete byte.
+     */
+    private final class Decoding
+    {
+        private int high = -1;
+
+        /**
+         * @return the offset in out after the last byte produced.
+         */
+        int decode(final byte[] in, int i, final int end, final byte[] out, int o)
         {
-            while (i < end && ignore(data.charAt(i)))
+            final int[] table = nibbleTable;
+
+            while (i < end)
             {
-                i++;
+                if (high < 0)
+                {
+                    while (i + 2 <= end)
+                    {
+                        final int v = (table[in[i] & 0xff] << 4) | table[in[i + 1] & 0xff];
+                        if (v < 0)
+                        {
+                            break;
+                        }
+                        out[o++] = (byte)v;
+                        i += 2;
+                    }
+                    if (i == end)
+                    {
+                        break;
+                    }
+                }
+
+                final int c = table[in[i++] & 0xff];
+                if (c >= 0)
+                {
+                    if (high < 0)
+                    {
+                        high = c;
+                    }
+                    else
+                    {
+                        out[o++] = (byte)((high << 4) | c);
+                        high = -1;
+                    }
+                }
+                else if (c != WHITESPACE)
+                {
+                    throw new DecoderException("invalid characters encountered in Hex data", null);
+                }
             }
+            return o;
+        }
 
-            final byte    b1, b2;
-            b1 = decodingTable[data.charAt(i++)];
-
-            while (i < end && ignore(data.charAt(i)))
+        void finish()
+        {
+            if (high >= 0)
             {
-                i++;
+                throw new DecoderException("odd number of characters in Hex data", null);
             }
+        }
+    }
+
+    private final class EncodingStream
+        extends OutputStream
+    {
+        private final OutputStream out;
+        private final byte[] single = new byte[1];
+        private final byte[] outBuf = new byte[CHUNK_SIZE * 2];
 
-            b2 = decodingTable[data.charAt(i++)];
+        EncodingStream(final OutputStream out)
+        {
+            this.out = out;
+        }
 
-            if ((b1 | b2) < 0)
+        @Override
+        public void write(final int b)
+            throws IOException
+        {
+            single[0] = (byte)b;
+            write(single, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] b, int off, int len)
+            throws IOException
+        {
+            while (len > 0)
             {
-                throw new RuntimeException("invalid characters encountered in Hex string");
+                final int n = Math.min(len, CHUNK_SIZE);
+                out.write(outBuf, 0, encode(b, off, n, outBuf, 0));
+                off += n;
+                len -= n;
             }
+        }
 
-            call(()->out.write((b1 << 4) | b2));
+        @Override
+        public void flush()
+            throws IOException
+        {
+            out.flush();
+        }
 
-            length++;
+        @Override
+        public void close()
+            throws IOException
+        {
+            out.close();
         }
+    }
+
+    private final class DecodingStream
+        extends OutputStream
+    {
+        private final OutputStream out;
+        private final Decoding state = new Decoding();
+        private final byte[] single = new byte[1];
+        private final byte[] outBuf = new byte[CHUNK_SIZE / 2 + 1];
+        private boolean closed;
 
-        return length;
+        DecodingStream(final OutputStream out)
+        {
+            this.out = out;
+        }
+
+        @Override
+        public void write(final int b)
+            throws IOException
+        {
+            single[0] = (byte)b;
+            write(single, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] b, int off, int len)
+            throws IOException
+        {
+            while (len > 0)
+            {
+                final int n = Math.min(len, CHUNK_SIZE);
+                out.write(outBuf, 0, state.decode(b, off, off + n, outBuf, 0));
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void flush()
+            throws IOException
+        {
+            out.flush();
+        }
+
+        @Override
+        public void close()
+            throws IOException
+        {
+            if (!closed)
+            {
+                closed = true;
+                state.finish();
+                out.close();
+            }
+        }
     }
 }
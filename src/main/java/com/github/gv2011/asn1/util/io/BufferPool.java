@@ -0,0 +1,116 @@
+package com.github.gv2011.asn1.util.io;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+/**
+ * Source of temporary byte arrays for parsing and encoding.
+ * <p>
+ * Arrays are taken with {@link #acquire(int)} and handed back with {@link #release(byte[])}
+ * once the caller no longer uses them. The pool in use is process wide and can be replaced
+ * with {@link #set(BufferPool)}; the default is a {@link ThreadLocalBufferPool}.
+ * </p>
+ */
+public abstract class BufferPool
+{
+    /**
+     * A pool that keeps nothing - every array is newly allocated and nothing is counted.
+     */
+    public static final BufferPool NONE = new BufferPool()
+    {
+        @Override
+        public byte[] acquire(final int size)
+        {
+            return new byte[size];
+        }
+
+        @Override
+        public void release(final byte[] buf)
+        {
+        }
+
+        @Override
+        public long getHits()
+        {
+            return 0;
+        }
+
+        @Override
+        public long getMisses()
+        {
+            return 0;
+        }
+    };
+
+    private static volatile BufferPool current = new ThreadLocalBufferPool();
+
+    /**
+     * Return the pool in use.
+     */
+    public static BufferPool get()
+    {
+        return current;
+    }
+
+    /**
+     * Replace the pool in use. Arrays taken from the previous pool may still be handed back
+     * to the new one.
+     *
+     * @param pool the new pool, {@link #NONE} to stop pooling.
+     */
+    public static void set(final BufferPool pool)
+    {
+        if (pool == null)
+        {
+            throw new IllegalArgumentException("pool must not be null");
+        }
+        current = pool;
+    }
+
+    /**
+     * Return an array of at least size bytes. Its contents are undefined.
+     */
+    public abstract byte[] acquire(int size);
+
+    /**
+     * Hand back buf, which the caller must not use any more. Arrays not taken from this pool
+     * may be passed too.
+     */
+    public abstract void release(byte[] buf);
+
+    /**
+     * @return the number of {@link #acquire(int)} calls served with a pooled array.
+     */
+    public abstract long getHits();
+
+    /**
+     * @return the number of {@link #acquire(int)} calls that allocated a new array.
+     */
+    public abstract long getMisses();
+}
@@ -32,20 +32,22 @@ import static com.github.gv2011.util.ex.Exceptions.call;
 
 import java.io.IOException;
 import java.io.OutputStream;
-
-import com.github.gv2011.asn1.util.Arrays;
+import java.util.Arrays;
 
 /**
  * An output stream that buffers data to be feed into an encapsulated output stream.
  * <p>
- * The stream zeroes out the internal buffer on each flush.
+ * The stream zeroes out the used part of the internal buffer on each flush. The buffer is
+ * taken from the {@link BufferPool} and handed back on the first {@link #close()}, after which
+ * further closes and flushes do nothing and writes fail with an {@link IllegalStateException}.
  * </p>
  */
 public class BufferingOutputStream
     extends OutputStream
 {
     private final OutputStream other;
-    private final byte[] buf;
+    private final int size;
+    private byte[] buf;
 
     private int   bufOff;
 
@@ -56,8 +58,7 @@ public class BufferingOutputStream
      */
     public BufferingOutputStream(final OutputStream other)
     {
-        this.other = other;
-        buf = new byte[4096];
+        this(other, 4096);
     }
 
     /**
@@ -69,19 +70,21 @@ public class BufferingOutputStream
     public BufferingOutputStream(final OutputStream other, final int bufferSize)
     {
         this.other = other;
-        buf = new byte[bufferSize];
+        size = bufferSize;
+        buf = BufferPool.get().acquire(bufferSize);
     }
 
     @Override
     public void write(final byte[] bytes, int offset, int len){
-        if (len < buf.length - bufOff)
+        checkOpen();
+        if (len < size - bufOff)
         {
             System.arraycopy(bytes, offset, buf, bufOff, len);
             bufOff += len;
         }
         else
         {
-            final int gap = buf.length - bufOff;
+            final int gap = size - bufOff;
 
             System.arraycopy(bytes, offset, buf, bufOff, gap);
             bufOff += gap;
@@ -90,12 +93,12 @@ public class BufferingOutputStream
 
             offset += gap;
             len -= gap;
-            while (len >= buf.length)
+            while (len >= size)
             {
                 final int off = offset;
-                call(()->other.write(bytes, off, buf.length));
-                offset += buf.length;
-                len -= buf.length;
+                call(()->other.write(bytes, off, size));
+                offset += size;
+                len -= size;
             }
 
             if (len > 0)
@@ -108,8 +111,9 @@ public class BufferingOutputStream
 
     @Override
     public void write(final int b){
+        checkOpen();
         buf[bufOff++] = (byte)b;
-        if (bufOff == buf.length)
+        if (bufOff == size)
         {
             flush();
         }
@@ -122,14 +126,34 @@ public class BufferingOutputStream
      */
     @Override
     public void flush(){
+      if (buf == null)
+      {
+          return;
+      }
       call(()->other.write(buf, 0, bufOff));
+      Arrays.fill(buf, 0, bufOff, (byte)0);
       bufOff = 0;
-      Arrays.fill(buf, (byte)0);
     }
 
     @Override
     public void close(){
+        if (buf == null)
+        {
+            return;
+        }
         try{flush();}
-        finally{call(other::close);}
+        finally{
+          BufferPool.get().release(buf);
+          buf = null;
+          call(other::close);
+        }
+    }
+
+    private void checkOpen()
+    {
+        if (buf == null)
+        {
+            throw new IllegalStateException("stream closed");
+        }
     }
 }
@@ -0,0 +1,288 @@
+package com.github.gv2011.asn1.util.io;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import static com.github.gv2011.util.ex.Exceptions.call;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.github.gv2011.util.bytes.AbstractBytes;
+import com.github.gv2011.util.bytes.Bytes;
+
+/**
+ * A read-only {@link Bytes} view of a region of a {@link ByteBuffer}. No data is copied on
+ * construction or by {@link #subList(long, long)}, so the view is only as immutable as the
+ * underlying buffer: the creator must not modify the region afterwards.
+ */
+public final class ByteBufferBytes extends AbstractBytes
+{
+    private static final int BUFFER_SIZE = 4096;
+
+    private final ByteBuffer buf;
+    private int hashCode;
+
+    private ByteBufferBytes(final ByteBuffer buf)
+    {
+        this.buf = buf;
+    }
+
+    /**
+     * Return a view of the remaining bytes of buf. The position and limit of buf are not changed.
+     *
+     * @param buf the buffer to view.
+     * @return a Bytes view of buf's remaining content.
+     */
+    public static ByteBufferBytes wrap(final ByteBuffer buf)
+    {
+        return new ByteBufferBytes(buf.slice());
+    }
+
+    /**
+     * Return a view of len bytes of data starting at off.
+     *
+     * @param data the backing array.
+     * @param off the offset of the first byte.
+     * @param len the number of bytes.
+     * @return a Bytes view of the array region.
+     */
+    public static ByteBufferBytes wrap(final byte[] data, final int off, final int len)
+    {
+        return new ByteBufferBytes(ByteBuffer.wrap(data, off, len).slice());
+    }
+
+    /**
+     * Return a view of data.
+     *
+     * @param data the backing array.
+     * @return a Bytes view of the array.
+     */
+    public static ByteBufferBytes wrap(final byte[] data)
+    {
+        return wrap(data, 0, data.length);
+    }
+
+    /**
+     * Return a read-only buffer over the viewed bytes, positioned at the first byte.
+     *
+     * @return a new read-only buffer sharing this view's content.
+     */
+    public ByteBuffer toByteBuffer()
+    {
+        return buf.asReadOnlyBuffer();
+    }
+
+    @Override
+    public long longSize()
+    {
+        return buf.limit();
+    }
+
+    @Override
+    public byte get(final long index)
+    {
+        if (index < 0 || index >= buf.limit())
+        {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + buf.limit());
+        }
+        return buf.get((int)index);
+    }
+
+    @Override
+    public byte getByte(final int index)
+    {
+        return buf.get(index);
+    }
+
+    @Override
+    public Bytes subList(final long fromIndex, final long toIndex)
+    {
+        if (fromIndex < 0 || toIndex > buf.limit() || fromIndex > toIndex)
+        {
+            throw new IndexOutOfBoundsException("range " + fromIndex + ".." + toIndex + ", size " + buf.limit());
+        }
+        if (fromIndex == 0 && toIndex == buf.limit())
+        {
+            return this;
+        }
+        return new ByteBufferBytes(region((int)fromIndex, (int)toIndex).slice());
+    }
+
+    @Override
+    public byte[] toByteArray()
+    {
+        final byte[] result = new byte[buf.limit()];
+        buf.duplicate().get(result);
+        return result;
+    }
+
+    @Override
+    public int write(final byte[] b, final int off, final int len)
+    {
+        final int count = Math.min(len, buf.limit());
+        buf.duplicate().get(b, off, count);
+        return count;
+    }
+
+    @Override
+    public void write(final OutputStream stream)
+    {
+        if (buf.hasArray())
+        {
+            call(()->stream.write(buf.array(), buf.arrayOffset(), buf.limit()));
+        }
+        else
+        {
+            final ByteBuffer src = buf.duplicate();
+            final byte[] chunk = new byte[Math.min(BUFFER_SIZE, src.remaining())];
+            while (src.hasRemaining())
+            {
+                final int len = Math.min(chunk.length, src.remaining());
+                src.get(chunk, 0, len);
+                call(()->stream.write(chunk, 0, len));
+            }
+        }
+    }
+
+    @Override
+    public InputStream openStream()
+    {
+        return new ByteBufferInputStream(buf.duplicate());
+    }
+
+    @Override
+    public String utf8ToString()
+    {
+        return StandardCharsets.UTF_8.decode(buf.duplicate()).toString();
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int h = hashCode;
+        if (h == 0)
+        {
+            // same value as List.hashCode(), without boxing
+            h = 1;
+            for (int i = 0, n = buf.limit(); i < n; i++)
+            {
+                h = 31 * h + buf.get(i);
+            }
+            hashCode = h;
+        }
+        return h;
+    }
+
+    @Override
+    public boolean equals(final Object o)
+    {
+        if (o instanceof ByteBufferBytes)
+        {
+            return buf.equals(((ByteBufferBytes)o).buf);
+        }
+        return super.equals(o);
+    }
+
+    private ByteBuffer region(final int from, final int to)
+    {
+        final ByteBuffer dup = buf.duplicate();
+        dup.limit(to);
+        dup.position(from);
+        return dup;
+    }
+
+    private static final class ByteBufferInputStream
+        extends InputStream
+    {
+        private final ByteBuffer src;
+        private int mark;
+
+        ByteBufferInputStream(final ByteBuffer src)
+        {
+            this.src = src;
+        }
+
+        @Override
+        public int read()
+        {
+            return src.hasRemaining() ? src.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len)
+        {
+            if (len == 0)
+            {
+                return 0;
+            }
+            if (!src.hasRemaining())
+            {
+                return -1;
+            }
+            final int count = Math.min(len, src.remaining());
+            src.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public long skip(final long n)
+        {
+            final int count = (int)Math.max(0, Math.min(n, src.remaining()));
+            src.position(src.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available()
+        {
+            return src.remaining();
+        }
+
+        @Override
+        public boolean markSupported()
+        {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(final int readlimit)
+        {
+            mark = src.position();
+        }
+
+        @Override
+        public synchronized void reset()
+        {
+            src.position(mark);
+        }
+    }
+}
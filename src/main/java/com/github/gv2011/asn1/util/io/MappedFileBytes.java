@@ -0,0 +1,328 @@
+package com.github.gv2011.asn1.util.io;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import static com.github.gv2011.util.ex.Exceptions.call;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.github.gv2011.util.bytes.AbstractBytes;
+import com.github.gv2011.util.bytes.Bytes;
+
+/**
+ * A read-only {@link Bytes} view of a file region, which may be larger than 2 GB. The region is
+ * memory mapped in segments, nothing is read into the heap until it is accessed. Sub lists within
+ * one segment are returned as {@link ByteBufferBytes} over the mapped segment, larger ones as
+ * further views of the mapping. As with any mapping, the file must not be modified while it is
+ * in use.
+ */
+public final class MappedFileBytes extends AbstractBytes
+{
+    /**
+     * The default segment size: 1 GB.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 1 << 30;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final ByteBuffer[] segments;
+    private final int segmentSize;
+    private final int shift;
+    private final long mask;
+    private final long offset;
+    private final long size;
+    private int hashCode;
+
+    private MappedFileBytes(final ByteBuffer[] segments, final int segmentSize, final long offset, final long size)
+    {
+        this.segments = segments;
+        this.segmentSize = segmentSize;
+        this.shift = Integer.numberOfTrailingZeros(segmentSize);
+        this.mask = segmentSize - 1;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    /**
+     * Map a complete file.
+     *
+     * @param file the file to map.
+     * @return a Bytes view of the file content.
+     */
+    public static MappedFileBytes map(final Path file)
+    {
+        return call(()->{
+            try(final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+            {
+                return map(channel, 0, channel.size());
+            }
+        });
+    }
+
+    /**
+     * Map a region of a file in segments of {@link #DEFAULT_SEGMENT_SIZE}. The mapping stays valid
+     * after the channel is closed.
+     *
+     * @param channel the channel to map, opened for reading.
+     * @param position the file position of the region.
+     * @param size the length of the region.
+     * @return a Bytes view of the region.
+     */
+    public static MappedFileBytes map(final FileChannel channel, final long position, final long size)
+    {
+        return map(channel, position, size, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Map a region of a file in segments of the given size. The mapping stays valid after the
+     * channel is closed.
+     *
+     * @param channel the channel to map, opened for reading.
+     * @param position the file position of the region.
+     * @param size the length of the region.
+     * @param segmentSize the size of the mapped segments, a power of 2.
+     * @return a Bytes view of the region.
+     */
+    public static MappedFileBytes map(
+        final FileChannel channel, final long position, final long size, final int segmentSize)
+    {
+        if (segmentSize <= 0 || Integer.bitCount(segmentSize) != 1)
+        {
+            throw new IllegalArgumentException("segment size must be a power of 2");
+        }
+        if (position < 0 || size < 0)
+        {
+            throw new IllegalArgumentException("negative position or size");
+        }
+        final ByteBuffer[] segments = new ByteBuffer[(int)((size + segmentSize - 1) / segmentSize)];
+        for (int i = 0; i != segments.length; i++)
+        {
+            final long start = (long)i * segmentSize;
+            final long length = Math.min(segmentSize, size - start);
+            segments[i] = call(()->channel.map(FileChannel.MapMode.READ_ONLY, position + start, length));
+        }
+        return new MappedFileBytes(segments, segmentSize, 0, size);
+    }
+
+    @Override
+    public long longSize()
+    {
+        return size;
+    }
+
+    @Override
+    public byte get(final long index)
+    {
+        if (index < 0 || index >= size)
+        {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+        final long pos = offset + index;
+        return segments[(int)(pos >>> shift)].get((int)(pos & mask));
+    }
+
+    @Override
+    public byte getByte(final int index)
+    {
+        return get(index);
+    }
+
+    @Override
+    public Bytes subList(final long fromIndex, final long toIndex)
+    {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex)
+        {
+            throw new IndexOutOfBoundsException("range " + fromIndex + ".." + toIndex + ", size " + size);
+        }
+        if (fromIndex == 0 && toIndex == size)
+        {
+            return this;
+        }
+        final long from = offset + fromIndex;
+        final long to = offset + toIndex;
+        final int segment = (int)(from >>> shift);
+        if (to <= (long)(segment + 1) * segmentSize)
+        {
+            final ByteBuffer region = segments[segment].duplicate();
+            final int start = (int)(from & mask);
+            region.limit(start + (int)(to - from));
+            region.position(start);
+            return ByteBufferBytes.wrap(region);
+        }
+        return new MappedFileBytes(segments, segmentSize, from, to - from);
+    }
+
+    @Override
+    public int write(final byte[] b, final int off, final int len)
+    {
+        final int count = (int)Math.min(len, size);
+        int done = 0;
+        while (done != count)
+        {
+            final ByteBuffer src = region(done);
+            final int chunk = Math.min(count - done, src.remaining());
+            src.get(b, off + done, chunk);
+            done += chunk;
+        }
+        return count;
+    }
+
+    @Override
+    public byte[] toByteArray()
+    {
+        if (size > Integer.MAX_VALUE)
+        {
+            throw new TooBigException();
+        }
+        final byte[] result = new byte[(int)size];
+        write(result, 0, result.length);
+        return result;
+    }
+
+    @Override
+    public void write(final OutputStream stream)
+    {
+        final byte[] chunk = new byte[(int)Math.min(BUFFER_SIZE, size)];
+        long done = 0;
+        while (done != size)
+        {
+            final ByteBuffer src = region(done);
+            while (src.hasRemaining() && done != size)
+            {
+                final int len = (int)Math.min(Math.min(chunk.length, src.remaining()), size - done);
+                src.get(chunk, 0, len);
+                call(()->stream.write(chunk, 0, len));
+                done += len;
+            }
+        }
+    }
+
+    @Override
+    public InputStream openStream()
+    {
+        return new MappedInputStream();
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int h = hashCode;
+        if (h == 0)
+        {
+            // same value as List.hashCode(), without boxing
+            h = 1;
+            for (long i = 0; i < size; i++)
+            {
+                h = 31 * h + get(i);
+            }
+            hashCode = h;
+        }
+        return h;
+    }
+
+    /**
+     * A duplicate of the segment containing index, positioned at index.
+     */
+    private ByteBuffer region(final long index)
+    {
+        final long pos = offset + index;
+        final ByteBuffer src = segments[(int)(pos >>> shift)].duplicate();
+        src.position((int)(pos & mask));
+        return src;
+    }
+
+    private final class MappedInputStream
+        extends InputStream
+    {
+        private long pos;
+        private long mark;
+
+        @Override
+        public int read()
+        {
+            return pos < size ? get(pos++) & 0xff : -1;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len)
+        {
+            if (len == 0)
+            {
+                return 0;
+            }
+            if (pos >= size)
+            {
+                return -1;
+            }
+            final ByteBuffer src = region(pos);
+            final int count = (int)Math.min(Math.min(len, src.remaining()), size - pos);
+            src.get(b, off, count);
+            pos += count;
+            return count;
+        }
+
+        @Override
+        public long skip(final long n)
+        {
+            final long count = Math.max(0, Math.min(n, size - pos));
+            pos += count;
+            return count;
+        }
+
+        @Override
+        public int available()
+        {
+            return (int)Math.min(Integer.MAX_VALUE, size - pos);
+        }
+
+        @Override
+        public boolean markSupported()
+        {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(final int readlimit)
+        {
+            mark = pos;
+        }
+
+        @Override
+        public synchronized void reset()
+        {
+            pos = mark;
+        }
+    }
+}
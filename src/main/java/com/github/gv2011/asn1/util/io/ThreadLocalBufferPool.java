@@ -0,0 +1,139 @@
+package com.github.gv2011.asn1.util.io;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Buffer pool keeping a few arrays per thread for each power of two size from 16 bytes to
+ * 64 KB. Larger arrays are neither pooled nor counted as misses.
+ */
+public final class ThreadLocalBufferPool
+    extends BufferPool
+{
+    private static final int MIN_SHIFT = 4;
+    private static final int MAX_SHIFT = 16;
+
+    /**
+     * The free arrays of one thread, by size class.
+     */
+    private static final class Free
+    {
+        private final byte[][][] arrays;
+        private final int[] counts = new int[MAX_SHIFT - MIN_SHIFT + 1];
+
+        private Free(final int arraysPerSize)
+        {
+            arrays = new byte[MAX_SHIFT - MIN_SHIFT + 1][arraysPerSize][];
+        }
+    }
+
+    private final ThreadLocal<Free> free;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Create a pool keeping up to 4 arrays of each size per thread.
+     */
+    public ThreadLocalBufferPool()
+    {
+        this(4);
+    }
+
+    /**
+     * @param arraysPerSize the number of arrays of each size kept per thread.
+     */
+    public ThreadLocalBufferPool(final int arraysPerSize)
+    {
+        if (arraysPerSize < 1)
+        {
+            throw new IllegalArgumentException("arrays per size must be positive");
+        }
+        free = ThreadLocal.withInitial(() -> new Free(arraysPerSize));
+    }
+
+    @Override
+    public byte[] acquire(final int size)
+    {
+        if (size > 1 << MAX_SHIFT)
+        {
+            return new byte[size];
+        }
+
+        final int shift = size <= 1 << MIN_SHIFT ? MIN_SHIFT : 32 - Integer.numberOfLeadingZeros(size - 1);
+        final Free f = free.get();
+        final int sizeClass = shift - MIN_SHIFT;
+        final int count = f.counts[sizeClass];
+        if (count == 0)
+        {
+            misses.increment();
+            return new byte[1 << shift];
+        }
+
+        hits.increment();
+        final byte[][] arrays = f.arrays[sizeClass];
+        final byte[] buf = arrays[count - 1];
+        arrays[count - 1] = null;
+        f.counts[sizeClass] = count - 1;
+        return buf;
+    }
+
+    @Override
+    public void release(final byte[] buf)
+    {
+        final int length = buf.length;
+        if (Integer.bitCount(length) != 1 || length < 1 << MIN_SHIFT || length > 1 << MAX_SHIFT)
+        {
+            return;
+        }
+
+        final Free f = free.get();
+        final int sizeClass = Integer.numberOfTrailingZeros(length) - MIN_SHIFT;
+        final int count = f.counts[sizeClass];
+        final byte[][] arrays = f.arrays[sizeClass];
+        if (count < arrays.length)
+        {
+            arrays[count] = buf;
+            f.counts[sizeClass] = count + 1;
+        }
+    }
+
+    @Override
+    public long getHits()
+    {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses()
+    {
+        return misses.sum();
+    }
+}
@@ -89,7 +89,7 @@ public class PemReader
     {
         String          line;
         final String          endMarker = END + type;
-        final StringBuffer    buf = new StringBuffer();
+        final StringBuilder   buf = new StringBuilder();
         final List<PemHeader>            headers = new ArrayList<>();
 
         while ((line = readLine()) != null)
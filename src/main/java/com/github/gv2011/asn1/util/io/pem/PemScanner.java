@@ -0,0 +1,536 @@
+package com.github.gv2011.asn1.util.io.pem;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import static com.github.gv2011.util.ex.Exceptions.wrap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.github.gv2011.asn1.util.encoders.Base64;
+import com.github.gv2011.asn1.util.io.ByteBufferBytes;
+
+/**
+ * A byte oriented PEM reader for large bundles of objects, based on the format outlined in
+ * RFC 1421.
+ * <p>
+ * The scanner works on the raw bytes of the input without building a string per line. The
+ * base 64 body is collected without whitespace in a buffer that is reused for every object, and
+ * decoded in one step at the end boundary. After {@link #next()} the decoded DER of the current
+ * object is available from {@link #getContent()}, for instance to be handed to an
+ * {@link com.github.gv2011.asn1.ASN1PullParser} without copying. {@link #objects(boolean)}
+ * iterates the remaining objects lazily, optionally decoding them in parallel.
+ */
+public class PemScanner
+    implements Closeable
+{
+    private static final byte[] BEGIN = "-----BEGIN ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] END = "-----END ".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /*
+     * line contents that rule out base 64.
+     */
+    private static final int COLON = 1;
+    private static final int DASH = 2;
+
+    private final InputStream in;
+
+    private byte[] buf = new byte[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+    private boolean eof;
+    private boolean skipLF;
+
+    private int lineStart;
+    private int lineEnd;
+
+    private String type;
+    private List<PemHeader> headers = Collections.emptyList();
+
+    /*
+     * base 64 text of the current object, and its decoded content.
+     */
+    private byte[] text = new byte[2048];
+    private int textLength;
+    private ByteBuffer content = ByteBuffer.allocate(0);
+
+    public PemScanner(final InputStream in)
+    {
+        this.in = in;
+    }
+
+    /**
+     * Move to the next PEM object and decode its content.
+     *
+     * @return false if there are no more objects.
+     * @throws PemGenerationException if the end boundary of the object is missing.
+     */
+    public boolean next()
+    {
+        return scan(true);
+    }
+
+    /**
+     * @return the type of the current object, as given in its boundaries.
+     */
+    public String getType()
+    {
+        return type;
+    }
+
+    /**
+     * @return the headers of the current object.
+     */
+    public List<PemHeader> getHeaders()
+    {
+        return headers;
+    }
+
+    /**
+     * @return a read-only view of the decoded content of the current object.
+     */
+    public ByteBuffer getContent()
+    {
+        return content.asReadOnlyBuffer();
+    }
+
+    /**
+     * Read the next PEM object.
+     *
+     * @return the object, or null if there are no more objects.
+     */
+    public PemObject readPemObject()
+    {
+        return next() ? new PemObject(type, headers, ByteBufferBytes.wrap(content)) : null;
+    }
+
+    /**
+     * Return the remaining objects as a lazy stream. The input is always scanned sequentially;
+     * with parallel set the objects are decoded in parallel, in batches of the scanned objects.
+     *
+     * @param parallel true to decode the objects in parallel.
+     * @return a stream of the remaining objects, in input order.
+     */
+    public Stream<PemObject> objects(final boolean parallel)
+    {
+        if (!parallel)
+        {
+            return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(new Objects(), Spliterator.ORDERED | Spliterator.NONNULL),
+                false
+            );
+        }
+
+        return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(new Encoded(), Spliterator.ORDERED | Spliterator.NONNULL),
+            true
+        ).map(EncodedObject::decode);
+    }
+
+    @Override
+    public void close()
+        throws IOException
+    {
+        in.close();
+    }
+
+    /**
+     * Read the next object up to its end boundary, collecting the body in text.
+     */
+    private boolean scan(final boolean decode)
+    {
+        while (readLine())
+        {
+            if (startsWith(BEGIN))
+            {
+                final int start = lineStart + BEGIN.length;
+                final int index = indexOf(buf, (byte)'-', start, lineEnd);
+                if (index > start)
+                {
+                    type = new String(buf, start, index - start, StandardCharsets.ISO_8859_1);
+                    loadObject(decode);
+                    return true;
+                }
+            }
+        }
+
+        type = null;
+        headers = Collections.emptyList();
+        content = ByteBuffer.allocate(0);
+
+        return false;
+    }
+
+    private void loadObject(final boolean decode)
+    {
+        final byte[] endMarker = new byte[END.length + type.length()];
+        System.arraycopy(END, 0, endMarker, 0, END.length);
+        for (int i = 0; i != type.length(); i++)
+        {
+            endMarker[END.length + i] = (byte)type.charAt(i);
+        }
+
+        headers = new ArrayList<>();
+        textLength = 0;
+
+        boolean found = false;
+        while (true)
+        {
+            final int mark = textLength;
+            final int kind = appendLine();
+            if (kind < 0)
+            {
+                break;
+            }
+            if ((kind & COLON) != 0)
+            {
+                final int colon = indexOf(text, (byte)':', mark, textLength);
+                headers.add(new PemHeader(
+                    new String(text, mark, colon - mark, StandardCharsets.ISO_8859_1),
+                    new String(text, colon + 1, textLength - colon - 1, StandardCharsets.ISO_8859_1).trim()
+                ));
+                textLength = mark;
+            }
+            else if ((kind & DASH) != 0 && contains(text, mark, textLength, endMarker))
+            {
+                textLength = mark;
+                found = true;
+                break;
+            }
+        }
+
+        if (!found)
+        {
+            throw new PemGenerationException(new String(endMarker, StandardCharsets.ISO_8859_1) + " not found");
+        }
+
+        headers = Collections.unmodifiableList(headers);
+        if (decode)
+        {
+            content = decodeText();
+        }
+    }
+
+    /**
+     * Append the next line to text, in the same pass as looking for its end.
+     *
+     * @return whether the line contains a colon or a dash, in which case it is no base 64,
+     * or -1 at the end of the input.
+     */
+    private int appendLine()
+    {
+        int kind = 0;
+        int t = textLength;
+        boolean any = false;
+        while (true)
+        {
+            if (skipLF && pos < limit)
+            {
+                if (buf[pos] == '\n')
+                {
+                    pos++;
+                }
+                skipLF = false;
+            }
+
+            final byte[] b = buf;
+            final int lim = limit;
+            if (t + lim - pos > text.length)
+            {
+                text = Arrays.copyOf(text, Math.max(text.length * 2, t + lim - pos));
+            }
+            final byte[] tx = text;
+
+            for (int i = pos; i < lim; i++)
+            {
+                final byte c = b[i];
+                if (c == '\n' || c == '\r')
+                {
+                    pos = i + 1;
+                    skipLF = c == '\r';
+                    textLength = t;
+                    return kind;
+                }
+                if (c == ':')
+                {
+                    kind |= COLON;
+                }
+                else if (c == '-')
+                {
+                    kind |= DASH;
+                }
+                tx[t++] = c;
+            }
+            any |= pos < lim;
+            pos = lim;
+
+            if (eof)
+            {
+                textLength = t;
+                return any ? kind : -1;
+            }
+            pos = 0;
+            limit = 0;
+            fill();
+        }
+    }
+
+    /**
+     * Decode text, with java.util.Base64 for the usual padded body.
+     */
+    private ByteBuffer decodeText()
+    {
+        if (textLength % 4 == 0)
+        {
+            try
+            {
+                return java.util.Base64.getDecoder().decode(ByteBuffer.wrap(text, 0, textLength));
+            }
+            catch (final IllegalArgumentException e)
+            {
+                // fall through for the detailed exception
+            }
+        }
+
+        final byte[] out = new byte[textLength / 4 * 3 + 3];
+        final int length = Base64.decode(text, 0, textLength, out, 0);
+
+        return ByteBuffer.wrap(out, 0, length);
+    }
+
+    private boolean startsWith(final byte[] prefix)
+    {
+        if (lineEnd - lineStart < prefix.length)
+        {
+            return false;
+        }
+        for (int i = 0; i != prefix.length; i++)
+        {
+            if (buf[lineStart + i] != prefix[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(final byte[] data, final int from, final int to, final byte[] marker)
+    {
+        for (int i = from; i <= to - marker.length; i++)
+        {
+            int j = 0;
+            while (j != marker.length && data[i + j] == marker[j])
+            {
+                j++;
+            }
+            if (j == marker.length)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int indexOf(final byte[] data, final byte b, final int from, final int to)
+    {
+        for (int i = from; i < to; i++)
+        {
+            if (data[i] == b)
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Find the next line, terminated by LF, CR or CRLF, and set lineStart and lineEnd to it.
+     *
+     * @return false at the end of the input.
+     */
+    private boolean readLine()
+    {
+        int i = pos;
+        while (true)
+        {
+            if (skipLF && i < limit)
+            {
+                if (buf[i] == '\n')
+                {
+                    i++;
+                    pos = i;
+                }
+                skipLF = false;
+            }
+            for (; i < limit; i++)
+            {
+                final byte b = buf[i];
+                if (b == '\n' || b == '\r')
+                {
+                    lineStart = pos;
+                    lineEnd = i;
+                    pos = i + 1;
+                    skipLF = b == '\r';
+                    return true;
+                }
+            }
+            if (eof)
+            {
+                if (pos == limit)
+                {
+                    return false;
+                }
+                lineStart = pos;
+                lineEnd = limit;
+                pos = limit;
+                return true;
+            }
+            if (pos > 0)
+            {
+                System.arraycopy(buf, pos, buf, 0, limit - pos);
+                i -= pos;
+                limit -= pos;
+                pos = 0;
+            }
+            if (limit == buf.length)
+            {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+            fill();
+        }
+    }
+
+    private void fill()
+    {
+        try
+        {
+            final int n = in.read(buf, limit, buf.length - limit);
+            if (n < 0)
+            {
+                eof = true;
+            }
+            else
+            {
+                limit += n;
+            }
+        }
+        catch (final IOException e)
+        {
+            throw wrap(e);
+        }
+    }
+
+    /**
+     * An object whose base 64 body is not decoded yet.
+     */
+    private static final class EncodedObject
+    {
+        private final String type;
+        private final List<PemHeader> headers;
+        private final byte[] text;
+
+        EncodedObject(final String type, final List<PemHeader> headers, final byte[] text)
+        {
+            this.type = type;
+            this.headers = headers;
+            this.text = text;
+        }
+
+        PemObject decode()
+        {
+            return new PemObject(type, headers, Base64.decode(text));
+        }
+    }
+
+    private abstract class Lookahead<T>
+        implements Iterator<T>
+    {
+        private T next;
+
+        abstract T read();
+
+        @Override
+        public boolean hasNext()
+        {
+            if (next == null)
+            {
+                next = read();
+            }
+            return next != null;
+        }
+
+        @Override
+        public T next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            final T result = next;
+            next = null;
+            return result;
+        }
+    }
+
+    private final class Objects
+        extends Lookahead<PemObject>
+    {
+        @Override
+        PemObject read()
+        {
+            return readPemObject();
+        }
+    }
+
+    private final class Encoded
+        extends Lookahead<EncodedObject>
+    {
+        @Override
+        EncodedObject read()
+        {
+            return scan(false) ? new EncodedObject(type, headers, Arrays.copyOf(text, textLength)) : null;
+        }
+    }
+}
@@ -28,14 +28,16 @@ package com.github.gv2011.asn1.util.io.pem;
  * #L%
  */
 
-import static com.github.gv2011.util.ex.Exceptions.call;
+import static com.github.gv2011.util.ex.Exceptions.wrap;
 
 import java.io.BufferedWriter;
+import java.io.IOException;
 import java.io.Writer;
 import java.util.Iterator;
 
 import com.github.gv2011.asn1.util.Strings;
 import com.github.gv2011.asn1.util.encoders.Base64;
+import com.github.gv2011.asn1.util.encoders.Base64Encoder;
 import com.github.gv2011.util.bytes.Bytes;
 
 /**
@@ -48,6 +50,7 @@ public class PemWriter
 
     private final int nlLength;
     private final char[]  buf = new char[LINE_LENGTH];
+    private byte[] encoded = new byte[0];
 
     /**
      * Base constructor.
@@ -126,52 +129,79 @@ public class PemWriter
         writePostEncapsulationBoundary(obj.getType());
     }
 
-    private void writeEncoded(Bytes bytes){
-        bytes = Base64.encode(bytes);
-
-        for (int i = 0; i < bytes.size(); i += buf.length)
+    private void writeEncoded(final Bytes bytes){
+        final byte[] data = bytes.toByteArray();
+        final int length = Base64Encoder.getEncodedLength(data.length);
+        if (encoded.length < length)
         {
-            int index = 0;
+            encoded = new byte[length];
+        }
+        Base64.encode(data, 0, data.length, encoded, 0);
 
-            while (index != buf.length)
+        for (int i = 0; i < length; i += buf.length)
+        {
+            final int n = Math.min(buf.length, length - i);
+            for (int j = 0; j != n; j++)
             {
-                if ((i + index) >= bytes.size())
-                {
-                    break;
-                }
-                buf[index] = (char)bytes.getByte(i + index);
-                index++;
+                buf[j] = (char)encoded[i + j];
             }
-            final int i0=index;
-            call(()->{
-              this.write(buf, 0, i0);
-              newLine();
-            });
+            write(buf, 0, n);
+            newLine();
         }
     }
 
     private void writePreEncapsulationBoundary(
         final String type)
     {
-        this.write("-----BEGIN " + type + "-----");
+        this.write("-----BEGIN ");
+        this.write(type);
+        this.write("-----");
         newLine();
     }
 
     private void writePostEncapsulationBoundary(
         final String type)
     {
-        this.write("-----END " + type + "-----");
+        this.write("-----END ");
+        this.write(type);
+        this.write("-----");
         newLine();
     }
 
     @Override
     public void newLine(){
-      call(super::newLine);
+      try
+      {
+          super.newLine();
+      }
+      catch (final IOException e)
+      {
+          throw wrap(e);
+      }
     }
 
     @Override
     public void write(final String str){
-      call(()->super.write(str));
+      try
+      {
+          super.write(str);
+      }
+      catch (final IOException e)
+      {
+          throw wrap(e);
+      }
+    }
+
+    @Override
+    public void write(final char[] cbuf, final int off, final int len){
+      try
+      {
+          super.write(cbuf, off, len);
+      }
+      catch (final IOException e)
+      {
+          throw wrap(e);
+      }
     }
 
 
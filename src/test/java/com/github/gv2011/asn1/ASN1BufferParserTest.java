@@ -0,0 +1,237 @@
+package com.github.gv2011.asn1;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import static com.github.gv2011.testutil.Matchers.hasClass;
+import static com.github.gv2011.testutil.Matchers.is;
+import static com.github.gv2011.util.bytes.ByteUtils.newBytes;
+import static com.github.gv2011.util.bytes.ByteUtils.parseHex;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import com.github.gv2011.asn1.util.io.ByteBufferBytes;
+import com.github.gv2011.util.bytes.Bytes;
+
+public class ASN1BufferParserTest
+{
+    private static Bytes sample()
+    {
+        final ASN1EncodableVector set = new ASN1EncodableVector();
+        set.add(new DERPrintableString("b"));
+        set.add(new DERPrintableString("a"));
+
+        final ASN1EncodableVector seq = new ASN1EncodableVector();
+        seq.add(new ASN1Integer(BigInteger.valueOf(-1234567)));
+        seq.add(new ASN1ObjectIdentifier("1.2.840.113549.1.1.11"));
+        seq.add(ASN1Boolean.TRUE);
+        seq.add(new ASN1Enumerated(3));
+        seq.add(new DEROctetString(parseHex("01 02 03 04")));
+        seq.add(new DERBitString(parseHex("80"), 7));
+        seq.add(new DERBMPString("bmp"));
+        seq.add(new DERUTF8String("äöü"));
+        seq.add(new ASN1UTCTime("170101120000Z"));
+        seq.add(new ASN1GeneralizedTime("20170101120000Z"));
+        seq.add(DERNull.INSTANCE);
+        seq.add(new DLSet(set));
+        seq.add(new DERTaggedObject(true, 0, new ASN1Integer(5)));
+        seq.add(new DERTaggedObject(false, 1, new DEROctetString(parseHex("ff"))));
+        seq.add(new DERTaggedObject(false, 2, new DERSequence(new ASN1Integer(1))));
+        seq.add(new DERApplicationSpecific(3, new ASN1EncodableVector()));
+        seq.add(new DERApplicationSpecific(4, parseHex("61 70 70")));
+        seq.add(new BERSequence(new ASN1EncodableVector()));
+        return new DLSequence(seq).getEncoded();
+    }
+
+    private static void assertSameAsInputStream(final Bytes encoding)
+    {
+        @SuppressWarnings("resource")
+        final ASN1Primitive expected = new ASN1InputStream(encoding).readObject();
+        final ASN1Primitive actual = new ASN1BufferParser(encoding).readObject();
+        assertThat(actual, is(expected));
+        assertSameStructure(actual, expected);
+        assertThat(actual.getEncoded(), is(expected.getEncoded()));
+    }
+
+    private static void assertSameStructure(final ASN1Primitive actual, final ASN1Primitive expected)
+    {
+        assertThat(actual, hasClass(expected.getClass()));
+        if (expected instanceof ASN1Sequence)
+        {
+            for (int i = 0; i != ((ASN1Sequence)expected).size(); i++)
+            {
+                assertSameStructure(
+                    ((ASN1Sequence)actual).getObjectAt(i).toASN1Primitive(),
+                    ((ASN1Sequence)expected).getObjectAt(i).toASN1Primitive());
+            }
+        }
+        else if (expected instanceof ASN1TaggedObject)
+        {
+            assertSameStructure(
+                ((ASN1TaggedObject)actual).getObject(), ((ASN1TaggedObject)expected).getObject());
+        }
+    }
+
+    @Test
+    public void testDefiniteLength()
+    {
+        assertSameAsInputStream(sample());
+    }
+
+    @Test
+    public void testIndefiniteLength()
+    {
+        final ASN1EncodableVector v = new ASN1EncodableVector();
+        v.add(new ASN1Integer(7));
+        v.add(new BEROctetString(new ASN1OctetString[] {
+            new DEROctetString(parseHex("01 02 03")), new DEROctetString(parseHex("04 05 06"))}));
+        v.add(new BERTaggedObject(true, 4, new BERSet(new ASN1EncodableVector())));
+        v.add(new BERTaggedObject(false, 5, new BERSequence(new ASN1EncodableVector())));
+        v.add(new DERSequence(new BERSequence(new ASN1Integer(1))));
+        assertSameAsInputStream(new BERSequence(v).getEncoded());
+    }
+
+    @Test
+    public void testConstructedOctetString()
+    {
+        // definite length OCTET STRING made of two segments
+        assertSameAsInputStream(parseHex("24 08 04 02 01 02 04 02 03 04"));
+    }
+
+    @Test
+    public void testLazy()
+    {
+        final Bytes encoding = sample();
+        final ASN1Primitive lazy = new ASN1BufferParser(encoding, true).readObject();
+        assertThat(lazy, hasClass(LazyEncodedSequence.class));
+        assertThat(lazy, is(ASN1Primitive.fromBytes(encoding)));
+    }
+
+    @Test
+    public void testContentsAreViews()
+    {
+        final byte[] data = parseHex("30 06 04 04 01 02 03 04").toByteArray();
+        final ASN1Sequence seq = (ASN1Sequence)new ASN1BufferParser(ByteBuffer.wrap(data)).readObject();
+        final Bytes octets = ((ASN1OctetString)seq.getObjectAt(0)).getOctets();
+        assertThat(octets, hasClass(ByteBufferBytes.class));
+        assertThat(octets, is(parseHex("01 02 03 04")));
+        data[4] = 9;
+        assertThat(octets.getByte(0), is((byte)9));
+    }
+
+    @Test
+    public void testMultipleObjects()
+    {
+        final ByteBuffer buf = ByteBuffer.wrap(parseHex("00 02 01 01 02 01 02").toByteArray());
+        buf.position(1);
+        final ASN1BufferParser parser = new ASN1BufferParser(buf);
+        assertThat(parser.readObject(), is(new ASN1Integer(1)));
+        assertThat(parser.getRemaining(), is(3));
+        assertThat(parser.readObject(), is(new ASN1Integer(2)));
+        assertThat(parser.readObject(), is((ASN1Primitive)null));
+        assertThat(buf.position(), is(1));
+    }
+
+    @Test
+    public void testTruncated()
+    {
+        expectParsingException(parseHex("04 05 01 02"), "DEF length 5 object truncated by 3");
+        expectParsingException(parseHex("30 04 04 05 01 02"), "DEF length 5 object truncated by 3");
+        expectParsingException(parseHex("30 80 02 01 01"), "EOF found before end-of-contents marker");
+        expectParsingException(parseHex("30 83 0f ff ff"), "corrupted stream - out of bounds length found");
+        expectParsingException(parseHex("30 85 01 01 01 01 01"), "DER length more than 4 bytes: 5");
+        expectParsingException(parseHex("00 00"), "unexpected end-of-contents marker");
+    }
+
+    @Test
+    public void testLenientContents()
+    {
+        // the odd BMPString octet is dropped and NULL contents are ignored, as by ASN1InputStream
+        expectSameAsStream(parseHex("1e 03 00 61 00"), parseHex("1e 02 00 61"));
+        expectSameAsStream(parseHex("05 01 07"), parseHex("05 00"));
+        expectSameAsStream(parseHex("30 03 05 01 07"), parseHex("30 02 05 00"));
+    }
+
+    /**
+     * The buffer parser, fromBytes() and the stream parsers all read encoding as an object
+     * with the encoding expected. Lazily parsed sequences keep their input.
+     */
+    @SuppressWarnings("resource")
+    private static void expectSameAsStream(final Bytes encoding, final Bytes expected)
+    {
+        final ASN1Primitive[] parsed = {
+            new ASN1BufferParser(encoding).readObject(),
+            ASN1Primitive.fromBytes(encoding),
+            new ASN1InputStream(encoding.openStream()).readObject(),
+            new ASN1StreamParser(encoding).readObject().toASN1Primitive()
+        };
+        for (final ASN1Primitive obj : parsed)
+        {
+            assertThat(encoding.toString(), obj.getEncoded(), is(expected));
+            assertThat(encoding.toString(), obj, is(parsed[0]));
+        }
+
+        final ASN1Primitive lazy = new ASN1BufferParser(encoding, true).readObject();
+        final ASN1Primitive lazyStream = new ASN1InputStream(encoding, true).readObject();
+        assertThat(encoding.toString(), lazy.getEncoded(), is(lazyStream.getEncoded()));
+        assertThat(encoding.toString(), lazy, is(parsed[0]));
+    }
+
+    @Test
+    public void testExtraData()
+    {
+        try
+        {
+            ASN1Primitive.fromBytes(newBytes((byte)5, (byte)0, (byte)0));
+            fail("extra data not detected");
+        }
+        catch (final ASN1Exception e)
+        {
+            assertThat(e.getMessage(), is("Extra data detected in stream"));
+        }
+    }
+
+    private static void expectParsingException(final Bytes encoding, final String message)
+    {
+        try
+        {
+            new ASN1BufferParser(encoding).readObject();
+            fail("corrupt encoding not detected: " + encoding);
+        }
+        catch (final ASN1ParsingException e)
+        {
+            assertThat(e.getMessage(), is(message));
+        }
+    }
+}
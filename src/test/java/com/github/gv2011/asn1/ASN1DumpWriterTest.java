@@ -0,0 +1,134 @@
+package com.github.gv2011.asn1;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import static com.github.gv2011.testutil.Matchers.is;
+import static com.github.gv2011.util.bytes.ByteUtils.newBytes;
+import static com.github.gv2011.util.bytes.ByteUtils.parseHex;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+
+import org.junit.Test;
+
+import com.github.gv2011.asn1.dump.ASN1Dump;
+import com.github.gv2011.asn1.dump.ASN1DumpWriter;
+import com.github.gv2011.asn1.util.Strings;
+import com.github.gv2011.util.bytes.Bytes;
+
+public class ASN1DumpWriterTest
+{
+    private static final String NL = Strings.lineSeparator();
+
+    private static ASN1Primitive sample()
+    {
+        final byte[] octets = new byte[40];
+        for (int i = 0; i != octets.length; i++)
+        {
+            octets[i] = (byte)('A' + i);
+        }
+        return new DERSequence(new ASN1Encodable[] {
+            new ASN1Integer(5),
+            new DERUTF8String("abc"),
+            new DEROctetString(newBytes(octets)),
+            new ASN1ObjectIdentifier("1.2.840.113549.1.1.11"),
+            new DERTaggedObject(true, 0, new DERSequence(new ASN1Encodable[] {ASN1Boolean.TRUE, DERNull.INSTANCE})),
+            new DERSet(new ASN1Encodable[] {new DERPrintableString("x"), new ASN1Integer(-1)})
+        });
+    }
+
+    private static String dump(final ASN1DumpWriter writer, final Bytes encoding, final StringBuilder out)
+    {
+        writer.dump(encoding);
+        return out.toString();
+    }
+
+    @Test
+    public void testSameAsASN1Dump()
+    {
+        final ASN1Primitive obj = sample();
+        final Bytes encoding = obj.getEncoded();
+
+        for (final boolean verbose : new boolean[] {false, true})
+        {
+            final StringBuilder out = new StringBuilder();
+            assertThat(dump(new ASN1DumpWriter(out).setVerbose(verbose), encoding, out), is(ASN1Dump.dumpAsString(obj, verbose)));
+
+            final StringBuilder streamed = new StringBuilder();
+            new ASN1DumpWriter(streamed).setVerbose(verbose).dump(new ByteArrayInputStream(encoding.toByteArray()));
+            assertThat(streamed.toString(), is(ASN1Dump.dumpAsString(obj, verbose)));
+        }
+    }
+
+    @Test
+    public void testOffsetsAndDepth()
+    {
+        final StringBuilder out = new StringBuilder();
+        final String dump = dump(new ASN1DumpWriter(out).setOffsets(true).setMaxDepth(1), sample().getEncoded(), out);
+        final String[] lines = dump.split(NL);
+
+        assertThat(lines.length, is(7));
+        assertThat(lines[0], is("         0       78: DER Sequence"));
+        assertThat(lines[1], is("         2        1:     Integer(5)"));
+        assertThat(lines[5], is("        63        7:     Tagged [0] ..."));
+    }
+
+    @Test
+    public void testIndefiniteLength()
+    {
+        final StringBuilder out = new StringBuilder();
+        final String dump = dump(new ASN1DumpWriter(out).setOffsets(true), parseHex("30 80 04 03 01 02 03 00 00"), out);
+
+        assertThat(dump, is(
+            "         0      inf: BER Sequence" + NL
+          + "         2        3:     DER Octet String[3] " + NL));
+    }
+
+    @Test(expected = ASN1ParsingException.class)
+    public void testTruncatedStream()
+    {
+        new ASN1DumpWriter(new StringBuilder())
+            .dump(new ByteArrayInputStream(parseHex("30 06 04 05 01 02").toByteArray()));
+    }
+
+    @Test
+    public void testTruncation()
+    {
+        final Bytes encoding = new DEROctetString(newBytes(new byte[1000])).getEncoded();
+        final StringBuilder out = new StringBuilder();
+        final String dump = dump(new ASN1DumpWriter(out).setVerbose(true).setMaxContentLength(100), encoding, out);
+        final String[] lines = dump.split(NL);
+
+        assertThat(lines.length, is(3));
+        assertThat(lines[0], is("DER Octet String[1000] "));
+        assertThat(lines[1].length() > 64, is(true));
+        assertThat(lines[2], is("    ... 968 more bytes"));
+    }
+}
@@ -0,0 +1,130 @@
+package com.github.gv2011.asn1;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import static com.github.gv2011.testutil.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.Iterator;
+
+import org.junit.Test;
+
+public class ASN1EncodableVectorTest
+{
+    @Test
+    public void testPresizedVectorIsNotAffectedByLaterChanges()
+    {
+        final ASN1EncodableVector v = new ASN1EncodableVector(2);
+        v.add(new ASN1Integer(1));
+        v.add(new ASN1Integer(2));
+
+        final DERSequence seq = new DERSequence(v);
+        final DLSet set = new DLSet(v);
+        v.add(new ASN1Integer(3));
+        v.addAll(v);
+
+        assertThat(v.size(), is(6));
+        assertThat(seq.size(), is(2));
+        assertThat(set.size(), is(2));
+        assertThat(seq.getObjectAt(1), is((ASN1Encodable)new ASN1Integer(2)));
+        assertThat(new DERSequence(v).size(), is(6));
+    }
+
+    @Test
+    public void testSortingDoesNotReorderVector()
+    {
+        final ASN1EncodableVector v = new ASN1EncodableVector(2);
+        v.add(new ASN1Integer(2));
+        v.add(new ASN1Integer(1));
+
+        final DERSet set = new DERSet(v);
+
+        assertThat(set.getObjectAt(0), is((ASN1Encodable)new ASN1Integer(1)));
+        assertThat(v.get(0), is((ASN1Encodable)new ASN1Integer(2)));
+    }
+
+    @Test
+    public void testArrayIsCopied()
+    {
+        final ASN1Encodable[] array = {new ASN1Integer(1), new ASN1Integer(2)};
+        final DLSequence seq = new DLSequence(array);
+        final DERSet set = DERSet.fromSorted(array);
+        array[0] = DERNull.INSTANCE;
+
+        assertThat(seq.getObjectAt(0), is((ASN1Encodable)new ASN1Integer(1)));
+        assertThat(set.getObjectAt(0), is((ASN1Encodable)new ASN1Integer(1)));
+        seq.toArray()[1] = DERNull.INSTANCE;
+        assertThat(seq.getObjectAt(1), is((ASN1Encodable)new ASN1Integer(2)));
+    }
+
+    @Test
+    public void testBounds()
+    {
+        final ASN1EncodableVector v = new ASN1EncodableVector();
+        v.add(new ASN1Integer(1));
+        try
+        {
+            v.get(1);
+            fail();
+        }
+        catch (final ArrayIndexOutOfBoundsException e)
+        {
+            // expected
+        }
+        try
+        {
+            new ASN1EncodableVector(-1);
+            fail();
+        }
+        catch (final IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    @Test
+    public void testIterators()
+    {
+        final DERSequence seq = new DERSequence(new ASN1Encodable[] {new ASN1Integer(1), new ASN1Integer(2)});
+        final Iterator<ASN1Encodable> it = seq.iterator();
+        assertThat(it.next(), is((ASN1Encodable)new ASN1Integer(1)));
+        assertThat(it.next(), is((ASN1Encodable)new ASN1Integer(2)));
+        assertThat(it.hasNext(), is(false));
+
+        int count = 0;
+        for (final ASN1Encodable obj : new DERSet(seq.toArray()))
+        {
+            assertThat(obj, is(seq.getObjectAt(count++)));
+        }
+        assertThat(count, is(2));
+        assertThat(seq.toString(), is("[1, 2]"));
+    }
+}
@@ -0,0 +1,187 @@
+package com.github.gv2011.asn1;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import static com.github.gv2011.testutil.Matchers.is;
+import static com.github.gv2011.util.bytes.ByteUtils.newBytes;
+import static com.github.gv2011.util.bytes.ByteUtils.parseHex;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.github.gv2011.util.bytes.Bytes;
+
+public class ASN1EncodingCacheTest
+{
+    // SEQUENCE { INTEGER 5, [0] { OCTET STRING 01 02 }, NULL, SET { INTEGER 5, INTEGER 7 } }
+    private static final Bytes DER = parseHex("30 13 02 01 05 a0 04 04 02 01 02 05 00 31 06 02 01 05 02 01 07");
+
+    private static final String[] NOT_DER = {
+        "30 81 03 02 01 05",                // non-minimal length
+        "31 06 02 01 07 02 01 05",          // unsorted SET
+        "30 03 01 01 01",                   // BOOLEAN neither 00 nor ff
+        "30 04 03 02 07 ff",                // BIT STRING with unused bits set
+        "30 04 02 02 00 05",                // INTEGER with a redundant octet
+        "30 06 24 04 04 02 01 02",          // constructed OCTET STRING
+        "30 80 02 01 05 00 00",             // indefinite length
+        "30 05 06 03 2a 80 01",             // OID subidentifier with a leading zero group
+        "30 05 bf 1e 02 05 00",             // high tag number form for a low tag number
+    };
+
+    private static final String[] SAME_AS_WITHOUT_CACHE = {
+        "e0 03 01 01 ff",                   // PRIVATE, read as APPLICATION specific
+        "30 06 c6 01 01 02 01 ff",          // PRIVATE member
+        "30 05 30 03 00 01 01",             // universal tag 0 member
+        "30 05 30 03 0e 01 01",             // universal tag 14 member
+        "30 13 02 01 05 a0 04 04 02 01 02 05 00 c7 06 02 01 05 02 01 07",
+    };
+
+    @After
+    public void disable()
+    {
+        ASN1EncodingCache.disable();
+    }
+
+    @Test
+    public void testInputReused()
+    {
+        ASN1EncodingCache.enable(1000);
+
+        final ASN1Sequence seq = (ASN1Sequence)ASN1Primitive.fromBytes(DER);
+        final Bytes encoded = seq.getDerEncoded();
+
+        assertThat(encoded, is(DER));
+        assertSame(encoded, seq.getDerEncoded());
+        assertSame(encoded, seq.getEncoded());
+        assertThat(seq.getObjectAt(1).toASN1Primitive().getEncoded(), is(DER.subList(5, 11)));
+        // views of the input are not counted
+        assertThat(ASN1EncodingCache.getSize(), is(0L));
+    }
+
+    @Test
+    public void testNotDERReencoded()
+    {
+        for (final String hex : NOT_DER)
+        {
+            final Bytes input = parseHex(hex);
+            final ASN1Primitive plain = ASN1Primitive.fromBytes(input);
+            final Bytes der = plain.getDerEncoded();
+            final Bytes ber = plain.getEncoded();
+
+            ASN1EncodingCache.enable(1000);
+            final ASN1Primitive cached = ASN1Primitive.fromBytes(input);
+
+            assertThat(hex, cached.getEncoded(), is(ber));
+            assertThat(hex, cached.getDerEncoded(), is(der));
+            assertThat(hex, cached.getDerEncoded(), is(der));
+            ASN1EncodingCache.disable();
+        }
+    }
+
+    @Test
+    public void testComputedEncodingsEvicted()
+    {
+        ASN1EncodingCache.enable(100);
+
+        final DERSequence first = new DERSequence(new DEROctetString(newBytes(new byte[40])));
+        final Bytes encoded = first.getDerEncoded();
+
+        assertSame(encoded, first.getDerEncoded());
+        assertThat(ASN1EncodingCache.getSize(), is(44L));
+
+        for (int i = 0; i != 4; i++)
+        {
+            new DERSequence(new DEROctetString(newBytes(new byte[40]))).getDerEncoded();
+            assertThat(ASN1EncodingCache.getSize() <= 100, is(true));
+        }
+
+        final Bytes reencoded = first.getDerEncoded();
+        assertNotSame(encoded, reencoded);
+        assertThat(reencoded, is(encoded));
+
+        ASN1EncodingCache.disable();
+        assertThat(ASN1EncodingCache.getSize(), is(0L));
+        assertThat(ASN1EncodingCache.isEnabled(), is(false));
+    }
+
+    @Test
+    public void testCachedMembers()
+    {
+        ASN1EncodingCache.enable(1000);
+
+        final ASN1Primitive parsed = ASN1Primitive.fromBytes(DER);
+        final ASN1Encodable[] members = {
+            parsed,
+            new DERTaggedObject(false, 1, parsed),
+            new DERTaggedObject(true, 2, parsed),
+            new DERSet(new ASN1Encodable[] { parsed, new ASN1Integer(3) })
+        };
+        final Bytes expected = new DERSequence(members).getDerEncoded();
+
+        parsed.getDerEncoded();
+        assertThat(new DERSequence(members).getDerEncoded(), is(expected));
+    }
+
+    @Test
+    public void testSameAsWithoutCache()
+    {
+        for (final String hex : SAME_AS_WITHOUT_CACHE)
+        {
+            final Bytes input = parseHex(hex);
+            for (final boolean lazy : new boolean[] { false, true })
+            {
+                final String expected = encodings(input, lazy);
+
+                ASN1EncodingCache.enable(1000);
+                assertThat(hex, encodings(input, lazy), is(expected));
+                ASN1EncodingCache.disable();
+            }
+        }
+    }
+
+    private static String encodings(
+        final Bytes   input,
+        final boolean lazy)
+    {
+        try
+        {
+            final ASN1Primitive obj = new ASN1BufferParser(input, lazy).readObject();
+
+            return obj.getEncoded() + " / " + obj.getDerEncoded();
+        }
+        catch (final RuntimeException e)
+        {
+            return e.getClass().getName();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.github.gv2011.asn1;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import static com.github.gv2011.testutil.Matchers.is;
+import static com.github.gv2011.util.bytes.ByteUtils.newBytes;
+import static com.github.gv2011.util.bytes.ByteUtils.parseHex;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.math.BigInteger;
+
+import org.junit.Test;
+
+import com.github.gv2011.util.bytes.Bytes;
+
+public class ASN1IntegerTest
+{
+    private static final long[] VALUES = {
+        0, 1, -1, 127, 128, -128, -129, 255, 256, 32767, 32768, -32769,
+        Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE
+    };
+
+    private static Bytes encoding(final BigInteger value)
+    {
+        final byte[] contents = value.toByteArray();
+        final byte[] encoding = new byte[contents.length + 2];
+        encoding[0] = BERTags.INTEGER;
+        encoding[1] = (byte)contents.length;
+        System.arraycopy(contents, 0, encoding, 2, contents.length);
+        return newBytes(encoding);
+    }
+
+    @Test
+    public void testLongValues()
+    {
+        for (final long value : VALUES)
+        {
+            final ASN1Integer integer = new ASN1Integer(value);
+            final Bytes expected = encoding(BigInteger.valueOf(value));
+            assertThat(integer.getEncoded(), is(expected));
+            assertThat(integer.getValue(), is(BigInteger.valueOf(value)));
+            assertThat(integer.longValueExact(), is(value));
+
+            final ASN1Integer decoded = (ASN1Integer)ASN1Primitive.fromBytes(expected);
+            assertThat(decoded, is(integer));
+            assertThat(decoded.hashCode(), is(integer.hashCode()));
+            assertThat(decoded.longValueExact(), is(value));
+            assertThat(decoded.toString(), is(Long.toString(value)));
+            assertThat(new ASN1Integer(BigInteger.valueOf(value)), is(integer));
+        }
+    }
+
+    @Test
+    public void testLargeValue()
+    {
+        final BigInteger big = BigInteger.ONE.shiftLeft(70).negate();
+        final ASN1Integer integer = new ASN1Integer(big);
+        assertThat(integer.getEncoded(), is(encoding(big)));
+        assertThat(((ASN1Integer)ASN1Primitive.fromBytes(encoding(big))).getValue(), is(big));
+        try
+        {
+            integer.longValueExact();
+            fail();
+        }
+        catch (final ArithmeticException e)
+        {
+        }
+    }
+
+    @Test
+    public void testPositiveValue()
+    {
+        assertThat(new ASN1Integer(parseHex("ff")).getPositiveValue(), is(BigInteger.valueOf(255)));
+        assertThat(new ASN1Integer(parseHex("80 00 00 00 00 00 00 00")).getPositiveValue(),
+            is(BigInteger.ONE.shiftLeft(63)));
+    }
+
+    @Test
+    public void testIntValueExact()
+    {
+        assertThat(new ASN1Integer(-5).intValueExact(), is(-5));
+        try
+        {
+            new ASN1Integer(1L << 40).intValueExact();
+            fail();
+        }
+        catch (final ArithmeticException e)
+        {
+        }
+    }
+
+    @Test
+    public void testSmallValuesAreShared()
+    {
+        final Bytes encoded = parseHex("02 01 05");
+        assertSame(ASN1Primitive.fromBytes(encoded), ASN1Primitive.fromBytes(encoded));
+        assertSame(ASN1Integer.valueOf(-3), ASN1Integer.valueOf(-3));
+        assertThat(ASN1Integer.valueOf(-3).getEncoded(), is(parseHex("02 01 fd")));
+    }
+
+    @Test
+    public void testNonMinimalEncoding()
+    {
+        final ASN1Integer padded = new ASN1Integer(parseHex("00 05"));
+        assertThat(padded.getEncoded(), is(parseHex("02 02 00 05")));
+        assertThat(padded.longValueExact(), is(5L));
+        assertNotEquals(padded, new ASN1Integer(5));
+    }
+}
@@ -0,0 +1,158 @@
+package com.github.gv2011.asn1;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import static com.github.gv2011.testutil.Matchers.is;
+import static com.github.gv2011.util.bytes.ByteUtils.newBytes;
+import static com.github.gv2011.util.bytes.ByteUtils.parseHex;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+
+import org.junit.Test;
+
+import com.github.gv2011.util.bytes.Bytes;
+
+public class ASN1OutputStreamTest
+{
+    private static Bytes encode(final ASN1OutputStream out, final ByteArrayOutputStream bOut, final ASN1Encodable obj)
+    {
+        out.writeObject(obj);
+        // available without a flush once the outermost object is written
+        return newBytes(bOut.toByteArray());
+    }
+
+    private static Bytes berEncoded(final ASN1Encodable obj)
+    {
+        final ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        return encode(new ASN1OutputStream(bOut), bOut, obj);
+    }
+
+    private static Bytes derEncoded(final ASN1Encodable obj)
+    {
+        final ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        return encode(new DEROutputStream(bOut), bOut, obj);
+    }
+
+    @Test
+    public void testNullObject() throws Exception
+    {
+        final ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        final BEROutputStream out = new BEROutputStream(bOut);
+
+        out.writeObject((Object)null);
+        assertThat(newBytes(bOut.toByteArray()), is(parseHex("05 00")));
+        out.writeObject((Object)DERNull.INSTANCE);
+        assertThat(newBytes(bOut.toByteArray()), is(parseHex("05 00 05 00")));
+    }
+
+    @Test
+    public void testWriteAfterFailedWrite()
+    {
+        final ASN1Encodable broken = new ASN1Encodable()
+        {
+            @Override
+            public ASN1Primitive toASN1Primitive()
+            {
+                throw new IllegalStateException("broken");
+            }
+        };
+        final ASN1Encodable[] failing = {
+            new BERSequence(new ASN1Encodable[] { new ASN1Integer(2), broken }),
+            // fails after the implicit tag is set up, before the identifier is written
+            new DERTaggedObject(false, 1, new DERSequence(broken)),
+        };
+
+        for (final ASN1Encodable obj : failing)
+        {
+            final ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+            final ASN1OutputStream out = new ASN1OutputStream(bOut);
+            try
+            {
+                out.writeObject(obj);
+                fail();
+            }
+            catch (final IllegalStateException e)
+            {
+                assertThat(e.getMessage(), is("broken"));
+            }
+
+            encode(out, bOut, new ASN1Integer(3));
+            assertThat(encode(out, bOut, new ASN1Integer(4)), is(parseHex("02 01 03 02 01 04")));
+        }
+    }
+
+    @Test
+    public void testImplicitHighTag()
+    {
+        final ASN1Encodable obj = new DERTaggedObject(false, 300, new DERSequence(new ASN1Integer(5)));
+
+        assertThat(berEncoded(obj), is(parseHex("bf 82 2c 03 02 01 05")));
+        assertThat(derEncoded(obj), is(parseHex("bf 82 2c 03 02 01 05")));
+    }
+
+    @Test
+    public void testLongLength()
+    {
+        final byte[] content = new byte[0x12345];
+        content[content.length - 1] = 7;
+        final Bytes encoded = derEncoded(new DERSequence(new DEROctetString(newBytes(content))));
+
+        assertThat(encoded.subList(0, 10), is(parseHex("30 83 01 23 4a 04 83 01 23 45")));
+        assertThat(encoded.size(), is(10 + content.length));
+        assertThat(encoded.getByte(encoded.size() - 1), is((byte)7));
+    }
+
+    @Test
+    public void testSubtreeForm()
+    {
+        final ASN1Encodable inner = new BERSequence(DERNull.INSTANCE);
+
+        // the DER subtree is written in DER within a BER stream, the BER parts around it are not
+        assertThat(
+            berEncoded(new BERSequence(new DERSequence(inner))),
+            is(parseHex("30 80 30 04 30 02 05 00 00 00")));
+        assertThat(
+            berEncoded(new BERSequence(new ASN1Encodable[]{new DERSequence(), inner})),
+            is(parseHex("30 80 30 00 30 80 05 00 00 00 00 00")));
+        assertThat(derEncoded(new BERSequence(inner)), is(parseHex("30 04 30 02 05 00")));
+    }
+
+    @Test
+    public void testSequenceOfStreams()
+    {
+        final ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        final ASN1OutputStream out = new ASN1OutputStream(bOut);
+
+        encode(out, bOut, new ASN1Integer(1));
+        assertThat(encode(out, bOut, new ASN1Integer(2)), is(parseHex("02 01 01 02 01 02")));
+    }
+}
@@ -0,0 +1,148 @@
+package com.github.gv2011.asn1;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import static com.github.gv2011.testutil.Matchers.hasClass;
+import static com.github.gv2011.testutil.Matchers.is;
+import static com.github.gv2011.util.bytes.ByteUtils.parseHex;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.github.gv2011.util.bytes.Bytes;
+
+public class ASN1ParallelParserTest
+{
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    // a CRL like structure with many entries
+    private static Bytes sample()
+    {
+        final ASN1EncodableVector entries = new ASN1EncodableVector();
+        for (int i = 0; i != 500; i++)
+        {
+            entries.add(new DERSequence(new ASN1Encodable[] {
+                new ASN1Integer(i), new ASN1UTCTime("170101120000Z"),
+                new DERSequence(new DERSequence(new ASN1Encodable[] {
+                    new ASN1ObjectIdentifier("2.5.29.21"), new DEROctetString(parseHex("0a 01 01"))}))}));
+        }
+        final ASN1EncodableVector tbs = new ASN1EncodableVector();
+        tbs.add(new ASN1Integer(1));
+        tbs.add(new DERSequence(new ASN1ObjectIdentifier("1.2.840.113549.1.1.11")));
+        tbs.add(new DERSet(new DERUTF8String("issuer")));
+        tbs.add(new DERSequence(entries));
+        tbs.add(new DERTaggedObject(true, 0, new DERSequence(new DERSequence(entries))));
+        tbs.add(new DERSequence());
+        return new DERSequence(new ASN1Encodable[] {
+            new DERSequence(tbs), new DERBitString(parseHex("aabbcc"))}).getEncoded();
+    }
+
+    @Test
+    public void testSameAsBufferParser()
+    {
+        final Bytes encoding = sample();
+        final ASN1Primitive expected = new ASN1BufferParser(encoding).readObject();
+        for (final int threshold : new int[] {1, 100, 1000, ASN1ParallelParser.DEFAULT_THRESHOLD})
+        {
+            final ASN1Primitive actual = new ASN1ParallelParser(POOL, threshold).parse(encoding);
+            assertThat(actual, is(expected));
+            assertThat(actual, hasClass(DLSequence.class));
+            assertThat(actual.getEncoded(), is(encoding));
+        }
+        assertThat(new ASN1ParallelParser().parse(encoding), is(expected));
+    }
+
+    @Test
+    public void testSet()
+    {
+        final ASN1EncodableVector v = new ASN1EncodableVector();
+        for (int i = 0; i != 100; i++)
+        {
+            v.add(new ASN1Integer(i));
+        }
+        final Bytes encoding = new DERSet(v).getEncoded();
+        final ASN1Primitive actual = new ASN1ParallelParser(POOL, 10).parse(encoding);
+        assertThat(actual, hasClass(DLSet.class));
+        assertThat(actual, is(new ASN1BufferParser(encoding).readObject()));
+    }
+
+    @Test
+    public void testMembers()
+    {
+        final Bytes encoding = sample();
+        final ASN1Sequence entries = (ASN1Sequence)ASN1Path.compile("[0][3]").select(encoding);
+        final ASN1ParallelParser parser = new ASN1ParallelParser(POOL, 100);
+        final List<ASN1Primitive> members = parser.members(encoding, ASN1Path.compile("[0][3]"))
+            .parallel().collect(Collectors.toList());
+        assertThat(members.size(), is(500));
+        for (int i = 0; i != members.size(); i++)
+        {
+            assertThat(members.get(i), is(entries.getObjectAt(i).toASN1Primitive()));
+        }
+        assertThat(parser.members(encoding, ASN1Path.compile("[0][0]")).count(), is(0L));
+        assertThat(parser.members(encoding, ASN1Path.compile("[0][5]")).count(), is(0L));
+        assertThat(parser.members(encoding, ASN1Path.compile("[0][9]")).count(), is(0L));
+
+        final Bytes indefinite = new BERSequence(new ASN1Encodable[] {new ASN1Integer(1), new ASN1Integer(2)}).getEncoded();
+        assertThat(parser.members(indefinite, ASN1Path.compile("*")).collect(Collectors.toList()),
+            is(List.of(new ASN1Integer(1), new ASN1Integer(2))));
+    }
+
+    @Test
+    public void testMalformed()
+    {
+        final ASN1ParallelParser parser = new ASN1ParallelParser(POOL, 1);
+        assertNull(parser.parse(parseHex("")));
+        try
+        {
+            parser.parse(parseHex("30 03 02 01 01 00"));
+            fail();
+        }
+        catch (final ASN1Exception e)
+        {
+            assertThat(e.getMessage(), is("Extra data detected in stream"));
+        }
+        try
+        {
+            parser.parse(parseHex("30 06 02 01 01 02 02 01"));
+            fail();
+        }
+        catch (final ASN1ParsingException e)
+        {
+            assertThat(e.getMessage(), is("DEF length 2 object truncated by 1"));
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.github.gv2011.asn1;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import static com.github.gv2011.testutil.Matchers.is;
+import static com.github.gv2011.util.bytes.ByteUtils.parseHex;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.math.BigInteger;
+
+import org.junit.Test;
+
+import com.github.gv2011.util.bytes.Bytes;
+
+public class ASN1PathTest
+{
+    // a certificate like structure
+    private static Bytes sample()
+    {
+        final ASN1EncodableVector tbs = new ASN1EncodableVector();
+        tbs.add(new DERTaggedObject(true, 0, new ASN1Integer(2)));
+        tbs.add(new ASN1Integer(BigInteger.valueOf(123456789)));
+        tbs.add(new DERSequence(new ASN1ObjectIdentifier("1.2.840.113549.1.1.11")));
+        tbs.add(new DERSequence(new DERSet(new DERSequence(new ASN1Encodable[] {
+            new ASN1ObjectIdentifier("2.5.4.3"), new DERUTF8String("issuer")}))));
+        tbs.add(new DERSequence(new ASN1Encodable[] {
+            new ASN1UTCTime("170101120000Z"), new ASN1UTCTime("270101120000Z")}));
+        tbs.add(new DERSequence(new DERSet(new DERSequence(new ASN1Encodable[] {
+            new ASN1ObjectIdentifier("2.5.4.3"), new DERUTF8String("subject")}))));
+        tbs.add(new DERTaggedObject(false, 1, new DERBitString(parseHex("0102"))));
+
+        final ASN1EncodableVector cert = new ASN1EncodableVector();
+        cert.add(new DERSequence(tbs));
+        cert.add(new DERSequence(new ASN1ObjectIdentifier("1.2.840.113549.1.1.11")));
+        cert.add(new DERBitString(parseHex("aabbcc")));
+        return new DERSequence(cert).getEncoded();
+    }
+
+    @Test
+    public void testIndexPath()
+    {
+        final Bytes encoding = sample();
+        assertThat(ASN1Path.compile("[0][5][0][0][1]").select(encoding), is(new DERUTF8String("subject")));
+        assertThat(ASN1Path.compile("[0][1]").select(encoding), is(new ASN1Integer(123456789)));
+        assertThat(ASN1Path.compile("[2]").select(encoding), is(new DERBitString(parseHex("aabbcc"))));
+        assertNull(ASN1Path.compile("[3]").select(encoding));
+        assertNull(ASN1Path.compile("[0][1][0]").select(encoding));
+    }
+
+    @Test
+    public void testTagPath()
+    {
+        final Bytes encoding = sample();
+        assertThat(ASN1Path.compile("SEQUENCE/SEQUENCE/[0]/INTEGER").select(encoding), is(new ASN1Integer(2)));
+        assertThat(ASN1Path.compile("SEQUENCE/SEQUENCE/INTEGER").select(encoding), is(new ASN1Integer(123456789)));
+        assertThat(ASN1Path.compile("/SEQUENCE/SEQUENCE/SEQUENCE#2/#1").select(encoding),
+            is(new ASN1UTCTime("270101120000Z")));
+        assertThat(ASN1Path.compile("*/#0/[CONTEXT 1]").extract(encoding), is(parseHex("81 03 00 01 02")));
+        assertThat(ASN1Path.compile("SEQUENCE/BIT_STRING").select(encoding), is(new DERBitString(parseHex("aabbcc"))));
+        assertNull(ASN1Path.compile("SET").select(encoding));
+        assertNull(ASN1Path.compile("SEQUENCE/SEQUENCE/[2]").select(encoding));
+    }
+
+    @Test
+    public void testExtractIsView()
+    {
+        final Bytes encoding = sample();
+        final ASN1PullParser parser = new ASN1PullParser(encoding);
+        assertThat(ASN1Path.compile("[0][2]").find(parser), is(true));
+        assertThat(parser.getEvent(), is(ASN1PullParser.START_CONSTRUCTED));
+        final long offset = parser.getOffset();
+        final Bytes element = parser.getEncoded();
+        assertThat(element, is(encoding.subList(offset, offset + element.longSize())));
+        assertThat(element, is(new DERSequence(new ASN1ObjectIdentifier("1.2.840.113549.1.1.11")).getEncoded()));
+    }
+
+    @Test
+    public void testIndefiniteLength()
+    {
+        final ASN1EncodableVector v = new ASN1EncodableVector();
+        v.add(new BERSequence(new ASN1EncodableVector()));
+        v.add(new BERTaggedObject(true, 3, new BERSequence(new ASN1Integer(42))));
+        final Bytes encoding = new BERSequence(v).getEncoded();
+        assertThat(ASN1Path.compile("SEQUENCE/[3]/SEQUENCE/INTEGER").select(encoding), is(new ASN1Integer(42)));
+        assertThat(ASN1Path.compile("[1][0][0]").select(encoding), is(new ASN1Integer(42)));
+        assertNull(ASN1Path.compile("[1][0][1]").select(encoding));
+    }
+
+    @Test
+    public void testMalformedPath()
+    {
+        for (final String path : new String[] {"", "[0]]", "[x]", "SEQUENCE/FOO", "[FOO 1]", "INTEGER#-1", "[-1]"})
+        {
+            try
+            {
+                ASN1Path.compile(path);
+                fail(path);
+            }
+            catch (final IllegalArgumentException e)
+            {
+                // expected
+            }
+        }
+    }
+}
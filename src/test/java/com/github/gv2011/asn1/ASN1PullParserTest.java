@@ -0,0 +1,396 @@
+package com.github.gv2011.asn1;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import static com.github.gv2011.testutil.Matchers.is;
+import static com.github.gv2011.util.bytes.ByteUtils.parseHex;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.gv2011.asn1.util.io.ByteBufferBytes;
+import com.github.gv2011.util.bytes.Bytes;
+
+public class ASN1PullParserTest
+{
+    // SEQUENCE { INTEGER 5, [0] { OCTET STRING 01 02 }, NULL }
+    private static final Bytes DEFINITE = parseHex("30 0b 02 01 05 a0 04 04 02 01 02 05 00");
+
+    // SEQUENCE (indefinite) { INTEGER 5, [0] (indefinite) { OCTET STRING 01 02 }, NULL }
+    private static final Bytes INDEFINITE = parseHex("30 80 02 01 05 a0 80 04 02 01 02 00 00 05 00 00 00");
+
+    // SEQUENCE (indefinite) { OCTET STRING (indefinite) { 01 02, { 03, 04 }, '', (indefinite) { 05 } }, INTEGER 7 }
+    private static final Bytes NESTED_OCTETS = parseHex(
+        "30 80 24 80 04 02 01 02 24 06 04 01 03 04 01 04 04 00 24 80 04 01 05 00 00 00 00 02 01 07 00 00");
+
+    private static String trace(final ASN1PullParser parser)
+    {
+        final StringBuilder sb = new StringBuilder();
+        int event;
+        while ((event = parser.next()) != ASN1PullParser.END_DOCUMENT)
+        {
+            switch (event)
+            {
+            case ASN1PullParser.START_CONSTRUCTED:
+                sb.append("S");
+                break;
+            case ASN1PullParser.PRIMITIVE:
+                sb.append("P");
+                break;
+            case ASN1PullParser.END_CONSTRUCTED:
+                sb.append("E");
+                break;
+            case ASN1PullParser.EOC:
+                sb.append("EOC");
+                break;
+            default:
+                fail();
+            }
+            if (event != ASN1PullParser.EOC)
+            {
+                sb.append(Integer.toHexString(parser.getTag())).append('/').append(parser.getTagNo())
+                    .append('@').append(parser.getOffset()).append('+').append(parser.getLength());
+            }
+            if (event == ASN1PullParser.PRIMITIVE)
+            {
+                sb.append('=').append(parser.getContent().toHex());
+            }
+            sb.append(' ');
+        }
+        return sb.toString();
+    }
+
+    private static void assertTrace(final Bytes encoding, final String expected)
+    {
+        assertThat(trace(new ASN1PullParser(encoding)), is(expected));
+        assertThat(trace(new ASN1PullParser(ByteBuffer.wrap(encoding.toByteArray()))), is(expected));
+        assertThat(trace(new ASN1PullParser(encoding.openStream())), is(expected));
+    }
+
+    @Test
+    public void testDefiniteLength()
+    {
+        assertTrace(DEFINITE,
+            "S20/16@0+11 P0/2@2+1=05 Sa0/0@5+4 P0/4@7+2=0102 Ea0/0@5+4 P0/5@11+0= E20/16@0+11 ");
+    }
+
+    @Test
+    public void testIndefiniteLength()
+    {
+        assertTrace(INDEFINITE,
+            "S20/16@0+-1 P0/2@2+1=05 Sa0/0@5+-1 P0/4@7+2=0102 EOC Ea0/0@5+-1 P0/5@13+0= EOC E20/16@0+-1 ");
+    }
+
+    @Test
+    public void testMultipleObjects()
+    {
+        assertTrace(parseHex("02 01 01 02 01 02"), "P0/2@0+1=01 P0/2@3+1=02 ");
+    }
+
+    @Test
+    public void testHighTagNumber()
+    {
+        assertTrace(parseHex("9f 81 00 01 07"), "P80/128@0+1=07 ");
+    }
+
+    @Test
+    public void testSkip()
+    {
+        for (final Bytes encoding : new Bytes[] {DEFINITE, INDEFINITE})
+        {
+            final ASN1PullParser parser = new ASN1PullParser(encoding.openStream());
+            assertThat(parser.next(), is(ASN1PullParser.START_CONSTRUCTED));
+            assertThat(parser.next(), is(ASN1PullParser.PRIMITIVE));
+            assertThat(parser.next(), is(ASN1PullParser.START_CONSTRUCTED));
+            parser.skip();
+            assertThat(parser.getEvent(), is(ASN1PullParser.END_CONSTRUCTED));
+            assertThat(parser.isTagged(0), is(true));
+            assertThat(parser.getDepth(), is(1));
+            assertThat(parser.next(), is(ASN1PullParser.PRIMITIVE));
+            assertThat(parser.isUniversal(BERTags.NULL), is(true));
+            parser.skip();
+            parser.next();
+            if (parser.getEvent() == ASN1PullParser.EOC)
+            {
+                parser.next();
+            }
+            assertThat(parser.getEvent(), is(ASN1PullParser.END_CONSTRUCTED));
+            assertThat(parser.next(), is(ASN1PullParser.END_DOCUMENT));
+        }
+
+        final ASN1PullParser parser = new ASN1PullParser(INDEFINITE);
+        parser.next();
+        parser.skip();
+        assertThat(parser.getOffset(), is(0L));
+        assertThat(parser.next(), is(ASN1PullParser.END_DOCUMENT));
+    }
+
+    @Test
+    public void testReadContent()
+    {
+        final ASN1PullParser parser = new ASN1PullParser(DEFINITE.openStream());
+        parser.next();
+        parser.next();
+        parser.next();
+        assertThat(parser.next(), is(ASN1PullParser.PRIMITIVE));
+        final byte[] buf = new byte[4];
+        assertThat(parser.readContent(buf, 0, 1), is(1));
+        assertThat(parser.readContent(buf, 1, 3), is(1));
+        assertThat(parser.readContent(buf, 2, 2), is(-1));
+        assertThat(buf[1], is((byte)2));
+    }
+
+    @Test
+    public void testReset()
+    {
+        final ASN1PullParser parser = new ASN1PullParser(DEFINITE);
+        parser.next();
+        assertThat(trace(parser.reset(INDEFINITE.openStream())), is(trace(new ASN1PullParser(INDEFINITE))));
+        assertThat(parser.reset(ByteBuffer.wrap(DEFINITE.toByteArray())).next(), is(ASN1PullParser.START_CONSTRUCTED));
+        assertThat(parser.getDepth(), is(1));
+    }
+
+    @Test
+    public void testSameStructureAsParser()
+    {
+        final ASN1EncodableVector v = new ASN1EncodableVector();
+        for (int i = 0; i != 100; i++)
+        {
+            v.add(new DERSequence(new ASN1Encodable[] {new ASN1Integer(i), new DERUTF8String("x" + i)}));
+        }
+        final Bytes encoding = new DERSequence(v).getEncoded();
+        final ASN1PullParser parser = new ASN1PullParser(encoding);
+        int primitives = 0;
+        int maxDepth = 0;
+        int event;
+        while ((event = parser.next()) != ASN1PullParser.END_DOCUMENT)
+        {
+            if (event == ASN1PullParser.PRIMITIVE)
+            {
+                primitives++;
+                maxDepth = Math.max(maxDepth, parser.getDepth());
+            }
+        }
+        assertThat(primitives, is(200));
+        assertThat(maxDepth, is(2));
+    }
+
+    @Test
+    public void testTruncated()
+    {
+        assertFails(parseHex("30 05 02 01 05"), "DEF length 5 object truncated by 2");
+        assertFails(parseHex("30 03 02 02 05"), "DEF length 2 object truncated by 1");
+        assertFails(parseHex("30 80 02 01 05"), "EOF found before end-of-contents marker");
+        assertFails(parseHex("04 80"), "indefinite-length primitive encoding encountered");
+        assertFails(parseHex("30 00 00 00"), "unexpected end-of-contents marker");
+    }
+
+    @Test
+    public void testTruncatedStream()
+    {
+        final byte[] truncated = parseHex("04 05 01 02").toByteArray();
+
+        final ASN1PullParser parser = new ASN1PullParser(new ByteArrayInputStream(truncated));
+        assertThat(parser.next(), is(ASN1PullParser.PRIMITIVE));
+        assertContentFails(parser::getContent, "EOF encountered in middle of object");
+
+        final ASN1PullParser reader = new ASN1PullParser(new ByteArrayInputStream(truncated));
+        reader.next();
+        final byte[] buf = new byte[5];
+        assertThat(reader.readContent(buf, 0, 5), is(2));
+        assertContentFails(() -> reader.readContent(buf, 2, 3), "EOF encountered in middle of object");
+
+        final ASN1PullParser huge = new ASN1PullParser(
+            new ByteArrayInputStream(parseHex("04 84 80 00 00 00 01").toByteArray()));
+        huge.next();
+        assertContentFails(huge::getContent, "contents of 2147483648 octets too large for getContent()");
+    }
+
+    @Test
+    public void testEncodedNeedsInMemoryInput()
+    {
+        final ASN1PullParser parser = new ASN1PullParser(DEFINITE.openStream());
+        parser.next();
+        parser.next();
+        assertThat(parser.next(), is(ASN1PullParser.START_CONSTRUCTED));
+        for (final Runnable read : new Runnable[] { parser::getEncoded, parser::readObject })
+        {
+            try
+            {
+                read.run();
+                fail();
+            }
+            catch (final IllegalStateException e)
+            {
+                assertThat(e.getMessage(), is("getEncoded() and readObject() need in-memory input"));
+            }
+        }
+
+        // still at the start of [0]
+        assertThat(parser.getOffset(), is(5L));
+        assertThat(parser.next(), is(ASN1PullParser.PRIMITIVE));
+        assertThat(parser.getOffset(), is(7L));
+    }
+
+    private static void assertContentFails(final Runnable read, final String message)
+    {
+        try
+        {
+            read.run();
+            fail();
+        }
+        catch (final ASN1ParsingException e)
+        {
+            assertThat(e.getMessage(), is(message));
+        }
+    }
+
+    @Test
+    public void testTransferNestedOctets()
+    {
+        final ASN1PullParser parser = new ASN1PullParser(NESTED_OCTETS);
+        parser.next();
+        parser.next();
+        final ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        assertThat(parser.transferOctets(Channels.newChannel(bOut)), is(5L));
+        assertThat(Arrays.equals(bOut.toByteArray(), new byte[]{1, 2, 3, 4, 5}), is(true));
+        assertThat(parser.getEvent(), is(ASN1PullParser.END_CONSTRUCTED));
+        assertThat(parser.next(), is(ASN1PullParser.PRIMITIVE));
+        assertThat(parser.getTagNo(), is(BERTags.INTEGER));
+    }
+
+    @Test
+    public void testReadNestedOctets()
+    {
+        final ASN1PullParser parser = new ASN1PullParser(NESTED_OCTETS);
+        parser.next();
+        parser.next();
+        final ByteBuffer buf = ByteBuffer.allocate(2);
+        assertThat(parser.readOctets(buf), is(2));
+        buf.clear();
+        assertThat(parser.readOctets(buf), is(2));
+        assertThat(buf.get(0), is((byte)3));
+        buf.clear();
+        assertThat(parser.readOctets(buf), is(1));
+        assertThat(buf.get(0), is((byte)5));
+        buf.clear();
+        assertThat(parser.readOctets(buf), is(-1));
+        assertThat(parser.next(), is(ASN1PullParser.PRIMITIVE));
+        assertThat(parser.getTagNo(), is(BERTags.INTEGER));
+    }
+
+    @Test
+    public void testTransferLargeOctets() throws IOException
+    {
+        final byte[] data = new byte[200000];
+        new Random(1).nextBytes(data);
+        final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        final BEROctetStringGenerator gen = new BEROctetStringGenerator(encoded);
+        try(final OutputStream octOut = gen.getOctetOutputStream())
+        {
+            octOut.write(data);
+        }
+        final byte[] encoding = encoded.toByteArray();
+        final ByteBuffer direct = ByteBuffer.allocateDirect(encoding.length);
+        direct.put(encoding).flip();
+
+        final ASN1PullParser[] parsers = new ASN1PullParser[]{
+            new ASN1PullParser(ByteBufferBytes.wrap(encoding)),
+            new ASN1PullParser(direct),
+            new ASN1PullParser(new ByteArrayInputStream(encoding))
+        };
+        for (final ASN1PullParser parser : parsers)
+        {
+            parser.next();
+            final ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+            assertThat(parser.transferOctets(Channels.newChannel(bOut)), is((long)data.length));
+            assertThat(Arrays.equals(bOut.toByteArray(), data), is(true));
+            assertThat(parser.next(), is(ASN1PullParser.END_DOCUMENT));
+        }
+
+        direct.rewind();
+        final ASN1PullParser parser = new ASN1PullParser(direct);
+        parser.next();
+        final ByteBuffer buf = ByteBuffer.allocateDirect(4096);
+        final ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        while (parser.readOctets(buf) >= 0)
+        {
+            buf.flip();
+            while (buf.hasRemaining())
+            {
+                bOut.write(buf.get());
+            }
+            buf.clear();
+        }
+        assertThat(Arrays.equals(bOut.toByteArray(), data), is(true));
+    }
+
+    @Test
+    public void testTransferInvalidSegment()
+    {
+        final ASN1PullParser parser = new ASN1PullParser(parseHex("24 80 02 01 05 00 00"));
+        parser.next();
+        try
+        {
+            parser.transferOctets(Channels.newChannel(new ByteArrayOutputStream()));
+            fail();
+        }
+        catch (final ASN1ParsingException e)
+        {
+            assertThat(e.getMessage(), is("unknown object encountered in constructed OCTET STRING: 2"));
+        }
+    }
+
+    private static void assertFails(final Bytes encoding, final String message)
+    {
+        final ASN1PullParser parser = new ASN1PullParser(encoding);
+        try
+        {
+            while (parser.next() != ASN1PullParser.END_DOCUMENT)
+            {
+            }
+            fail();
+        }
+        catch (final ASN1ParsingException e)
+        {
+            assertThat(e.getMessage(), is(message));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.github.gv2011.asn1;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import static com.github.gv2011.testutil.Matchers.is;
+import static com.github.gv2011.util.bytes.ByteUtils.newBytes;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BERInputBufferTest
+{
+    private static byte[] readAll(final InputStream in) throws IOException
+    {
+        final ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        final byte[] buf = new byte[3];
+        int count;
+        while ((count = in.read(buf, 0, buf.length)) >= 0)
+        {
+            bOut.write(buf, 0, count);
+        }
+        return bOut.toByteArray();
+    }
+
+    @Test
+    public void testDeepNesting() throws IOException
+    {
+        final byte[] data = new byte[20000];
+        new Random(1).nextBytes(data);
+        ASN1Primitive obj = new DEROctetString(newBytes(data));
+        for (int i = 0; i != 300; i++)
+        {
+            obj = i % 2 == 0 ? new BERSequence(obj) : new DERSequence(obj);
+        }
+        final ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        obj.getEncoded().write(bOut);
+        bOut.write(new byte[]{5, 0});
+
+        final ByteArrayInputStream raw = new ByteArrayInputStream(bOut.toByteArray());
+        try(final ASN1InputStream in = new ASN1InputStream(raw))
+        {
+            assertThat(in.readObject(), is(obj));
+            // nothing beyond the object has been read from the underlying stream
+            assertThat(raw.read(), is(5));
+        }
+    }
+
+    @Test
+    public void testBulkReadStopsAtEndOfContents() throws IOException
+    {
+        final ByteArrayInputStream raw = new ByteArrayInputStream(new byte[]{1, 2, 0, 3, 0, 4, 0, 0, 5});
+        final IndefiniteLengthInputStream in = new IndefiniteLengthInputStream(raw, 100);
+        assertThat(newBytes(readAll(in)), is(newBytes(new byte[]{1, 2, 0, 3, 0, 4})));
+        assertThat(raw.read(), is(5));
+    }
+
+    @Test
+    public void testDefiniteLengthDoesNotReadAhead() throws IOException
+    {
+        final ByteArrayInputStream raw = new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5});
+        final DefiniteLengthInputStream in = new DefiniteLengthInputStream(raw, 3);
+        assertThat(in.toByteArray(), is(newBytes(new byte[]{1, 2, 3})));
+        assertThat(in.read(), is(-1));
+        assertThat(raw.read(), is(4));
+    }
+
+    @Test
+    public void testTruncated() throws IOException
+    {
+        final DefiniteLengthInputStream in = new DefiniteLengthInputStream(new ByteArrayInputStream(new byte[3]), 5);
+        in.read();
+        try
+        {
+            readAll(in);
+            fail();
+        }
+        catch (final EOFException e)
+        {
+            assertThat(e.getMessage(), is("DEF length 5 object truncated by 2"));
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.github.gv2011.asn1;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import static com.github.gv2011.testutil.Matchers.is;
+import static com.github.gv2011.util.bytes.ByteUtils.newBytes;
+import static com.github.gv2011.util.bytes.ByteUtils.parseHex;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.gv2011.util.bytes.Bytes;
+
+public class BEROctetStringGeneratorTest
+{
+    private static byte[] content(final int size)
+    {
+        final byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+
+    private static Bytes generate(final byte[] data, final byte[] buf, final boolean singleBytes)
+        throws IOException
+    {
+        final ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        final BEROctetStringGenerator gen = new BEROctetStringGenerator(bOut);
+        try(final OutputStream octOut = buf == null ? gen.getOctetOutputStream() : gen.getOctetOutputStream(buf))
+        {
+            if (singleBytes)
+            {
+                for (final byte b : data)
+                {
+                    octOut.write(b);
+                }
+            }
+            else
+            {
+                // uneven writes, so segments are filled from several calls
+                int off = 0;
+                int len = 1;
+                while (off < data.length)
+                {
+                    final int n = Math.min(len, data.length - off);
+                    octOut.write(data, off, n);
+                    off += n;
+                    len = len * 3 + 1;
+                }
+            }
+        }
+        return newBytes(bOut.toByteArray());
+    }
+
+    private static void checkSegments(final Bytes encoding, final byte[] data, final int chunkSize)
+    {
+        final ASN1Primitive obj = ASN1Primitive.fromBytes(encoding);
+        assertThat(obj instanceof BEROctetString, is(true));
+        assertThat(((ASN1OctetString)obj).getOctets(), is(newBytes(data)));
+
+        final ASN1PullParser parser = new ASN1PullParser(encoding);
+        assertThat(parser.next(), is(ASN1PullParser.START_CONSTRUCTED));
+        int segments = 0;
+        long total = 0;
+        while (parser.next() == ASN1PullParser.PRIMITIVE)
+        {
+            assertThat(parser.isUniversal(BERTags.OCTET_STRING), is(true));
+            total += parser.getLength();
+            segments++;
+            if (total < data.length)
+            {
+                assertThat(parser.getLength(), is((long)chunkSize));
+            }
+        }
+        assertThat(parser.getEvent(), is(ASN1PullParser.EOC));
+        assertThat(total, is((long)data.length));
+        assertThat(segments, is((data.length + chunkSize - 1) / chunkSize));
+    }
+
+    @Test
+    public void testDefaultChunkSize() throws IOException
+    {
+        final byte[] data = content(10500);
+        checkSegments(generate(data, null, false), data, BEROctetStringGenerator.CER_CHUNK_SIZE);
+        checkSegments(generate(data, null, true), data, BEROctetStringGenerator.CER_CHUNK_SIZE);
+    }
+
+    @Test
+    public void testOtherChunkSizes() throws IOException
+    {
+        for (final int chunkSize : new int[] {1, 7, 127, 128, 256, 65536, 70000})
+        {
+            final byte[] data = content(chunkSize * 3 + 5);
+            checkSegments(generate(data, new byte[chunkSize], false), data, chunkSize);
+        }
+    }
+
+    @Test
+    public void testEmpty() throws IOException
+    {
+        assertThat(generate(new byte[0], null, false), is(parseHex("24 80 00 00")));
+    }
+
+    @Test
+    public void testTagged() throws IOException
+    {
+        final ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        final BEROctetStringGenerator gen = new BEROctetStringGenerator(bOut, 1, true);
+        final OutputStream octOut = gen.getOctetOutputStream(new byte[2]);
+        octOut.write(parseHex("01 02 03").toByteArray());
+        octOut.close();
+        octOut.close();
+        assertThat(newBytes(bOut.toByteArray()), is(parseHex("a1 80 24 80 04 02 01 02 04 01 03 00 00 00 00")));
+
+        bOut.reset();
+        final OutputStream implicitOut = new BEROctetStringGenerator(bOut, 1, false).getOctetOutputStream();
+        implicitOut.write(1);
+        implicitOut.close();
+        assertThat(newBytes(bOut.toByteArray()), is(parseHex("a1 80 04 01 01 00 00")));
+    }
+}
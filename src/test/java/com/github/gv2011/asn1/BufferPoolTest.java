@@ -0,0 +1,154 @@
+package com.github.gv2011.asn1;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import static com.github.gv2011.testutil.Matchers.is;
+import static com.github.gv2011.util.bytes.ByteUtils.parseHex;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.github.gv2011.asn1.util.io.BufferPool;
+import com.github.gv2011.asn1.util.io.BufferingOutputStream;
+import com.github.gv2011.asn1.util.io.ThreadLocalBufferPool;
+import com.github.gv2011.util.bytes.Bytes;
+
+public class BufferPoolTest
+{
+    private static final Bytes ENCODED = parseHex("30 09 06 03 2a 03 04 02 02 01 00");
+
+    private final BufferPool previous = BufferPool.get();
+
+    @After
+    public void restore()
+    {
+        BufferPool.set(previous);
+    }
+
+    @Test
+    public void testAcquireRelease()
+    {
+        final ThreadLocalBufferPool pool = new ThreadLocalBufferPool(1);
+
+        final byte[] a = pool.acquire(100);
+        assertThat(a.length, is(128));
+        pool.release(a);
+        assertSame(a, pool.acquire(65));
+
+        pool.release(a);
+        pool.release(new byte[128]);   // beyond the arrays kept per size
+        pool.release(new byte[100]);   // not a pooled size
+        assertSame(a, pool.acquire(128));
+        assertNotSame(a, pool.acquire(128));
+
+        assertThat(pool.acquire(0).length, is(16));
+        assertThat(pool.acquire(100000).length, is(100000));
+
+        assertThat(pool.getHits(), is(2L));
+        assertThat(pool.getMisses(), is(3L));
+    }
+
+    @Test
+    public void testSteadyState()
+    {
+        final ThreadLocalBufferPool pool = new ThreadLocalBufferPool();
+        BufferPool.set(pool);
+
+        final ASN1Primitive obj = ASN1Primitive.fromBytes(ENCODED);
+        assertThat(obj.getEncoded(), is(ENCODED));
+        assertThat(new ASN1InputStream(ENCODED).readObject(), is(obj));
+        final long misses = pool.getMisses();
+
+        for (int i = 0; i != 10; i++)
+        {
+            assertThat(obj.getEncoded(), is(ENCODED));
+            assertThat(new ASN1InputStream(ENCODED).readObject(), is(obj));
+        }
+        assertThat(pool.getMisses(), is(misses));
+        assertTrue(pool.getHits() >= 20);
+    }
+
+    @Test
+    public void testBufferingOutputStream()
+    {
+        BufferPool.set(new ThreadLocalBufferPool());
+
+        final ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        final BufferingOutputStream out = new BufferingOutputStream(bOut, 100);
+        final byte[] data = new byte[250];
+        data[249] = 1;
+
+        out.write(data, 0, data.length);
+        assertThat(bOut.size(), is(200));
+        out.close();
+        assertThat(bOut.toByteArray()[249], is((byte)1));
+        assertThat(bOut.size(), is(250));
+    }
+
+    @Test
+    public void testBufferingOutputStreamClosedTwice()
+    {
+        final ThreadLocalBufferPool pool = new ThreadLocalBufferPool();
+        BufferPool.set(pool);
+
+        final ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        final BufferingOutputStream out = new BufferingOutputStream(bOut, 100);
+
+        out.write(7);
+        out.close();
+        out.flush();
+        out.close();
+        assertThat(bOut.toByteArray(), is(new byte[] { 7 }));
+
+        // the buffer went back to the pool once only
+        assertNotSame(pool.acquire(100), pool.acquire(100));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testBufferingOutputStreamWriteAfterClose()
+    {
+        final BufferingOutputStream out = new BufferingOutputStream(new ByteArrayOutputStream(), 100);
+
+        out.close();
+        out.write(7);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullPool()
+    {
+        BufferPool.set(null);
+    }
+}
@@ -0,0 +1,156 @@
+package com.github.gv2011.asn1;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import static com.github.gv2011.testutil.Matchers.is;
+import static com.github.gv2011.util.bytes.ByteUtils.newBytes;
+import static com.github.gv2011.util.bytes.ByteUtils.newBytesBuilder;
+import static com.github.gv2011.util.bytes.ByteUtils.parseHex;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import com.github.gv2011.util.bytes.Bytes;
+import com.github.gv2011.util.bytes.BytesBuilder;
+
+public class DEREncoderTest
+{
+    private static Bytes streamEncoded(final ASN1Encodable obj)
+    {
+        final BytesBuilder bOut = newBytesBuilder();
+        new DEROutputStream(bOut).writeObject(obj);
+        return bOut.build();
+    }
+
+    private static void assertEncoding(final ASN1Encodable obj)
+    {
+        final Bytes expected = streamEncoded(obj);
+        assertThat(obj.toASN1Primitive().getDerEncoded(), is(expected));
+
+        final ByteBuffer direct = ByteBuffer.allocateDirect(expected.size() + 2);
+        direct.position(1);
+        assertThat(obj.toASN1Primitive().getDerEncoded(direct), is(expected.size()));
+        assertThat(direct.position(), is(expected.size() + 1));
+        direct.flip().position(1);
+        final byte[] written = new byte[expected.size()];
+        direct.get(written);
+        assertThat(newBytes(written), is(expected));
+    }
+
+    private static Bytes zeros(final int length)
+    {
+        return newBytes(new byte[length]);
+    }
+
+    private static ASN1EncodableVector vector(final ASN1Encodable... objs)
+    {
+        final ASN1EncodableVector v = new ASN1EncodableVector();
+        for (final ASN1Encodable obj : objs)
+        {
+            v.add(obj);
+        }
+        return v;
+    }
+
+    @Test
+    public void testLeaves()
+    {
+        assertEncoding(new ASN1Integer(0));
+        assertEncoding(new DEROctetString(zeros(300)));
+        assertEncoding(new DEROctetString(zeros(70000)));
+        assertEncoding(new DERBitString(parseHex("ff f0"), 4));
+        assertEncoding(new DERBMPString("bmp"));
+        assertEncoding(new ASN1UTCTime("170101120000Z"));
+        assertEncoding(DERNull.INSTANCE);
+        assertEncoding(new ASN1ObjectIdentifier("1.2.3.4.5"));
+    }
+
+    @Test
+    public void testConstructed()
+    {
+        final ASN1EncodableVector v = vector(
+            new ASN1Integer(1),
+            new DERUTF8String("x"),
+            new DLSequence(vector(new DEROctetString(zeros(200)), new BERSequence(new ASN1Integer(3)))),
+            new DLSet(vector(new ASN1Integer(300), new ASN1Integer(2), new ASN1Integer(1))),
+            new BERSet(vector(new DERPrintableString("b"), new DERPrintableString("a"))),
+            new BEROctetString(zeros(2500)),
+            new DERSequence(),
+            new DERSet());
+
+        assertEncoding(new DERSequence(v));
+        assertEncoding(new BERSequence(v));
+        assertEncoding(new DLSet(v));
+        assertEncoding(ASN1BufferParser.parse(new DERSequence(v).getEncoded()));
+        assertEncoding(new ASN1BufferParser(new DERSequence(v).getEncoded(), true).readObject());
+    }
+
+    @Test
+    public void testTagged()
+    {
+        final ASN1Encodable seq = new DLSequence(vector(new ASN1Integer(5), new DEROctetString(zeros(130))));
+        final ASN1Encodable set = new DLSet(vector(new ASN1Integer(5), new ASN1Integer(4)));
+
+        for (final int tagNo : new int[] {0, 30, 31, 127, 128, 20000})
+        {
+            assertEncoding(new DERTaggedObject(true, tagNo, seq));
+            assertEncoding(new DERTaggedObject(false, tagNo, seq));
+            assertEncoding(new DERTaggedObject(false, tagNo, set));
+            assertEncoding(new DERTaggedObject(false, tagNo, new DEROctetString(zeros(500))));
+            assertEncoding(new DERTaggedObject(false, tagNo, new ASN1Integer(7)));
+            assertEncoding(new BERTaggedObject(false, tagNo, new BEROctetString(zeros(1500))));
+            assertEncoding(new DERTaggedObject(false, tagNo, new DERTaggedObject(false, 2, seq)));
+            assertEncoding(new DERTaggedObject(false, tagNo, new DERTaggedObject(true, 2, new ASN1Integer(1))));
+            assertEncoding(new DERTaggedObject(true, tagNo, new DERTaggedObject(false, 3, set)));
+            assertEncoding(new BERTaggedObject(tagNo));
+            assertEncoding(new DERSequence(new DERTaggedObject(false, tagNo, seq)));
+        }
+    }
+
+    @Test
+    public void testBufferOverflow()
+    {
+        final ASN1Primitive obj = new DERSequence(new ASN1Integer(1));
+        final ByteBuffer buffer = ByteBuffer.allocate(4);
+        try
+        {
+            obj.getDerEncoded(buffer);
+            fail("overflow not detected");
+        }
+        catch (final BufferOverflowException e)
+        {
+            assertThat(buffer.position(), is(0));
+        }
+    }
+}
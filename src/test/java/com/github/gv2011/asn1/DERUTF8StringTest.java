@@ -31,7 +31,12 @@ package com.github.gv2011.asn1;
 
 import static com.github.gv2011.testutil.Matchers.hasClass;
 import static com.github.gv2011.testutil.Matchers.is;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
 
 import org.junit.Test;
 
@@ -62,6 +67,75 @@ public class DERUTF8StringTest implements LegacyTest{
     main(new String[0]);
   }
 
+  @Test
+  public void testCodecAgainstJdk() {
+    final Random random = new Random(22);
+    for (int i = 0; i != 1000; i++) {
+      final StringBuilder sb = new StringBuilder();
+      for (int j = random.nextInt(20); j != 0; j--) {
+        final int range = random.nextInt(4);
+        int codePoint = random.nextInt(range == 0 ? 0x80 : range == 1 ? 0x800 : range == 2 ? 0x10000 : 0x110000);
+        if (codePoint >= 0xd800 && codePoint <= 0xdfff) codePoint = 'x';
+        sb.appendCodePoint(codePoint);
+      }
+      final String s = sb.toString();
+      final Bytes encoded = Strings.toUTF8ByteArray(s);
+      assertThat(encoded.toByteArray(), is(s.getBytes(StandardCharsets.UTF_8)));
+      assertThat(Strings.fromUTF8ByteArray(encoded), is(s));
+      // not backed by a single array
+      assertThat(Strings.fromUTF8ByteArray(ByteUtils.newBytes(encoded.toByteArray())), is(s));
+    }
+  }
+
+  @Test
+  public void testMalformed() {
+    final String[] malformed = {
+      "80",             // lone continuation byte
+      "c3",             // truncated
+      "e6 9d",          // truncated
+      "c0 80",          // overlong
+      "e0 80 80",       // overlong
+      "f0 80 80 80",    // overlong
+      "ed a0 80",       // surrogate
+      "f4 90 80 80",    // above U+10FFFF
+      "f8 88 80 80 80", // no such lead byte
+      "c3 41",          // bad continuation byte
+    };
+    for (final String hex : malformed) {
+      final DERUTF8String asn1 = new DERUTF8String(ByteUtils.parseHex(hex));
+      try {
+        asn1.getString();
+        fail(hex);
+      }
+      catch (final ASN1ParsingException e) {
+        assertThat(e.getCause() instanceof IllegalArgumentException, is(true));
+      }
+    }
+  }
+
+  @Test
+  public void testMalformedShown() {
+    final ASN1Primitive asn1 = ASN1Primitive.fromBytes(ByteUtils.parseHex("0c 02 c3 28"));
+    assertThat(asn1.toString(), is("\ufffd("));
+    final String nl = Strings.lineSeparator();
+    assertThat(ASN1Dump.dumpAsString(asn1), is("UTF8String(\ufffd() " + nl));
+    final ASN1Primitive seq = ASN1Primitive.fromBytes(ByteUtils.parseHex("30 04 0c 02 c3 28"));
+    assertThat(ASN1Dump.dumpAsString(seq), is("Sequence" + nl + "    UTF8String(\ufffd() " + nl));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testUnpairedSurrogate() {
+    new DERUTF8String("a\ud801b");
+  }
+
+  @Test
+  public void testDecodedOnce() {
+    final DERUTF8String asn1 = (DERUTF8String) ASN1Primitive.fromBytes(new DERUTF8String("\u00e4bc").getEncoded());
+    final String decoded = asn1.getString();
+    assertThat(decoded, is("\u00e4bc"));
+    assertSame(decoded, asn1.getString());
+  }
+
     /**
      * Unicode code point U+10400 coded as surrogate in two native Java UTF-16
      * code units
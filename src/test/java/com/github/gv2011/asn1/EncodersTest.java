@@ -0,0 +1,207 @@
+package com.github.gv2011.asn1;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import static com.github.gv2011.testutil.Matchers.is;
+import static com.github.gv2011.util.bytes.ByteUtils.newBytes;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.gv2011.asn1.util.Strings;
+import com.github.gv2011.asn1.util.encoders.Base64;
+import com.github.gv2011.asn1.util.encoders.DecoderException;
+import com.github.gv2011.asn1.util.encoders.Hex;
+import com.github.gv2011.asn1.util.encoders.UrlBase64;
+
+public class EncodersTest
+{
+    private static byte[] random(final int length)
+    {
+        final byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+    @Test
+    public void testBase64MatchesJdk()
+    {
+        for (int length = 0; length != 100; length++)
+        {
+            final byte[] data = random(length);
+            final String expected = java.util.Base64.getEncoder().encodeToString(data);
+
+            assertThat(Base64.toBase64String(newBytes(data)), is(expected));
+            assertThat(Base64.decode(expected), is(newBytes(data)));
+            assertThat(Base64.decode(Strings.toByteArray(expected)), is(newBytes(data)));
+        }
+    }
+
+    @Test
+    public void testBase64Whitespace()
+    {
+        assertThat(Base64.decode(" SGVs\r\nbG8g\nd29y bGQ=\n"), is(newBytes("Hello world".getBytes(StandardCharsets.US_ASCII))));
+        assertThat(Base64.decode("SGVsbG8gd29ybGQh\tSGk =\n"), is(newBytes("Hello world!Hi".getBytes(StandardCharsets.US_ASCII))));
+        assertThat(Base64.decode("S Q = =").size(), is(1));
+        assertThat(Base64.decode(""), is(newBytes()));
+    }
+
+    @Test(expected = DecoderException.class)
+    public void testBase64Invalid()
+    {
+        Base64.decode("SGVs*G8=");
+    }
+
+    @Test(expected = DecoderException.class)
+    public void testBase64DataAfterPadding()
+    {
+        Base64.decode("SGVsbG8=SGVs");
+    }
+
+    @Test(expected = DecoderException.class)
+    public void testBase64Incomplete()
+    {
+        Base64.decode("SGVsbG8");
+    }
+
+    @Test
+    public void testUrlBase64()
+    {
+        final byte[] data = random(100);
+        final String encoded = Strings.fromByteArray(UrlBase64.encode(newBytes(data)));
+
+        assertThat(encoded, is(java.util.Base64.getUrlEncoder().encodeToString(data).replace('=', '.')));
+        assertThat(UrlBase64.decode(encoded), is(newBytes(data)));
+    }
+
+    @Test
+    public void testBase64Buffers()
+    {
+        final byte[] data = random(10000);
+        final String expected = java.util.Base64.getEncoder().encodeToString(data);
+
+        final ByteBuffer encoded = ByteBuffer.allocateDirect(expected.length());
+        assertThat(Base64.encode(ByteBuffer.wrap(data), encoded), is(expected.length()));
+        encoded.flip();
+        final byte[] chars = new byte[encoded.remaining()];
+        encoded.duplicate().get(chars);
+        assertThat(new String(chars, StandardCharsets.US_ASCII), is(expected));
+
+        final ByteBuffer decoded = ByteBuffer.allocate(data.length + 10);
+        assertThat(Base64.decode(encoded, decoded), is(data.length));
+        assertThat(encoded.hasRemaining(), is(false));
+        decoded.flip();
+        assertThat(decoded, is(ByteBuffer.wrap(data)));
+
+        final byte[] out = new byte[data.length];
+        assertThat(Base64.decode(chars, 0, chars.length, out, 0), is(data.length));
+        assertThat(newBytes(out), is(newBytes(data)));
+    }
+
+    @Test
+    public void testBase64Streams()
+        throws IOException
+    {
+        final byte[] data = random(10000);
+        final String expected = java.util.Base64.getMimeEncoder().encodeToString(data);
+
+        final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        try (OutputStream out = Base64.encodingStream(encoded))
+        {
+            for (int i = 0; i < data.length; i += 7)
+            {
+                out.write(data, i, Math.min(7, data.length - i));
+            }
+        }
+        assertThat(
+            encoded.toString("US-ASCII"),
+            is(java.util.Base64.getEncoder().encodeToString(data))
+        );
+
+        final ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+        try (OutputStream out = Base64.decodingStream(decoded))
+        {
+            final byte[] chars = expected.getBytes(StandardCharsets.US_ASCII);
+            for (int i = 0; i < chars.length; i += 5)
+            {
+                out.write(chars, i, Math.min(5, chars.length - i));
+            }
+        }
+        assertThat(newBytes(decoded.toByteArray()), is(newBytes(data)));
+    }
+
+    @Test
+    public void testHex()
+        throws IOException
+    {
+        final byte[] data = random(5000);
+        final StringBuilder expected = new StringBuilder();
+        for (final byte b : data)
+        {
+            expected.append(String.format("%02x", b & 0xff));
+        }
+
+        assertThat(Hex.toHexString(newBytes(data)), is(expected.toString()));
+        assertThat(Hex.decode(expected.toString().toUpperCase()), is(newBytes(data)));
+        assertThat(Hex.decode("0a 0B\n0c"), is(newBytes((byte)10, (byte)11, (byte)12)));
+
+        final ByteBuffer encoded = ByteBuffer.allocateDirect(data.length * 2);
+        Hex.encode(ByteBuffer.wrap(data), encoded);
+        encoded.flip();
+        final ByteBuffer decoded = ByteBuffer.allocateDirect(data.length);
+        assertThat(Hex.decode(encoded, decoded), is(data.length));
+        decoded.flip();
+        assertThat(decoded, is(ByteBuffer.wrap(data)));
+
+        final ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        try (OutputStream out = Hex.decodingStream(bOut))
+        {
+            final byte[] chars = expected.toString().getBytes(StandardCharsets.US_ASCII);
+            for (int i = 0; i < chars.length; i += 3)
+            {
+                out.write(chars, i, Math.min(3, chars.length - i));
+            }
+        }
+        assertThat(newBytes(bOut.toByteArray()), is(newBytes(data)));
+    }
+
+    @Test(expected = DecoderException.class)
+    public void testHexOdd()
+    {
+        Hex.decode("0a0");
+    }
+}
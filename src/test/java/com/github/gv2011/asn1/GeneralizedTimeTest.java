@@ -29,7 +29,12 @@ package com.github.gv2011.asn1;
  */
 
 
+import static com.github.gv2011.testutil.Matchers.is;
+import static org.junit.Assert.assertThat;
+
 import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.OffsetDateTime;
 import java.util.Date;
 import java.util.SimpleTimeZone;
 import java.util.TimeZone;
@@ -37,6 +42,7 @@ import java.util.TimeZone;
 import org.junit.Test;
 
 import com.github.gv2011.asn1.DERGeneralizedTime;
+import com.github.gv2011.asn1.util.Strings;
 import com.github.gv2011.asn1.util.test.SimpleTest;
 
 /**
@@ -196,6 +202,88 @@ public class GeneralizedTimeTest
         }
     }
 
+    @Test
+    public void testJavaTime()
+        throws Exception
+    {
+        for (int i = 0; i != input.length; i++)
+        {
+            final DERGeneralizedTime t = new DERGeneralizedTime(input[i]);
+
+            assertThat(t.toEpochMilli(), is(t.getDate().getTime()));
+            assertThat(t.toInstant().toEpochMilli(), is(t.getDate().getTime()));
+            assertThat(t.toOffsetDateTime().toInstant(), is(t.toInstant()));
+        }
+
+        final DERGeneralizedTime t = new DERGeneralizedTime("20020122122220.123456789-1030");
+        assertThat(t.toInstant(), is(Instant.parse("2002-01-22T22:52:20.123456789Z")));
+        assertThat(t.toOffsetDateTime(), is(OffsetDateTime.parse("2002-01-22T12:22:20.123456789-10:30")));
+        assertThat(t.toEpochMilli(), is(Instant.parse("2002-01-22T22:52:20.123Z").toEpochMilli()));
+        assertThat(
+            new DERGeneralizedTime("19691231235959.99999999999Z").toInstant(),
+            is(Instant.parse("1969-12-31T23:59:59.999999999Z"))
+        );
+    }
+
+    @Test
+    public void testFromInstant()
+    {
+        assertThat(
+            new ASN1GeneralizedTime(Instant.parse("2002-01-22T12:22:20.120Z")).getTimeString(),
+            is("20020122122220.12Z")
+        );
+        assertThat(
+            new ASN1GeneralizedTime(Instant.parse("1900-02-28T00:00:00Z")).getTimeString(),
+            is("19000228000000Z")
+        );
+        assertThat(
+            new ASN1GeneralizedTime(new Date(1011702140999L)).getTimeString(),
+            is("20020122122220Z")
+        );
+        final Instant i = Instant.parse("2016-02-29T23:59:59.000000001Z");
+        assertThat(new ASN1GeneralizedTime(i).toInstant(), is(i));
+    }
+
+    @Test
+    public void testLenientFields()
+        throws Exception
+    {
+        assertThat(
+            new DERGeneralizedTime("20021322122220Z").toInstant(),
+            is(Instant.parse("2003-01-22T12:22:20Z")));
+        assertThat(
+            new DERGeneralizedTime("20020100122220Z").getDate().getTime(),
+            is(Instant.parse("2001-12-31T12:22:20Z").toEpochMilli()));
+    }
+
+    @Test
+    public void testNoZoneIsUTC()
+        throws Exception
+    {
+        final TimeZone defaultZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Europe/Berlin"));
+        try
+        {
+            final DERGeneralizedTime t = new DERGeneralizedTime("20020122122220");
+            assertThat(t.getDate().getTime(), is(1011702140000L));
+            assertThat(t.toInstant(), is(Instant.parse("2002-01-22T12:22:20Z")));
+            assertThat(t.toOffsetDateTime(), is(OffsetDateTime.parse("2002-01-22T12:22:20Z")));
+            // the time string shows the offset of the default time zone
+            assertThat(t.getTime(), is("20020122122220GMT+01:00"));
+            assertThat(new DERGeneralizedTime("20020722122220").getTime(), is("20020722122220GMT+02:00"));
+        }
+        finally
+        {
+            TimeZone.setDefault(defaultZone);
+        }
+    }
+
+    @Test(expected = ASN1ParsingException.class)
+    public void testInvalidZone()
+    {
+        new ASN1GeneralizedTime(Strings.toByteArray("20020122122220+1")).toInstant();
+    }
+
     private String calculateGMTOffset(Date date)
     {
         String sign = "+";
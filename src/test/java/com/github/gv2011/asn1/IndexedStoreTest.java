@@ -0,0 +1,199 @@
+package com.github.gv2011.asn1;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import static com.github.gv2011.testutil.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+import com.github.gv2011.asn1.util.IndexedSelector;
+import com.github.gv2011.asn1.util.IndexedStore;
+import com.github.gv2011.asn1.util.Selector;
+
+public class IndexedStoreTest
+{
+    private static final List<String> CONTENTS = Arrays.asList("apple", "avocado", "banana", "blueberry", "cherry", "x");
+
+    private static IndexedStore<String> createStore()
+    {
+        final Map<String, Function<String, ?>> extractors = new HashMap<>();
+        extractors.put("first", s -> s.charAt(0));
+        // short strings are left out of this index
+        extractors.put("length", s -> s.length() > 1 ? s.length() : null);
+
+        return new IndexedStore<>(CONTENTS, extractors);
+    }
+
+    /**
+     * Counts the objects it is asked to match.
+     */
+    private static final class CountingSelector
+        implements IndexedSelector<String>
+    {
+        private final String indexName;
+        private final Object key;
+        private final String prefix;
+        private int count;
+
+        CountingSelector(final String indexName, final Object key, final String prefix)
+        {
+            this.indexName = indexName;
+            this.key = key;
+            this.prefix = prefix;
+        }
+
+        @Override
+        public String getIndexName()
+        {
+            return indexName;
+        }
+
+        @Override
+        public Object getIndexKey()
+        {
+            return key;
+        }
+
+        @Override
+        public boolean match(final String obj)
+        {
+            count++;
+            return obj.startsWith(prefix);
+        }
+
+        @Override
+        public Object clone()
+        {
+            return this;
+        }
+    }
+
+    @Test
+    public void testIndexLookup()
+    {
+        final IndexedStore<String> store = createStore();
+
+        assertThat(new ArrayList<>(store.getMatches(store.select("first", 'b'))), is(Arrays.asList("banana", "blueberry")));
+        assertThat(new ArrayList<>(store.getMatches(store.select("length", 6))), is(Arrays.asList("banana", "cherry")));
+        assertThat(store.getMatches(store.select("first", 'z')).isEmpty(), is(true));
+        assertThat(store.getMatches(store.select("length", 1)).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testOnlyCandidatesMatched()
+    {
+        final IndexedStore<String> store = createStore();
+
+        final CountingSelector indexed = new CountingSelector("first", 'a', "av");
+        assertThat(new ArrayList<>(store.getMatches(indexed)), is(Arrays.asList("avocado")));
+        assertThat(indexed.count, is(2));
+
+        // no key, or an index the store does not have: every object is tested
+        final CountingSelector noKey = new CountingSelector("first", null, "b");
+        assertThat(store.getMatches(noKey).size(), is(2));
+        assertThat(noKey.count, is(CONTENTS.size()));
+
+        final CountingSelector unknown = new CountingSelector("last", 'a', "c");
+        assertThat(store.getMatches(unknown).size(), is(1));
+        assertThat(unknown.count, is(CONTENTS.size()));
+    }
+
+    @Test
+    public void testPlainSelector()
+    {
+        final IndexedStore<String> store = createStore();
+        final Selector<String> selector = new Selector<String>()
+        {
+            @Override
+            public boolean match(final String obj)
+            {
+                return obj.contains("rr");
+            }
+
+            @Override
+            public Object clone()
+            {
+                return this;
+            }
+        };
+
+        assertThat(new ArrayList<>(store.getMatches(selector)), is(Arrays.asList("blueberry", "cherry")));
+        assertThat(new ArrayList<>(store.getMatches(null)), is(CONTENTS));
+    }
+
+    @Test
+    public void testSnapshots()
+    {
+        final IndexedStore<String> store = createStore();
+        final Iterator<String> it = store.iterator();
+
+        store.replace(Arrays.asList("date", "damson"));
+        store.addAll(Arrays.asList("durian"));
+
+        // the iteration continues on the contents when it started
+        int count = 0;
+        while (it.hasNext())
+        {
+            it.next();
+            count++;
+        }
+        assertThat(count, is(CONTENTS.size()));
+
+        assertThat(store.size(), is(3));
+        assertThat(store.getMatches(store.select("first", 'd')).size(), is(3));
+        assertThat(store.getMatches(store.select("first", 'a')).isEmpty(), is(true));
+
+        try
+        {
+            store.getMatches(null).clear();
+            fail("no exception");
+        }
+        catch (final UnsupportedOperationException e)
+        {
+            // expected
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownIndex()
+    {
+        createStore().select("last", 'a');
+    }
+}
@@ -0,0 +1,145 @@
+package com.github.gv2011.asn1;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import static com.github.gv2011.testutil.Matchers.hasClass;
+import static com.github.gv2011.testutil.Matchers.is;
+import static com.github.gv2011.util.bytes.ByteUtils.parseHex;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.github.gv2011.util.bytes.Bytes;
+
+public class LazyEncodedSequenceTest
+{
+    private static ASN1Sequence lazy(final Bytes encoding)
+    {
+        final ASN1Primitive result = new ASN1BufferParser(encoding, true).readObject();
+        assertThat(result, hasClass(LazyEncodedSequence.class));
+        return (ASN1Sequence)result;
+    }
+
+    @Test
+    public void testIndexedAccessDoesNotParsePredecessors()
+    {
+        // the first member is a malformed BOOLEAN, only parsed when accessed
+        final ASN1Sequence seq = lazy(parseHex("30 07 01 00 02 01 05 05 00"));
+        assertThat(seq.size(), is(3));
+        assertThat(seq.getObjectAt(2), is(DERNull.INSTANCE));
+        assertThat(seq.getObjectAt(1), is(new ASN1Integer(5)));
+        try
+        {
+            seq.getObjectAt(0);
+            fail();
+        }
+        catch (final ASN1ParsingException e)
+        {
+            assertThat(e.getCause().getMessage(), is("BOOLEAN value should have 1 byte in it"));
+        }
+        assertThat(seq.getEncoded(), is(parseHex("30 07 01 00 02 01 05 05 00")));
+    }
+
+    @Test
+    public void testSameAsEagerSequence()
+    {
+        final ASN1EncodableVector v = new ASN1EncodableVector();
+        v.add(new ASN1Integer(1));
+        v.add(new DERSequence(new ASN1Encodable[] {new DERUTF8String("a"), new DEROctetString(parseHex("0102"))}));
+        v.add(new DERTaggedObject(true, 0, new ASN1Integer(2)));
+        final DLSequence expected = new DLSequence(v);
+        final ASN1Sequence seq = lazy(expected.getEncoded());
+
+        assertThat(seq.size(), is(3));
+        assertThat(seq, is((ASN1Sequence)expected));
+        assertThat(seq.hashCode(), is(expected.hashCode()));
+        assertThat(seq.toString(), is(expected.toString()));
+        assertThat(seq.getDerEncoded(), is(expected.getDerEncoded()));
+        assertSame(seq.getObjectAt(1), seq.toArray()[1]);
+        assertThat(lazy(new DLSequence().getEncoded()).size(), is(0));
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception
+    {
+        final ASN1EncodableVector v = new ASN1EncodableVector();
+        for (int i = 0; i != 200; i++)
+        {
+            v.add(new DERSequence(new ASN1Integer(i)));
+        }
+        final ASN1Sequence seq = lazy(new DLSequence(v).getEncoded());
+
+        final int threads = 8;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try
+        {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<ASN1Encodable[]>> results = new ArrayList<>();
+            for (int t = 0; t != threads; t++)
+            {
+                final int offset = t;
+                results.add(executor.submit(()->{
+                    start.await();
+                    final ASN1Encodable[] seen = new ASN1Encodable[seq.size()];
+                    for (int i = 0; i != seen.length; i++)
+                    {
+                        final int index = (i + offset * 25) % seen.length;
+                        seen[index] = seq.getObjectAt(index);
+                    }
+                    return seen;
+                }));
+            }
+            start.countDown();
+            final ASN1Encodable[] first = results.get(0).get();
+            for (final Future<ASN1Encodable[]> result : results)
+            {
+                final ASN1Encodable[] seen = result.get();
+                for (int i = 0; i != seen.length; i++)
+                {
+                    assertSame(first[i], seen[i]);
+                    assertThat(seen[i], is((ASN1Encodable)new DERSequence(new ASN1Integer(i))));
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+}
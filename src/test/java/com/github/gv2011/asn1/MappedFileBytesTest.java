@@ -0,0 +1,127 @@
+package com.github.gv2011.asn1;
+
+/*-
+ * #%L
+ * Vinz ASN.1
+ * %%
+ * Copyright (C) 2016 - 2017 Vinz (https://github.com/gv2011)
+ * %%
+ * Please note this should be read in the same way as the MIT license. (https://www.bouncycastle.org/licence.html)
+ *
+ * Copyright (c) 2000-2015 The Legion of the Bouncy Castle Inc. (http://www.bouncycastle.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * #L%
+ */
+
+
+import static com.github.gv2011.testutil.Matchers.hasClass;
+import static com.github.gv2011.testutil.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Test;
+
+import com.github.gv2011.asn1.util.io.ByteBufferBytes;
+import com.github.gv2011.asn1.util.io.MappedFileBytes;
+import com.github.gv2011.util.bytes.Bytes;
+
+public class MappedFileBytesTest
+{
+    private static final int SEGMENT_SIZE = 1024;
+
+    private static Bytes sample()
+    {
+        final ASN1EncodableVector entries = new ASN1EncodableVector();
+        for (int i = 0; i != 1000; i++)
+        {
+            entries.add(new DERSequence(new ASN1Encodable[] {
+                new ASN1Integer(i), new DEROctetString(ByteBufferBytes.wrap(new byte[i % 50]))}));
+        }
+        return new DERSequence(new ASN1Encodable[] {new ASN1Integer(1), new DERSequence(entries)}).getEncoded();
+    }
+
+    private static MappedFileBytes map(final Bytes content, final long position) throws IOException
+    {
+        final Path file = Files.createTempFile("asn1", ".der");
+        // a mapped file cannot be deleted on all platforms
+        file.toFile().deleteOnExit();
+        Files.write(file, new byte[(int)position]);
+        Files.write(file, content.toByteArray(), StandardOpenOption.APPEND);
+        try(final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            return MappedFileBytes.map(channel, position, content.longSize(), SEGMENT_SIZE);
+        }
+    }
+
+    @Test
+    public void testContent() throws IOException
+    {
+        final Bytes expected = sample();
+        final MappedFileBytes mapped = map(expected, 100);
+        assertThat(mapped.longSize(), is(expected.longSize()));
+        assertThat(mapped, is(expected));
+        assertThat(mapped.hashCode(), is(expected.hashCode()));
+        assertThat(mapped.toByteArray(), is(expected.toByteArray()));
+
+        final Bytes within = mapped.subList(SEGMENT_SIZE + 10, SEGMENT_SIZE + 20);
+        assertThat(within, hasClass(ByteBufferBytes.class));
+        assertThat(within, is(expected.subList(SEGMENT_SIZE + 10, SEGMENT_SIZE + 20)));
+
+        final Bytes across = mapped.subList(SEGMENT_SIZE - 10, 3 * SEGMENT_SIZE + 10);
+        assertThat(across, hasClass(MappedFileBytes.class));
+        assertThat(across, is(expected.subList(SEGMENT_SIZE - 10, 3 * SEGMENT_SIZE + 10)));
+        assertThat(across.subList(5, 15), is(expected.subList(SEGMENT_SIZE - 5, SEGMENT_SIZE + 5)));
+
+        final byte[] streamed = new byte[(int)expected.longSize()];
+        int off = 0;
+        int read;
+        try(final java.io.InputStream in = mapped.openStream())
+        {
+            while ((read = in.read(streamed, off, streamed.length - off)) > 0)
+            {
+                off += read;
+            }
+        }
+        assertThat(off, is(streamed.length));
+        assertThat(streamed, is(expected.toByteArray()));
+    }
+
+    @Test
+    public void testIterateEntries() throws IOException
+    {
+        final MappedFileBytes mapped = map(sample(), 0);
+        final ASN1PullParser parser = new ASN1PullParser(mapped);
+        assertThat(ASN1Path.compile("[1]").find(parser), is(true));
+        int count = 0;
+        while (parser.next() != ASN1PullParser.END_CONSTRUCTED)
+        {
+            final ASN1Sequence entry = (ASN1Sequence)parser.readObject();
+            assertThat(entry.getObjectAt(0), is(new ASN1Integer(count)));
+            assertThat(((ASN1OctetString)entry.getObjectAt(1)).getOctets().size(), is(count % 50));
+            count++;
+        }
+        assertThat(count, is(1000));
+        assertThat(parser.next(), is(ASN1PullParser.END_CONSTRUCTED));
+        assertThat(parser.next(), is(ASN1PullParser.END_DOCUMENT));
+    }
+}
@@ -29,12 +29,16 @@ package com.github.gv2011.asn1;
  */
 
 
+import static com.github.gv2011.testutil.Matchers.is;
 import static org.junit.Assert.*;
 
+import java.io.IOException;
+
 import org.junit.Ignore;
 import org.junit.Test;
 
 import com.github.gv2011.asn1.ASN1ObjectIdentifier;
+import com.github.gv2011.asn1.util.io.ByteBufferBytes;
 import com.github.gv2011.asn1.util.test.SimpleTest;
 import com.github.gv2011.asn1.util.test.TestResult;
 import com.github.gv2011.util.bytes.Bytes;
@@ -69,4 +73,31 @@ public class ObjectIdentifierTest
         final TestResult result = test.perform();
         assertTrue(result.isSuccessful());
     }
+
+    @Test
+    public void testDecodedInstancesAreShared() throws IOException{
+        final Bytes encoded = new ASN1ObjectIdentifier("1.2.840.113549.1.1.11").getEncoded();
+        final ASN1ObjectIdentifier first = ASN1ObjectIdentifier.getInstance(encoded);
+        assertSame(first, ASN1ObjectIdentifier.getInstance(encoded));
+        try(ASN1InputStream in = new ASN1InputStream(encoded))
+        {
+            assertSame(first, in.readObject());
+        }
+        assertThat(first.getId(), is("1.2.840.113549.1.1.11"));
+    }
+
+    @Test
+    public void testInternedInstanceIsReturned(){
+        final ASN1ObjectIdentifier oid = new ASN1ObjectIdentifier("1.3.6.1.4.1.99999.42").intern();
+        assertSame(oid, ASN1ObjectIdentifier.getInstance(oid.getEncoded()));
+    }
+
+    @Test
+    public void testCachedContentsAreCopied(){
+        final byte[] data = new byte[]{0x06, 0x03, 0x2a, 0x03, 0x04, 0x05};
+        final ASN1ObjectIdentifier oid = ASN1ObjectIdentifier.getInstance(ByteBufferBytes.wrap(data, 0, 5));
+        data[4] = 0x07;
+        assertThat(oid.getId(), is("1.2.3.4"));
+        assertThat(oid.getEncoded(), is(new ASN1ObjectIdentifier("1.2.3.4").getEncoded()));
+    }
 }
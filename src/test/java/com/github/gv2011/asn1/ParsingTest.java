@@ -87,6 +87,12 @@ public class ParsingTest{
     while(aIn.readObject()!=null);
   }
 
+  @Test(expected=ASN1ParsingException.class)
+  public void bufferParserTest() {
+    final ASN1BufferParser aIn = new ASN1BufferParser(in);
+    while(aIn.readObject()!=null);
+  }
+
   @Test(expected = ASN1ParsingException.class)
   public void inputStreamTest() throws IOException {
     try(final ASN1InputStream aIn = new ASN1InputStream(in.openStream())){
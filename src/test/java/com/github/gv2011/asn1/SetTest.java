@@ -29,6 +29,8 @@ package com.github.gv2011.asn1;
  */
 
 
+import org.junit.Test;
+
 import com.github.gv2011.asn1.ASN1Boolean;
 import com.github.gv2011.asn1.ASN1EncodableVector;
 import com.github.gv2011.asn1.ASN1Integer;
@@ -70,6 +72,7 @@ public class SetTest
         fail("sorting failed on attempt: " + attempt);
     }
 
+    @Test
     @Override
     public void performTest()
     {
@@ -138,6 +141,48 @@ public class SetTest
         v.add(ASN1Boolean.getInstance(true));
 
         s = new DERSet(v);
+
+        // larger set, members added in scrambled order
+        v = new ASN1EncodableVector();
+        for (int i = 0; i != 1000; i++)
+        {
+            v.add(new ASN1Integer((i * 7919) % 1000 - 500));
+        }
+
+        s = new DERSet(v);
+
+        Bytes last = s.getObjectAt(0).toASN1Primitive().getEncoded();
+        for (int i = 1; i != s.size(); i++)
+        {
+            final Bytes next = s.getObjectAt(i).toASN1Primitive().getEncoded();
+            if (!isLessUnsigned(last, next))
+            {
+                fail("large set not sorted at " + i);
+            }
+            last = next;
+        }
+
+        // presorted members keep their order and are not sorted again
+        final DERSet presorted = DERSet.fromSorted(s.toArray());
+
+        if (!presorted.getEncoded().equals(s.getEncoded()))
+        {
+            fail("presorted set encoding differs.");
+        }
+
+        v = new ASN1EncodableVector();
+        v.add(new ASN1Integer(100));
+        v.add(ASN1Boolean.getInstance(true));
+
+        if (!(DERSet.fromSorted(v).getObjectAt(0) instanceof ASN1Integer))
+        {
+            fail("presorted set was sorted.");
+        }
+    }
+
+    private static boolean isLessUnsigned(final Bytes a, final Bytes b)
+    {
+        return java.util.Arrays.compareUnsigned(a.toByteArray(), b.toByteArray()) <= 0;
     }
 
     public static void main(
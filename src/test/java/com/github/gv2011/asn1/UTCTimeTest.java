@@ -29,9 +29,13 @@ package com.github.gv2011.asn1;
  */
 
 
+import static com.github.gv2011.testutil.Matchers.is;
+import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
 import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.util.SimpleTimeZone;
 
 import org.junit.Test;
@@ -122,4 +126,29 @@ public class UTCTimeTest {
     }
   }
 
+  @Test
+  public void testJavaTime() throws Exception {
+    for (int i = 0; i != input.length; i++) {
+      final ASN1UTCTime t = new ASN1UTCTime(input[i]);
+
+      assertThat(t.toEpochMilli(), is(t.getAdjustedDate().getTime()));
+      assertThat(t.toInstant().toEpochMilli(), is(t.getAdjustedDate().getTime()));
+      assertThat(t.toOffsetDateTime().toInstant(), is(t.toInstant()));
+    }
+    assertThat(new ASN1UTCTime("491231235959Z").toInstant(), is(Instant.parse("2049-12-31T23:59:59Z")));
+    assertThat(new ASN1UTCTime("500101000000Z").toInstant(), is(Instant.parse("1950-01-01T00:00:00Z")));
+    assertThat(new ASN1UTCTime("0201221222-1000").toOffsetDateTime().getOffset(), is(ZoneOffset.ofHours(-10)));
+  }
+
+  @Test
+  public void testFromInstant() {
+    assertThat(new ASN1UTCTime(Instant.parse("2002-01-22T12:22:20.999Z")).toString(), is("020122122220Z"));
+    assertThat(new ASN1UTCTime(Instant.parse("1955-01-22T12:22:00Z")).toString(), is("550122122200Z"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInstantOutOfRange() {
+    new ASN1UTCTime(Instant.parse("2050-01-01T00:00:00Z"));
+  }
+
 }